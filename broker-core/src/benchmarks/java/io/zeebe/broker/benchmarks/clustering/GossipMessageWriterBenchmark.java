@@ -0,0 +1,67 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.benchmarks.clustering;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.zeebe.broker.clustering.gossip.message.util.GossipMessageWriter;
+
+/**
+ * Measures writing a gossip message with all information of the peers and
+ * with digests of the peers, as the transport does (length and content).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 20, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+public class GossipMessageWriterBenchmark
+{
+
+    @Benchmark
+    @Threads(1)
+    public int writePeers(GossipMessageWriterContext ctx)
+    {
+        final GossipMessageWriter writer = ctx.getWriter().peers(ctx.getPeers());
+
+        final int length = writer.getLength();
+        writer.write(ctx.getWriteBuffer(), 0);
+
+        return length;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int writePeerDigests(GossipMessageWriterContext ctx)
+    {
+        final GossipMessageWriter writer = ctx.getWriter().peerDigests(ctx.getPeers(), ctx.getLocalPeer());
+
+        final int length = writer.getLength();
+        writer.write(ctx.getWriteBuffer(), 0);
+
+        return length;
+    }
+
+}
@@ -0,0 +1,119 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.benchmarks.clustering;
+
+import static io.zeebe.util.buffer.BufferUtil.wrapString;
+
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import io.zeebe.broker.clustering.gossip.data.Peer;
+import io.zeebe.broker.clustering.gossip.data.PeerList;
+import io.zeebe.broker.clustering.gossip.data.RaftMembership;
+import io.zeebe.broker.clustering.gossip.message.util.GossipMessageWriter;
+import io.zeebe.clustering.gossip.RaftMembershipState;
+
+/**
+ * A peer list of the given size whose peers are members of the partitions of
+ * some topics.
+ */
+@State(Scope.Thread)
+public class GossipMessageWriterContext
+{
+    private static final int TOPICS_PER_PEER = 10;
+
+    @Param({"10", "100"})
+    protected int peerCount;
+
+    protected PeerList peers;
+    protected Peer localPeer;
+
+    protected final GossipMessageWriter writer = new GossipMessageWriter();
+    protected MutableDirectBuffer writeBuffer;
+
+    @Setup
+    public void setUp()
+    {
+        peers = new PeerList(peerCount);
+
+        for (int i = 0; i < peerCount; i++)
+        {
+            peers.append(newPeer(i));
+        }
+
+        localPeer = newPeer(0);
+
+        writeBuffer = new UnsafeBuffer(new byte[writer.peers(peers).getLength()]);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        peers.close();
+    }
+
+    protected static Peer newPeer(int id)
+    {
+        final Peer peer = new Peer();
+
+        peer.clientEndpoint().host("broker-" + id).port(51015);
+        peer.managementEndpoint().host("broker-" + id).port(51016);
+        peer.replicationEndpoint().host("broker-" + id).port(51017);
+
+        peer.heartbeat().generation(1L).version(0);
+
+        for (int i = 0; i < TOPICS_PER_PEER; i++)
+        {
+            final DirectBuffer topicName = wrapString("topic-" + i);
+
+            peer.raftMemberships().add(new RaftMembership()
+                .topicName(topicName, 0, topicName.capacity())
+                .partitionId(id)
+                .term(1)
+                .state(RaftMembershipState.FOLLOWER));
+        }
+
+        return peer.alive();
+    }
+
+    public PeerList getPeers()
+    {
+        return peers;
+    }
+
+    public Peer getLocalPeer()
+    {
+        return localPeer;
+    }
+
+    public GossipMessageWriter getWriter()
+    {
+        return writer;
+    }
+
+    public MutableDirectBuffer getWriteBuffer()
+    {
+        return writeBuffer;
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.benchmarks.incident;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.zeebe.broker.incident.index.IncidentMap;
+
+/**
+ * Measures writing and reading an entry of the {@link IncidentMap}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 10, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 20, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+public class IncidentMapBenchmark
+{
+
+    @Benchmark
+    @Threads(1)
+    public void put(IncidentMapContext ctx)
+    {
+        final long key = ctx.nextKey();
+
+        ctx.getIncidentMap()
+            .newIncident(key)
+            .setState((short) 2)
+            .setIncidentEventPosition(key + 1)
+            .setFailureEventPosition(key + 1)
+            .write();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void get(IncidentMapContext ctx, Blackhole blackhole)
+    {
+        final IncidentMap incidentMap = ctx.getIncidentMap().wrapIncidentKey(ctx.nextKey());
+
+        blackhole.consume(incidentMap.getState());
+        blackhole.consume(incidentMap.getFailureEventPosition());
+    }
+
+}
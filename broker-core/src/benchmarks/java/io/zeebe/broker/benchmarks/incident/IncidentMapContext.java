@@ -0,0 +1,74 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.benchmarks.incident;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import io.zeebe.broker.incident.index.IncidentMap;
+
+/**
+ * An incident map which contains the given number of incidents. The keys are
+ * accessed round-robin.
+ */
+@State(Scope.Thread)
+public class IncidentMapContext
+{
+    @Param({"1000", "100000"})
+    protected int incidents;
+
+    protected IncidentMap incidentMap;
+    protected long nextKey = 0;
+
+    @Setup
+    public void setUp()
+    {
+        incidentMap = new IncidentMap();
+
+        for (long key = 0; key < incidents; key++)
+        {
+            incidentMap
+                .newIncident(key)
+                .setState((short) 1)
+                .setIncidentEventPosition(key)
+                .setFailureEventPosition(key)
+                .write();
+        }
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        incidentMap.close();
+    }
+
+    public IncidentMap getIncidentMap()
+    {
+        return incidentMap;
+    }
+
+    public long nextKey()
+    {
+        final long key = nextKey;
+        nextKey = (nextKey + 1) % incidents;
+        return key;
+    }
+}
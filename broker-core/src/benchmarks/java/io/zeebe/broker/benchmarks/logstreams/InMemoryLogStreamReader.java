@@ -0,0 +1,110 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.benchmarks.logstreams;
+
+import java.util.List;
+
+import io.zeebe.logstreams.log.LogStream;
+import io.zeebe.logstreams.log.LogStreamReader;
+import io.zeebe.logstreams.log.LoggedEvent;
+
+/**
+ * Reads the given events by their position, like a reader of a log stream.
+ */
+public class InMemoryLogStreamReader implements LogStreamReader
+{
+    private final List<LoggedEvent> events;
+    private int index = 0;
+
+    public InMemoryLogStreamReader(List<LoggedEvent> events)
+    {
+        this.events = events;
+    }
+
+    @Override
+    public boolean seek(long position)
+    {
+        for (int i = 0; i < events.size(); i++)
+        {
+            if (events.get(i).getPosition() >= position)
+            {
+                index = i;
+                return events.get(i).getPosition() == position;
+            }
+        }
+
+        index = events.size();
+        return false;
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+        return index < events.size();
+    }
+
+    @Override
+    public LoggedEvent next()
+    {
+        return events.get(index++);
+    }
+
+    @Override
+    public void wrap(LogStream logStream)
+    {
+    }
+
+    @Override
+    public void wrap(LogStream logStream, long position)
+    {
+    }
+
+    @Override
+    public void seekToFirstEvent()
+    {
+        index = 0;
+    }
+
+    @Override
+    public void seekToLastEvent()
+    {
+        index = events.size() - 1;
+    }
+
+    @Override
+    public long getPosition()
+    {
+        return events.get(index).getPosition();
+    }
+
+    @Override
+    public boolean isClosed()
+    {
+        return false;
+    }
+
+    @Override
+    public void reOpen(LogStream logStream)
+    {
+    }
+
+    @Override
+    public void close()
+    {
+    }
+}
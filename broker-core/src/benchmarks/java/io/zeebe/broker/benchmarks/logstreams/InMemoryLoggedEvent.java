@@ -0,0 +1,162 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.benchmarks.logstreams;
+
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import io.zeebe.logstreams.log.LoggedEvent;
+import io.zeebe.protocol.clientapi.EventType;
+import io.zeebe.protocol.impl.BrokerEventMetadata;
+import io.zeebe.util.buffer.BufferReader;
+import io.zeebe.util.buffer.BufferWriter;
+
+/**
+ * A logged event which is backed by separate buffers for metadata and value.
+ */
+public class InMemoryLoggedEvent implements LoggedEvent
+{
+    private final long position;
+    private final DirectBuffer metadata;
+    private final DirectBuffer value;
+
+    public InMemoryLoggedEvent(long position, DirectBuffer metadata, DirectBuffer value)
+    {
+        this.position = position;
+        this.metadata = metadata;
+        this.value = value;
+    }
+
+    /**
+     * Creates an event of the given type with the written value.
+     */
+    public static InMemoryLoggedEvent create(long position, EventType eventType, BufferWriter valueWriter)
+    {
+        final BrokerEventMetadata metadata = new BrokerEventMetadata();
+        metadata.eventType(eventType);
+
+        final UnsafeBuffer metadataBuffer = new UnsafeBuffer(new byte[metadata.getLength()]);
+        metadata.write(metadataBuffer, 0);
+
+        final UnsafeBuffer valueBuffer = new UnsafeBuffer(new byte[valueWriter.getLength()]);
+        valueWriter.write(valueBuffer, 0);
+
+        return new InMemoryLoggedEvent(position, metadataBuffer, valueBuffer);
+    }
+
+    @Override
+    public long getPosition()
+    {
+        return position;
+    }
+
+    @Override
+    public long getKey()
+    {
+        return position;
+    }
+
+    @Override
+    public int getSourceEventLogStreamTopicNameOffset()
+    {
+        return 0;
+    }
+
+    @Override
+    public short getSourceEventLogStreamTopicNameLength()
+    {
+        return 0;
+    }
+
+    @Override
+    public DirectBuffer getSourceEventLogStreamTopicName()
+    {
+        return null;
+    }
+
+    @Override
+    public void readSourceEventLogStreamTopicName(BufferReader reader)
+    {
+    }
+
+    @Override
+    public int getSourceEventLogStreamPartitionId()
+    {
+        return -1;
+    }
+
+    @Override
+    public long getSourceEventPosition()
+    {
+        return -1L;
+    }
+
+    @Override
+    public int getProducerId()
+    {
+        return -1;
+    }
+
+    @Override
+    public DirectBuffer getMetadata()
+    {
+        return metadata;
+    }
+
+    @Override
+    public int getMetadataOffset()
+    {
+        return 0;
+    }
+
+    @Override
+    public short getMetadataLength()
+    {
+        return (short) metadata.capacity();
+    }
+
+    @Override
+    public void readMetadata(BufferReader reader)
+    {
+        reader.wrap(metadata, 0, metadata.capacity());
+    }
+
+    @Override
+    public DirectBuffer getValueBuffer()
+    {
+        return value;
+    }
+
+    @Override
+    public int getValueOffset()
+    {
+        return 0;
+    }
+
+    @Override
+    public int getValueLength()
+    {
+        return value.capacity();
+    }
+
+    @Override
+    public void readValue(BufferReader reader)
+    {
+        reader.wrap(value, 0, value.capacity());
+    }
+}
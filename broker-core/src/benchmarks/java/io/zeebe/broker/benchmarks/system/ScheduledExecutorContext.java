@@ -0,0 +1,98 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.benchmarks.system;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import io.zeebe.broker.system.executor.ScheduledExecutorImpl;
+import io.zeebe.util.time.ClockUtil;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Drives the executor on the benchmark thread instead of an actor scheduler
+ * and controls the clock, so that each iteration is deterministic.
+ */
+@State(Scope.Thread)
+public class ScheduledExecutorContext
+{
+    private static final Duration ONE_MILLISECOND = Duration.ofMillis(1);
+
+    // the capacity of the command queue of the executor
+    private static final int SCHEDULE_BATCH_SIZE = 100;
+
+    @Param({"10000"})
+    protected int scheduledCommands;
+
+    protected BenchmarkExecutor executor;
+
+    protected long invocations = 0;
+    protected final Runnable command = () -> invocations++;
+
+    @Setup
+    public void setUp() throws Exception
+    {
+        ClockUtil.setCurrentTime(Instant.now());
+
+        executor = new BenchmarkExecutor();
+
+        for (int i = 0; i < scheduledCommands; i++)
+        {
+            // periods between 1 and 60 seconds like lock expiration checks or gossip intervals
+            final Duration period = Duration.ofMillis(1_000 + (i * 7_919L) % 59_000);
+            executor.scheduleAtFixedRate(command, period, period);
+
+            if ((i + 1) % SCHEDULE_BATCH_SIZE == 0)
+            {
+                executor.doWork();
+            }
+        }
+
+        executor.doWork();
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        ClockUtil.reset();
+    }
+
+    public int advanceClockAndDoWork() throws Exception
+    {
+        ClockUtil.addTime(ONE_MILLISECOND);
+
+        return executor.doWork();
+    }
+
+    /**
+     * Runs on the calling thread without being scheduled as actor.
+     */
+    protected static class BenchmarkExecutor extends ScheduledExecutorImpl
+    {
+        BenchmarkExecutor()
+        {
+            super(null);
+
+            isRunning.set(true);
+        }
+    }
+}
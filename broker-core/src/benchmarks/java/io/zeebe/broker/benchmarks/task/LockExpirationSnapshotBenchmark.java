@@ -0,0 +1,70 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.benchmarks.task;
+
+import java.io.ByteArrayInputStream;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import io.zeebe.broker.benchmarks.task.LockExpirationSnapshotContext.ExpirationTimeBucket;
+import io.zeebe.broker.task.map.TaskLockSnapshotSupport;
+import io.zeebe.logstreams.snapshot.SerializableWrapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the recovery of the task lock expiration state from a snapshot
+ * which is written by java serialization and from the binary snapshot of the
+ * lock map and the expiration queue.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class LockExpirationSnapshotBenchmark
+{
+
+    @Benchmark
+    @Threads(1)
+    public HashMap<Long, ExpirationTimeBucket> recoverFromSerializedSnapshot(LockExpirationSnapshotContext ctx) throws Exception
+    {
+        final SerializableWrapper<HashMap<Long, ExpirationTimeBucket>> snapshotSupport = new SerializableWrapper<>(new HashMap<>());
+
+        snapshotSupport.recoverFromSnapshot(new ByteArrayInputStream(ctx.getSerializedSnapshot()));
+
+        return snapshotSupport.getObject();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public TaskLockSnapshotSupport recoverFromSnapshot(LockExpirationSnapshotContext ctx) throws Exception
+    {
+        final TaskLockSnapshotSupport snapshotSupport = ctx.getRecoveredSnapshotSupport();
+
+        snapshotSupport.reset();
+        snapshotSupport.recoverFromSnapshot(new ByteArrayInputStream(ctx.getSnapshot()));
+
+        return snapshotSupport;
+    }
+
+}
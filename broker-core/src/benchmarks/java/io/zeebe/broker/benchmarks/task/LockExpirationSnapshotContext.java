@@ -0,0 +1,125 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.benchmarks.task;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Serializable;
+import java.util.HashMap;
+
+import io.zeebe.broker.task.map.TaskLockExpirationQueue;
+import io.zeebe.broker.task.map.TaskLockMap;
+import io.zeebe.broker.task.map.TaskLockSnapshotSupport;
+import io.zeebe.logstreams.snapshot.SerializableWrapper;
+import io.zeebe.logstreams.spi.SnapshotSupport;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+@State(Scope.Benchmark)
+public class LockExpirationSnapshotContext
+{
+    @Param({"1000000"})
+    protected int lockedTasks;
+
+    protected byte[] serializedSnapshot;
+    protected byte[] snapshot;
+
+    protected TaskLockMap recoveredLockMap;
+    protected TaskLockExpirationQueue recoveredExpirationQueue;
+    protected TaskLockSnapshotSupport recoveredSnapshotSupport;
+
+    @Setup
+    public void setUp() throws Exception
+    {
+        final long lockTime = System.currentTimeMillis();
+
+        // the previous format - a hash map of objects written by java serialization
+        final HashMap<Long, ExpirationTimeBucket> index = new HashMap<>();
+        final TaskLockMap lockMap = new TaskLockMap();
+        final TaskLockExpirationQueue expirationQueue = new TaskLockExpirationQueue(lockedTasks);
+
+        for (int i = 0; i < lockedTasks; i++)
+        {
+            index.put((long) i, new ExpirationTimeBucket(i, lockTime + i));
+
+            lockMap
+                .newTaskInstance(i)
+                .setLockTime(lockTime + i)
+                .setEventPosition(i)
+                .write();
+
+            expirationQueue.add(lockTime + i, i, i);
+        }
+
+        serializedSnapshot = writeSnapshot(new SerializableWrapper<>(index));
+        snapshot = writeSnapshot(new TaskLockSnapshotSupport(lockMap, expirationQueue));
+
+        lockMap.close();
+        expirationQueue.close();
+
+        recoveredLockMap = new TaskLockMap();
+        recoveredExpirationQueue = new TaskLockExpirationQueue(lockedTasks);
+        recoveredSnapshotSupport = new TaskLockSnapshotSupport(recoveredLockMap, recoveredExpirationQueue);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        recoveredLockMap.close();
+        recoveredExpirationQueue.close();
+    }
+
+    protected byte[] writeSnapshot(SnapshotSupport snapshotSupport) throws Exception
+    {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        snapshotSupport.writeSnapshot(outputStream);
+
+        return outputStream.toByteArray();
+    }
+
+    public byte[] getSerializedSnapshot()
+    {
+        return serializedSnapshot;
+    }
+
+    public byte[] getSnapshot()
+    {
+        return snapshot;
+    }
+
+    public TaskLockSnapshotSupport getRecoveredSnapshotSupport()
+    {
+        return recoveredSnapshotSupport;
+    }
+
+    public static class ExpirationTimeBucket implements Serializable
+    {
+        private static final long serialVersionUID = 1L;
+
+        protected final long eventPosition;
+        protected final long expirationTime;
+
+        public ExpirationTimeBucket(long eventPosition, long expirationTime)
+        {
+            this.eventPosition = eventPosition;
+            this.expirationTime = expirationTime;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.benchmarks.task;
+
+import static io.zeebe.util.buffer.BufferUtil.wrapString;
+
+import org.agrona.DirectBuffer;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import io.zeebe.broker.task.map.TaskInstanceMap;
+
+/**
+ * A task instance map which contains the given number of task instances. The
+ * keys are accessed round-robin.
+ */
+@State(Scope.Thread)
+public class TaskInstanceMapContext
+{
+    protected static final DirectBuffer LOCK_OWNER = wrapString("owner");
+
+    @Param({"1000", "100000"})
+    protected int taskInstances;
+
+    protected TaskInstanceMap taskInstanceMap;
+    protected long nextKey = 0;
+
+    @Setup
+    public void setUp()
+    {
+        taskInstanceMap = new TaskInstanceMap();
+
+        for (long key = 0; key < taskInstances; key++)
+        {
+            taskInstanceMap
+                .newTaskInstance(key)
+                .setState((short) 1)
+                .setLockOwner(LOCK_OWNER)
+                .write();
+        }
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        taskInstanceMap.close();
+    }
+
+    public TaskInstanceMap getTaskInstanceMap()
+    {
+        return taskInstanceMap;
+    }
+
+    public DirectBuffer getLockOwner()
+    {
+        return LOCK_OWNER;
+    }
+
+    public long nextKey()
+    {
+        final long key = nextKey;
+        nextKey = (nextKey + 1) % taskInstances;
+        return key;
+    }
+}
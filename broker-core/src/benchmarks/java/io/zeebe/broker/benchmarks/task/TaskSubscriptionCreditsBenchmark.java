@@ -0,0 +1,68 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.benchmarks.task;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import io.zeebe.broker.task.processor.TaskSubscription;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the selection of the subscription which locks the next task while
+ * the workers of 1000 subscriptions return their credits concurrently.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class TaskSubscriptionCreditsBenchmark
+{
+
+    @Benchmark
+    @Group("credits")
+    @GroupThreads(1)
+    public TaskSubscription lockTask(TaskSubscriptionCreditsContext ctx)
+    {
+        return ctx.lockNextTask();
+    }
+
+    @Benchmark
+    @Group("credits")
+    @GroupThreads(3)
+    public TaskSubscription returnCredits(TaskSubscriptionCreditsContext ctx)
+    {
+        final TaskSubscription subscription = ctx.getSubscription(ThreadLocalRandom.current().nextInt(ctx.getWorkers()));
+
+        // a worker returns a credit for each completed task
+        if (subscription.getCredits() < ctx.getTaskFetchSize())
+        {
+            subscription.addCredits(1);
+        }
+
+        return subscription;
+    }
+
+}
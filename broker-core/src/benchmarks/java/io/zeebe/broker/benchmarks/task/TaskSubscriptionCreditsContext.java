@@ -0,0 +1,130 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.benchmarks.task;
+
+import static io.zeebe.util.buffer.BufferUtil.wrapString;
+
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.ManyToOneConcurrentLinkedQueue;
+
+import io.zeebe.broker.task.processor.TaskSubscription;
+import io.zeebe.broker.task.processor.TaskSubscriptions;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Wires the subscriptions like the lock task stream processor: the workers
+ * add credits to their subscriptions and the subscriptions which get credits
+ * again are handed over to the processor by a lock-free queue.
+ */
+@State(Scope.Group)
+public class TaskSubscriptionCreditsContext
+{
+    @Param({"1000"})
+    protected int workers;
+
+    @Param({"4"})
+    protected int taskTypes;
+
+    @Param({"32"})
+    protected int taskFetchSize;
+
+    protected TaskSubscription[] subscriptions;
+    protected TaskSubscriptions[] subscriptionsByTaskType;
+
+    protected final ManyToOneConcurrentLinkedQueue<TaskSubscription> availableSubscriptions = new ManyToOneConcurrentLinkedQueue<>();
+
+    protected int nextTaskType = 0;
+
+    @Setup
+    public void setUp()
+    {
+        final DirectBuffer[] types = new DirectBuffer[taskTypes];
+        subscriptionsByTaskType = new TaskSubscriptions[taskTypes];
+
+        for (int i = 0; i < taskTypes; i++)
+        {
+            types[i] = wrapString("task-" + i);
+            subscriptionsByTaskType[i] = new TaskSubscriptions(workers);
+        }
+
+        subscriptions = new TaskSubscription[workers];
+
+        for (int i = 0; i < workers; i++)
+        {
+            // each worker subscribes to two task types
+            final DirectBuffer[] subscribedTypes = new DirectBuffer[] { types[i % taskTypes], types[(i + 1) % taskTypes] };
+
+            final TaskSubscription subscription = new TaskSubscription(wrapString("topic"), 0, subscribedTypes, 1000L, wrapString("worker-" + i), i);
+            subscription.setSubscriberKey(i);
+            subscription.setCredits(taskFetchSize);
+            subscription.setCreditsListener(availableSubscriptions::offer);
+
+            subscriptions[i] = subscription;
+
+            subscriptionsByTaskType[i % taskTypes].addSubscription(subscription);
+            subscriptionsByTaskType[(i + 1) % taskTypes].addSubscription(subscription);
+        }
+    }
+
+    /**
+     * Selects the subscription for the next task like the lock task stream
+     * processor. Must only be called by one thread.
+     */
+    public TaskSubscription lockNextTask()
+    {
+        TaskSubscription subscription = availableSubscriptions.poll();
+        while (subscription != null)
+        {
+            final int subscriberKey = (int) subscription.getSubscriberKey();
+
+            subscriptionsByTaskType[subscriberKey % taskTypes].onCreditsAvailable(subscription);
+            subscriptionsByTaskType[(subscriberKey + 1) % taskTypes].onCreditsAvailable(subscription);
+
+            subscription = availableSubscriptions.poll();
+        }
+
+        final TaskSubscriptions subscriptions = subscriptionsByTaskType[nextTaskType];
+        nextTaskType = (nextTaskType + 1) % taskTypes;
+
+        final TaskSubscription lockSubscription = subscriptions.getNextAvailableSubscription();
+        if (lockSubscription != null)
+        {
+            lockSubscription.consumeCredit();
+        }
+
+        return lockSubscription;
+    }
+
+    public TaskSubscription getSubscription(int index)
+    {
+        return subscriptions[index];
+    }
+
+    public int getWorkers()
+    {
+        return workers;
+    }
+
+    public int getTaskFetchSize()
+    {
+        return taskFetchSize;
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.benchmarks.transport;
+
+import static io.zeebe.util.buffer.BufferUtil.wrapString;
+
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import io.zeebe.broker.task.data.TaskEvent;
+import io.zeebe.broker.task.data.TaskState;
+import io.zeebe.broker.transport.clientapi.ClientApiMessageHandler;
+import io.zeebe.logstreams.LogStreams;
+import io.zeebe.logstreams.log.LogStream;
+import io.zeebe.protocol.clientapi.EventType;
+import io.zeebe.protocol.clientapi.ExecuteCommandRequestEncoder;
+import io.zeebe.protocol.clientapi.MessageHeaderEncoder;
+import io.zeebe.transport.RemoteAddress;
+import io.zeebe.transport.ServerOutput;
+import io.zeebe.transport.ServerResponse;
+import io.zeebe.transport.SocketAddress;
+import io.zeebe.transport.TransportMessage;
+import io.zeebe.util.actor.ActorScheduler;
+import io.zeebe.util.actor.ActorSchedulerBuilder;
+
+/**
+ * A client api message handler which writes the commands to a log stream in
+ * a temporary directory. The log stream appends the written commands, so that
+ * the handler is not blocked by a full write buffer. The request is a create
+ * task command.
+ */
+@State(Scope.Thread)
+public class ClientApiMessageHandlerContext
+{
+    protected static final DirectBuffer TOPIC_NAME = wrapString("default-topic");
+    protected static final int PARTITION_ID = 0;
+
+    protected static final RemoteAddress REMOTE_ADDRESS = new RemoteAddress(1, new SocketAddress("localhost", 51015));
+
+    protected ActorScheduler actorScheduler;
+    protected LogStream logStream;
+    protected ClientApiMessageHandler messageHandler;
+
+    protected final ServerOutput serverOutput = new DiscardingServerOutput();
+
+    protected final UnsafeBuffer requestBuffer = new UnsafeBuffer(new byte[4096]);
+    protected int requestLength;
+    protected long requestId = 0;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        actorScheduler = ActorSchedulerBuilder.createDefaultScheduler("benchmark");
+
+        logStream = LogStreams.createFsLogStream(TOPIC_NAME, PARTITION_ID)
+            .logRootPath(Files.createTempDirectory("zeebe-benchmark").toString())
+            .actorScheduler(actorScheduler)
+            .deleteOnClose(true)
+            .build();
+
+        logStream.openAsync().join();
+
+        messageHandler = new ClientApiMessageHandler(null);
+        messageHandler.addStream(logStream);
+
+        requestLength = writeCommandRequest();
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        logStream.closeAsync().join();
+        actorScheduler.close();
+    }
+
+    protected int writeCommandRequest()
+    {
+        final TaskEvent taskEvent = new TaskEvent()
+            .setState(TaskState.CREATE)
+            .setType(wrapString("task-type"))
+            .setRetries(3);
+
+        final UnsafeBuffer command = new UnsafeBuffer(new byte[taskEvent.getLength()]);
+        taskEvent.write(command, 0);
+
+        final MessageHeaderEncoder headerEncoder = new MessageHeaderEncoder();
+        final ExecuteCommandRequestEncoder commandRequestEncoder = new ExecuteCommandRequestEncoder();
+
+        headerEncoder.wrap(requestBuffer, 0)
+            .blockLength(commandRequestEncoder.sbeBlockLength())
+            .schemaId(commandRequestEncoder.sbeSchemaId())
+            .templateId(commandRequestEncoder.sbeTemplateId())
+            .version(commandRequestEncoder.sbeSchemaVersion());
+
+        commandRequestEncoder.wrap(requestBuffer, headerEncoder.encodedLength())
+            .partitionId(PARTITION_ID)
+            .key(ExecuteCommandRequestEncoder.keyNullValue())
+            .eventType(EventType.TASK_EVENT)
+            .putTopicName(TOPIC_NAME, 0, TOPIC_NAME.capacity())
+            .putCommand(command, 0, command.capacity());
+
+        return headerEncoder.encodedLength() + commandRequestEncoder.encodedLength();
+    }
+
+    public ClientApiMessageHandler getMessageHandler()
+    {
+        return messageHandler;
+    }
+
+    public ServerOutput getServerOutput()
+    {
+        return serverOutput;
+    }
+
+    public RemoteAddress getRemoteAddress()
+    {
+        return REMOTE_ADDRESS;
+    }
+
+    public DirectBuffer getRequestBuffer()
+    {
+        return requestBuffer;
+    }
+
+    public int getRequestLength()
+    {
+        return requestLength;
+    }
+
+    public long nextRequestId()
+    {
+        return requestId++;
+    }
+
+    /**
+     * Accepts the error responses without sending them.
+     */
+    protected static class DiscardingServerOutput implements ServerOutput
+    {
+        @Override
+        public boolean sendMessage(TransportMessage transportMessage)
+        {
+            return true;
+        }
+
+        @Override
+        public boolean sendResponse(ServerResponse response)
+        {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.benchmarks.transport;
+
+import java.util.concurrent.TimeUnit;
+
+import org.agrona.DirectBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.zeebe.broker.transport.clientapi.SubscribedEventWriter;
+import io.zeebe.logstreams.log.LoggedEvent;
+import io.zeebe.protocol.clientapi.EventType;
+import io.zeebe.protocol.clientapi.SubscriptionType;
+
+/**
+ * Measures reading and writing an event which is pushed to a topic
+ * subscription, as the push service and the transport do (length and content).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 10, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 20, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+public class SubscribedEventWriterBenchmark
+{
+
+    @Benchmark
+    @Threads(1)
+    public int writeEvent(SubscribedEventWriterContext ctx)
+    {
+        final LoggedEvent event = ctx.getEvent();
+        final DirectBuffer value = ctx.readEventValue();
+
+        final SubscribedEventWriter writer = ctx.getWriter()
+            .topicName(ctx.getTopicName())
+            .partitionId(1)
+            .position(event.getPosition())
+            .key(event.getKey())
+            .subscriberKey(3L)
+            .subscriptionType(SubscriptionType.TOPIC_SUBSCRIPTION)
+            .eventType(EventType.WORKFLOW_INSTANCE_EVENT)
+            .event(value, 0, value.capacity());
+
+        final int length = writer.getLength();
+        writer.write(ctx.getWriteBuffer(), 0);
+
+        return length;
+    }
+
+}
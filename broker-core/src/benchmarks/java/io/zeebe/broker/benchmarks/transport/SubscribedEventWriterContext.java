@@ -0,0 +1,154 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.benchmarks.transport;
+
+import static io.zeebe.util.buffer.BufferUtil.wrapString;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import io.zeebe.broker.benchmarks.logstreams.InMemoryLogStreamReader;
+import io.zeebe.broker.benchmarks.logstreams.InMemoryLoggedEvent;
+import io.zeebe.broker.event.processor.SubscribedEventValueReader;
+import io.zeebe.broker.transport.clientapi.SubscribedEventWriter;
+import io.zeebe.broker.workflow.data.PayloadReferenceResolver;
+import io.zeebe.broker.workflow.data.WorkflowInstanceEvent;
+import io.zeebe.broker.workflow.data.WorkflowInstanceState;
+import io.zeebe.logstreams.log.LoggedEvent;
+import io.zeebe.msgpack.spec.MsgPackWriter;
+import io.zeebe.protocol.clientapi.EventType;
+import io.zeebe.protocol.impl.BrokerEventMetadata;
+
+/**
+ * A workflow instance event which is pushed to a topic subscription. The
+ * event contains its payload or references the payload of a previous event
+ * which is read from an in-memory log.
+ */
+@State(Scope.Thread)
+public class SubscribedEventWriterContext
+{
+    protected static final DirectBuffer TOPIC_NAME = wrapString("default-topic");
+
+    @Param({"false", "true"})
+    protected boolean withPayloadReference;
+
+    protected final List<LoggedEvent> events = new ArrayList<>();
+
+    protected SubscribedEventWriter writer;
+    protected SubscribedEventValueReader eventValueReader;
+    protected final BrokerEventMetadata metadata = new BrokerEventMetadata();
+
+    protected LoggedEvent event;
+    protected MutableDirectBuffer writeBuffer;
+
+    @Setup
+    public void setUp()
+    {
+        final WorkflowInstanceEvent workflowInstanceEvent = new WorkflowInstanceEvent()
+            .setState(WorkflowInstanceState.ACTIVITY_COMPLETED)
+            .setBpmnProcessId(wrapString("process"))
+            .setVersion(1)
+            .setWorkflowKey(1L)
+            .setWorkflowInstanceKey(2L)
+            .setActivityId(wrapString("task"))
+            .setPayload(writePayload());
+
+        events.add(InMemoryLoggedEvent.create(1L, EventType.WORKFLOW_INSTANCE_EVENT, workflowInstanceEvent));
+
+        workflowInstanceEvent.setState(WorkflowInstanceState.SEQUENCE_FLOW_TAKEN);
+        if (withPayloadReference)
+        {
+            workflowInstanceEvent.setPayloadReference(1L);
+        }
+
+        event = InMemoryLoggedEvent.create(2L, EventType.WORKFLOW_INSTANCE_EVENT, workflowInstanceEvent);
+        events.add(event);
+
+        metadata.eventType(EventType.WORKFLOW_INSTANCE_EVENT);
+
+        // the push service of the subscriptions only sets the resolver if payload references are enabled
+        final PayloadReferenceResolver payloadReferenceResolver = withPayloadReference
+                ? new PayloadReferenceResolver(new InMemoryLogStreamReader(events))
+                : null;
+        eventValueReader = new SubscribedEventValueReader(payloadReferenceResolver);
+
+        // the message is written by the benchmark instead of the transport
+        writer = new SubscribedEventWriter(null);
+
+        writeBuffer = new UnsafeBuffer(new byte[64 * 1024]);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        eventValueReader.close();
+    }
+
+    protected DirectBuffer writePayload()
+    {
+        final UnsafeBuffer buffer = new UnsafeBuffer(new byte[4096]);
+        final MsgPackWriter writer = new MsgPackWriter();
+        writer.wrap(buffer, 0);
+
+        writer.writeMapHeader(16);
+        for (int i = 0; i < 16; i++)
+        {
+            writer.writeString(wrapString("key" + i));
+            writer.writeString(wrapString("a value of the workflow instance payload " + i));
+        }
+
+        return new UnsafeBuffer(buffer, 0, writer.getOffset());
+    }
+
+    public SubscribedEventWriter getWriter()
+    {
+        return writer;
+    }
+
+    public LoggedEvent getEvent()
+    {
+        return event;
+    }
+
+    /**
+     * @return the value of the event which is pushed, as the push service reads it
+     */
+    public DirectBuffer readEventValue()
+    {
+        return eventValueReader.read(event, metadata);
+    }
+
+    public DirectBuffer getTopicName()
+    {
+        return TOPIC_NAME;
+    }
+
+    public MutableDirectBuffer getWriteBuffer()
+    {
+        return writeBuffer;
+    }
+}
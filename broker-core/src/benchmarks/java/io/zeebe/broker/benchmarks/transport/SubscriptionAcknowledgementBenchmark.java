@@ -0,0 +1,65 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.benchmarks.transport;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.zeebe.broker.transport.clientapi.ClientApiMessageHandler;
+
+/**
+ * Measures handling an acknowledgement of a topic subscription, either by
+ * writing it to the log stream or by coalescing it in memory. A request which
+ * is not handled because the write buffer is full is retried.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 10, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 20, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+public class SubscriptionAcknowledgementBenchmark
+{
+
+    @Benchmark
+    @Threads(1)
+    public void acknowledge(SubscriptionAcknowledgementContext ctx)
+    {
+        final ClientApiMessageHandler messageHandler = ctx.getMessageHandler();
+        final long requestId = ctx.nextRequestId();
+
+        while (!messageHandler.onRequest(
+                ctx.getServerOutput(),
+                ctx.getRemoteAddress(),
+                ctx.getRequestBuffer(),
+                0,
+                ctx.getRequestLength(),
+                requestId))
+        {
+            Thread.yield();
+        }
+
+        ctx.executeCommands();
+    }
+
+}
@@ -0,0 +1,204 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.benchmarks.transport;
+
+import static io.zeebe.util.buffer.BufferUtil.wrapString;
+
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import io.zeebe.broker.event.processor.TopicSubscriptionEvent;
+import io.zeebe.broker.event.processor.TopicSubscriptionFilter;
+import io.zeebe.broker.event.processor.TopicSubscriptionManagementProcessor;
+import io.zeebe.broker.event.processor.TopicSubscriptionPushProcessor;
+import io.zeebe.broker.event.processor.TopicSubscriptionState;
+import io.zeebe.broker.transport.clientapi.ClientApiMessageHandler;
+import io.zeebe.broker.transport.clientapi.CommandResponseWriter;
+import io.zeebe.broker.transport.clientapi.ErrorResponseWriter;
+import io.zeebe.logstreams.LogStreams;
+import io.zeebe.logstreams.log.LogStream;
+import io.zeebe.logstreams.log.LogStreamWriterImpl;
+import io.zeebe.logstreams.processor.StreamProcessorContext;
+import io.zeebe.protocol.clientapi.EventType;
+import io.zeebe.protocol.clientapi.ExecuteCommandRequestEncoder;
+import io.zeebe.protocol.clientapi.MessageHeaderEncoder;
+import io.zeebe.transport.RemoteAddress;
+import io.zeebe.transport.ServerOutput;
+import io.zeebe.transport.SocketAddress;
+import io.zeebe.util.DeferredCommandContext;
+import io.zeebe.util.actor.ActorScheduler;
+import io.zeebe.util.actor.ActorSchedulerBuilder;
+
+/**
+ * A client api message handler which receives the acknowledgements of an open
+ * topic subscription. If acknowledgementsPerCommand is 0, then the handler
+ * writes each acknowledgement to the log stream. Otherwise, it passes them to
+ * the management processor of the subscription, which applies them in memory
+ * and writes every n-th one. The commands of the management processor are
+ * executed by the benchmark thread.
+ */
+@State(Scope.Thread)
+public class SubscriptionAcknowledgementContext
+{
+    protected static final DirectBuffer TOPIC_NAME = wrapString("default-topic");
+    protected static final int PARTITION_ID = 0;
+    protected static final DirectBuffer SUBSCRIPTION_NAME = wrapString("subscription");
+
+    protected static final RemoteAddress REMOTE_ADDRESS = new RemoteAddress(1, new SocketAddress("localhost", 51015));
+
+    @Param({"0", "1", "10", "100"})
+    protected int acknowledgementsPerCommand;
+
+    protected ActorScheduler actorScheduler;
+    protected LogStream logStream;
+    protected ClientApiMessageHandler messageHandler;
+    protected DeferredCommandContext cmdQueue;
+
+    protected final ServerOutput serverOutput = new ClientApiMessageHandlerContext.DiscardingServerOutput();
+
+    protected final UnsafeBuffer requestBuffer = new UnsafeBuffer(new byte[4096]);
+    protected int requestLength;
+    protected long requestId = 0;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        actorScheduler = ActorSchedulerBuilder.createDefaultScheduler("benchmark");
+
+        logStream = LogStreams.createFsLogStream(TOPIC_NAME, PARTITION_ID)
+            .logRootPath(Files.createTempDirectory("zeebe-benchmark").toString())
+            .actorScheduler(actorScheduler)
+            .deleteOnClose(true)
+            .build();
+
+        logStream.openAsync().join();
+
+        messageHandler = new ClientApiMessageHandler(null);
+        messageHandler.addStream(logStream);
+
+        if (acknowledgementsPerCommand > 0)
+        {
+            final TopicSubscriptionManagementProcessor managementProcessor = new TopicSubscriptionManagementProcessor(
+                new CommandResponseWriter(serverOutput),
+                new ErrorResponseWriter(serverOutput),
+                null,
+                acknowledgementsPerCommand);
+
+            cmdQueue = new DeferredCommandContext();
+
+            final StreamProcessorContext context = new StreamProcessorContext();
+            context.setSourceStream(logStream);
+            context.setTargetStream(logStream);
+            context.setLogStreamWriter(new LogStreamWriterImpl(logStream));
+            context.setStreamProcessorCmdQueue(cmdQueue);
+
+            managementProcessor.onOpen(context);
+            managementProcessor.registerPushProcessor(new TopicSubscriptionPushProcessor(1, 2L, 0L, SUBSCRIPTION_NAME, -1, TopicSubscriptionFilter.ALL_EVENTS));
+
+            messageHandler.addAcknowledgementHandler(logStream, managementProcessor::acknowledgeAsync);
+        }
+
+        requestLength = writeAcknowledgeRequest();
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        logStream.closeAsync().join();
+        actorScheduler.close();
+    }
+
+    protected int writeAcknowledgeRequest()
+    {
+        final TopicSubscriptionEvent subscriptionEvent = new TopicSubscriptionEvent()
+            .setState(TopicSubscriptionState.ACKNOWLEDGE)
+            .setName(SUBSCRIPTION_NAME, 0, SUBSCRIPTION_NAME.capacity())
+            .setAckPosition(1L);
+
+        final UnsafeBuffer command = new UnsafeBuffer(new byte[subscriptionEvent.getLength()]);
+        subscriptionEvent.write(command, 0);
+
+        final MessageHeaderEncoder headerEncoder = new MessageHeaderEncoder();
+        final ExecuteCommandRequestEncoder commandRequestEncoder = new ExecuteCommandRequestEncoder();
+
+        headerEncoder.wrap(requestBuffer, 0)
+            .blockLength(commandRequestEncoder.sbeBlockLength())
+            .schemaId(commandRequestEncoder.sbeSchemaId())
+            .templateId(commandRequestEncoder.sbeTemplateId())
+            .version(commandRequestEncoder.sbeSchemaVersion());
+
+        commandRequestEncoder.wrap(requestBuffer, headerEncoder.encodedLength())
+            .partitionId(PARTITION_ID)
+            .key(ExecuteCommandRequestEncoder.keyNullValue())
+            .eventType(EventType.SUBSCRIPTION_EVENT)
+            .putTopicName(TOPIC_NAME, 0, TOPIC_NAME.capacity())
+            .putCommand(command, 0, command.capacity());
+
+        return headerEncoder.encodedLength() + commandRequestEncoder.encodedLength();
+    }
+
+    public ClientApiMessageHandler getMessageHandler()
+    {
+        return messageHandler;
+    }
+
+    public ServerOutput getServerOutput()
+    {
+        return serverOutput;
+    }
+
+    public RemoteAddress getRemoteAddress()
+    {
+        return REMOTE_ADDRESS;
+    }
+
+    public DirectBuffer getRequestBuffer()
+    {
+        return requestBuffer;
+    }
+
+    public int getRequestLength()
+    {
+        return requestLength;
+    }
+
+    public long nextRequestId()
+    {
+        return requestId++;
+    }
+
+    /**
+     * Executes the commands of the management processor, i.e. applies the
+     * acknowledgements which are passed to it.
+     */
+    public void executeCommands()
+    {
+        if (cmdQueue != null)
+        {
+            cmdQueue.doWork();
+        }
+    }
+}
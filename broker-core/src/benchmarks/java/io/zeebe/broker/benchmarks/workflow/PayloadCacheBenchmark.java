@@ -0,0 +1,81 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.benchmarks.workflow;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.zeebe.broker.workflow.map.PayloadCache;
+
+/**
+ * Measures a cache hit and a cache miss of
+ * {@link PayloadCache#getPayload(long)}, i.e. reading the payload from the
+ * event, and adding a payload.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 10, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 20, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+public class PayloadCacheBenchmark
+{
+
+    @Benchmark
+    @Threads(1)
+    @OperationsPerInvocation(2)
+    public void cacheHit(PayloadCacheContext ctx, Blackhole blackhole)
+    {
+        final PayloadCache payloadCache = ctx.getLargeCache();
+
+        blackhole.consume(payloadCache.getPayload(1L));
+        blackhole.consume(payloadCache.getPayload(2L));
+    }
+
+    @Benchmark
+    @Threads(1)
+    @OperationsPerInvocation(2)
+    public void cacheMiss(PayloadCacheContext ctx, Blackhole blackhole)
+    {
+        final PayloadCache payloadCache = ctx.getSmallCache();
+
+        // the cache can hold only one of the payloads
+        blackhole.consume(payloadCache.getPayload(1L));
+        blackhole.consume(payloadCache.getPayload(2L));
+    }
+
+    @Benchmark
+    @Threads(1)
+    @OperationsPerInvocation(2)
+    public void addPayload(PayloadCacheContext ctx)
+    {
+        final PayloadCache payloadCache = ctx.getLargeCache();
+
+        // each payload replaces the cached payload of the workflow instance
+        payloadCache.addPayload(3L, 3L, ctx.getPayload());
+        payloadCache.addPayload(3L, 4L, ctx.getPayload());
+    }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.benchmarks.workflow;
+
+import static io.zeebe.util.buffer.BufferUtil.wrapString;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import io.zeebe.broker.benchmarks.logstreams.InMemoryLogStreamReader;
+import io.zeebe.broker.benchmarks.logstreams.InMemoryLoggedEvent;
+import io.zeebe.broker.workflow.data.WorkflowInstanceEvent;
+import io.zeebe.broker.workflow.data.WorkflowInstanceState;
+import io.zeebe.broker.workflow.map.PayloadCache;
+import io.zeebe.logstreams.log.LoggedEvent;
+import io.zeebe.msgpack.spec.MsgPackWriter;
+import io.zeebe.protocol.clientapi.EventType;
+
+/**
+ * Two payload caches for two workflow instances whose payloads are read from
+ * in-memory events on a cache miss. The first cache can hold both payloads,
+ * the second one only one of them, so that each lookup of the other
+ * workflow instance is a cache miss.
+ */
+@State(Scope.Thread)
+public class PayloadCacheContext
+{
+    @Param({"1", "10", "100"})
+    protected int payloadSizeKb;
+
+    protected final List<LoggedEvent> events = new ArrayList<>();
+
+    protected DirectBuffer payload;
+
+    protected PayloadCache largeCache;
+    protected PayloadCache smallCache;
+
+    @Setup
+    public void setUp()
+    {
+        payload = writePayload(payloadSizeKb * 1024);
+
+        final WorkflowInstanceEvent workflowInstanceEvent = new WorkflowInstanceEvent();
+
+        for (long workflowInstanceKey = 1; workflowInstanceKey <= 2; workflowInstanceKey++)
+        {
+            workflowInstanceEvent.reset();
+            workflowInstanceEvent
+                .setState(WorkflowInstanceState.ACTIVITY_READY)
+                .setWorkflowInstanceKey(workflowInstanceKey)
+                .setPayload(payload);
+
+            events.add(InMemoryLoggedEvent.create(workflowInstanceKey, EventType.WORKFLOW_INSTANCE_EVENT, workflowInstanceEvent));
+        }
+
+        largeCache = new PayloadCache(4 * payload.capacity(), new InMemoryLogStreamReader(events));
+        smallCache = new PayloadCache(payload.capacity() + payload.capacity() / 2, new InMemoryLogStreamReader(events));
+
+        for (LoggedEvent event : events)
+        {
+            // the key of the workflow instance is the position of its event
+            largeCache.addPayload(event.getPosition(), event.getPosition(), payload);
+            smallCache.addPayload(event.getPosition(), event.getPosition(), payload);
+        }
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        largeCache.close();
+        smallCache.close();
+    }
+
+    protected DirectBuffer writePayload(int size)
+    {
+        final UnsafeBuffer buffer = new UnsafeBuffer(new byte[size + 1024]);
+        final MsgPackWriter writer = new MsgPackWriter();
+        writer.wrap(buffer, 0);
+
+        final int propertyCount = size / 64;
+        writer.writeMapHeader(propertyCount);
+        for (int i = 0; i < propertyCount; i++)
+        {
+            writer.writeString(wrapString(String.format("key%05d", i)));
+            writer.writeString(wrapString(String.format("a value of the workflow instance payload %16d", i)));
+        }
+
+        return new UnsafeBuffer(buffer, 0, writer.getOffset());
+    }
+
+    public PayloadCache getLargeCache()
+    {
+        return largeCache;
+    }
+
+    public PayloadCache getSmallCache()
+    {
+        return smallCache;
+    }
+
+    public DirectBuffer getPayload()
+    {
+        return payload;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.benchmarks.workflow;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.zeebe.broker.workflow.processor.MappingPlanProcessor;
+import io.zeebe.msgpack.mapping.MappingProcessor;
+
+/**
+ * Compares the input (extract) and output (merge) mapping of a payload by a
+ * compiled {@link MappingPlanProcessor mapping plan} with the evaluation of
+ * the JSON path queries by the {@link MappingProcessor}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+public class PayloadMappingBenchmark
+{
+
+    @Benchmark
+    @Threads(1)
+    public int extractWithMappingPlan(PayloadMappingContext ctx)
+    {
+        return ctx.getMappingPlanProcessor().extract(ctx.getWorkflowInstancePayload(), ctx.getInputMappingPlan());
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int extractWithJsonPath(PayloadMappingContext ctx)
+    {
+        return ctx.getMappingProcessor().extract(ctx.getWorkflowInstancePayload(), ctx.getInputMappingPlan().getMappings());
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int mergeWithMappingPlan(PayloadMappingContext ctx)
+    {
+        return ctx.getMappingPlanProcessor().merge(ctx.getTaskPayload(), ctx.getWorkflowInstancePayload(), ctx.getOutputMappingPlan());
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int mergeWithJsonPath(PayloadMappingContext ctx)
+    {
+        return ctx.getMappingProcessor().merge(ctx.getTaskPayload(), ctx.getWorkflowInstancePayload(), ctx.getOutputMappingPlan().getMappings());
+    }
+
+}
@@ -0,0 +1,147 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.benchmarks.workflow;
+
+import static io.zeebe.util.buffer.BufferUtil.wrapString;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import io.zeebe.broker.workflow.graph.model.metadata.MappingPlan;
+import io.zeebe.broker.workflow.processor.MappingPlanProcessor;
+import io.zeebe.msgpack.jsonpath.JsonPathQueryCompiler;
+import io.zeebe.msgpack.mapping.Mapping;
+import io.zeebe.msgpack.mapping.MappingProcessor;
+import io.zeebe.msgpack.spec.MsgPackWriter;
+
+@State(Scope.Thread)
+public class PayloadMappingContext
+{
+    private static final int PROPERTY_VALUE_LENGTH = 100;
+
+    @Param({"1", "10", "100"})
+    protected int payloadSizeKb;
+
+    protected DirectBuffer workflowInstancePayload;
+    protected DirectBuffer taskPayload;
+
+    protected MappingPlan inputMappingPlan;
+    protected MappingPlan outputMappingPlan;
+
+    protected MappingPlanProcessor mappingPlanProcessor;
+    protected MappingProcessor mappingProcessor;
+
+    @Setup
+    public void setUp()
+    {
+        final int fillerProperties = payloadSizeKb * 1024 / (PROPERTY_VALUE_LENGTH + 10);
+
+        // the mapped properties are at the end of the document
+        workflowInstancePayload = write(payloadSizeKb * 1024 * 2, w ->
+        {
+            w.writeMapHeader(fillerProperties + 2);
+            for (int i = 0; i < fillerProperties; i++)
+            {
+                w.writeString(wrapString("prop" + i));
+                w.writeString(wrapString(value('x')));
+            }
+            w.writeString(wrapString("orderId"));
+            w.writeInteger(123L);
+            w.writeString(wrapString("customer"));
+            w.writeString(wrapString(value('c')));
+        });
+
+        taskPayload = write(1024, w ->
+        {
+            w.writeMapHeader(1);
+            w.writeString(wrapString("result"));
+            w.writeString(wrapString(value('r')));
+        });
+
+        inputMappingPlan = plan("$.orderId", "$.id", "$.customer", "$.customer");
+        outputMappingPlan = plan("$.result", "$.result");
+
+        mappingPlanProcessor = new MappingPlanProcessor(4096);
+        mappingProcessor = new MappingProcessor(4096);
+    }
+
+    protected static String value(char c)
+    {
+        final char[] chars = new char[PROPERTY_VALUE_LENGTH];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+
+    protected static MappingPlan plan(String... sourceAndTargetPaths)
+    {
+        final Mapping[] mappings = new Mapping[sourceAndTargetPaths.length / 2];
+        for (int i = 0; i < mappings.length; i++)
+        {
+            mappings[i] = new Mapping(new JsonPathQueryCompiler().compile(sourceAndTargetPaths[2 * i]),
+                                      wrapString(sourceAndTargetPaths[2 * i + 1]));
+        }
+        return MappingPlan.compile(mappings);
+    }
+
+    protected static DirectBuffer write(int capacity, Consumer<MsgPackWriter> arg)
+    {
+        final UnsafeBuffer buffer = new UnsafeBuffer(new byte[capacity]);
+        final MsgPackWriter writer = new MsgPackWriter();
+        writer.wrap(buffer, 0);
+        arg.accept(writer);
+        buffer.wrap(buffer, 0, writer.getOffset());
+        return buffer;
+    }
+
+    public DirectBuffer getWorkflowInstancePayload()
+    {
+        return workflowInstancePayload;
+    }
+
+    public DirectBuffer getTaskPayload()
+    {
+        return taskPayload;
+    }
+
+    public MappingPlan getInputMappingPlan()
+    {
+        return inputMappingPlan;
+    }
+
+    public MappingPlan getOutputMappingPlan()
+    {
+        return outputMappingPlan;
+    }
+
+    public MappingPlanProcessor getMappingPlanProcessor()
+    {
+        return mappingPlanProcessor;
+    }
+
+    public MappingProcessor getMappingProcessor()
+    {
+        return mappingProcessor;
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.benchmarks.workflow;
+
+import java.util.concurrent.TimeUnit;
+
+import io.zeebe.broker.workflow.map.WorkflowDeploymentCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures a cache hit and a cache miss of
+ * {@link WorkflowDeploymentCache#getWorkflow(long)}, i.e. restoring the
+ * workflow from the workflow event.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+public class WorkflowDeploymentCacheBenchmark
+{
+
+    @Benchmark
+    @Threads(1)
+    @OperationsPerInvocation(2)
+    public void cacheMiss(WorkflowDeploymentCacheContext ctx, Blackhole blackhole)
+    {
+        final WorkflowDeploymentCache deploymentCache = ctx.getDeploymentCache();
+
+        // the cache can hold only one of the workflows
+        blackhole.consume(deploymentCache.getWorkflow(1L));
+        blackhole.consume(deploymentCache.getWorkflow(2L));
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void cacheHit(WorkflowDeploymentCacheContext ctx, Blackhole blackhole)
+    {
+        final WorkflowDeploymentCache deploymentCache = ctx.getDeploymentCache();
+
+        // the workflow is cached after the first invocation
+        blackhole.consume(deploymentCache.getWorkflow(1L));
+    }
+
+}
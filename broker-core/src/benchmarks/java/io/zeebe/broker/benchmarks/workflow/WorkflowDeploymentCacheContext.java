@@ -0,0 +1,152 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.benchmarks.workflow;
+
+import static io.zeebe.broker.workflow.graph.transformer.ZeebeExtensions.wrap;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.camunda.bpm.model.bpmn.Bpmn;
+import org.camunda.bpm.model.bpmn.builder.AbstractFlowNodeBuilder;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import io.zeebe.broker.benchmarks.logstreams.InMemoryLogStreamReader;
+import io.zeebe.broker.benchmarks.logstreams.InMemoryLoggedEvent;
+import io.zeebe.broker.workflow.data.WorkflowEvent;
+import io.zeebe.broker.workflow.data.WorkflowState;
+import io.zeebe.broker.workflow.graph.model.ExecutableWorkflow;
+import io.zeebe.broker.workflow.graph.serialization.ExecutableWorkflowSerializer;
+import io.zeebe.broker.workflow.graph.transformer.BpmnTransformer;
+import io.zeebe.broker.workflow.graph.transformer.ZeebeExtensions.ZeebeModelInstance;
+import io.zeebe.broker.workflow.map.WorkflowDeploymentCache;
+import io.zeebe.logstreams.log.LoggedEvent;
+import io.zeebe.protocol.clientapi.EventType;
+import io.zeebe.protocol.impl.BrokerEventMetadata;
+
+/**
+ * A deployment cache which can hold only one workflow and two deployed
+ * workflows, so that each lookup of the other workflow is a cache miss. The
+ * workflow events contain the serialized workflow or only the BPMN XML (as
+ * written by a previous version).
+ */
+@State(Scope.Thread)
+public class WorkflowDeploymentCacheContext
+{
+    private static final int TASK_COUNT = 10;
+
+    @Param({"true", "false"})
+    protected boolean withSerializedWorkflow;
+
+    protected final List<LoggedEvent> events = new ArrayList<>();
+
+    protected WorkflowDeploymentCache deploymentCache;
+
+    @Setup
+    public void setUp()
+    {
+        final ZeebeModelInstance modelInstance = createWorkflow();
+
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        Bpmn.writeModelToStream(outputStream, modelInstance);
+        final DirectBuffer bpmnXml = new UnsafeBuffer(outputStream.toByteArray());
+
+        final ExecutableWorkflow workflow = new BpmnTransformer().transform(modelInstance).get(0);
+        final DirectBuffer executableWorkflow = new ExecutableWorkflowSerializer().serialize(workflow);
+
+        final WorkflowEvent workflowEvent = new WorkflowEvent()
+            .setState(WorkflowState.CREATED)
+            .setBpmnProcessId(workflow.getId())
+            .setBpmnXml(bpmnXml)
+            .setDeploymentKey(1L);
+
+        if (withSerializedWorkflow)
+        {
+            workflowEvent.setExecutableWorkflow(executableWorkflow);
+        }
+
+        final BrokerEventMetadata metadata = new BrokerEventMetadata();
+        metadata.eventType(EventType.WORKFLOW_EVENT);
+
+        final UnsafeBuffer metadataBuffer = new UnsafeBuffer(new byte[metadata.getLength()]);
+        metadata.write(metadataBuffer, 0);
+
+        for (int version = 1; version <= 2; version++)
+        {
+            workflowEvent.setVersion(version);
+
+            final UnsafeBuffer valueBuffer = new UnsafeBuffer(new byte[workflowEvent.getLength()]);
+            workflowEvent.write(valueBuffer, 0);
+
+            final LoggedEvent event = new InMemoryLoggedEvent(version, metadataBuffer, valueBuffer);
+            events.add(event);
+        }
+
+        deploymentCache = new WorkflowDeploymentCache(1, new InMemoryLogStreamReader(events));
+
+        for (LoggedEvent event : events)
+        {
+            deploymentCache.addDeployedWorkflow(event.getPosition(), workflow.getId(), (int) event.getPosition());
+        }
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        deploymentCache.close();
+    }
+
+    protected ZeebeModelInstance createWorkflow()
+    {
+        AbstractFlowNodeBuilder<?, ?> builder = Bpmn.createExecutableProcess("process").startEvent("start");
+
+        for (int i = 0; i < TASK_COUNT; i++)
+        {
+            builder = builder.serviceTask("task-" + i);
+        }
+
+        final ZeebeModelInstance modelInstance = wrap(builder.endEvent("end").done());
+
+        for (int i = 0; i < TASK_COUNT; i++)
+        {
+            final String taskId = "task-" + i;
+
+            modelInstance
+                .taskDefinition(taskId, "type-" + i, 3)
+                .ioMapping(taskId)
+                    .input("$.order", "$.order")
+                    .input("$.customer.address", "$.address")
+                    .output("$.result", "$.results.task" + i)
+                    .done();
+        }
+
+        return modelInstance;
+    }
+
+    public WorkflowDeploymentCache getDeploymentCache()
+    {
+        return deploymentCache;
+    }
+}
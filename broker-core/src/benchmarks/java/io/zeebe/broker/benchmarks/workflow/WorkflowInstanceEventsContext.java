@@ -0,0 +1,181 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.benchmarks.workflow;
+
+import static io.zeebe.util.buffer.BufferUtil.wrapString;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import io.zeebe.broker.benchmarks.logstreams.InMemoryLoggedEvent;
+import io.zeebe.broker.task.data.TaskEvent;
+import io.zeebe.broker.task.data.TaskState;
+import io.zeebe.broker.workflow.data.WorkflowInstanceEvent;
+import io.zeebe.broker.workflow.data.WorkflowInstanceState;
+import io.zeebe.broker.workflow.processor.WorkflowInstanceStreamProcessor;
+import io.zeebe.logstreams.log.LoggedEvent;
+import io.zeebe.msgpack.spec.MsgPackWriter;
+import io.zeebe.protocol.clientapi.EventType;
+import io.zeebe.protocol.impl.BrokerEventMetadata;
+import io.zeebe.util.buffer.BufferWriter;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * The events of a workflow instance with one service task, as they are
+ * written to the log stream. The events which require a deployed workflow
+ * (start event, end event, activity completed) are not included.
+ */
+@State(Scope.Thread)
+public class WorkflowInstanceEventsContext
+{
+    protected static final DirectBuffer BPMN_PROCESS_ID = wrapString("process");
+    protected static final DirectBuffer TASK_TYPE = wrapString("task-type");
+    protected static final DirectBuffer LOCK_OWNER = wrapString("owner");
+
+    protected final List<LoggedEvent> events = new ArrayList<>();
+
+    protected final WorkflowInstanceEvent workflowInstanceEvent = new WorkflowInstanceEvent();
+    protected final TaskEvent taskEvent = new TaskEvent();
+    protected final BrokerEventMetadata metadata = new BrokerEventMetadata();
+
+    protected WorkflowInstanceStreamProcessor streamProcessor;
+
+    protected DirectBuffer payload;
+    protected long position = 0;
+
+    @Setup
+    public void setUp()
+    {
+        streamProcessor = new WorkflowInstanceStreamProcessor(null, 32, 1024 * 1024);
+
+        payload = writePayload();
+
+        addWorkflowInstanceEvent(WorkflowInstanceState.CREATE_WORKFLOW_INSTANCE, "");
+        addWorkflowInstanceEvent(WorkflowInstanceState.WORKFLOW_INSTANCE_CREATED, "");
+        addWorkflowInstanceEvent(WorkflowInstanceState.SEQUENCE_FLOW_TAKEN, "flow1");
+        addWorkflowInstanceEvent(WorkflowInstanceState.ACTIVITY_READY, "task");
+        addWorkflowInstanceEvent(WorkflowInstanceState.ACTIVITY_ACTIVATED, "task");
+
+        addTaskEvent(TaskState.CREATE);
+        addTaskEvent(TaskState.CREATED);
+        addTaskEvent(TaskState.LOCK);
+        addTaskEvent(TaskState.LOCKED);
+        addTaskEvent(TaskState.COMPLETE);
+        addTaskEvent(TaskState.COMPLETED);
+
+        addWorkflowInstanceEvent(WorkflowInstanceState.ACTIVITY_COMPLETING, "task");
+        addWorkflowInstanceEvent(WorkflowInstanceState.SEQUENCE_FLOW_TAKEN, "flow2");
+        addWorkflowInstanceEvent(WorkflowInstanceState.WORKFLOW_INSTANCE_COMPLETED, "");
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        streamProcessor.onClose();
+    }
+
+    protected DirectBuffer writePayload()
+    {
+        final UnsafeBuffer buffer = new UnsafeBuffer(new byte[1024]);
+        final MsgPackWriter writer = new MsgPackWriter();
+        writer.wrap(buffer, 0);
+
+        writer.writeMapHeader(8);
+        for (int i = 0; i < 8; i++)
+        {
+            writer.writeString(wrapString("key" + i));
+            writer.writeString(wrapString("a value of the workflow instance payload " + i));
+        }
+
+        return new UnsafeBuffer(buffer, 0, writer.getOffset());
+    }
+
+    protected void addWorkflowInstanceEvent(WorkflowInstanceState state, String activityId)
+    {
+        workflowInstanceEvent.reset();
+        workflowInstanceEvent
+            .setState(state)
+            .setBpmnProcessId(BPMN_PROCESS_ID)
+            .setVersion(1)
+            .setWorkflowKey(1L)
+            .setWorkflowInstanceKey(2L)
+            .setActivityId(activityId)
+            .setPayload(payload);
+
+        addEvent(EventType.WORKFLOW_INSTANCE_EVENT, workflowInstanceEvent);
+    }
+
+    protected void addTaskEvent(TaskState state)
+    {
+        taskEvent.reset();
+        taskEvent
+            .setState(state)
+            .setType(TASK_TYPE)
+            .setRetries(3)
+            .setLockOwner(LOCK_OWNER)
+            .setLockTime(System.currentTimeMillis())
+            .setPayload(payload);
+
+        addEvent(EventType.TASK_EVENT, taskEvent);
+    }
+
+    protected void addEvent(EventType eventType, BufferWriter valueWriter)
+    {
+        metadata.reset();
+        metadata.eventType(eventType);
+
+        final UnsafeBuffer metadataBuffer = new UnsafeBuffer(new byte[metadata.getLength()]);
+        metadata.write(metadataBuffer, 0);
+
+        final UnsafeBuffer valueBuffer = new UnsafeBuffer(new byte[valueWriter.getLength()]);
+        valueWriter.write(valueBuffer, 0);
+
+        events.add(new InMemoryLoggedEvent(position++, metadataBuffer, valueBuffer));
+    }
+
+    public List<LoggedEvent> getEvents()
+    {
+        return events;
+    }
+
+    public WorkflowInstanceStreamProcessor getStreamProcessor()
+    {
+        return streamProcessor;
+    }
+
+    public WorkflowInstanceEvent getWorkflowInstanceEvent()
+    {
+        return workflowInstanceEvent;
+    }
+
+    public TaskEvent getTaskEvent()
+    {
+        return taskEvent;
+    }
+
+    public BrokerEventMetadata getMetadata()
+    {
+        return metadata;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.benchmarks.workflow;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.zeebe.broker.workflow.processor.WorkflowInstanceStreamProcessor;
+import io.zeebe.logstreams.log.LoggedEvent;
+import io.zeebe.logstreams.processor.EventProcessor;
+import io.zeebe.protocol.impl.BrokerEventMetadata;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the selection of the event processor in
+ * {@link WorkflowInstanceStreamProcessor#onEvent(LoggedEvent)}, compared to
+ * reading every event completely.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 10, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 20, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+public class WorkflowInstanceStreamProcessorBenchmark
+{
+    private static final int EVENT_COUNT = 14;
+
+    @Benchmark
+    @Threads(1)
+    @OperationsPerInvocation(EVENT_COUNT)
+    public void onEvent(WorkflowInstanceEventsContext ctx, Blackhole blackhole)
+    {
+        final WorkflowInstanceStreamProcessor streamProcessor = ctx.getStreamProcessor();
+        final List<LoggedEvent> events = ctx.getEvents();
+
+        for (int i = 0; i < events.size(); i++)
+        {
+            final EventProcessor eventProcessor = streamProcessor.onEvent(events.get(i));
+            blackhole.consume(eventProcessor);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    @OperationsPerInvocation(EVENT_COUNT)
+    public void readAllEvents(WorkflowInstanceEventsContext ctx, Blackhole blackhole)
+    {
+        final BrokerEventMetadata metadata = ctx.getMetadata();
+        final List<LoggedEvent> events = ctx.getEvents();
+
+        for (int i = 0; i < events.size(); i++)
+        {
+            final LoggedEvent event = events.get(i);
+
+            metadata.reset();
+            event.readMetadata(metadata);
+
+            switch (metadata.getEventType())
+            {
+                case WORKFLOW_INSTANCE_EVENT:
+                    ctx.getWorkflowInstanceEvent().reset();
+                    event.readValue(ctx.getWorkflowInstanceEvent());
+                    blackhole.consume(ctx.getWorkflowInstanceEvent().getState());
+                    break;
+
+                case TASK_EVENT:
+                    ctx.getTaskEvent().reset();
+                    event.readValue(ctx.getTaskEvent());
+                    blackhole.consume(ctx.getTaskEvent().getState());
+                    break;
+
+                default:
+                    break;
+            }
+        }
+    }
+
+}
@@ -33,6 +33,12 @@ public class GossipConfiguration extends DirectoryConfiguration
     public int disseminationInterval = 1;
     public int disseminationTimeout = 10;
 
+    /**
+     * If enabled, a dissemination request contains only the heartbeats of the
+     * known peers and the response contains only the peers which changed.
+     */
+    public boolean deltaDissemination = false;
+
     public int failureDetectionCapacity = 8;
     public int failureDetectionProbeCapacity = 3;
     public int failureDetectorTimeout = 15;
@@ -72,6 +72,9 @@ public class Peer implements BufferWriter, BufferReader, Comparable<Peer>
 
     protected long changeStateTime = -1L;
 
+    // a digest is received in place of a peer and contains only its management endpoint, heartbeat and state
+    protected boolean digest = false;
+
     public SocketAddress clientEndpoint()
     {
         return clientEndpoint;
@@ -131,6 +134,17 @@ public class Peer implements BufferWriter, BufferReader, Comparable<Peer>
         return this;
     }
 
+    public boolean digest()
+    {
+        return digest;
+    }
+
+    public Peer digest(final boolean digest)
+    {
+        this.digest = digest;
+        return this;
+    }
+
     public Peer alive()
     {
         if (state != ALIVE)
@@ -320,6 +334,7 @@ public class Peer implements BufferWriter, BufferReader, Comparable<Peer>
 
         state = NULL_VAL;
         changeStateTime = -1L;
+        digest = false;
     }
 
     public void addRaft(final Raft raft)
@@ -110,6 +110,9 @@ public class PeerList implements Iterable<Peer>, CloseableSilently
      * If the passed updates contains outdated information to a peer, then
      * the updated information are added to the passed list {@code diff}.
      *
+     * If an update is only a {@link Peer#digest() digest}, then it is not merged
+     * into this list. It is only compared to determine the diff.
+     *
      * @param updates to merge.
      * @param diff to determine the diff between this list and the updates.
      */
@@ -141,14 +144,14 @@ public class PeerList implements Iterable<Peer>, CloseableSilently
                         diff.append(thisPeer);
                     }
 
-                    if (!localIterator.hasNext() && thatPeer != null)
+                    if (!localIterator.hasNext() && thatPeer != null && !thatPeer.digest())
                     {
                         append(thatPeer);
                     }
                 }
                 else if (cmp > 0)
                 {
-                    if (thatPeer.state() == ALIVE)
+                    if (thatPeer.state() == ALIVE && !thatPeer.digest())
                     {
                         add(localIterator.position(), thatPeer);
                     }
@@ -160,7 +163,11 @@ public class PeerList implements Iterable<Peer>, CloseableSilently
                 }
                 else
                 {
-                    if (mergePeer(thisPeer, thatPeer, localIterator.position()))
+                    final boolean isOutdated = thatPeer.digest() ?
+                            isNewer(thisPeer, thatPeer) :
+                            mergePeer(thisPeer, thatPeer, localIterator.position());
+
+                    if (isOutdated)
                     {
                         if (diff != null)
                         {
@@ -184,11 +191,33 @@ public class PeerList implements Iterable<Peer>, CloseableSilently
         while (updates.hasNext())
         {
             final Peer peer = updates.next();
-            append(peer);
+            if (!peer.digest())
+            {
+                append(peer);
+            }
         }
 
     }
 
+    /**
+     * @return true, if this peer has a newer heartbeat than the given digest,
+     *         or the same heartbeat and a state which overrides the state of
+     *         the digest (i.e. suspect or dead)
+     */
+    protected boolean isNewer(final Peer thisPeer, final Peer digest)
+    {
+        final int cmp = thisPeer.heartbeat().compareTo(digest.heartbeat());
+
+        if (cmp == 0)
+        {
+            return thisPeer.state().value() > digest.state().value();
+        }
+        else
+        {
+            return cmp > 0;
+        }
+    }
+
     protected boolean mergePeer(final Peer thisPeer, final Peer thatPeer, final int idx)
     {
         final Heartbeat thisHeartbeat = thisPeer.heartbeat();
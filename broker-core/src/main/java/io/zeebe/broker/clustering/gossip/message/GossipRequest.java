@@ -53,6 +53,16 @@ public class GossipRequest implements BufferReader, BufferWriter
         return this;
     }
 
+    /**
+     * Sends digests of the peers instead of the complete peer list. Only the
+     * local peer is sent completely, so that the receiver learns about it.
+     */
+    public GossipRequest peerDigests(final PeerList peers, final Peer localPeer)
+    {
+        gossipWriter.peerDigests(peers, localPeer);
+        return this;
+    }
+
     @Override
     public int getLength()
     {
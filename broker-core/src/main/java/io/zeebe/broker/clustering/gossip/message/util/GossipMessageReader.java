@@ -17,6 +17,8 @@
  */
 package io.zeebe.broker.clustering.gossip.message.util;
 
+import static io.zeebe.broker.clustering.gossip.data.Peer.PEER_ENDPOINT_COUNT;
+
 import java.util.Iterator;
 
 import org.agrona.DirectBuffer;
@@ -63,7 +65,12 @@ public class GossipMessageReader implements BufferReader, Iterator<Peer>
             .generation(decoder.generation())
             .version(decoder.version());
 
-        for (final EndpointsDecoder endpointsDecoder : decoder.endpoints())
+        final EndpointsDecoder endpoints = decoder.endpoints();
+
+        // a digest contains only the management endpoint
+        currentPeer.digest(endpoints.count() < PEER_ENDPOINT_COUNT);
+
+        for (final EndpointsDecoder endpointsDecoder : endpoints)
         {
             final SocketAddress endpoint;
             switch (endpointsDecoder.endpointType())
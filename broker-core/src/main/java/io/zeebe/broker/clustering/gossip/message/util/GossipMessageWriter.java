@@ -43,44 +43,69 @@ import io.zeebe.util.buffer.BufferWriter;
 public class GossipMessageWriter implements BufferWriter
 {
     protected PeerList peers;
+    protected Peer fullPeer;
 
     protected final MessageHeaderEncoder headerEncoder = new MessageHeaderEncoder();
     protected final GossipEncoder bodyEncoder = new GossipEncoder();
 
+    /**
+     * Writes all information of the given peers.
+     */
     public GossipMessageWriter peers(final PeerList peers)
     {
         this.peers = peers;
+        this.fullPeer = null;
         return this;
     }
 
-    @Override
-    public int getLength()
+    /**
+     * Writes only the management endpoint, heartbeat and state of the given
+     * peers, except for the given full peer (i.e. the local peer) whose
+     * information is written completely.
+     */
+    public GossipMessageWriter peerDigests(final PeerList peers, final Peer fullPeer)
     {
-        final int size = peers.size();
-
-        final int peerEndpointsLength =
-            EndpointsDecoder.sbeHeaderSize() + PEER_ENDPOINT_COUNT * (EndpointsDecoder.sbeBlockLength() + EndpointsDecoder.hostHeaderLength());
+        this.peers = peers;
+        this.fullPeer = fullPeer;
+        return this;
+    }
 
-        final int peersLength =
-            PeersDecoder.sbeHeaderSize() + size * (PeersDecoder.sbeBlockLength() + peerEndpointsLength);
+    protected boolean isDigest(final Peer peer)
+    {
+        return fullPeer != null && peer.compareTo(fullPeer) != 0;
+    }
 
-        int length = bodyEncoder.sbeBlockLength() + peersLength;
+    @Override
+    public int getLength()
+    {
+        int length = bodyEncoder.sbeBlockLength() + PeersDecoder.sbeHeaderSize();
 
         final Iterator<Peer> iterator = peers.iterator();
         while (iterator.hasNext())
         {
             final Peer current = iterator.next();
-            length += current.clientEndpoint().hostLength();
-            length += current.managementEndpoint().hostLength();
-            length += current.replicationEndpoint().hostLength();
-            length += RaftMembershipsEncoder.sbeHeaderSize();
 
-            for (final RaftMembership raftMembership : current.raftMemberships())
+            length += PeersDecoder.sbeBlockLength() + EndpointsDecoder.sbeHeaderSize() + RaftMembershipsEncoder.sbeHeaderSize();
+
+            if (isDigest(current))
             {
-                length +=
-                    RaftMembershipsEncoder.sbeBlockLength() +
-                    RaftMembershipsEncoder.topicNameHeaderLength() +
-                    raftMembership.topicNameLength();
+                length += EndpointsDecoder.sbeBlockLength() + EndpointsDecoder.hostHeaderLength();
+                length += current.managementEndpoint().hostLength();
+            }
+            else
+            {
+                length += PEER_ENDPOINT_COUNT * (EndpointsDecoder.sbeBlockLength() + EndpointsDecoder.hostHeaderLength());
+                length += current.clientEndpoint().hostLength();
+                length += current.managementEndpoint().hostLength();
+                length += current.replicationEndpoint().hostLength();
+
+                for (final RaftMembership raftMembership : current.raftMemberships())
+                {
+                    length +=
+                        RaftMembershipsEncoder.sbeBlockLength() +
+                        RaftMembershipsEncoder.topicNameHeaderLength() +
+                        raftMembership.topicNameLength();
+                }
             }
         }
 
@@ -97,56 +122,86 @@ public class GossipMessageWriter implements BufferWriter
         {
             final Peer current = iterator.next();
 
-            final Heartbeat heartbeat = current.heartbeat();
-
-            final SocketAddress clientEndpoint = current.clientEndpoint();
-            final SocketAddress managementEndpoint = current.managementEndpoint();
-            final SocketAddress replicationEndpoint = current.replicationEndpoint();
-
-            final DirectBuffer clientHostBuffer = clientEndpoint.getHostBuffer();
-            final int clientHostLength = clientEndpoint.hostLength();
-            final int clientPort = clientEndpoint.port();
-
-            final DirectBuffer managementHostBuffer = managementEndpoint.getHostBuffer();
-            final int managementHostLength = managementEndpoint.hostLength();
-            final int managementPort = managementEndpoint.port();
-
-            final DirectBuffer replicationHostBuffer = replicationEndpoint.getHostBuffer();
-            final int replicationHostLength = replicationEndpoint.hostLength();
-            final int replicationPort = replicationEndpoint.port();
-
-            final EndpointsEncoder endpointsEncoder = encoder.next()
-                .state(current.state())
-                .generation(heartbeat.generation())
-                .version(heartbeat.version())
-                .endpointsCount(PEER_ENDPOINT_COUNT);
+            if (isDigest(current))
+            {
+                writeDigest(encoder, current);
+            }
+            else
+            {
+                writePeer(encoder, current);
+            }
+        }
+    }
 
-            endpointsEncoder.next()
-                .endpointType(EndpointType.CLIENT)
-                .port(clientPort)
-                .putHost(clientHostBuffer, 0, clientHostLength);
+    protected void writeDigest(final PeersEncoder encoder, final Peer current)
+    {
+        final Heartbeat heartbeat = current.heartbeat();
+        final SocketAddress managementEndpoint = current.managementEndpoint();
 
-            endpointsEncoder.next()
-                .endpointType(EndpointType.MANAGEMENT)
-                .port(managementPort)
-                .putHost(managementHostBuffer, 0, managementHostLength);
+        final EndpointsEncoder endpointsEncoder = encoder.next()
+            .state(current.state())
+            .generation(heartbeat.generation())
+            .version(heartbeat.version())
+            .endpointsCount(1);
 
-            endpointsEncoder.next()
-                .endpointType(EndpointType.REPLICATION)
-                .port(replicationPort)
-                .putHost(replicationHostBuffer, 0, replicationHostLength);
+        endpointsEncoder.next()
+            .endpointType(EndpointType.MANAGEMENT)
+            .port(managementEndpoint.port())
+            .putHost(managementEndpoint.getHostBuffer(), 0, managementEndpoint.hostLength());
 
-            final RaftMembershipList raftMemberships = current.raftMemberships();
-            final RaftMembershipsEncoder raftMembershipsEncoder = encoder.raftMembershipsCount(raftMemberships.size());
-            for (final RaftMembership raftMembership : raftMemberships)
-            {
-                raftMembershipsEncoder.next()
-                    .partitionId(raftMembership.partitionId())
-                    .term(raftMembership.term())
-                    .state(raftMembership.state())
-                    .putTopicName(raftMembership.topicNameBuffer(), 0, raftMembership.topicNameLength());
-            }
+        encoder.raftMembershipsCount(0);
+    }
 
+    protected void writePeer(final PeersEncoder encoder, final Peer current)
+    {
+        final Heartbeat heartbeat = current.heartbeat();
+
+        final SocketAddress clientEndpoint = current.clientEndpoint();
+        final SocketAddress managementEndpoint = current.managementEndpoint();
+        final SocketAddress replicationEndpoint = current.replicationEndpoint();
+
+        final DirectBuffer clientHostBuffer = clientEndpoint.getHostBuffer();
+        final int clientHostLength = clientEndpoint.hostLength();
+        final int clientPort = clientEndpoint.port();
+
+        final DirectBuffer managementHostBuffer = managementEndpoint.getHostBuffer();
+        final int managementHostLength = managementEndpoint.hostLength();
+        final int managementPort = managementEndpoint.port();
+
+        final DirectBuffer replicationHostBuffer = replicationEndpoint.getHostBuffer();
+        final int replicationHostLength = replicationEndpoint.hostLength();
+        final int replicationPort = replicationEndpoint.port();
+
+        final EndpointsEncoder endpointsEncoder = encoder.next()
+            .state(current.state())
+            .generation(heartbeat.generation())
+            .version(heartbeat.version())
+            .endpointsCount(PEER_ENDPOINT_COUNT);
+
+        endpointsEncoder.next()
+            .endpointType(EndpointType.CLIENT)
+            .port(clientPort)
+            .putHost(clientHostBuffer, 0, clientHostLength);
+
+        endpointsEncoder.next()
+            .endpointType(EndpointType.MANAGEMENT)
+            .port(managementPort)
+            .putHost(managementHostBuffer, 0, managementHostLength);
+
+        endpointsEncoder.next()
+            .endpointType(EndpointType.REPLICATION)
+            .port(replicationPort)
+            .putHost(replicationHostBuffer, 0, replicationHostLength);
+
+        final RaftMembershipList raftMemberships = current.raftMemberships();
+        final RaftMembershipsEncoder raftMembershipsEncoder = encoder.raftMembershipsCount(raftMemberships.size());
+        for (final RaftMembership raftMembership : raftMemberships)
+        {
+            raftMembershipsEncoder.next()
+                .partitionId(raftMembership.partitionId())
+                .term(raftMembership.term())
+                .state(raftMembership.state())
+                .putTopicName(raftMembership.topicNameBuffer(), 0, raftMembership.topicNameLength());
         }
     }
 
@@ -152,6 +152,7 @@ public class Dissemination
     class DisseminationContext extends SimpleStateMachineContext
     {
         final Peer peer;
+        final Peer localPeer;
         final PeerList peers;
         final GossipRequest request;
         final GossipResponse response;
@@ -159,12 +160,14 @@ public class Dissemination
         final PeerSelector peerSelector;
         final Peer[] exclusions;
         final FailureDetection[] failureDetectors;
+        final boolean deltaDissemination;
 
         DisseminationContext(final StateMachine<?> stateMachine, final Peer localPeer, final FailureDetection[] failureDetectors)
         {
             super(stateMachine);
 
             this.peer = new Peer();
+            this.localPeer = localPeer;
             this.peers = gossipContext.getPeers();
             this.peerSelector = gossipContext.getPeerSelector();
 
@@ -178,6 +181,7 @@ public class Dissemination
             this.requestController = new RequestResponseController(gossipContext.getClientTransport(), config.disseminationTimeout);
 
             this.failureDetectors = failureDetectors;
+            this.deltaDissemination = config.deltaDissemination;
         }
 
         public void reset()
@@ -216,7 +220,14 @@ public class Dissemination
             final RequestResponseController requestController = context.requestController;
             final Peer peer = context.peer;
 
-            request.peers(peers);
+            if (context.deltaDissemination)
+            {
+                request.peerDigests(peers, context.localPeer);
+            }
+            else
+            {
+                request.peers(peers);
+            }
 
             final SocketAddress endpoint = peer.managementEndpoint();
             requestController.open(endpoint, request, context.response);
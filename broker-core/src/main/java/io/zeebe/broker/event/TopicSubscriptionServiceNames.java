@@ -17,6 +17,7 @@
  */
 package io.zeebe.broker.event;
 
+import io.zeebe.broker.event.processor.TopicSubscriptionPushService;
 import io.zeebe.broker.event.processor.TopicSubscriptionService;
 import io.zeebe.logstreams.processor.StreamProcessorController;
 import io.zeebe.servicecontainer.ServiceName;
@@ -26,9 +27,9 @@ public class TopicSubscriptionServiceNames
 
     public static final ServiceName<TopicSubscriptionService> TOPIC_SUBSCRIPTION_SERVICE = ServiceName.newServiceName("log.subscription.manager", TopicSubscriptionService.class);
 
-    public static ServiceName<StreamProcessorController> subscriptionPushServiceName(String logStreamName, String subscriptionName)
+    public static ServiceName<TopicSubscriptionPushService> subscriptionPushServiceName(String logStreamName)
     {
-        return ServiceName.newServiceName(String.format("log.%s.subscription.push.%s", logStreamName, subscriptionName), StreamProcessorController.class);
+        return ServiceName.newServiceName(String.format("log.%s.subscription.push", logStreamName), TopicSubscriptionPushService.class);
     }
 
     public static ServiceName<StreamProcessorController> subscriptionManagementServiceName(String logStreamName)
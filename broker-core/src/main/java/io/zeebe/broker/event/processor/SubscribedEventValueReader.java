@@ -0,0 +1,79 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.event.processor;
+
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import io.zeebe.broker.workflow.data.PayloadReferenceResolver;
+import io.zeebe.logstreams.log.LoggedEvent;
+import io.zeebe.protocol.clientapi.EventType;
+import io.zeebe.protocol.impl.BrokerEventMetadata;
+
+/**
+ * Reads the value of an event which is pushed to the topic subscriptions. The
+ * payload reference of a workflow instance event is resolved, so that the
+ * filter of a subscription and the subscriber see the complete event.
+ */
+public class SubscribedEventValueReader implements AutoCloseable
+{
+    protected final UnsafeBuffer value = new UnsafeBuffer(0, 0);
+
+    protected final PayloadReferenceResolver payloadReferenceResolver;
+
+    /**
+     * @param payloadReferenceResolver
+     *            the resolver of the payload references, or null if payload
+     *            references are not enabled
+     */
+    public SubscribedEventValueReader(PayloadReferenceResolver payloadReferenceResolver)
+    {
+        this.payloadReferenceResolver = payloadReferenceResolver;
+    }
+
+    /**
+     * @param metadata
+     *            the metadata of the event which must be read already
+     * @return a view of the value of the event which is valid until the next
+     *         call
+     * @throws IllegalStateException
+     *             if the payload of the event references an event which is not
+     *             available
+     */
+    public DirectBuffer read(LoggedEvent event, BrokerEventMetadata metadata)
+    {
+        if (payloadReferenceResolver != null && metadata.getEventType() == EventType.WORKFLOW_INSTANCE_EVENT)
+        {
+            return payloadReferenceResolver.resolve(event.getValueBuffer(), event.getValueOffset(), event.getValueLength());
+        }
+        else
+        {
+            value.wrap(event.getValueBuffer(), event.getValueOffset(), event.getValueLength());
+            return value;
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        if (payloadReferenceResolver != null)
+        {
+            payloadReferenceResolver.close();
+        }
+    }
+}
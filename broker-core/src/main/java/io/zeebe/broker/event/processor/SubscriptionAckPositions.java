@@ -0,0 +1,153 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.event.processor;
+
+import static io.zeebe.util.buffer.BufferUtil.cloneBuffer;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import io.zeebe.logstreams.spi.SnapshotSupport;
+
+/**
+ * The acknowledged positions of the topic subscriptions of a partition. The
+ * lowest acknowledged position is published, so that it can be read by other
+ * threads to determine which events must be retained for the subscriptions.
+ */
+public class SubscriptionAckPositions implements SnapshotSupport
+{
+    public static final long NO_SUBSCRIPTION = Long.MAX_VALUE;
+
+    // the keys are compared by content, a new key is cloned
+    protected final Map<DirectBuffer, AckPosition> positions = new HashMap<>();
+
+    protected volatile long lowestPosition = NO_SUBSCRIPTION;
+
+    public void put(DirectBuffer subscriptionName, long position)
+    {
+        final AckPosition ackPosition = positions.get(subscriptionName);
+
+        if (ackPosition != null)
+        {
+            ackPosition.position = position;
+        }
+        else
+        {
+            positions.put(cloneBuffer(subscriptionName), new AckPosition(position));
+        }
+
+        updateLowestPosition();
+    }
+
+    /**
+     * @return the acknowledged position of the subscription or the given
+     *         default value if it has no acknowledged position
+     */
+    public long get(DirectBuffer subscriptionName, long defaultValue)
+    {
+        final AckPosition ackPosition = positions.get(subscriptionName);
+        return ackPosition != null ? ackPosition.position : defaultValue;
+    }
+
+    /**
+     * Can be called by any thread.
+     *
+     * @return the lowest acknowledged position of all subscriptions, or
+     *         {@link #NO_SUBSCRIPTION} if no subscription acknowledged a position
+     */
+    public long getLowestPosition()
+    {
+        return lowestPosition;
+    }
+
+    protected void updateLowestPosition()
+    {
+        long lowest = NO_SUBSCRIPTION;
+
+        for (AckPosition ackPosition : positions.values())
+        {
+            lowest = Math.min(lowest, ackPosition.position);
+        }
+
+        lowestPosition = lowest;
+    }
+
+    @Override
+    public void writeSnapshot(OutputStream outputStream) throws Exception
+    {
+        final DataOutputStream dataOutputStream = new DataOutputStream(outputStream);
+
+        dataOutputStream.writeInt(positions.size());
+
+        for (Map.Entry<DirectBuffer, AckPosition> entry : positions.entrySet())
+        {
+            final DirectBuffer subscriptionName = entry.getKey();
+            final byte[] nameBytes = new byte[subscriptionName.capacity()];
+            subscriptionName.getBytes(0, nameBytes);
+
+            dataOutputStream.writeInt(nameBytes.length);
+            dataOutputStream.write(nameBytes);
+            dataOutputStream.writeLong(entry.getValue().position);
+        }
+
+        dataOutputStream.flush();
+    }
+
+    @Override
+    public void recoverFromSnapshot(InputStream inputStream) throws Exception
+    {
+        positions.clear();
+
+        final DataInputStream dataInputStream = new DataInputStream(inputStream);
+
+        final int size = dataInputStream.readInt();
+        for (int i = 0; i < size; i++)
+        {
+            final byte[] nameBytes = new byte[dataInputStream.readInt()];
+            dataInputStream.readFully(nameBytes);
+
+            positions.put(new UnsafeBuffer(nameBytes), new AckPosition(dataInputStream.readLong()));
+        }
+
+        updateLowestPosition();
+    }
+
+    @Override
+    public void reset()
+    {
+        positions.clear();
+        lowestPosition = NO_SUBSCRIPTION;
+    }
+
+    protected static class AckPosition
+    {
+        protected long position;
+
+        AckPosition(long position)
+        {
+            this.position = position;
+        }
+    }
+}
@@ -21,6 +21,20 @@ import io.zeebe.broker.system.DirectoryConfiguration;
 
 public class SubscriptionCfg extends DirectoryConfiguration
 {
+    /**
+     * The number of acknowledgements of an open topic subscription which are
+     * written as one ACKNOWLEDGE command. Every acknowledgement is applied in
+     * memory when it is received, the command is only written for the n-th one.
+     */
+    public int acknowledgementsPerCommand = 10;
+
+    /**
+     * The interval in milliseconds in which the acknowledgements of the open
+     * topic subscriptions are written, also if there are less than
+     * {@link #acknowledgementsPerCommand} of them.
+     */
+    public long acknowledgementFlushIntervalInMillis = 1_000;
+
     @Override
     protected String componentDirectoryName()
     {
@@ -19,15 +19,22 @@ package io.zeebe.broker.event.processor;
 
 import io.zeebe.msgpack.UnpackedObject;
 import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
 
+import io.zeebe.msgpack.property.ArrayProperty;
 import io.zeebe.msgpack.property.BooleanProperty;
 import io.zeebe.msgpack.property.EnumProperty;
 import io.zeebe.msgpack.property.IntegerProperty;
 import io.zeebe.msgpack.property.LongProperty;
 import io.zeebe.msgpack.property.StringProperty;
+import io.zeebe.msgpack.spec.MsgPackHelper;
+import io.zeebe.msgpack.value.ArrayValue;
+import io.zeebe.msgpack.value.StringValue;
 
 public class TopicSubscriberEvent extends UnpackedObject
 {
+    protected static final DirectBuffer EMPTY_ARRAY = new UnsafeBuffer(MsgPackHelper.EMPTY_ARRAY);
+
     // negative value for end of log
     protected LongProperty startPositionProp = new LongProperty("startPosition", -1L);
     protected IntegerProperty prefetchCapacityProp = new IntegerProperty("prefetchCapacity", -1);
@@ -37,6 +44,12 @@ public class TopicSubscriberEvent extends UnpackedObject
     protected BooleanProperty forceStartProp = new BooleanProperty("forceStart", false);
     protected EnumProperty<TopicSubscriberState> stateProp = new EnumProperty<>("state", TopicSubscriberState.class);
 
+    // filter which is applied by the broker before an event is pushed; empty for all events
+    protected ArrayProperty<StringValue> eventTypesProp = newStringArrayProperty("eventTypes");
+    protected ArrayProperty<StringValue> eventStatesProp = newStringArrayProperty("eventStates");
+    protected StringProperty valueFilterPathProp = new StringProperty("valueFilterPath", "");
+    protected StringProperty valueFilterValueProp = new StringProperty("valueFilterValue", "");
+
     public TopicSubscriberEvent()
     {
         this
@@ -44,7 +57,19 @@ public class TopicSubscriberEvent extends UnpackedObject
             .declareProperty(startPositionProp)
             .declareProperty(nameProp)
             .declareProperty(prefetchCapacityProp)
-            .declareProperty(forceStartProp);
+            .declareProperty(forceStartProp)
+            .declareProperty(eventTypesProp)
+            .declareProperty(eventStatesProp)
+            .declareProperty(valueFilterPathProp)
+            .declareProperty(valueFilterValueProp);
+    }
+
+    protected static ArrayProperty<StringValue> newStringArrayProperty(String key)
+    {
+        return new ArrayProperty<>(key,
+            new ArrayValue<>(),
+            new ArrayValue<>(EMPTY_ARRAY, 0, EMPTY_ARRAY.capacity()),
+            new StringValue());
     }
 
     public TopicSubscriberEvent setStartPosition(long startPosition)
@@ -91,6 +116,32 @@ public class TopicSubscriberEvent extends UnpackedObject
         return forceStartProp.getValue();
     }
 
+    /**
+     * @return the names of the event types which are pushed to the subscription
+     */
+    public ArrayProperty<StringValue> eventTypes()
+    {
+        return eventTypesProp;
+    }
+
+    /**
+     * @return the event states which are pushed to the subscription
+     */
+    public ArrayProperty<StringValue> eventStates()
+    {
+        return eventStatesProp;
+    }
+
+    public DirectBuffer getValueFilterPath()
+    {
+        return valueFilterPathProp.getValue();
+    }
+
+    public DirectBuffer getValueFilterValue()
+    {
+        return valueFilterValueProp.getValue();
+    }
+
     public TopicSubscriberState getState()
     {
         return stateProp.getValue();
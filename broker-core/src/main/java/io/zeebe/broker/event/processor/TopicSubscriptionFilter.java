@@ -0,0 +1,247 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.event.processor;
+
+import static io.zeebe.util.buffer.BufferUtil.bufferAsString;
+import static io.zeebe.util.buffer.BufferUtil.cloneBuffer;
+import static io.zeebe.util.buffer.BufferUtil.wrapString;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.agrona.DirectBuffer;
+
+import io.zeebe.broker.util.MsgPackPropertyReader;
+import io.zeebe.msgpack.property.ArrayProperty;
+import io.zeebe.msgpack.spec.MsgPackType;
+import io.zeebe.msgpack.value.StringValue;
+import io.zeebe.protocol.clientapi.EventType;
+import io.zeebe.protocol.impl.BrokerEventMetadata;
+
+/**
+ * Decides which events are pushed to a topic subscription. An event is pushed if
+ * <ul>
+ * <li>its type is one of the subscribed event types,</li>
+ * <li>its state is one of the subscribed event states and</li>
+ * <li>the property of its value at the filter path is equal to the filter value.</li>
+ * </ul>
+ * A criterion which is not set is not checked. The value is not unpacked, the
+ * properties are read from the msgpack document directly. The path can lead
+ * into the payload of the event, which must be resolved if it is referenced.
+ */
+public class TopicSubscriptionFilter
+{
+    public static final TopicSubscriptionFilter ALL_EVENTS = new TopicSubscriptionFilter(null, new DirectBuffer[0], new DirectBuffer[0], null);
+
+    private static final Pattern VALUE_PATH_PATTERN = Pattern.compile("\\$(\\.[^.\\[\\]*]+)+");
+
+    private static final DirectBuffer STATE_KEY = wrapString("state");
+
+    private final MsgPackPropertyReader propertyReader = new MsgPackPropertyReader();
+
+    // indexed by the ordinal of the event type; null for all event types
+    private final boolean[] eventTypes;
+    private final DirectBuffer[] eventStates;
+    private final DirectBuffer[] valuePath;
+    private final DirectBuffer value;
+    private final boolean isIntegerValue;
+    private final long integerValue;
+
+    public TopicSubscriptionFilter(boolean[] eventTypes, DirectBuffer[] eventStates, DirectBuffer[] valuePath, DirectBuffer value)
+    {
+        this.eventTypes = eventTypes;
+        this.eventStates = eventStates;
+        this.valuePath = valuePath;
+        this.value = value;
+
+        long parsedValue = 0;
+        boolean isInteger = false;
+        if (value != null)
+        {
+            try
+            {
+                parsedValue = Long.parseLong(bufferAsString(value));
+                isInteger = true;
+            }
+            catch (NumberFormatException e)
+            {
+                // only matches string properties
+            }
+        }
+        this.integerValue = parsedValue;
+        this.isIntegerValue = isInteger;
+    }
+
+    /**
+     * Creates the filter which is requested by the given subscriber event.
+     *
+     * @throws IllegalArgumentException if the filter is not valid
+     */
+    public static TopicSubscriptionFilter fromSubscriberEvent(TopicSubscriberEvent subscriberEvent)
+    {
+        final boolean[] eventTypes = readEventTypes(subscriberEvent.eventTypes());
+        final DirectBuffer[] eventStates = readStrings(subscriberEvent.eventStates());
+
+        DirectBuffer[] valuePath = new DirectBuffer[0];
+        DirectBuffer value = null;
+
+        final DirectBuffer valueFilterPath = subscriberEvent.getValueFilterPath();
+        if (valueFilterPath.capacity() > 0)
+        {
+            final String path = bufferAsString(valueFilterPath);
+            if (!VALUE_PATH_PATTERN.matcher(path).matches())
+            {
+                throw new IllegalArgumentException("Value filter path '" + path + "' is not supported. " +
+                        "It must be a JSON path of the form '$.property' or '$.property.nestedProperty'.");
+            }
+
+            final String[] propertyNames = path.substring(2).split("\\.");
+            valuePath = new DirectBuffer[propertyNames.length];
+            for (int i = 0; i < propertyNames.length; i++)
+            {
+                valuePath[i] = wrapString(propertyNames[i]);
+            }
+
+            value = cloneBuffer(subscriberEvent.getValueFilterValue());
+        }
+
+        if (eventTypes == null && eventStates.length == 0 && valuePath.length == 0)
+        {
+            return ALL_EVENTS;
+        }
+        else
+        {
+            return new TopicSubscriptionFilter(eventTypes, eventStates, valuePath, value);
+        }
+    }
+
+    protected static boolean[] readEventTypes(ArrayProperty<StringValue> eventTypeNames)
+    {
+        boolean[] eventTypes = null;
+
+        while (eventTypeNames.hasNext())
+        {
+            final String name = bufferAsString(eventTypeNames.next().getValue());
+
+            final EventType eventType;
+            try
+            {
+                eventType = EventType.valueOf(name);
+            }
+            catch (IllegalArgumentException e)
+            {
+                throw new IllegalArgumentException("Unknown event type '" + name + "'.");
+            }
+
+            if (eventTypes == null)
+            {
+                eventTypes = new boolean[EventType.values().length];
+            }
+            eventTypes[eventType.ordinal()] = true;
+        }
+
+        return eventTypes;
+    }
+
+    protected static DirectBuffer[] readStrings(ArrayProperty<StringValue> property)
+    {
+        final List<DirectBuffer> values = new ArrayList<>();
+
+        while (property.hasNext())
+        {
+            // the value is reused by the iterator
+            values.add(cloneBuffer(property.next().getValue()));
+        }
+
+        return values.toArray(new DirectBuffer[values.size()]);
+    }
+
+    /**
+     * @param metadata the metadata of the event which must be read already
+     * @param eventValue the value of the event
+     */
+    public boolean applies(BrokerEventMetadata metadata, DirectBuffer eventValue)
+    {
+        if (eventTypes != null && !eventTypes[metadata.getEventType().ordinal()])
+        {
+            return false;
+        }
+
+        if (eventStates.length > 0 && !hasState(eventValue))
+        {
+            return false;
+        }
+
+        if (valuePath.length > 0 && !hasValue(eventValue))
+        {
+            return false;
+        }
+
+        return true;
+    }
+
+    protected boolean hasState(DirectBuffer eventValue)
+    {
+        propertyReader.wrap(eventValue, 0, eventValue.capacity());
+
+        if (!propertyReader.moveToProperty(STATE_KEY) || propertyReader.currentType() != MsgPackType.STRING)
+        {
+            return false;
+        }
+
+        final int length = propertyReader.getReader().readStringLength();
+        for (int i = 0; i < eventStates.length; i++)
+        {
+            if (propertyReader.currentBytesEqual(length, eventStates[i]))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    protected boolean hasValue(DirectBuffer eventValue)
+    {
+        propertyReader.wrap(eventValue, 0, eventValue.capacity());
+
+        for (int i = 0; i < valuePath.length; i++)
+        {
+            if (!propertyReader.moveToProperty(valuePath[i]))
+            {
+                return false;
+            }
+        }
+
+        final MsgPackType type = propertyReader.currentType();
+        if (type == MsgPackType.STRING)
+        {
+            final int length = propertyReader.getReader().readStringLength();
+            return propertyReader.currentBytesEqual(length, value);
+        }
+        else if (type == MsgPackType.INTEGER)
+        {
+            return isIntegerValue && propertyReader.getReader().readInteger() == integerValue;
+        }
+        else
+        {
+            return false;
+        }
+    }
+}
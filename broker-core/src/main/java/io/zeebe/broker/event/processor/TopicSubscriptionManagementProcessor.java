@@ -17,60 +17,71 @@
  */
 package io.zeebe.broker.event.processor;
 
-import static io.zeebe.broker.logstreams.LogStreamServiceNames.SNAPSHOT_STORAGE_SERVICE;
-import static io.zeebe.broker.system.SystemServiceNames.ACTOR_SCHEDULER_SERVICE;
+import static io.zeebe.util.buffer.BufferUtil.cloneBuffer;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
-import java.util.function.Supplier;
+import java.util.function.LongSupplier;
 
-import io.zeebe.broker.event.TopicSubscriptionServiceNames;
 import io.zeebe.broker.logstreams.processor.MetadataFilter;
-import io.zeebe.broker.logstreams.processor.StreamProcessorIds;
-import io.zeebe.broker.logstreams.processor.StreamProcessorService;
 import io.zeebe.broker.transport.clientapi.CommandResponseWriter;
 import io.zeebe.broker.transport.clientapi.ErrorResponseWriter;
-import io.zeebe.broker.transport.clientapi.SubscribedEventWriter;
 import io.zeebe.logstreams.log.LogStream;
 import io.zeebe.logstreams.log.LogStreamWriter;
 import io.zeebe.logstreams.log.LoggedEvent;
 import io.zeebe.logstreams.processor.EventProcessor;
 import io.zeebe.logstreams.processor.StreamProcessor;
 import io.zeebe.logstreams.processor.StreamProcessorContext;
-import io.zeebe.logstreams.processor.StreamProcessorController;
-import io.zeebe.logstreams.snapshot.ZbMapSnapshotSupport;
 import io.zeebe.logstreams.spi.SnapshotSupport;
-import io.zeebe.map.Bytes2LongZbMap;
 import io.zeebe.protocol.Protocol;
 import io.zeebe.protocol.clientapi.ErrorCode;
 import io.zeebe.protocol.clientapi.EventType;
+import io.zeebe.protocol.clientapi.ExecuteCommandRequestDecoder;
 import io.zeebe.protocol.impl.BrokerEventMetadata;
-import io.zeebe.servicecontainer.ServiceName;
-import io.zeebe.servicecontainer.ServiceStartContext;
 import io.zeebe.util.DeferredCommandContext;
 import org.agrona.DirectBuffer;
-
+import org.agrona.concurrent.UnsafeBuffer;
+
+/**
+ * Manages the topic subscriptions of a partition and applies their acknowledgements.
+ * <p>
+ * The acknowledgements of an open subscription are received from the client api
+ * and applied in memory, i.e. the subscription can receive further events
+ * immediately. They are coalesced and only every n-th one is written as
+ * ACKNOWLEDGE command, which determines the resume and retention position of the
+ * subscription. The remaining acknowledgements are written when they are
+ * {@link #flushAcknowledgementsAsync() flushed} periodically and when the
+ * subscription is closed. If the broker fails before, the subscription receives
+ * the events after the last written acknowledgement again.
+ */
 public class TopicSubscriptionManagementProcessor implements StreamProcessor
 {
 
     protected static final int MAXIMUM_SUBSCRIPTION_NAME_LENGTH = 32;
 
-    protected final SnapshotSupport snapshotResource;
+    // the request of an acknowledgement which is applied in memory is not kept
+    protected static final DirectBuffer NO_REQUEST = new UnsafeBuffer(0, 0);
 
     protected LogStream targetStream;
     protected DirectBuffer logStreamTopicName;
     protected int logStreamPartitionId;
-    protected final ServiceName<LogStream> streamServiceName;
 
     protected final SubscriptionRegistry subscriptionRegistry = new SubscriptionRegistry();
 
+    // closed subscriptions whose last acknowledgement could not be written yet
+    protected final List<ClosingSubscription> closingSubscriptions = new ArrayList<>();
+
     protected final ErrorResponseWriter errorWriter;
     protected final CommandResponseWriter responseWriter;
-    protected final Supplier<SubscribedEventWriter> eventWriterFactory;
-    protected final ServiceStartContext serviceContext;
-    protected final Bytes2LongZbMap ackMap;
+    protected final TopicSubscriptionPushService pushService;
+    protected final SubscriptionAckPositions ackPositions = new SubscriptionAckPositions();
+    protected final LongSupplier retentionPosition = ackPositions::getLowestPosition;
+    protected final int acknowledgementsPerCommand;
 
     protected DeferredCommandContext cmdContext;
+    protected LogStreamWriter logStreamWriter;
 
     protected final AckProcessor ackProcessor = new AckProcessor();
     protected final SubscribeProcessor subscribeProcessor = new SubscribeProcessor(MAXIMUM_SUBSCRIPTION_NAME_LENGTH, this);
@@ -81,26 +92,27 @@ public class TopicSubscriptionManagementProcessor implements StreamProcessor
     protected final TopicSubscriberEvent subscriberEvent = new TopicSubscriberEvent();
     protected LoggedEvent currentEvent;
 
+    protected final BrokerEventMetadata ackCommandMetadata = new BrokerEventMetadata();
+    protected final TopicSubscriptionEvent ackCommand = new TopicSubscriptionEvent();
+    protected final TopicSubscriptionEvent ackResponse = new TopicSubscriptionEvent();
+
     public TopicSubscriptionManagementProcessor(
-            ServiceName<LogStream> streamServiceName,
             CommandResponseWriter responseWriter,
             ErrorResponseWriter errorWriter,
-            Supplier<SubscribedEventWriter> eventWriterFactory,
-            ServiceStartContext serviceContext)
+            TopicSubscriptionPushService pushService,
+            int acknowledgementsPerCommand)
     {
-        this.streamServiceName = streamServiceName;
         this.responseWriter = responseWriter;
         this.errorWriter = errorWriter;
-        this.eventWriterFactory = eventWriterFactory;
-        this.serviceContext = serviceContext;
-        this.ackMap = new Bytes2LongZbMap(MAXIMUM_SUBSCRIPTION_NAME_LENGTH);
-        this.snapshotResource = new ZbMapSnapshotSupport<>(ackMap);
+        this.pushService = pushService;
+        this.acknowledgementsPerCommand = acknowledgementsPerCommand;
     }
 
     @Override
     public void onOpen(StreamProcessorContext context)
     {
         this.cmdContext = context.getStreamProcessorCmdQueue();
+        this.logStreamWriter = context.getLogStreamWriter();
 
         final LogStream sourceStream = context.getSourceStream();
         this.logStreamTopicName = sourceStream.getTopicName();
@@ -109,16 +121,10 @@ public class TopicSubscriptionManagementProcessor implements StreamProcessor
         targetStream = context.getTargetStream();
     }
 
-    @Override
-    public void onClose()
-    {
-        ackMap.close();
-    }
-
     @Override
     public SnapshotSupport getStateResource()
     {
-        return snapshotResource;
+        return ackPositions;
     }
 
     public LogStream getTargetStream()
@@ -185,7 +191,27 @@ public class TopicSubscriptionManagementProcessor implements StreamProcessor
 
     protected void putAck(DirectBuffer subscriptionName, long ackPosition)
     {
-        ackMap.put(subscriptionName, 0, subscriptionName.capacity(), ackPosition);
+        ackPositions.put(subscriptionName, ackPosition);
+    }
+
+    /**
+     * Can be called by any thread.
+     *
+     * @return the lowest acknowledged position of the subscriptions, or
+     *         {@link SubscriptionAckPositions#NO_SUBSCRIPTION} if there is none
+     */
+    public long getLowestAckPosition()
+    {
+        return ackPositions.getLowestPosition();
+    }
+
+    /**
+     * @return the supplier of the {@link #getLowestAckPosition() lowest acknowledged position}
+     *         which is registered as retention position of the log stream
+     */
+    public LongSupplier retentionPosition()
+    {
+        return retentionPosition;
     }
 
     public CompletableFuture<Void> closePushProcessorAsync(long subscriberKey)
@@ -196,8 +222,7 @@ public class TopicSubscriptionManagementProcessor implements StreamProcessor
 
             if (processor != null)
             {
-                closePushProcessor(processor)
-                    .handle((r, t) -> t == null ? future.complete(null) : future.completeExceptionally(t));
+                closeSubscription(processor, future);
             }
             else
             {
@@ -206,18 +231,82 @@ public class TopicSubscriptionManagementProcessor implements StreamProcessor
         });
     }
 
-    protected CompletableFuture<Void> closePushProcessor(TopicSubscriptionPushProcessor processor)
+    /**
+     * Closes the push processor after its last acknowledgement is written. If
+     * the acknowledgement can't be written, it is retried when the
+     * acknowledgements are flushed.
+     *
+     * @param future completed when the push processor is closed, may be null
+     */
+    protected void closeSubscription(TopicSubscriptionPushProcessor processor, CompletableFuture<Void> future)
     {
-        final ServiceName<StreamProcessorController> subscriptionProcessorName =
-                TopicSubscriptionServiceNames.subscriptionPushServiceName(streamServiceName.getName(), processor.getNameAsString());
+        writeUnwrittenAcknowledgement(processor);
+
+        if (processor.getUnwrittenAckPosition() == TopicSubscriptionPushProcessor.UNKNOWN_POSITION)
+        {
+            final CompletableFuture<Void> closeFuture = closePushProcessor(processor);
 
-        return serviceContext.removeService(subscriptionProcessorName);
+            if (future != null)
+            {
+                closeFuture.handle((r, t) -> t == null ? future.complete(null) : future.completeExceptionally(t));
+            }
+        }
+        else
+        {
+            closingSubscriptions.add(new ClosingSubscription(processor, future));
+        }
+    }
+
+    /**
+     * Writes the acknowledgements of the open subscriptions which are only
+     * applied in memory, so that an idle subscription doesn't hold them back,
+     * and retries to close the subscriptions whose last acknowledgement could
+     * not be written. Can be called by any thread.
+     */
+    public void flushAcknowledgementsAsync()
+    {
+        if (cmdContext == null)
+        {
+            // not opened yet
+            return;
+        }
+
+        try
+        {
+            cmdContext.runAsync(this::flushAcknowledgements);
+        }
+        catch (IllegalStateException e)
+        {
+            // the command queue is full; the acknowledgements are flushed next time
+        }
+    }
+
+    protected void flushAcknowledgements()
+    {
+        final int closingSubscriptionCount = closingSubscriptions.size();
+        for (int i = 0; i < closingSubscriptionCount; i++)
+        {
+            // a subscription is added again if its acknowledgement can't be written
+            final ClosingSubscription closingSubscription = closingSubscriptions.remove(0);
+            closeSubscription(closingSubscription.processor, closingSubscription.future);
+        }
+
+        final Iterator<TopicSubscriptionPushProcessor> subscriptionsIt = subscriptionRegistry.iterateSubscriptions();
+        while (subscriptionsIt.hasNext())
+        {
+            writeUnwrittenAcknowledgement(subscriptionsIt.next());
+        }
+    }
+
+    protected CompletableFuture<Void> closePushProcessor(TopicSubscriptionPushProcessor processor)
+    {
+        return pushService.closeSubscriptionAsync(processor);
     }
 
 
     public long determineResumePosition(DirectBuffer subscriptionName, long startPosition, boolean forceStart)
     {
-        final long lastAckedPosition = ackMap.get(subscriptionName, 0, subscriptionName.capacity(), -1L);
+        final long lastAckedPosition = ackPositions.get(subscriptionName, -1L);
 
         if (forceStart)
         {
@@ -241,7 +330,8 @@ public class TopicSubscriptionManagementProcessor implements StreamProcessor
             long subscriberKey,
             long resumePosition,
             DirectBuffer subscriptionName,
-            int prefetchCapacity)
+            int prefetchCapacity,
+            TopicSubscriptionFilter filter)
     {
         final TopicSubscriptionPushProcessor processor = new TopicSubscriptionPushProcessor(
                 clientChannelId,
@@ -249,24 +339,9 @@ public class TopicSubscriptionManagementProcessor implements StreamProcessor
                 resumePosition,
                 subscriptionName,
                 prefetchCapacity,
-                eventWriterFactory.get());
-
-        final ServiceName<StreamProcessorController> serviceName = TopicSubscriptionServiceNames.subscriptionPushServiceName(streamServiceName.getName(), processor.getNameAsString());
-
-        final StreamProcessorService streamProcessorService = new StreamProcessorService(
-                serviceName.getName(),
-                StreamProcessorIds.TOPIC_SUBSCRIPTION_PUSH_PROCESSOR_ID,
-                processor)
-            .eventFilter(TopicSubscriptionPushProcessor.eventFilter())
-            .readOnly(true);
-
-        return serviceContext.createService(serviceName, streamProcessorService)
-            .dependency(streamServiceName, streamProcessorService.getSourceStreamInjector())
-            .dependency(streamServiceName, streamProcessorService.getTargetStreamInjector())
-            .dependency(SNAPSHOT_STORAGE_SERVICE, streamProcessorService.getSnapshotStorageInjector())
-            .dependency(ACTOR_SCHEDULER_SERVICE, streamProcessorService.getActorSchedulerInjector())
-            .install()
-            .thenApply((v) -> processor);
+                filter);
+
+        return pushService.openSubscriptionAsync(processor);
     }
 
     public boolean writeRequestResponseError(BrokerEventMetadata metadata, LoggedEvent event, String error)
@@ -280,9 +355,152 @@ public class TopicSubscriptionManagementProcessor implements StreamProcessor
 
     public void registerPushProcessor(TopicSubscriptionPushProcessor processor)
     {
+        processor.setSkippedEventsAcknowledger(position -> acknowledgeSkippedEventsAsync(processor, position));
         subscriptionRegistry.addSubscription(processor);
     }
 
+    /**
+     * Writes an ACKNOWLEDGE command for the events which are skipped by the
+     * filter of the subscription, like the client acknowledges the pushed
+     * events. Can be called by any thread.
+     */
+    protected void acknowledgeSkippedEventsAsync(TopicSubscriptionPushProcessor processor, long position)
+    {
+        cmdContext.runAsync(() ->
+        {
+            if (subscriptionRegistry.getProcessorByName(processor.getName()) != processor)
+            {
+                // the subscription is closed
+                return;
+            }
+
+            if (writeAcknowledgeCommand(processor.getSubscriptionId(), processor.getName(), position, -1, -1L) >= 0)
+            {
+                processor.onAcknowledgementWritten(position);
+            }
+            else
+            {
+                processor.onSkippedEventsAcknowledgementFailed();
+            }
+        });
+    }
+
+    /**
+     * Applies the acknowledgement of a client in memory instead of writing it
+     * to the log. Can be called by any thread.
+     *
+     * @return false if the acknowledgement can't be taken and must be written
+     *         to the log as command
+     */
+    public boolean acknowledgeAsync(TopicSubscriptionEvent event, long key, int requestStreamId, long requestId)
+    {
+        if (cmdContext == null)
+        {
+            // not opened yet
+            return false;
+        }
+
+        final DirectBuffer subscriptionName = cloneBuffer(event.getName());
+        final long ackPosition = event.getAckPosition();
+
+        try
+        {
+            cmdContext.runAsync(() -> applyAcknowledgement(key, subscriptionName, ackPosition, requestStreamId, requestId));
+            return true;
+        }
+        catch (IllegalStateException e)
+        {
+            // the command queue is full
+            return false;
+        }
+    }
+
+    protected void applyAcknowledgement(long key, DirectBuffer subscriptionName, long ackPosition, int requestStreamId, long requestId)
+    {
+        final TopicSubscriptionPushProcessor processor = subscriptionRegistry.getProcessorByName(subscriptionName);
+
+        if (processor == null)
+        {
+            // the subscription is not open; the acknowledgement is answered when the command is processed
+            if (writeAcknowledgeCommand(key, subscriptionName, ackPosition, requestStreamId, requestId) < 0)
+            {
+                errorWriter
+                    .errorCode(ErrorCode.REQUEST_WRITE_FAILURE)
+                    .errorMessage("Cannot write acknowledgement of topic subscription.")
+                    .failedRequest(NO_REQUEST, 0, 0)
+                    .tryWriteResponseOrLogFailure(requestStreamId, requestId);
+            }
+            return;
+        }
+
+        processor.onAck(ackPosition);
+
+        if (processor.coalesceAcknowledgement(ackPosition, acknowledgementsPerCommand))
+        {
+            writeUnwrittenAcknowledgement(processor);
+        }
+
+        ackResponse.reset();
+        ackResponse
+            .setState(TopicSubscriptionState.ACKNOWLEDGED)
+            .setName(subscriptionName, 0, subscriptionName.capacity())
+            .setAckPosition(ackPosition);
+
+        responseWriter
+            .topicName(logStreamTopicName)
+            .partitionId(logStreamPartitionId)
+            .eventWriter(ackResponse)
+            .key(key != ExecuteCommandRequestDecoder.keyNullValue() ? key : processor.getSubscriptionId())
+            .tryWriteResponse(requestStreamId, requestId);
+    }
+
+    /**
+     * Writes the acknowledgements of the subscription which are only applied in memory.
+     * If the command can't be written, then it is written with the next acknowledgement
+     * or when the acknowledgements are flushed.
+     */
+    protected void writeUnwrittenAcknowledgement(TopicSubscriptionPushProcessor processor)
+    {
+        final long position = processor.getUnwrittenAckPosition();
+
+        if (position != TopicSubscriptionPushProcessor.UNKNOWN_POSITION
+                && writeAcknowledgeCommand(processor.getSubscriptionId(), processor.getName(), position, -1, -1L) >= 0)
+        {
+            processor.onAcknowledgementWritten(position);
+        }
+    }
+
+    protected long writeAcknowledgeCommand(long key, DirectBuffer subscriptionName, long ackPosition, int requestStreamId, long requestId)
+    {
+        ackCommand.reset();
+        ackCommand
+            .setState(TopicSubscriptionState.ACKNOWLEDGE)
+            .setName(subscriptionName, 0, subscriptionName.capacity())
+            .setAckPosition(ackPosition);
+
+        ackCommandMetadata.reset();
+        ackCommandMetadata
+            .eventType(EventType.SUBSCRIPTION_EVENT)
+            .requestStreamId(requestStreamId)
+            .requestId(requestId)
+            .protocolVersion(Protocol.PROTOCOL_VERSION)
+            .raftTermId(targetStream.getTerm());
+
+        if (key != ExecuteCommandRequestDecoder.keyNullValue())
+        {
+            logStreamWriter.key(key);
+        }
+        else
+        {
+            logStreamWriter.positionAsKey();
+        }
+
+        return logStreamWriter
+            .metadataWriter(ackCommandMetadata)
+            .valueWriter(ackCommand)
+            .tryWrite();
+    }
+
     public void onClientChannelCloseAsync(int channelId)
     {
         cmdContext.runAsync(() ->
@@ -295,13 +513,25 @@ public class TopicSubscriptionManagementProcessor implements StreamProcessor
                 if (processor.getChannelId() == channelId)
                 {
                     subscriptionsIt.remove();
-                    closePushProcessor(processor);
+                    closeSubscription(processor, null);
                 }
             }
         });
     }
 
 
+    protected static class ClosingSubscription
+    {
+        protected final TopicSubscriptionPushProcessor processor;
+        protected final CompletableFuture<Void> future;
+
+        ClosingSubscription(TopicSubscriptionPushProcessor processor, CompletableFuture<Void> future)
+        {
+            this.processor = processor;
+            this.future = future;
+        }
+    }
+
     public static MetadataFilter filter()
     {
         return (m) -> EventType.SUBSCRIPTION_EVENT == m.getEventType() || EventType.SUBSCRIBER_EVENT == m.getEventType();
@@ -20,55 +20,72 @@ package io.zeebe.broker.event.processor;
 import static io.zeebe.util.buffer.BufferUtil.cloneBuffer;
 
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongConsumer;
 
 import org.agrona.DirectBuffer;
 
 import io.zeebe.protocol.impl.BrokerEventMetadata;
 import io.zeebe.broker.logstreams.processor.MetadataFilter;
-import io.zeebe.broker.logstreams.processor.NoopSnapshotSupport;
 import io.zeebe.broker.transport.clientapi.SubscribedEventWriter;
-import io.zeebe.logstreams.log.LogStream;
 import io.zeebe.logstreams.log.LogStreamReader;
 import io.zeebe.logstreams.log.LoggedEvent;
-import io.zeebe.logstreams.processor.EventProcessor;
-import io.zeebe.logstreams.processor.StreamProcessor;
-import io.zeebe.logstreams.processor.StreamProcessorContext;
-import io.zeebe.logstreams.spi.SnapshotSupport;
 import io.zeebe.protocol.clientapi.EventType;
 import io.zeebe.protocol.clientapi.SubscriptionType;
 import io.zeebe.util.collection.LongRingBuffer;
 
-public class TopicSubscriptionPushProcessor implements StreamProcessor, EventProcessor
+/**
+ * Pushes the events of a partition to the client of one topic subscription.
+ * The events are read and dispatched by the {@link TopicSubscriptionPushService}
+ * of the partition. The processor only tracks its own cursor which is used
+ * while it lags behind the other subscriptions.
+ * <p>
+ * The client can only acknowledge the events which are pushed. The events
+ * which are skipped by the filter of the subscription are acknowledged by the
+ * broker when all pushed events before them are acknowledged, so that the
+ * acknowledged position of the subscription doesn't get stuck.
+ */
+public class TopicSubscriptionPushProcessor
 {
+    public static final long UNKNOWN_POSITION = -1L;
 
-    protected final BrokerEventMetadata metadata = new BrokerEventMetadata();
-
-    protected LoggedEvent event;
+    // the skipped events are acknowledged when the subscription is idle or after this many events
+    protected static final int SKIPPED_EVENTS_PER_ACKNOWLEDGEMENT = 1000;
 
     protected final int clientStreamId;
     protected final long subscriberKey;
     protected long startPosition;
     protected final DirectBuffer name;
     protected final String nameString;
-    protected DirectBuffer logStreamTopicName;
-    protected int logStreamPartitionId;
-
-    protected final SnapshotSupport snapshotSupport = new NoopSnapshotSupport();
-    protected final SubscribedEventWriter channelWriter;
+    protected final TopicSubscriptionFilter filter;
 
     protected LongRingBuffer pendingEvents;
     protected LongRingBuffer pendingAcks;
+    // the acknowledgements which are applied but not written yet; only used by the management processor
+    protected long unwrittenAckPosition = UNKNOWN_POSITION;
+    protected int unwrittenAcknowledgements;
     protected AtomicBoolean enabled;
 
+    protected LogStreamReader reader;
+    protected long lastPosition = UNKNOWN_POSITION;
+    protected LoggedEvent pendingEvent;
+
+    protected volatile LongConsumer skippedEventsAcknowledger;
+    protected long lastPushedPosition = UNKNOWN_POSITION;
+    protected long lastSkippedPosition = UNKNOWN_POSITION;
+    protected int skippedEventsSinceAcknowledgement;
+    // written by the thread which processes the acknowledgements
+    protected volatile long lastAckedPosition = UNKNOWN_POSITION;
+    protected volatile long skippedEventsAckPosition = UNKNOWN_POSITION;
+
     public TopicSubscriptionPushProcessor(
             int clientStreamId,
             long subscriberKey,
             long startPosition,
             DirectBuffer name,
             int prefetchCapacity,
-            SubscribedEventWriter channelWriter)
+            TopicSubscriptionFilter filter)
     {
-        this.channelWriter = channelWriter;
+        this.filter = filter;
         this.clientStreamId = clientStreamId;
         this.subscriberKey = subscriberKey;
         this.startPosition = startPosition;
@@ -83,17 +100,32 @@ public class TopicSubscriptionPushProcessor implements StreamProcessor, EventPro
         }
     }
 
-    @Override
-    public void onOpen(StreamProcessorContext context)
+    /**
+     * Positions the given reader at the start position of the subscription.
+     * The reader is used as cursor while the subscription lags behind.
+     */
+    public void open(LogStreamReader reader)
     {
+        this.reader = reader;
+
+        if (startPosition >= 0)
+        {
+            reader.seek(startPosition);
+            lastPosition = UNKNOWN_POSITION;
+        }
+        else
+        {
+            reader.seekToLastEvent();
 
-        final LogStreamReader logReader = context.getSourceLogStreamReader();
+            if (reader.hasNext())
+            {
+                reader.next();
+            }
 
-        final LogStream sourceStream = context.getSourceStream();
-        this.logStreamTopicName = sourceStream.getTopicName();
-        this.logStreamPartitionId = sourceStream.getPartitionId();
+            lastPosition = reader.getPosition();
+        }
 
-        setToStartPosition(logReader);
+        startPosition = reader.getPosition();
     }
 
     /**
@@ -104,59 +136,167 @@ public class TopicSubscriptionPushProcessor implements StreamProcessor, EventPro
         return startPosition;
     }
 
-    protected void setToStartPosition(LogStreamReader logReader)
+    public LogStreamReader getReader()
     {
-        if (startPosition >= 0)
-        {
-            logReader.seek(startPosition);
-        }
-        else
-        {
-            logReader.seekToLastEvent();
+        return reader;
+    }
 
-            if (logReader.hasNext())
-            {
-                logReader.next();
-            }
-        }
+    /**
+     * @return the position of the last event that was read from the subscription's cursor or
+     *         {@link #UNKNOWN_POSITION} if this is not known
+     */
+    public long getLastPosition()
+    {
+        return lastPosition;
+    }
+
+    /**
+     * Exchanges the cursor of the subscription, e.g. when it becomes the shared reader of the partition.
+     *
+     * @return the previous cursor
+     */
+    public LogStreamReader swapReader(LogStreamReader newReader)
+    {
+        final LogStreamReader previousReader = reader;
+
+        reader = newReader;
+        lastPosition = UNKNOWN_POSITION;
+        pendingEvent = null;
 
-        startPosition = logReader.getPosition();
+        return previousReader;
     }
 
-    @Override
-    public SnapshotSupport getStateResource()
+    /**
+     * Moves the cursor of the subscription to the given event, so that the event is
+     * pushed again on {@link #pushNext(SubscribedEventWriter, DirectBuffer, int, MetadataFilter, BrokerEventMetadata)}.
+     */
+    public void resetCursor(long position)
     {
-        return snapshotSupport;
+        pendingEvent = null;
+        lastPosition = UNKNOWN_POSITION;
+
+        if (reader.seek(position) && reader.hasNext())
+        {
+            pendingEvent = reader.next();
+            lastPosition = position;
+        }
     }
 
-    @Override
-    public EventProcessor onEvent(LoggedEvent event)
+    /**
+     * @return true if the cursor is positioned behind the last event which is currently available
+     */
+    public boolean isCaughtUp()
     {
-        this.event = event;
-        return this;
+        return pendingEvent == null && !reader.hasNext();
     }
 
-    @Override
-    public void processEvent()
+    public boolean hasPendingEvent()
     {
+        return pendingEvent != null;
     }
 
-    @Override
-    public boolean executeSideEffects()
+    /**
+     * Reads the next event from the subscription's cursor and pushes it to the client.
+     *
+     * @return true if an event was read or pushed
+     */
+    public boolean pushNext(
+            SubscribedEventWriter eventWriter,
+            SubscribedEventValueReader eventValueReader,
+            DirectBuffer topicName,
+            int partitionId,
+            MetadataFilter eventFilter,
+            BrokerEventMetadata metadata)
     {
-        event.readMetadata(metadata);
+        LoggedEvent event = pendingEvent;
+        final DirectBuffer value;
+
+        if (event == null)
+        {
+            if (!reader.hasNext())
+            {
+                return false;
+            }
+
+            event = reader.next();
+            lastPosition = event.getPosition();
 
-        final boolean success = channelWriter
-            .topicName(logStreamTopicName)
-            .partitionId(logStreamPartitionId)
+            metadata.reset();
+            event.readMetadata(metadata);
+
+            if (!eventFilter.applies(metadata))
+            {
+                return true;
+            }
+
+            // the event is read again on the next attempt if its value can't be read
+            pendingEvent = event;
+            value = eventValueReader.read(event, metadata);
+
+            if (!accepts(metadata, value))
+            {
+                pendingEvent = null;
+                onSkipped(event.getPosition());
+                return true;
+            }
+        }
+        else
+        {
+            metadata.reset();
+            event.readMetadata(metadata);
+
+            value = eventValueReader.read(event, metadata);
+        }
+
+        if (push(eventWriter, topicName, partitionId, event, metadata, value))
+        {
+            pendingEvent = null;
+            return true;
+        }
+        else
+        {
+            pendingEvent = event;
+            return false;
+        }
+    }
+
+    /**
+     * @return true if the given event passes the filter of the subscription. The metadata must be read from the event already.
+     */
+    public boolean accepts(BrokerEventMetadata metadata, DirectBuffer value)
+    {
+        return filter.applies(metadata, value);
+    }
+
+    /**
+     * Pushes the given event with the given value to the client. The metadata must be read from the event already.
+     *
+     * @return true if the event was written to the client channel
+     */
+    public boolean push(
+            SubscribedEventWriter eventWriter,
+            DirectBuffer topicName,
+            int partitionId,
+            LoggedEvent event,
+            BrokerEventMetadata metadata,
+            DirectBuffer value)
+    {
+        final boolean success = eventWriter
+            .topicName(topicName)
+            .partitionId(partitionId)
             .eventType(metadata.getEventType())
             .key(event.getKey())
             .position(event.getPosition())
             .subscriberKey(subscriberKey)
             .subscriptionType(SubscriptionType.TOPIC_SUBSCRIPTION)
-            .event(event.getValueBuffer(), event.getValueOffset(), event.getValueLength())
+            .event(value, 0, value.capacity())
             .tryWriteMessage(clientStreamId);
 
+        if (success)
+        {
+            lastPushedPosition = event.getPosition();
+        }
+
         if (success && recordsPendingEvents())
         {
             final boolean elementAdded = pendingEvents.addElementToHead(event.getPosition());
@@ -169,7 +309,6 @@ public class TopicSubscriptionPushProcessor implements StreamProcessor, EventPro
         return success;
     }
 
-    @Override
     public boolean isSuspended()
     {
         if (!enabled.get())
@@ -194,11 +333,6 @@ public class TopicSubscriptionPushProcessor implements StreamProcessor, EventPro
         return clientStreamId;
     }
 
-    public SubscribedEventWriter getChannelWriter()
-    {
-        return channelWriter;
-    }
-
     public String getNameAsString()
     {
         return nameString;
@@ -206,6 +340,8 @@ public class TopicSubscriptionPushProcessor implements StreamProcessor, EventPro
 
     public void onAck(long eventPosition)
     {
+        lastAckedPosition = Math.max(lastAckedPosition, eventPosition);
+
         if (recordsPendingEvents())
         {
             final boolean elementAdded = pendingAcks.addElementToHead(eventPosition);
@@ -217,6 +353,94 @@ public class TopicSubscriptionPushProcessor implements StreamProcessor, EventPro
         }
     }
 
+    /**
+     * Sets the callback which writes an acknowledgement of the skipped events
+     * up to the given position.
+     */
+    public void setSkippedEventsAcknowledger(LongConsumer skippedEventsAcknowledger)
+    {
+        this.skippedEventsAcknowledger = skippedEventsAcknowledger;
+    }
+
+    /**
+     * Records that the event at the given position is not pushed because of
+     * the filter of the subscription.
+     */
+    public void onSkipped(long position)
+    {
+        lastSkippedPosition = position;
+        skippedEventsSinceAcknowledgement += 1;
+    }
+
+    /**
+     * Acknowledges the skipped events if all pushed events before them are
+     * acknowledged. While the subscription is busy, the skipped events are
+     * only acknowledged after a number of them.
+     *
+     * @return true if an acknowledgement is requested
+     */
+    public boolean acknowledgeSkippedEvents(boolean isIdle)
+    {
+        final long position = lastSkippedPosition;
+        final long ackedPosition = lastAckedPosition;
+
+        final boolean acknowledge = skippedEventsAcknowledger != null
+                && position > ackedPosition
+                && position > skippedEventsAckPosition
+                && ackedPosition >= lastPushedPosition
+                && (isIdle || skippedEventsSinceAcknowledgement >= SKIPPED_EVENTS_PER_ACKNOWLEDGEMENT);
+
+        if (acknowledge)
+        {
+            skippedEventsAckPosition = position;
+            skippedEventsSinceAcknowledgement = 0;
+
+            skippedEventsAcknowledger.accept(position);
+        }
+
+        return acknowledge;
+    }
+
+    /**
+     * Called if the acknowledgement of the skipped events could not be
+     * written, so that it is requested again.
+     */
+    public void onSkippedEventsAcknowledgementFailed()
+    {
+        skippedEventsAckPosition = UNKNOWN_POSITION;
+    }
+
+    /**
+     * Records an acknowledgement which is applied but not written yet.
+     *
+     * @return true if the acknowledgements should be written, i.e. for every n-th one
+     */
+    public boolean coalesceAcknowledgement(long ackPosition, int acknowledgementsPerCommand)
+    {
+        unwrittenAckPosition = Math.max(unwrittenAckPosition, ackPosition);
+        unwrittenAcknowledgements += 1;
+
+        return unwrittenAcknowledgements >= acknowledgementsPerCommand;
+    }
+
+    /**
+     * @return the highest acknowledged position which is not written yet, or
+     *         {@link #UNKNOWN_POSITION} if all acknowledgements are written
+     */
+    public long getUnwrittenAckPosition()
+    {
+        return unwrittenAckPosition;
+    }
+
+    public void onAcknowledgementWritten(long ackPosition)
+    {
+        if (unwrittenAckPosition <= ackPosition)
+        {
+            unwrittenAckPosition = UNKNOWN_POSITION;
+            unwrittenAcknowledgements = 0;
+        }
+    }
+
     /**
      * @return true if this subscription requires throttling
      */
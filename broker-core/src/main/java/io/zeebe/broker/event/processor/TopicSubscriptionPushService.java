@@ -0,0 +1,319 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.event.processor;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import org.agrona.DirectBuffer;
+
+import io.zeebe.broker.logstreams.processor.MetadataFilter;
+import io.zeebe.broker.transport.clientapi.SubscribedEventWriter;
+import io.zeebe.broker.workflow.data.PayloadReferenceResolver;
+import io.zeebe.logstreams.log.BufferedLogStreamReader;
+import io.zeebe.logstreams.log.LogStream;
+import io.zeebe.logstreams.log.LogStreamReader;
+import io.zeebe.logstreams.log.LoggedEvent;
+import io.zeebe.protocol.impl.BrokerEventMetadata;
+import io.zeebe.servicecontainer.Injector;
+import io.zeebe.servicecontainer.Service;
+import io.zeebe.servicecontainer.ServiceStartContext;
+import io.zeebe.servicecontainer.ServiceStopContext;
+import io.zeebe.util.DeferredCommandContext;
+import io.zeebe.util.actor.Actor;
+import io.zeebe.util.actor.ActorReference;
+import io.zeebe.util.actor.ActorScheduler;
+
+/**
+ * Pushes the events of one partition to all open topic subscriptions of the partition.
+ *
+ * <p>
+ * The subscriptions which are caught up share one reader, i.e. each event is read and
+ * filtered once and then dispatched to all of them. A subscription which can't take an
+ * event (because it is throttled or its channel is full) falls back to its own cursor
+ * and catches up on its own. As soon as it reached the position of the shared reader,
+ * it joins the caught up subscriptions again.
+ */
+public class TopicSubscriptionPushService implements Service<TopicSubscriptionPushService>, Actor
+{
+    protected final Injector<LogStream> logStreamInjector = new Injector<>();
+    protected final Injector<ActorScheduler> actorSchedulerInjector = new Injector<>();
+
+    protected final SubscribedEventWriter eventWriter;
+    protected final boolean resolvePayloadReferences;
+    protected final MetadataFilter eventFilter = TopicSubscriptionPushProcessor.eventFilter();
+    protected final BrokerEventMetadata metadata = new BrokerEventMetadata();
+
+    protected final List<TopicSubscriptionPushProcessor> caughtUpSubscriptions = new ArrayList<>();
+    protected final List<TopicSubscriptionPushProcessor> laggingSubscriptions = new ArrayList<>();
+    protected final Set<DirectBuffer> subscriptionNames = new HashSet<>();
+
+    protected final DeferredCommandContext cmdContext = new DeferredCommandContext();
+
+    protected LogStream logStream;
+    protected DirectBuffer topicName;
+    protected int partitionId;
+
+    protected LogStreamReader sharedReader;
+    protected SubscribedEventValueReader eventValueReader;
+    protected long sharedPosition = TopicSubscriptionPushProcessor.UNKNOWN_POSITION;
+
+    protected ActorReference actorRef;
+
+    public TopicSubscriptionPushService(SubscribedEventWriter eventWriter)
+    {
+        this(eventWriter, false);
+    }
+
+    public TopicSubscriptionPushService(SubscribedEventWriter eventWriter, boolean resolvePayloadReferences)
+    {
+        this.eventWriter = eventWriter;
+        this.resolvePayloadReferences = resolvePayloadReferences;
+    }
+
+    @Override
+    public void start(ServiceStartContext startContext)
+    {
+        logStream = logStreamInjector.getValue();
+        topicName = logStream.getTopicName();
+        partitionId = logStream.getPartitionId();
+
+        sharedReader = new BufferedLogStreamReader(logStream);
+
+        final PayloadReferenceResolver payloadReferenceResolver = resolvePayloadReferences
+                ? new PayloadReferenceResolver(new BufferedLogStreamReader(logStream))
+                : null;
+        eventValueReader = new SubscribedEventValueReader(payloadReferenceResolver);
+
+        actorRef = actorSchedulerInjector.getValue().schedule(this);
+    }
+
+    @Override
+    public void stop(ServiceStopContext stopContext)
+    {
+        final CompletableFuture<Void> closeFuture = cmdContext.runAsync((future) ->
+        {
+            sharedReader.close();
+
+            eventValueReader.close();
+            caughtUpSubscriptions.forEach(s -> s.getReader().close());
+            laggingSubscriptions.forEach(s -> s.getReader().close());
+
+            caughtUpSubscriptions.clear();
+            laggingSubscriptions.clear();
+            subscriptionNames.clear();
+
+            future.complete(null);
+        });
+
+        stopContext.async(closeFuture.thenRun(actorRef::close));
+    }
+
+    @Override
+    public TopicSubscriptionPushService get()
+    {
+        return this;
+    }
+
+    public Injector<LogStream> getLogStreamInjector()
+    {
+        return logStreamInjector;
+    }
+
+    public Injector<ActorScheduler> getActorSchedulerInjector()
+    {
+        return actorSchedulerInjector;
+    }
+
+    /**
+     * Opens the subscription at its start position. The subscription receives
+     * events as soon as it is enabled.
+     */
+    public CompletableFuture<TopicSubscriptionPushProcessor> openSubscriptionAsync(TopicSubscriptionPushProcessor subscription)
+    {
+        return cmdContext.runAsync((future) ->
+        {
+            if (subscriptionNames.contains(subscription.getName()))
+            {
+                future.completeExceptionally(new RuntimeException(
+                        String.format("Cannot open topic subscription '%s'. A subscription with this name is already open.",
+                            subscription.getNameAsString())));
+                return;
+            }
+
+            subscription.open(new BufferedLogStreamReader(logStream));
+
+            subscriptionNames.add(subscription.getName());
+            laggingSubscriptions.add(subscription);
+
+            future.complete(subscription);
+        });
+    }
+
+    public CompletableFuture<Void> closeSubscriptionAsync(TopicSubscriptionPushProcessor subscription)
+    {
+        return cmdContext.runAsync((future) ->
+        {
+            if (caughtUpSubscriptions.remove(subscription) || laggingSubscriptions.remove(subscription))
+            {
+                subscriptionNames.remove(subscription.getName());
+                subscription.getReader().close();
+            }
+
+            future.complete(null);
+        });
+    }
+
+    @Override
+    public int doWork()
+    {
+        int workCount = cmdContext.doWork();
+
+        final int pushCount = pushSharedEvent() + pushLaggingEvents();
+        workCount += pushCount;
+
+        workCount += acknowledgeSkippedEvents(caughtUpSubscriptions, pushCount == 0);
+        workCount += acknowledgeSkippedEvents(laggingSubscriptions, pushCount == 0);
+
+        return workCount;
+    }
+
+    protected int pushSharedEvent()
+    {
+        if (caughtUpSubscriptions.isEmpty() || !sharedReader.hasNext())
+        {
+            return 0;
+        }
+
+        final LoggedEvent event = sharedReader.next();
+        sharedPosition = event.getPosition();
+
+        metadata.reset();
+        event.readMetadata(metadata);
+
+        if (eventFilter.applies(metadata))
+        {
+            final DirectBuffer value;
+            try
+            {
+                value = eventValueReader.read(event, metadata);
+            }
+            catch (RuntimeException e)
+            {
+                // the event is not skipped, it is read again on the next attempt
+                sharedReader.seek(sharedPosition);
+                throw e;
+            }
+
+            for (int i = caughtUpSubscriptions.size() - 1; i >= 0; i--)
+            {
+                final TopicSubscriptionPushProcessor subscription = caughtUpSubscriptions.get(i);
+
+                if (!subscription.accepts(metadata, value))
+                {
+                    subscription.onSkipped(sharedPosition);
+                    continue;
+                }
+
+                if (subscription.isSuspended() || !subscription.push(eventWriter, topicName, partitionId, event, metadata, value))
+                {
+                    // continue on the subscription's own cursor, starting with this event
+                    removeAt(caughtUpSubscriptions, i);
+                    subscription.resetCursor(sharedPosition);
+                    laggingSubscriptions.add(subscription);
+                }
+            }
+        }
+
+        return 1;
+    }
+
+    protected int pushLaggingEvents()
+    {
+        int workCount = 0;
+
+        for (int i = laggingSubscriptions.size() - 1; i >= 0; i--)
+        {
+            final TopicSubscriptionPushProcessor subscription = laggingSubscriptions.get(i);
+
+            if (subscription.isSuspended())
+            {
+                continue;
+            }
+
+            if (!subscription.hasPendingEvent() && isAtSharedPosition(subscription))
+            {
+                removeAt(laggingSubscriptions, i);
+                caughtUpSubscriptions.add(subscription);
+            }
+            else if (subscription.pushNext(eventWriter, eventValueReader, topicName, partitionId, eventFilter, metadata))
+            {
+                workCount += 1;
+            }
+            else if (caughtUpSubscriptions.isEmpty() && subscription.isCaughtUp())
+            {
+                // nobody uses the shared reader, so the subscription's cursor can take its place
+                final long position = subscription.getLastPosition();
+                sharedReader = subscription.swapReader(sharedReader);
+                sharedPosition = position;
+
+                removeAt(laggingSubscriptions, i);
+                caughtUpSubscriptions.add(subscription);
+            }
+        }
+
+        return workCount;
+    }
+
+    protected int acknowledgeSkippedEvents(List<TopicSubscriptionPushProcessor> subscriptions, boolean isIdle)
+    {
+        int workCount = 0;
+
+        for (int i = 0; i < subscriptions.size(); i++)
+        {
+            if (subscriptions.get(i).acknowledgeSkippedEvents(isIdle))
+            {
+                workCount += 1;
+            }
+        }
+
+        return workCount;
+    }
+
+    protected boolean isAtSharedPosition(TopicSubscriptionPushProcessor subscription)
+    {
+        final long position = subscription.getLastPosition();
+        return position != TopicSubscriptionPushProcessor.UNKNOWN_POSITION && position == sharedPosition;
+    }
+
+    protected static void removeAt(List<TopicSubscriptionPushProcessor> subscriptions, int index)
+    {
+        final int lastIndex = subscriptions.size() - 1;
+        subscriptions.set(index, subscriptions.get(lastIndex));
+        subscriptions.remove(lastIndex);
+    }
+
+    @Override
+    public String name()
+    {
+        return "subscription-push";
+    }
+}
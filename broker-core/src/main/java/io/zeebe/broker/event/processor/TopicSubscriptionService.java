@@ -17,8 +17,10 @@
  */
 package io.zeebe.broker.event.processor;
 
+import static io.zeebe.broker.logstreams.LogStreamServiceNames.LOG_RETENTION_SERVICE;
 import static io.zeebe.broker.logstreams.LogStreamServiceNames.SNAPSHOT_STORAGE_SERVICE;
 import static io.zeebe.broker.system.SystemServiceNames.ACTOR_SCHEDULER_SERVICE;
+import static io.zeebe.broker.system.SystemServiceNames.COUNTERS_MANAGER_SERVICE;
 import static io.zeebe.util.buffer.BufferUtil.bufferAsString;
 
 import java.util.HashMap;
@@ -30,13 +32,17 @@ import org.agrona.DirectBuffer;
 import org.agrona.collections.Int2ObjectHashMap;
 
 import io.zeebe.broker.event.TopicSubscriptionServiceNames;
+import io.zeebe.broker.logstreams.LogRetentionPositions;
 import io.zeebe.broker.logstreams.processor.MetadataFilter;
 import io.zeebe.broker.logstreams.processor.StreamProcessorIds;
 import io.zeebe.broker.logstreams.processor.StreamProcessorService;
 import io.zeebe.broker.system.ConfigurationManager;
+import io.zeebe.broker.system.metrics.RequestLatencies;
+import io.zeebe.broker.transport.clientapi.ClientApiMessageHandler;
 import io.zeebe.broker.transport.clientapi.CommandResponseWriter;
 import io.zeebe.broker.transport.clientapi.ErrorResponseWriter;
 import io.zeebe.broker.transport.clientapi.SubscribedEventWriter;
+import io.zeebe.broker.workflow.WorkflowCfg;
 import io.zeebe.logstreams.log.LogStream;
 import io.zeebe.logstreams.processor.StreamProcessor;
 import io.zeebe.logstreams.processor.StreamProcessorController;
@@ -54,12 +60,17 @@ import io.zeebe.util.DeferredCommandContext;
 import io.zeebe.util.actor.Actor;
 import io.zeebe.util.actor.ActorReference;
 import io.zeebe.util.actor.ActorScheduler;
+import io.zeebe.util.time.ClockUtil;
 
 public class TopicSubscriptionService implements Service<TopicSubscriptionService>, Actor, TransportListener
 {
     protected final Injector<ActorScheduler> actorSchedulerInjector = new Injector<>();
     protected final Injector<ServerTransport> clientApiTransportInjector = new Injector<>();
+    protected final Injector<LogRetentionPositions> retentionPositionsInjector = new Injector<>();
+    protected final Injector<RequestLatencies> requestLatenciesInjector = new Injector<>();
+    protected final Injector<ClientApiMessageHandler> clientApiMessageHandlerInjector = new Injector<>();
     protected final SubscriptionCfg config;
+    protected final WorkflowCfg workflowCfg;
 
     protected ActorScheduler actorScheduler;
     protected ServiceStartContext serviceContext;
@@ -70,6 +81,8 @@ public class TopicSubscriptionService implements Service<TopicSubscriptionServic
 
     protected DeferredCommandContext asyncContext;
 
+    protected long nextAcknowledgementFlush = 0L;
+
     protected final ServiceGroupReference<LogStream> logStreamsGroupReference = ServiceGroupReference.<LogStream>create()
         .onAdd(this::onStreamAdded)
         .onRemove(this::onStreamRemoved)
@@ -79,6 +92,8 @@ public class TopicSubscriptionService implements Service<TopicSubscriptionServic
     {
         config = configurationManager.readEntry("subscriptions", SubscriptionCfg.class);
         Objects.requireNonNull(config);
+
+        workflowCfg = configurationManager.readEntry("workflow", WorkflowCfg.class);
     }
 
     @Override
@@ -97,6 +112,21 @@ public class TopicSubscriptionService implements Service<TopicSubscriptionServic
         return clientApiTransportInjector;
     }
 
+    public Injector<LogRetentionPositions> getRetentionPositionsInjector()
+    {
+        return retentionPositionsInjector;
+    }
+
+    public Injector<RequestLatencies> getRequestLatenciesInjector()
+    {
+        return requestLatenciesInjector;
+    }
+
+    public Injector<ClientApiMessageHandler> getClientApiMessageHandlerInjector()
+    {
+        return clientApiMessageHandlerInjector;
+    }
+
     public ServiceGroupReference<LogStream> getLogStreamsGroupReference()
     {
         return logStreamsGroupReference;
@@ -128,25 +158,41 @@ public class TopicSubscriptionService implements Service<TopicSubscriptionServic
     {
         asyncContext.runAsync(() ->
         {
+            final TopicSubscriptionPushService pushService = new TopicSubscriptionPushService(
+                new SubscribedEventWriter(serverOutput),
+                workflowCfg.payloadReferences);
+            final ServiceName<TopicSubscriptionPushService> pushServiceName = TopicSubscriptionServiceNames.subscriptionPushServiceName(logStream.getLogName());
+
             final TopicSubscriptionManagementProcessor ackProcessor = new TopicSubscriptionManagementProcessor(
-                logStreamServiceName,
-                new CommandResponseWriter(serverOutput),
+                new CommandResponseWriter(serverOutput, requestLatenciesInjector.getValue()),
                 new ErrorResponseWriter(serverOutput),
-                () -> new SubscribedEventWriter(serverOutput),
-                serviceContext
+                pushService,
+                config.acknowledgementsPerCommand
                 );
 
-            createStreamProcessorService(
-                    logStreamServiceName,
-                    TopicSubscriptionServiceNames.subscriptionManagementServiceName(logStream.getLogName()),
-                    StreamProcessorIds.TOPIC_SUBSCRIPTION_MANAGEMENT_PROCESSOR_ID,
-                    ackProcessor,
-                    TopicSubscriptionManagementProcessor.filter())
+            serviceContext.createService(pushServiceName, pushService)
+                .dependency(logStreamServiceName, pushService.getLogStreamInjector())
+                .dependency(ACTOR_SCHEDULER_SERVICE, pushService.getActorSchedulerInjector())
+                .install()
+                .thenCompose((v) ->
+                    createStreamProcessorService(
+                        logStreamServiceName,
+                        TopicSubscriptionServiceNames.subscriptionManagementServiceName(logStream.getLogName()),
+                        StreamProcessorIds.TOPIC_SUBSCRIPTION_MANAGEMENT_PROCESSOR_ID,
+                        ackProcessor,
+                        TopicSubscriptionManagementProcessor.filter(),
+                        pushServiceName))
                 .thenAccept((v) ->
+                {
                     managersByLog
                         .computeIfAbsent(logStream.getTopicName(), k -> new Int2ObjectHashMap<>())
-                        .put(logStream.getPartitionId(), ackProcessor)
-                );
+                        .put(logStream.getPartitionId(), ackProcessor);
+
+                    // the subscriptions are resumed after their acknowledged positions
+                    retentionPositionsInjector.getValue().register(logStream, ackProcessor.retentionPosition());
+
+                    clientApiMessageHandlerInjector.getValue().addAcknowledgementHandler(logStream, ackProcessor::acknowledgeAsync);
+                });
         });
     }
 
@@ -155,19 +201,25 @@ public class TopicSubscriptionService implements Service<TopicSubscriptionServic
             ServiceName<StreamProcessorController> processorName,
             int processorId,
             StreamProcessor streamProcessor,
-            MetadataFilter eventFilter)
+            MetadataFilter eventFilter,
+            ServiceName<?> pushServiceName)
     {
         final StreamProcessorService streamProcessorService = new StreamProcessorService(
                 processorName.getName(),
                 processorId,
                 streamProcessor)
-            .eventFilter(eventFilter);
+            .eventFilter(eventFilter)
+            // the subscriptions read the log from their acknowledged positions, which are registered separately
+            .stateIndependentOfLog();
 
         return serviceContext.createService(processorName, streamProcessorService)
             .dependency(logStreamName, streamProcessorService.getSourceStreamInjector())
             .dependency(logStreamName, streamProcessorService.getTargetStreamInjector())
             .dependency(SNAPSHOT_STORAGE_SERVICE, streamProcessorService.getSnapshotStorageInjector())
+            .dependency(LOG_RETENTION_SERVICE, streamProcessorService.getRetentionPositionsInjector())
             .dependency(ACTOR_SCHEDULER_SERVICE, streamProcessorService.getActorSchedulerInjector())
+            .dependency(COUNTERS_MANAGER_SERVICE, streamProcessorService.getCountersInjector())
+            .dependency(pushServiceName)
             .install();
     }
 
@@ -183,7 +235,12 @@ public class TopicSubscriptionService implements Service<TopicSubscriptionServic
 
             if (managersByPartition != null)
             {
-                managersByPartition.remove(partitionId);
+                final TopicSubscriptionManagementProcessor manager = managersByPartition.remove(partitionId);
+                if (manager != null)
+                {
+                    retentionPositionsInjector.getValue().remove(logStream, manager.retentionPosition());
+                    clientApiMessageHandlerInjector.getValue().removeAcknowledgementHandler(logStream);
+                }
 
                 if (managersByPartition.isEmpty())
                 {
@@ -209,7 +266,31 @@ public class TopicSubscriptionService implements Service<TopicSubscriptionServic
     @Override
     public int doWork() throws Exception
     {
-        return asyncContext.doWork();
+        int workCount = asyncContext.doWork();
+
+        workCount += flushAcknowledgements();
+
+        return workCount;
+    }
+
+    protected int flushAcknowledgements()
+    {
+        final long now = ClockUtil.getCurrentTimeInMillis();
+
+        if (now < nextAcknowledgementFlush)
+        {
+            return 0;
+        }
+
+        nextAcknowledgementFlush = now + config.acknowledgementFlushIntervalInMillis;
+
+        managersByLog.forEach((topicName, partitions) ->
+            partitions.forEach((partitionId, manager) ->
+                manager.flushAcknowledgementsAsync()
+            )
+        );
+
+        return 1;
     }
 
     @Override
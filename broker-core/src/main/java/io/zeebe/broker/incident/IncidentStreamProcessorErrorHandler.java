@@ -33,6 +33,7 @@ public class IncidentStreamProcessorErrorHandler implements StreamProcessorError
     private final LogStream logStream;
     private final DirectBuffer sourceStreamTopicName;
     private final int sourceStreamPartitionId;
+    private final int producerId;
 
     private final LogStreamWriter logStreamWriter;
 
@@ -43,8 +44,17 @@ public class IncidentStreamProcessorErrorHandler implements StreamProcessorError
     private final WorkflowInstanceEvent workflowInstanceEvent = new WorkflowInstanceEvent();
 
     public IncidentStreamProcessorErrorHandler(LogStream logStream)
+    {
+        this(logStream, StreamProcessorIds.WORKFLOW_INSTANCE_PROCESSOR_ID);
+    }
+
+    /**
+     * @param producerId the id of the stream processor which failed to process the event
+     */
+    public IncidentStreamProcessorErrorHandler(LogStream logStream, int producerId)
     {
         this.logStream = logStream;
+        this.producerId = producerId;
         this.sourceStreamTopicName = logStream.getTopicName();
         this.sourceStreamPartitionId = logStream.getPartitionId();
 
@@ -102,7 +112,7 @@ public class IncidentStreamProcessorErrorHandler implements StreamProcessorError
         }
 
         final long position = logStreamWriter
-                .producerId(StreamProcessorIds.WORKFLOW_INSTANCE_PROCESSOR_ID)
+                .producerId(producerId)
                 .sourceEvent(sourceStreamTopicName, sourceStreamPartitionId, failureEvent.getPosition())
                 .metadataWriter(incidentEventMetadata)
                 .valueWriter(incidentEvent)
@@ -0,0 +1,140 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.logstreams;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.Stream;
+
+import org.agrona.concurrent.status.AtomicCounter;
+import org.agrona.concurrent.status.CountersManager;
+
+/**
+ * A configured log directory and the partitions whose logs are placed in it.
+ */
+public class LogDirectory
+{
+    protected final String path;
+
+    protected int partitionCount = 0;
+
+    protected AtomicCounter sizeCounter;
+
+    public LogDirectory(String path)
+    {
+        this.path = path;
+    }
+
+    public String getPath()
+    {
+        return path;
+    }
+
+    public int getPartitionCount()
+    {
+        return partitionCount;
+    }
+
+    public void addPartition()
+    {
+        partitionCount += 1;
+    }
+
+    /**
+     * @return the bytes which are available on the file system of the directory
+     */
+    public long getUsableSpace()
+    {
+        return new File(path).getUsableSpace();
+    }
+
+    /**
+     * @return true, if the given log directory of a partition is located in this directory
+     */
+    public boolean contains(String logDirectory)
+    {
+        return logDirectory.equals(path) || logDirectory.startsWith(path + File.separator);
+    }
+
+    /**
+     * Exposes the size of the log segments in this directory as counter with
+     * the given prefix. The counter is freed when the directory is closed.
+     */
+    public void registerCounter(CountersManager countersManager, String prefix)
+    {
+        sizeCounter = countersManager.newCounter(prefix + "." + path + ".size");
+    }
+
+    /**
+     * Updates the counter with the current size of the log segments in this
+     * directory. Walks the directory, so it must not be called by a thread
+     * which is shared with other tasks.
+     */
+    public void updateCounter()
+    {
+        if (sizeCounter != null)
+        {
+            sizeCounter.setOrdered(getSize());
+        }
+    }
+
+    protected long getSize()
+    {
+        final Path directory = Paths.get(path);
+
+        if (!Files.isDirectory(directory))
+        {
+            return 0L;
+        }
+
+        try (Stream<Path> files = Files.walk(directory))
+        {
+            return files
+                .filter(Files::isRegularFile)
+                .mapToLong(file -> file.toFile().length())
+                .sum();
+        }
+        catch (IOException | UncheckedIOException e)
+        {
+            // the segments are changed concurrently, try again on the next update
+            return sizeCounter.get();
+        }
+    }
+
+    public void close()
+    {
+        if (sizeCounter != null)
+        {
+            sizeCounter.close();
+            sizeCounter = null;
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "LogDirectory{" +
+                "path='" + path + '\'' +
+                ", partitionCount=" + partitionCount +
+                '}';
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.logstreams;
+
+/**
+ * Selects the directory in which the log of a new partition is placed.
+ */
+public interface LogDirectoryPlacement
+{
+    String ROUND_ROBIN = "round-robin";
+    String LEAST_PARTITIONS = "least-partitions";
+    String MOST_FREE_BYTES = "most-free-bytes";
+
+    /**
+     * @param directories the configured log directories, at least one
+     * @return the index of the selected directory
+     */
+    int selectDirectory(LogDirectory[] directories);
+
+    static LogDirectoryPlacement forName(String name)
+    {
+        switch (name)
+        {
+            case ROUND_ROBIN:
+                return new RoundRobinPlacement();
+            case LEAST_PARTITIONS:
+                return new LeastPartitionsPlacement();
+            case MOST_FREE_BYTES:
+                return new MostFreeBytesPlacement();
+            default:
+                throw new RuntimeException(String.format("Unknown log directory placement '%s'. Must be one of '%s', '%s' or '%s'.",
+                        name, ROUND_ROBIN, LEAST_PARTITIONS, MOST_FREE_BYTES));
+        }
+    }
+
+    class RoundRobinPlacement implements LogDirectoryPlacement
+    {
+        protected int next = 0;
+
+        @Override
+        public int selectDirectory(LogDirectory[] directories)
+        {
+            final int selected = next % directories.length;
+            next = selected + 1;
+            return selected;
+        }
+    }
+
+    class LeastPartitionsPlacement implements LogDirectoryPlacement
+    {
+        @Override
+        public int selectDirectory(LogDirectory[] directories)
+        {
+            int selected = 0;
+            for (int i = 1; i < directories.length; i++)
+            {
+                if (directories[i].getPartitionCount() < directories[selected].getPartitionCount())
+                {
+                    selected = i;
+                }
+            }
+            return selected;
+        }
+    }
+
+    class MostFreeBytesPlacement implements LogDirectoryPlacement
+    {
+        @Override
+        public int selectDirectory(LogDirectory[] directories)
+        {
+            int selected = 0;
+            long selectedUsableSpace = directories[0].getUsableSpace();
+
+            for (int i = 1; i < directories.length; i++)
+            {
+                final long usableSpace = directories[i].getUsableSpace();
+                if (usableSpace > selectedUsableSpace)
+                {
+                    selected = i;
+                    selectedUsableSpace = usableSpace;
+                }
+            }
+            return selected;
+        }
+    }
+}
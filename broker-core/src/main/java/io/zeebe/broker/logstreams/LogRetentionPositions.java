@@ -0,0 +1,92 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.logstreams;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+import io.zeebe.logstreams.log.LogStream;
+
+/**
+ * Collects the positions of a log stream which must be retained: the
+ * snapshot positions of the stream processors and the acknowledged positions
+ * of the topic subscriptions. The suppliers may be called by any thread, so
+ * they must be thread safe.
+ * <p>
+ * A stream processor whose state references events by their position (e.g.
+ * deployed workflows, incidents, payloads or pending tasks) retains the whole
+ * log, since these positions are not tracked.
+ * <p>
+ * Nothing deletes the log segments below the retention position yet. The
+ * segments are owned by the log storage of the logstreams library, which
+ * can't delete the segments of an open log.
+ */
+public class LogRetentionPositions
+{
+    /**
+     * The position which retains the whole log.
+     */
+    public static final long WHOLE_LOG = -1L;
+
+    // the arrays are copied on write, so that they can be read without locking
+    protected final ConcurrentHashMap<LogStream, LongSupplier[]> positionsByLogStream = new ConcurrentHashMap<>();
+
+    public void register(LogStream logStream, LongSupplier position)
+    {
+        positionsByLogStream.merge(logStream, new LongSupplier[] { position }, (positions, newPosition) ->
+        {
+            final LongSupplier[] newPositions = Arrays.copyOf(positions, positions.length + 1);
+            newPositions[positions.length] = position;
+            return newPositions;
+        });
+    }
+
+    public void remove(LogStream logStream, LongSupplier position)
+    {
+        positionsByLogStream.computeIfPresent(logStream, (s, positions) ->
+        {
+            final LongSupplier[] newPositions = Arrays.stream(positions)
+                .filter(p -> p != position)
+                .toArray(LongSupplier[]::new);
+
+            return newPositions.length > 0 ? newPositions : null;
+        });
+    }
+
+    /**
+     * @return the lowest position of the given log stream which must be retained,
+     *         i.e. the minimum of the registered positions and the commit position.
+     *         The events before this position are not read again.
+     */
+    public long getRetentionPosition(LogStream logStream)
+    {
+        long retentionPosition = logStream.getCommitPosition();
+
+        final LongSupplier[] positions = positionsByLogStream.get(logStream);
+        if (positions != null)
+        {
+            for (int i = 0; i < positions.length; i++)
+            {
+                retentionPosition = Math.min(retentionPosition, positions[i].getAsLong());
+            }
+        }
+
+        return retentionPosition;
+    }
+}
@@ -17,6 +17,7 @@
  */
 package io.zeebe.broker.logstreams;
 
+import io.zeebe.broker.logstreams.processor.ProcessingPositions;
 import io.zeebe.logstreams.log.LogStream;
 import io.zeebe.logstreams.spi.SnapshotStorage;
 import io.zeebe.servicecontainer.ServiceName;
@@ -26,6 +27,8 @@ public class LogStreamServiceNames
 
     public static final ServiceName<LogStreamsManager> LOG_STREAMS_MANAGER_SERVICE = ServiceName.newServiceName("logstreams.manager", LogStreamsManager.class);
     public static final ServiceName<SnapshotStorage> SNAPSHOT_STORAGE_SERVICE = ServiceName.newServiceName("snapshot.storage", SnapshotStorage.class);
+    public static final ServiceName<ProcessingPositions> PROCESSING_POSITIONS_SERVICE = ServiceName.newServiceName("logstreams.processing.positions", ProcessingPositions.class);
+    public static final ServiceName<LogRetentionPositions> LOG_RETENTION_SERVICE = ServiceName.newServiceName("logstreams.retention", LogRetentionPositions.class);
     public static final ServiceName<LogStream> WORKFLOW_STREAM_GROUP = ServiceName.newServiceName("logstreams.worfklow", LogStream.class);
     public static final ServiceName<LogStream> SYSTEM_STREAM_GROUP = ServiceName.newServiceName("logstreams.system", LogStream.class);
 
@@ -17,12 +17,17 @@
  */
 package io.zeebe.broker.logstreams;
 
+import static io.zeebe.broker.logstreams.LogStreamServiceNames.LOG_RETENTION_SERVICE;
 import static io.zeebe.broker.logstreams.LogStreamServiceNames.LOG_STREAMS_MANAGER_SERVICE;
+import static io.zeebe.broker.logstreams.LogStreamServiceNames.PROCESSING_POSITIONS_SERVICE;
 import static io.zeebe.broker.logstreams.LogStreamServiceNames.SNAPSHOT_STORAGE_SERVICE;
 import static io.zeebe.broker.system.SystemServiceNames.ACTOR_SCHEDULER_SERVICE;
+import static io.zeebe.broker.system.SystemServiceNames.COUNTERS_MANAGER_SERVICE;
+import static io.zeebe.broker.system.SystemServiceNames.METRICS_SERVICE;
 
 import io.zeebe.broker.event.TopicSubscriptionServiceNames;
 import io.zeebe.broker.event.processor.TopicSubscriptionService;
+import io.zeebe.broker.logstreams.processor.ProcessingPositionsService;
 import io.zeebe.broker.system.Component;
 import io.zeebe.broker.system.SystemContext;
 import io.zeebe.broker.transport.TransportServiceNames;
@@ -36,17 +41,27 @@ public class LogStreamsComponent implements Component
         final LogStreamsManagerService streamsManager = new LogStreamsManagerService(context.getConfigurationManager());
         context.getServiceContainer().createService(LOG_STREAMS_MANAGER_SERVICE, streamsManager)
             .dependency(ACTOR_SCHEDULER_SERVICE, streamsManager.getActorSchedulerInjector())
+            .dependency(COUNTERS_MANAGER_SERVICE, streamsManager.getCountersInjector())
             .install();
 
         final SnapshotStorageService snapshotStorageService = new SnapshotStorageService(context.getConfigurationManager());
         context.getServiceContainer().createService(SNAPSHOT_STORAGE_SERVICE, snapshotStorageService)
             .install();
 
+        context.getServiceContainer().createService(PROCESSING_POSITIONS_SERVICE, new ProcessingPositionsService())
+            .install();
+
+        context.getServiceContainer().createService(LOG_RETENTION_SERVICE, new LogRetentionService())
+            .install();
+
         final TopicSubscriptionService topicSubscriptionService = new TopicSubscriptionService(context.getConfigurationManager());
         context.getServiceContainer()
             .createService(TopicSubscriptionServiceNames.TOPIC_SUBSCRIPTION_SERVICE, topicSubscriptionService)
             .dependency(TransportServiceNames.serverTransport(TransportServiceNames.CLIENT_API_SERVER_NAME), topicSubscriptionService.getClientApiTransportInjector())
             .dependency(ACTOR_SCHEDULER_SERVICE, topicSubscriptionService.getActorSchedulerInjector())
+            .dependency(LOG_RETENTION_SERVICE, topicSubscriptionService.getRetentionPositionsInjector())
+            .dependency(METRICS_SERVICE, topicSubscriptionService.getRequestLatenciesInjector())
+            .dependency(TransportServiceNames.CLIENT_API_MESSAGE_HANDLER, topicSubscriptionService.getClientApiMessageHandlerInjector())
             .groupReference(LogStreamServiceNames.WORKFLOW_STREAM_GROUP, topicSubscriptionService.getLogStreamsGroupReference())
             .install();
     }
@@ -24,11 +24,11 @@ import static io.zeebe.util.EnsureUtil.ensureNotNullOrEmpty;
 import java.io.File;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Random;
 import java.util.function.Consumer;
 
 import org.agrona.DirectBuffer;
 import org.agrona.collections.Int2ObjectHashMap;
+import org.agrona.concurrent.status.CountersManager;
 
 import io.zeebe.broker.logstreams.cfg.LogStreamsCfg;
 import io.zeebe.logstreams.LogStreams;
@@ -42,12 +42,23 @@ public class LogStreamsManager
     protected LogStreamsCfg logStreamsCfg;
     protected ActorScheduler actorScheduler;
     protected Map<DirectBuffer, Int2ObjectHashMap<LogStream>> logStreams;
+    protected final LogDirectory[] logDirectories;
+    protected final LogDirectoryPlacement logDirectoryPlacement;
 
     public LogStreamsManager(final LogStreamsCfg logStreamsCfg, final ActorScheduler actorScheduler)
     {
         this.logStreamsCfg = logStreamsCfg;
         this.actorScheduler = actorScheduler;
         this.logStreams = new HashMap<>();
+
+        final String[] directories = logStreamsCfg.directories;
+        this.logDirectories = new LogDirectory[directories.length];
+        for (int i = 0; i < directories.length; i++)
+        {
+            logDirectories[i] = new LogDirectory(directories[i]);
+        }
+
+        this.logDirectoryPlacement = LogDirectoryPlacement.forName(logStreamsCfg.directoryPlacement);
     }
 
     public void forEachLogStream(Consumer<LogStream> consumer)
@@ -87,20 +98,19 @@ public class LogStreamsManager
         final FsLogStreamBuilder logStreamBuilder = LogStreams.createFsLogStream(topicName, partitionId);
         final String logName = logStreamBuilder.getLogName();
 
-        final String logDirectory;
         final boolean deleteOnExit = false;
 
-        int assignedLogDirectory = 0;
-        if (logStreamsCfg.directories.length == 0)
+        if (logDirectories.length == 0)
         {
             throw new RuntimeException(String.format("Cannot start log %s, no log directory provided.", logName));
         }
-        else if (logStreamsCfg.directories.length > 1)
-        {
-            assignedLogDirectory = new Random().nextInt(logStreamsCfg.directories.length - 1);
-        }
-        logDirectory = logStreamsCfg.directories[assignedLogDirectory] + File.separator + logName;
 
+        // the assigned directory is recorded in the raft storage of the partition
+        // and used when the log stream is created again on restart
+        final LogDirectory assignedLogDirectory = logDirectories[logDirectoryPlacement.selectDirectory(logDirectories)];
+        assignedLogDirectory.addPartition();
+
+        final String logDirectory = assignedLogDirectory.getPath() + File.separator + logName;
 
         final int logSegmentSize = logStreamsCfg.defaultLogSegmentSize * 1024 * 1024;
 
@@ -119,6 +129,15 @@ public class LogStreamsManager
 
     public LogStream createLogStream(final DirectBuffer topicName, final int partitionId, final String logDirectory)
     {
+        for (int i = 0; i < logDirectories.length; i++)
+        {
+            if (logDirectories[i].contains(logDirectory))
+            {
+                logDirectories[i].addPartition();
+                break;
+            }
+        }
+
         final LogStream logStream =
             LogStreams.createFsLogStream(topicName, partitionId)
                       .deleteOnClose(false)
@@ -133,6 +152,38 @@ public class LogStreamsManager
         return logStream;
     }
 
+    public LogDirectory[] getLogDirectories()
+    {
+        return logDirectories;
+    }
+
+    /**
+     * Exposes the bytes written to each log directory as counters with the given prefix.
+     */
+    public void registerCounters(CountersManager countersManager, String prefix)
+    {
+        for (int i = 0; i < logDirectories.length; i++)
+        {
+            logDirectories[i].registerCounter(countersManager, prefix);
+        }
+    }
+
+    public void updateCounters()
+    {
+        for (int i = 0; i < logDirectories.length; i++)
+        {
+            logDirectories[i].updateCounter();
+        }
+    }
+
+    public void close()
+    {
+        for (int i = 0; i < logDirectories.length; i++)
+        {
+            logDirectories[i].close();
+        }
+    }
+
     private void addLogStream(final LogStream logStream)
     {
         logStreams
@@ -17,7 +17,12 @@
  */
 package io.zeebe.broker.logstreams;
 
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
 import io.zeebe.broker.logstreams.cfg.LogStreamsCfg;
+import io.zeebe.broker.services.Counters;
 import io.zeebe.broker.system.ConfigurationManager;
 import io.zeebe.servicecontainer.Injector;
 import io.zeebe.servicecontainer.Service;
@@ -29,11 +34,15 @@ public class LogStreamsManagerService implements Service<LogStreamsManager>
 {
 
     protected final Injector<ActorScheduler> actorSchedulerInjector = new Injector<>();
+    protected final Injector<Counters> countersInjector = new Injector<>();
 
     protected LogStreamsCfg logStreamsCfg;
 
     protected LogStreamsManager service;
 
+    // walking the log directories blocks, so it has its own thread instead of the shared scheduled executor
+    protected ScheduledExecutorService countersExecutor;
+
     public LogStreamsManagerService(ConfigurationManager configurationManager)
     {
         logStreamsCfg = configurationManager.readEntry("logs", LogStreamsCfg.class);
@@ -43,12 +52,37 @@ public class LogStreamsManagerService implements Service<LogStreamsManager>
     public void start(ServiceStartContext serviceContext)
     {
         service = new LogStreamsManager(logStreamsCfg, actorSchedulerInjector.getValue());
+
+        final Counters counters = countersInjector.getValue();
+        service.registerCounters(counters.getCountersManager(), "logs");
+
+        countersExecutor = Executors.newSingleThreadScheduledExecutor(runnable ->
+        {
+            final Thread thread = new Thread(runnable, "log-directory-counters");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        final int interval = logStreamsCfg.directoryMetricsInterval;
+        countersExecutor.scheduleAtFixedRate(service::updateCounters, interval, interval, TimeUnit.SECONDS);
     }
 
     @Override
     public void stop(ServiceStopContext stopContext)
     {
-        // nothing to do
+        countersExecutor.shutdownNow();
+
+        try
+        {
+            // the counters must not be updated after they are freed
+            countersExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        service.close();
     }
 
     @Override
@@ -62,4 +96,9 @@ public class LogStreamsManagerService implements Service<LogStreamsManager>
         return actorSchedulerInjector;
     }
 
+    public Injector<Counters> getCountersInjector()
+    {
+        return countersInjector;
+    }
+
 }
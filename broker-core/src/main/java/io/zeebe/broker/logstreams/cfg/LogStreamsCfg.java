@@ -27,6 +27,17 @@ public class LogStreamsCfg extends DirectoryConfiguration
 
     public String[] directories = null;
 
+    /**
+     * How the log directory of a new partition is selected: round-robin,
+     * least-partitions or most-free-bytes.
+     */
+    public String directoryPlacement = "least-partitions";
+
+    /**
+     * The interval in seconds in which the size of the log directories is measured.
+     */
+    public int directoryMetricsInterval = 10;
+
     @Override
     public void applyGlobalConfiguration(GlobalConfiguration globalConfig)
     {
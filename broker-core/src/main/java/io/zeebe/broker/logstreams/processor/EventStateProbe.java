@@ -0,0 +1,64 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.logstreams.processor;
+
+import static io.zeebe.util.buffer.BufferUtil.wrapString;
+
+import org.agrona.DirectBuffer;
+
+import io.zeebe.broker.util.MsgPackPropertyReader;
+import io.zeebe.logstreams.log.LoggedEvent;
+import io.zeebe.msgpack.value.EnumValue;
+
+/**
+ * Reads only the state property of an event's value, without unpacking the
+ * whole event. Can be used by a stream processor to decide if it handles the
+ * event before the event is fully read.
+ */
+public class EventStateProbe<E extends Enum<E>>
+{
+    private static final DirectBuffer STATE_KEY = wrapString("state");
+
+    private final MsgPackPropertyReader propertyReader = new MsgPackPropertyReader();
+    private final EnumValue<E> stateValue;
+
+    public EventStateProbe(Class<E> stateType)
+    {
+        this.stateValue = new EnumValue<>(stateType);
+    }
+
+    /**
+     * @return the state of the event or <code>null</code> if the event has
+     *         no state property
+     */
+    public E readState(LoggedEvent event)
+    {
+        propertyReader.wrap(event.getValueBuffer(), event.getValueOffset(), event.getValueLength());
+
+        if (propertyReader.moveToProperty(STATE_KEY))
+        {
+            stateValue.reset();
+            stateValue.read(propertyReader.getReader());
+            return stateValue.getValue();
+        }
+        else
+        {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.logstreams.processor;
+
+import org.agrona.concurrent.status.AtomicCounter;
+import org.agrona.concurrent.status.CountersManager;
+
+import io.zeebe.logstreams.log.LogStream;
+import io.zeebe.logstreams.log.LogStreamWriter;
+import io.zeebe.logstreams.log.LoggedEvent;
+import io.zeebe.logstreams.processor.EventProcessor;
+import io.zeebe.logstreams.processor.StreamProcessor;
+import io.zeebe.logstreams.processor.StreamProcessorContext;
+import io.zeebe.logstreams.spi.SnapshotSupport;
+
+/**
+ * Wraps a stream processor and exposes as counters
+ * <ul>
+ * <li>the number of processed events,</li>
+ * <li>the position of the last event which is handed to the stream processor,</li>
+ * <li>the lag of this position behind the commit position of the source stream and</li>
+ * <li>the time in nanoseconds which is spent in each phase of the event processors.</li>
+ * </ul>
+ */
+public class MeteredStreamProcessor implements StreamProcessor
+{
+    protected final StreamProcessor streamProcessor;
+    protected final MeteredEventProcessor eventProcessor = new MeteredEventProcessor();
+
+    protected final AtomicCounter eventsProcessed;
+    protected final AtomicCounter processedPosition;
+    protected final AtomicCounter lag;
+    protected final AtomicCounter processNanos;
+    protected final AtomicCounter sideEffectsNanos;
+    protected final AtomicCounter writeNanos;
+    protected final AtomicCounter updateStateNanos;
+
+    protected LogStream sourceStream;
+
+    public MeteredStreamProcessor(StreamProcessor streamProcessor, CountersManager countersManager, String name)
+    {
+        this.streamProcessor = streamProcessor;
+
+        eventsProcessed = countersManager.newCounter(name + ".eventsProcessed");
+        processedPosition = countersManager.newCounter(name + ".processedPosition");
+        lag = countersManager.newCounter(name + ".lag");
+        processNanos = countersManager.newCounter(name + ".processNanos");
+        sideEffectsNanos = countersManager.newCounter(name + ".sideEffectsNanos");
+        writeNanos = countersManager.newCounter(name + ".writeNanos");
+        updateStateNanos = countersManager.newCounter(name + ".updateStateNanos");
+    }
+
+    @Override
+    public SnapshotSupport getStateResource()
+    {
+        return streamProcessor.getStateResource();
+    }
+
+    @Override
+    public void onOpen(StreamProcessorContext context)
+    {
+        sourceStream = context.getSourceStream();
+        streamProcessor.onOpen(context);
+    }
+
+    @Override
+    public void onClose()
+    {
+        streamProcessor.onClose();
+    }
+
+    @Override
+    public boolean isSuspended()
+    {
+        return streamProcessor.isSuspended();
+    }
+
+    @Override
+    public int getPriority(long now)
+    {
+        return streamProcessor.getPriority(now);
+    }
+
+    @Override
+    public EventProcessor onEvent(LoggedEvent event)
+    {
+        final long position = event.getPosition();
+
+        processedPosition.setOrdered(position);
+        lag.setOrdered(Math.max(sourceStream.getCommitPosition() - position, 0L));
+
+        final EventProcessor delegate = streamProcessor.onEvent(event);
+
+        if (delegate != null)
+        {
+            eventProcessor.wrap(delegate);
+            return eventProcessor;
+        }
+        else
+        {
+            return null;
+        }
+    }
+
+    @Override
+    public void afterEvent()
+    {
+        streamProcessor.afterEvent();
+    }
+
+    /**
+     * Frees the counters. Must be called after the stream processor is closed.
+     */
+    public void closeCounters()
+    {
+        eventsProcessed.close();
+        processedPosition.close();
+        lag.close();
+        processNanos.close();
+        sideEffectsNanos.close();
+        writeNanos.close();
+        updateStateNanos.close();
+    }
+
+    protected class MeteredEventProcessor implements EventProcessor
+    {
+        protected EventProcessor eventProcessor;
+
+        public void wrap(EventProcessor eventProcessor)
+        {
+            this.eventProcessor = eventProcessor;
+        }
+
+        @Override
+        public void processEvent()
+        {
+            final long start = System.nanoTime();
+            try
+            {
+                eventProcessor.processEvent();
+            }
+            finally
+            {
+                processNanos.addOrdered(System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public boolean executeSideEffects()
+        {
+            final long start = System.nanoTime();
+            try
+            {
+                return eventProcessor.executeSideEffects();
+            }
+            finally
+            {
+                sideEffectsNanos.addOrdered(System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public long writeEvent(LogStreamWriter writer)
+        {
+            final long start = System.nanoTime();
+            try
+            {
+                return eventProcessor.writeEvent(writer);
+            }
+            finally
+            {
+                writeNanos.addOrdered(System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public void updateState()
+        {
+            final long start = System.nanoTime();
+            try
+            {
+                eventProcessor.updateState();
+            }
+            finally
+            {
+                updateStateNanos.addOrdered(System.nanoTime() - start);
+                eventsProcessed.orderedIncrement();
+            }
+        }
+    }
+}
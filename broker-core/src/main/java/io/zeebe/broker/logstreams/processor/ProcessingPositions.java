@@ -0,0 +1,99 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.logstreams.processor;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.zeebe.logstreams.log.LogStream;
+
+/**
+ * Publishes the positions of the events which the stream processors of a log
+ * stream currently process, so that other threads (e.g. the client api) can
+ * see how far the processing is behind the written events.
+ */
+public class ProcessingPositions
+{
+    public static final long NO_PROCESSOR = Long.MAX_VALUE;
+
+    // the arrays are copied on write, so that they can be read without locking
+    protected final ConcurrentHashMap<LogStream, ProcessingPosition[]> positionsByLogStream = new ConcurrentHashMap<>();
+
+    public ProcessingPosition register(LogStream logStream)
+    {
+        final ProcessingPosition position = new ProcessingPosition();
+
+        positionsByLogStream.merge(logStream, new ProcessingPosition[] { position }, (positions, newPosition) ->
+        {
+            final ProcessingPosition[] newPositions = Arrays.copyOf(positions, positions.length + 1);
+            newPositions[positions.length] = position;
+            return newPositions;
+        });
+
+        return position;
+    }
+
+    public void remove(LogStream logStream, ProcessingPosition position)
+    {
+        positionsByLogStream.computeIfPresent(logStream, (s, positions) ->
+        {
+            final ProcessingPosition[] newPositions = Arrays.stream(positions)
+                .filter(p -> p != position)
+                .toArray(ProcessingPosition[]::new);
+
+            return newPositions.length > 0 ? newPositions : null;
+        });
+    }
+
+    /**
+     * @return the lowest position of the registered stream processors of the
+     *         given log stream, or {@link #NO_PROCESSOR} if no stream processor
+     *         is registered
+     */
+    public long getLowestPosition(LogStream logStream)
+    {
+        final ProcessingPosition[] positions = positionsByLogStream.get(logStream);
+
+        long lowestPosition = NO_PROCESSOR;
+
+        if (positions != null)
+        {
+            for (int i = 0; i < positions.length; i++)
+            {
+                lowestPosition = Math.min(lowestPosition, positions[i].get());
+            }
+        }
+
+        return lowestPosition;
+    }
+
+    public static class ProcessingPosition
+    {
+        protected volatile long position = -1L;
+
+        public long get()
+        {
+            return position;
+        }
+
+        public void set(long position)
+        {
+            this.position = position;
+        }
+    }
+}
@@ -15,31 +15,31 @@
  * You should have received a copy of the GNU Affero General Public License
  * along with this program.  If not, see <http://www.gnu.org/licenses/>.
  */
-package io.zeebe.broker.task.processor;
+package io.zeebe.broker.logstreams.processor;
 
-import java.io.Serializable;
+import io.zeebe.servicecontainer.Service;
+import io.zeebe.servicecontainer.ServiceStartContext;
+import io.zeebe.servicecontainer.ServiceStopContext;
 
-public class ExpirationTimeBucket implements Serializable
+public class ProcessingPositionsService implements Service<ProcessingPositions>
 {
-    private static final long serialVersionUID = 1L;
+    protected final ProcessingPositions processingPositions = new ProcessingPositions();
 
-    protected final long eventPosition;
-    protected final long expirationTime;
-
-    public ExpirationTimeBucket(long eventPosition, long expirationTime)
+    @Override
+    public void start(ServiceStartContext startContext)
     {
-        this.eventPosition = eventPosition;
-        this.expirationTime = expirationTime;
+        // nothing to do
     }
 
-    public long getEventPosition()
+    @Override
+    public void stop(ServiceStopContext stopContext)
     {
-        return eventPosition;
+        // nothing to do
     }
 
-    public long getExpirationTime()
+    @Override
+    public ProcessingPositions get()
     {
-        return expirationTime;
+        return processingPositions;
     }
-
-}
\ No newline at end of file
+}
@@ -0,0 +1,170 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.logstreams.processor;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import io.zeebe.logstreams.log.LoggedEvent;
+import io.zeebe.logstreams.processor.EventProcessor;
+import io.zeebe.logstreams.processor.StreamProcessor;
+import io.zeebe.logstreams.processor.StreamProcessorContext;
+import io.zeebe.logstreams.spi.ReadableSnapshot;
+import io.zeebe.logstreams.spi.SnapshotStorage;
+import io.zeebe.logstreams.spi.SnapshotSupport;
+
+/**
+ * Wraps a stream processor and publishes the position of its last committed
+ * snapshot, so that it can be read by other threads without accessing the
+ * snapshot storage.
+ * <p>
+ * The position is read from the snapshot storage on the thread of the stream
+ * processor when it recovers from a snapshot and before it writes a new one,
+ * i.e. once the previous snapshot is committed or discarded. It lags one
+ * snapshot behind, so it never exceeds the position of a committed snapshot.
+ */
+public class SnapshotPositionTrackingStreamProcessor implements StreamProcessor
+{
+    public static final long NO_SNAPSHOT = -1L;
+
+    protected final StreamProcessor streamProcessor;
+    protected final SnapshotStorage snapshotStorage;
+    protected final String name;
+
+    protected final TrackingSnapshotSupport snapshotSupport = new TrackingSnapshotSupport();
+
+    protected volatile long lastSnapshotPosition = NO_SNAPSHOT;
+
+    public SnapshotPositionTrackingStreamProcessor(StreamProcessor streamProcessor, SnapshotStorage snapshotStorage, String name)
+    {
+        this.streamProcessor = streamProcessor;
+        this.snapshotStorage = snapshotStorage;
+        this.name = name;
+    }
+
+    /**
+     * @return the position of the last committed snapshot, or
+     *         {@link #NO_SNAPSHOT} if the stream processor doesn't recover from
+     *         a snapshot
+     */
+    public long getLastSnapshotPosition()
+    {
+        return lastSnapshotPosition;
+    }
+
+    @Override
+    public SnapshotSupport getStateResource()
+    {
+        snapshotSupport.wrap(streamProcessor.getStateResource());
+        return snapshotSupport;
+    }
+
+    @Override
+    public void onOpen(StreamProcessorContext context)
+    {
+        streamProcessor.onOpen(context);
+    }
+
+    @Override
+    public void onClose()
+    {
+        streamProcessor.onClose();
+    }
+
+    @Override
+    public boolean isSuspended()
+    {
+        return streamProcessor.isSuspended();
+    }
+
+    @Override
+    public int getPriority(long now)
+    {
+        return streamProcessor.getPriority(now);
+    }
+
+    @Override
+    public EventProcessor onEvent(LoggedEvent event)
+    {
+        return streamProcessor.onEvent(event);
+    }
+
+    @Override
+    public void afterEvent()
+    {
+        streamProcessor.afterEvent();
+    }
+
+    protected long readLastSnapshotPosition()
+    {
+        try
+        {
+            final ReadableSnapshot snapshot = snapshotStorage.getLastSnapshot(name);
+
+            if (snapshot != null)
+            {
+                snapshot.getData().close();
+                return snapshot.getPosition();
+            }
+            else
+            {
+                return NO_SNAPSHOT;
+            }
+        }
+        catch (Exception e)
+        {
+            // retain the whole log if the snapshot can't be read
+            return NO_SNAPSHOT;
+        }
+    }
+
+    protected class TrackingSnapshotSupport implements SnapshotSupport
+    {
+        protected SnapshotSupport snapshotSupport;
+
+        public void wrap(SnapshotSupport snapshotSupport)
+        {
+            this.snapshotSupport = snapshotSupport;
+        }
+
+        @Override
+        public void writeSnapshot(OutputStream outputStream) throws Exception
+        {
+            lastSnapshotPosition = readLastSnapshotPosition();
+
+            snapshotSupport.writeSnapshot(outputStream);
+        }
+
+        @Override
+        public void recoverFromSnapshot(InputStream inputStream) throws Exception
+        {
+            snapshotSupport.recoverFromSnapshot(inputStream);
+
+            lastSnapshotPosition = readLastSnapshotPosition();
+        }
+
+        @Override
+        public void reset()
+        {
+            snapshotSupport.reset();
+
+            // the state is rebuilt from the beginning of the log
+            lastSnapshotPosition = NO_SNAPSHOT;
+        }
+    }
+}
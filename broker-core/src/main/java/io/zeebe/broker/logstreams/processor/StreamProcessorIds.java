@@ -27,8 +27,6 @@ public class StreamProcessorIds
 
     public static final int TASK_EXPIRE_LOCK_STREAM_PROCESSOR_ID = 30;
 
-    public static final int TOPIC_SUBSCRIPTION_PUSH_PROCESSOR_ID = 40;
-
     public static final int TOPIC_SUBSCRIPTION_MANAGEMENT_PROCESSOR_ID = 50;
 
     public static final int DEPLOYMENT_PROCESSOR_ID = 60;
@@ -37,5 +35,7 @@ public class StreamProcessorIds
 
     public static final int INCIDENT_PROCESSOR_ID = 80;
 
+    public static final int WORKFLOW_PIPELINE_PROCESSOR_ID = 90;
+
     public static final int SYSTEM_PROCESSOR_ID = 1000;
 }
@@ -0,0 +1,564 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.logstreams.processor;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.agrona.DirectBuffer;
+
+import io.zeebe.logstreams.log.LogStream;
+import io.zeebe.logstreams.log.LogStreamWriter;
+import io.zeebe.logstreams.log.LoggedEvent;
+import io.zeebe.logstreams.processor.EventProcessor;
+import io.zeebe.logstreams.processor.StreamProcessor;
+import io.zeebe.logstreams.processor.StreamProcessorContext;
+import io.zeebe.logstreams.processor.StreamProcessorErrorHandler;
+import io.zeebe.logstreams.spi.SnapshotSupport;
+import io.zeebe.protocol.impl.BrokerEventMetadata;
+
+/**
+ * Runs multiple stream processors of a partition with one stream processor
+ * controller, so that the log is read once and the metadata of each event is
+ * decoded once instead of once per stream processor. Each event is routed to
+ * the stages whose filter applies, in the order in which the stages are added.
+ * <p>
+ * The stages share the id of the pipeline, i.e. the events which they write
+ * are recovered like the events of a single stream processor. The state of
+ * all stages is written to one snapshot.
+ * <p>
+ * If a stage fails to process an event with an error that the error handler of
+ * the pipeline can handle, then only this stage skips the event. The other
+ * stages still write their events and update their state, as they would if they
+ * ran with their own controllers. Other errors are rethrown, so that the
+ * controller fails.
+ */
+public class StreamProcessorPipeline implements StreamProcessor
+{
+    protected final List<Stage> stages = new ArrayList<>();
+
+    protected final BrokerEventMetadata metadata = new BrokerEventMetadata();
+    protected final PipelineEventProcessor eventProcessor = new PipelineEventProcessor();
+    protected final PipelineSnapshotSupport snapshotSupport = new PipelineSnapshotSupport();
+
+    protected StreamProcessorErrorHandler errorHandler;
+
+    protected int producerId;
+    protected DirectBuffer sourceStreamTopicName;
+    protected int sourceStreamPartitionId;
+
+    /**
+     * Adds a stream processor which handles the events that pass the given
+     * filter. Must be called before the pipeline is opened.
+     */
+    public StreamProcessorPipeline stage(StreamProcessor streamProcessor, MetadataFilter eventFilter)
+    {
+        stages.add(new Stage(streamProcessor, eventFilter));
+        return this;
+    }
+
+    /**
+     * Sets the handler for errors which a stage throws while processing an
+     * event. Must be used instead of the error handler of the controller, since
+     * the controller would skip the event for all stages.
+     */
+    public StreamProcessorPipeline errorHandler(StreamProcessorErrorHandler errorHandler)
+    {
+        this.errorHandler = errorHandler;
+        return this;
+    }
+
+    /**
+     * @return a filter which applies to all events that are handled by at
+     *         least one stage
+     */
+    public MetadataFilter eventFilter()
+    {
+        final Stage[] stages = this.stages.toArray(new Stage[this.stages.size()]);
+
+        return m ->
+        {
+            for (int i = 0; i < stages.length; i++)
+            {
+                if (stages[i].eventFilter.applies(m))
+                {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    @Override
+    public SnapshotSupport getStateResource()
+    {
+        return snapshotSupport;
+    }
+
+    @Override
+    public void onOpen(StreamProcessorContext context)
+    {
+        final LogStream sourceStream = context.getSourceStream();
+        sourceStreamTopicName = sourceStream.getTopicName();
+        sourceStreamPartitionId = sourceStream.getPartitionId();
+
+        producerId = context.getId();
+
+        for (int i = 0; i < stages.size(); i++)
+        {
+            stages.get(i).streamProcessor.onOpen(context);
+        }
+    }
+
+    @Override
+    public void onClose()
+    {
+        for (int i = 0; i < stages.size(); i++)
+        {
+            stages.get(i).streamProcessor.onClose();
+        }
+    }
+
+    @Override
+    public boolean isSuspended()
+    {
+        // an event can only be processed if all stages can process it
+        for (int i = 0; i < stages.size(); i++)
+        {
+            if (stages.get(i).streamProcessor.isSuspended())
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public EventProcessor onEvent(LoggedEvent event)
+    {
+        metadata.reset();
+        event.readMetadata(metadata);
+
+        eventProcessor.reset(event);
+
+        for (int i = 0; i < stages.size(); i++)
+        {
+            final Stage stage = stages.get(i);
+
+            if (stage.eventFilter.applies(metadata))
+            {
+                final EventProcessor stageEventProcessor = stage.streamProcessor.onEvent(event);
+
+                if (stageEventProcessor != null)
+                {
+                    eventProcessor.add(stageEventProcessor);
+                }
+            }
+        }
+
+        return eventProcessor.isEmpty() ? null : eventProcessor;
+    }
+
+    @Override
+    public void afterEvent()
+    {
+        for (int i = 0; i < stages.size(); i++)
+        {
+            stages.get(i).streamProcessor.afterEvent();
+        }
+    }
+
+    protected static class Stage
+    {
+        protected final StreamProcessor streamProcessor;
+        protected final MetadataFilter eventFilter;
+
+        Stage(StreamProcessor streamProcessor, MetadataFilter eventFilter)
+        {
+            this.streamProcessor = streamProcessor;
+            this.eventFilter = eventFilter;
+        }
+    }
+
+    /**
+     * Calls the event processors of the stages one after another. The side
+     * effects and the writes of a stage are not repeated if the controller
+     * retries because a later stage is not done yet. A stage which fails to
+     * process the event is removed from the event, and its error is passed to
+     * the error handler after the other stages have written their events.
+     */
+    protected class PipelineEventProcessor implements EventProcessor
+    {
+        protected final List<EventProcessor> eventProcessors = new ArrayList<>();
+        protected final List<Exception> failures = new ArrayList<>();
+
+        protected LoggedEvent event;
+        protected int sideEffectsIndex;
+        protected int writeIndex;
+        protected int failureIndex;
+        protected long lastWrittenEventPosition;
+
+        public void reset(LoggedEvent event)
+        {
+            this.event = event;
+
+            eventProcessors.clear();
+            failures.clear();
+            sideEffectsIndex = 0;
+            writeIndex = 0;
+            failureIndex = 0;
+            lastWrittenEventPosition = 0L;
+        }
+
+        public void add(EventProcessor eventProcessor)
+        {
+            eventProcessors.add(eventProcessor);
+        }
+
+        public boolean isEmpty()
+        {
+            return eventProcessors.isEmpty();
+        }
+
+        @Override
+        public void processEvent()
+        {
+            int i = 0;
+            while (i < eventProcessors.size())
+            {
+                try
+                {
+                    eventProcessors.get(i).processEvent();
+                    i += 1;
+                }
+                catch (Exception e)
+                {
+                    if (errorHandler != null && errorHandler.canHandle(e))
+                    {
+                        eventProcessors.remove(i);
+                        failures.add(e);
+                    }
+                    else
+                    {
+                        throw e;
+                    }
+                }
+            }
+        }
+
+        @Override
+        public boolean executeSideEffects()
+        {
+            while (sideEffectsIndex < eventProcessors.size())
+            {
+                if (!eventProcessors.get(sideEffectsIndex).executeSideEffects())
+                {
+                    return false;
+                }
+
+                sideEffectsIndex += 1;
+            }
+
+            return true;
+        }
+
+        @Override
+        public long writeEvent(LogStreamWriter writer)
+        {
+            while (writeIndex < eventProcessors.size())
+            {
+                // the writer is reset after each write
+                writer
+                    .producerId(producerId)
+                    .sourceEvent(sourceStreamTopicName, sourceStreamPartitionId, event.getPosition());
+
+                final long position = eventProcessors.get(writeIndex).writeEvent(writer);
+
+                if (position < 0)
+                {
+                    return position;
+                }
+                else if (position > 0)
+                {
+                    lastWrittenEventPosition = position;
+                }
+
+                writeIndex += 1;
+            }
+
+            while (failureIndex < failures.size())
+            {
+                if (!errorHandler.onError(event, failures.get(failureIndex)))
+                {
+                    return -1L;
+                }
+
+                failureIndex += 1;
+            }
+
+            return lastWrittenEventPosition;
+        }
+
+        @Override
+        public void updateState()
+        {
+            for (int i = 0; i < eventProcessors.size(); i++)
+            {
+                eventProcessors.get(i).updateState();
+            }
+        }
+    }
+
+    /**
+     * Writes the snapshots of the stages one after another. The snapshot of a
+     * stage is streamed in chunks, each prefixed with its length, and is
+     * terminated by an empty chunk, so that it is neither buffered as a whole
+     * nor limited in size, and a stage can't read into the snapshot of the
+     * next stage.
+     */
+    protected class PipelineSnapshotSupport implements SnapshotSupport
+    {
+        @Override
+        public void writeSnapshot(OutputStream outputStream) throws Exception
+        {
+            final DataOutputStream dataOutputStream = new DataOutputStream(outputStream);
+            final StageSnapshotOutputStream stageSnapshot = new StageSnapshotOutputStream(dataOutputStream);
+
+            for (int i = 0; i < stages.size(); i++)
+            {
+                stages.get(i).streamProcessor.getStateResource().writeSnapshot(stageSnapshot);
+                stageSnapshot.endOfStage();
+            }
+
+            dataOutputStream.flush();
+        }
+
+        @Override
+        public void recoverFromSnapshot(InputStream inputStream) throws Exception
+        {
+            final DataInputStream dataInputStream = new DataInputStream(inputStream);
+            final StageSnapshotInputStream stageSnapshot = new StageSnapshotInputStream(dataInputStream);
+
+            for (int i = 0; i < stages.size(); i++)
+            {
+                stages.get(i).streamProcessor.getStateResource().recoverFromSnapshot(stageSnapshot);
+                stageSnapshot.skipToNextStage();
+            }
+        }
+
+        @Override
+        public void reset()
+        {
+            for (int i = 0; i < stages.size(); i++)
+            {
+                stages.get(i).streamProcessor.getStateResource().reset();
+            }
+        }
+    }
+
+    /**
+     * Writes the snapshot of a stage in chunks of at most
+     * {@link #CHUNK_LENGTH} bytes. Closing the stream doesn't close the
+     * underlying stream.
+     */
+    protected static class StageSnapshotOutputStream extends OutputStream
+    {
+        protected static final int CHUNK_LENGTH = 4 * 1024;
+
+        protected final DataOutputStream outputStream;
+        protected final byte[] chunk = new byte[CHUNK_LENGTH];
+        protected int chunkLength = 0;
+
+        StageSnapshotOutputStream(DataOutputStream outputStream)
+        {
+            this.outputStream = outputStream;
+        }
+
+        @Override
+        public void write(int b) throws IOException
+        {
+            chunk[chunkLength] = (byte) b;
+            chunkLength += 1;
+
+            if (chunkLength == CHUNK_LENGTH)
+            {
+                writeChunk();
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException
+        {
+            int offset = off;
+            int remainingLength = len;
+
+            while (remainingLength > 0)
+            {
+                final int length = Math.min(remainingLength, CHUNK_LENGTH - chunkLength);
+                System.arraycopy(b, offset, chunk, chunkLength, length);
+
+                chunkLength += length;
+                offset += length;
+                remainingLength -= length;
+
+                if (chunkLength == CHUNK_LENGTH)
+                {
+                    writeChunk();
+                }
+            }
+        }
+
+        @Override
+        public void flush() throws IOException
+        {
+            writeChunk();
+            outputStream.flush();
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            writeChunk();
+        }
+
+        /**
+         * Writes the remaining bytes of the current stage and the empty chunk
+         * which terminates its snapshot.
+         */
+        public void endOfStage() throws IOException
+        {
+            writeChunk();
+            outputStream.writeInt(0);
+        }
+
+        protected void writeChunk() throws IOException
+        {
+            if (chunkLength > 0)
+            {
+                outputStream.writeInt(chunkLength);
+                outputStream.write(chunk, 0, chunkLength);
+                chunkLength = 0;
+            }
+        }
+    }
+
+    /**
+     * Reads the snapshot of a stage which is written by a
+     * {@link StageSnapshotOutputStream}, i.e. the end of the stream is the end
+     * of the snapshot of the current stage. Closing the stream doesn't close
+     * the underlying stream.
+     */
+    protected static class StageSnapshotInputStream extends InputStream
+    {
+        protected final DataInputStream inputStream;
+        protected final byte[] skipBuffer = new byte[1024];
+
+        protected int remainingChunkLength = 0;
+        protected boolean isEndOfStage = false;
+
+        StageSnapshotInputStream(DataInputStream inputStream)
+        {
+            this.inputStream = inputStream;
+        }
+
+        @Override
+        public int read() throws IOException
+        {
+            if (!hasRemaining())
+            {
+                return -1;
+            }
+
+            final int b = inputStream.read();
+            if (b < 0)
+            {
+                throw new EOFException("Unexpected end of snapshot");
+            }
+
+            remainingChunkLength -= 1;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException
+        {
+            if (len == 0)
+            {
+                return 0;
+            }
+
+            if (!hasRemaining())
+            {
+                return -1;
+            }
+
+            final int readBytes = inputStream.read(b, off, Math.min(len, remainingChunkLength));
+            if (readBytes < 0)
+            {
+                throw new EOFException("Unexpected end of snapshot");
+            }
+
+            remainingChunkLength -= readBytes;
+            return readBytes;
+        }
+
+        @Override
+        public int available() throws IOException
+        {
+            return Math.min(remainingChunkLength, inputStream.available());
+        }
+
+        @Override
+        public void close()
+        {
+            // the underlying stream is closed by the caller
+        }
+
+        /**
+         * Skips the bytes of the current stage which are not read and starts
+         * with the snapshot of the next stage.
+         */
+        public void skipToNextStage() throws IOException
+        {
+            while (read(skipBuffer, 0, skipBuffer.length) >= 0)
+            {
+                // skip
+            }
+
+            isEndOfStage = false;
+        }
+
+        protected boolean hasRemaining() throws IOException
+        {
+            if (remainingChunkLength == 0 && !isEndOfStage)
+            {
+                remainingChunkLength = inputStream.readInt();
+                isEndOfStage = remainingChunkLength == 0;
+            }
+
+            return !isEndOfStage;
+        }
+    }
+}
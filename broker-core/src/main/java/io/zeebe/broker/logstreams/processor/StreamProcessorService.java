@@ -17,6 +17,11 @@
  */
 package io.zeebe.broker.logstreams.processor;
 
+import java.util.function.LongSupplier;
+
+import io.zeebe.broker.logstreams.LogRetentionPositions;
+import io.zeebe.broker.logstreams.processor.ProcessingPositions.ProcessingPosition;
+import io.zeebe.broker.services.Counters;
 import io.zeebe.protocol.Protocol;
 import io.zeebe.protocol.impl.BrokerEventMetadata;
 import io.zeebe.logstreams.LogStreams;
@@ -34,6 +39,9 @@ public class StreamProcessorService implements Service<StreamProcessorController
     private final Injector<LogStream> targetStreamInjector = new Injector<>();
     private final Injector<SnapshotStorage> snapshotStorageInjector = new Injector<>();
     private final Injector<ActorScheduler> actorSchedulerInjector = new Injector<>();
+    private final Injector<ProcessingPositions> processingPositionsInjector = new Injector<>();
+    private final Injector<LogRetentionPositions> retentionPositionsInjector = new Injector<>();
+    private final Injector<Counters> countersInjector = new Injector<>();
 
     private final String name;
     private final int id;
@@ -59,6 +67,10 @@ public class StreamProcessorService implements Service<StreamProcessorController
     protected SnapshotPositionProvider snapshotPositionProvider;
 
     private StreamProcessorController streamProcessorController;
+    private ProcessingPosition processingPosition;
+    private LongSupplier retentionPosition;
+    private boolean isStateIndependentOfLog = false;
+    private MeteredStreamProcessor meteredStreamProcessor;
 
     public StreamProcessorService(String name, int id, StreamProcessor streamProcessor)
     {
@@ -91,6 +103,18 @@ public class StreamProcessorService implements Service<StreamProcessorController
         return this;
     }
 
+    /**
+     * Declares that the state of the stream processor doesn't reference events
+     * of the log by their position, so that the events before its last snapshot
+     * are not read again. Otherwise, the whole log is retained for the stream
+     * processor.
+     */
+    public StreamProcessorService stateIndependentOfLog()
+    {
+        this.isStateIndependentOfLog = true;
+        return this;
+    }
+
     public StreamProcessorService errorHandler(StreamProcessorErrorHandler errorHandler)
     {
         this.errorHandler = errorHandler;
@@ -112,7 +136,38 @@ public class StreamProcessorService implements Service<StreamProcessorController
         {
             metadataFilter = metadataFilter.and(customEventFilter);
         }
-        final EventFilter eventFilter = new MetadataEventFilter(metadataFilter);
+        EventFilter eventFilter = new MetadataEventFilter(metadataFilter);
+
+        final ProcessingPositions processingPositions = processingPositionsInjector.getValue();
+        if (processingPositions != null)
+        {
+            // the filter is applied to each event before it is processed
+            final ProcessingPosition position = processingPositions.register(sourceStream);
+            eventFilter = new PositionTrackingEventFilter(position).and(eventFilter);
+
+            processingPosition = position;
+        }
+
+        StreamProcessor processor = streamProcessor;
+
+        final LogRetentionPositions retentionPositions = retentionPositionsInjector.getValue();
+        if (retentionPositions != null)
+        {
+            if (isStateIndependentOfLog)
+            {
+                // the events after the last snapshot are reprocessed on recovery
+                final SnapshotPositionTrackingStreamProcessor snapshotPositionTracker = new SnapshotPositionTrackingStreamProcessor(processor, snapshotStorage, name);
+                retentionPosition = snapshotPositionTracker::getLastSnapshotPosition;
+                processor = snapshotPositionTracker;
+            }
+            else
+            {
+                // the state references events which are read again by their position,
+                // e.g. deployed workflows, incidents, payloads or locked tasks
+                retentionPosition = () -> LogRetentionPositions.WHOLE_LOG;
+            }
+            retentionPositions.register(sourceStream, retentionPosition);
+        }
 
         EventFilter reprocessingEventFilter = new MetadataEventFilter(versionFilter);
         if (customReprocessingEventFilter != null)
@@ -125,7 +180,14 @@ public class StreamProcessorService implements Service<StreamProcessorController
             errorHandler = new DefaultStreamProcessorErrorHandler();
         }
 
-        streamProcessorController = LogStreams.createStreamProcessor(name, id, streamProcessor)
+        final Counters counters = countersInjector.getValue();
+        if (counters != null)
+        {
+            meteredStreamProcessor = new MeteredStreamProcessor(processor, counters.getCountersManager(), name);
+            processor = meteredStreamProcessor;
+        }
+
+        streamProcessorController = LogStreams.createStreamProcessor(name, id, processor)
             .sourceStream(sourceStream)
             .targetStream(targetStream)
             .snapshotStorage(snapshotStorage)
@@ -149,7 +211,29 @@ public class StreamProcessorService implements Service<StreamProcessorController
     @Override
     public void stop(ServiceStopContext ctx)
     {
-        ctx.async(streamProcessorController.closeAsync());
+        if (processingPosition != null)
+        {
+            processingPositionsInjector.getValue().remove(sourceStreamInjector.getValue(), processingPosition);
+            processingPosition = null;
+        }
+
+        if (retentionPosition != null)
+        {
+            retentionPositionsInjector.getValue().remove(sourceStreamInjector.getValue(), retentionPosition);
+            retentionPosition = null;
+        }
+
+        if (meteredStreamProcessor != null)
+        {
+            final MeteredStreamProcessor processor = meteredStreamProcessor;
+            meteredStreamProcessor = null;
+
+            ctx.async(streamProcessorController.closeAsync().thenRun(processor::closeCounters));
+        }
+        else
+        {
+            ctx.async(streamProcessorController.closeAsync());
+        }
     }
 
     public Injector<SnapshotStorage> getSnapshotStorageInjector()
@@ -162,6 +246,35 @@ public class StreamProcessorService implements Service<StreamProcessorController
         return actorSchedulerInjector;
     }
 
+    /**
+     * Optional. If injected, the position of the currently processed event is
+     * published to the given {@link ProcessingPositions}.
+     */
+    public Injector<ProcessingPositions> getProcessingPositionsInjector()
+    {
+        return processingPositionsInjector;
+    }
+
+    /**
+     * Optional. If injected, the position of the source stream from which the
+     * stream processor reads again is registered as position which must be
+     * retained, see {@link #stateIndependentOfLog()}.
+     */
+    public Injector<LogRetentionPositions> getRetentionPositionsInjector()
+    {
+        return retentionPositionsInjector;
+    }
+
+    /**
+     * Optional. If injected, the progress and the processing time of the
+     * stream processor are exposed as counters with the name of the stream
+     * processor as prefix.
+     */
+    public Injector<Counters> getCountersInjector()
+    {
+        return countersInjector;
+    }
+
     public Injector<LogStream> getSourceStreamInjector()
     {
         return sourceStreamInjector;
@@ -197,6 +310,23 @@ public class StreamProcessorService implements Service<StreamProcessorController
 
     }
 
+    protected static class PositionTrackingEventFilter implements EventFilter
+    {
+        protected final ProcessingPosition position;
+
+        public PositionTrackingEventFilter(ProcessingPosition position)
+        {
+            this.position = position;
+        }
+
+        @Override
+        public boolean applies(LoggedEvent event)
+        {
+            position.set(event.getPosition());
+            return true;
+        }
+    }
+
     protected static class DefaultStreamProcessorErrorHandler implements StreamProcessorErrorHandler
     {
         @Override
@@ -0,0 +1,67 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.logstreams.snapshot;
+
+import java.util.Arrays;
+
+import org.agrona.collections.Long2LongHashMap;
+
+/**
+ * The keys of a map which are changed since the last base snapshot, in the
+ * order of their first change.
+ */
+public class DirtyKeys
+{
+    private static final long MISSING_INDEX = -1L;
+
+    private final Long2LongHashMap indexByKey = new Long2LongHashMap(MISSING_INDEX);
+
+    private long[] keys = new long[16];
+    private int size = 0;
+
+    public void add(long key)
+    {
+        if (indexByKey.get(key) == MISSING_INDEX)
+        {
+            if (size == keys.length)
+            {
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+
+            keys[size] = key;
+            indexByKey.put(key, size);
+            size += 1;
+        }
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public long get(int index)
+    {
+        return keys[index];
+    }
+
+    public void clear()
+    {
+        indexByKey.clear();
+        size = 0;
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.logstreams.snapshot;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import io.zeebe.logstreams.snapshot.ComposedZbMapSnapshot;
+import io.zeebe.logstreams.snapshot.ZbMapSnapshotSupport;
+import io.zeebe.logstreams.spi.SnapshotSupport;
+
+/**
+ * Writes the maps with a tracked delta as base snapshot into a separate file
+ * and only the entries which are changed since then into the snapshots. A
+ * snapshot references its base snapshot, so it is recovered from the base
+ * snapshot and the delta. Every n-th snapshot writes a new base snapshot, so
+ * that the delta does not grow without bound.
+ * <p>
+ * The other maps are small and are written completely into each snapshot.
+ * <p>
+ * The base snapshots are not managed by the snapshot storage. The last two of
+ * them are kept, so that the previous snapshot can still be recovered if
+ * writing a new snapshot fails. If no snapshot is recovered, the highest
+ * existing base snapshot is kept instead, since the last snapshot in the
+ * storage may reference it. All other base snapshots are deleted when a new
+ * one is written.
+ */
+public class IncrementalSnapshotSupport implements SnapshotSupport
+{
+    protected static final long NO_BASE = -1L;
+
+    protected final File directory;
+    protected final String name;
+    protected final int snapshotsPerBase;
+
+    protected final ZbMapDelta[] deltas;
+    protected final ComposedZbMapSnapshot baseSnapshot;
+    protected final ComposedZbMapSnapshot fullSnapshot;
+
+    protected long baseId = NO_BASE;
+    protected int snapshotsSinceBase = 0;
+
+    /**
+     * @param directory the directory of the base snapshots
+     * @param name the unique name of the stream processor
+     * @param snapshotsPerBase the number of snapshots after which a new base snapshot is written
+     * @param deltas the maps which are written incrementally
+     * @param fullSnapshots the maps which are written completely
+     */
+    public IncrementalSnapshotSupport(
+            File directory,
+            String name,
+            int snapshotsPerBase,
+            ZbMapDelta[] deltas,
+            ZbMapSnapshotSupport<?>... fullSnapshots)
+    {
+        this.directory = directory;
+        this.name = name;
+        this.snapshotsPerBase = snapshotsPerBase;
+        this.deltas = deltas;
+
+        final ZbMapSnapshotSupport<?>[] baseSnapshots = new ZbMapSnapshotSupport<?>[deltas.length];
+        for (int i = 0; i < deltas.length; i++)
+        {
+            deltas[i].enable();
+            baseSnapshots[i] = deltas[i].getSnapshotSupport();
+        }
+
+        this.baseSnapshot = new ComposedZbMapSnapshot(baseSnapshots);
+        this.fullSnapshot = new ComposedZbMapSnapshot(fullSnapshots);
+    }
+
+    @Override
+    public void writeSnapshot(OutputStream outputStream) throws Exception
+    {
+        if (baseId == NO_BASE || snapshotsSinceBase >= snapshotsPerBase)
+        {
+            writeBaseSnapshot(nextBaseId());
+        }
+
+        final DataOutputStream dataOutputStream = new DataOutputStream(outputStream);
+        dataOutputStream.writeLong(baseId);
+
+        for (int i = 0; i < deltas.length; i++)
+        {
+            deltas[i].writeDelta(dataOutputStream);
+        }
+
+        dataOutputStream.flush();
+
+        fullSnapshot.writeSnapshot(outputStream);
+
+        snapshotsSinceBase += 1;
+    }
+
+    protected long nextBaseId()
+    {
+        // don't overwrite a base snapshot of a previous run
+        return Math.max(baseId, highestExistingBaseId()) + 1;
+    }
+
+    protected void writeBaseSnapshot(long newBaseId) throws Exception
+    {
+        directory.mkdirs();
+
+        // the base snapshot which may be referenced by the last snapshot
+        final long previousBaseId = baseId != NO_BASE ? baseId : highestExistingBaseId();
+
+        final File baseFile = baseFile(newBaseId);
+        final File tmpFile = new File(baseFile.getPath() + ".tmp");
+
+        try (FileOutputStream fileOutputStream = new FileOutputStream(tmpFile))
+        {
+            baseSnapshot.writeSnapshot(fileOutputStream);
+            fileOutputStream.getFD().sync();
+        }
+
+        Files.move(tmpFile.toPath(), baseFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        deleteBaseSnapshotsExcept(previousBaseId, newBaseId);
+
+        for (int i = 0; i < deltas.length; i++)
+        {
+            deltas[i].clearDelta();
+        }
+
+        baseId = newBaseId;
+        snapshotsSinceBase = 0;
+    }
+
+    @Override
+    public void recoverFromSnapshot(InputStream inputStream) throws Exception
+    {
+        final DataInputStream dataInputStream = new DataInputStream(inputStream);
+        final long snapshotBaseId = dataInputStream.readLong();
+
+        try (FileInputStream baseInputStream = new FileInputStream(baseFile(snapshotBaseId)))
+        {
+            baseSnapshot.recoverFromSnapshot(baseInputStream);
+        }
+
+        for (int i = 0; i < deltas.length; i++)
+        {
+            deltas[i].clearDelta();
+            deltas[i].readDelta(dataInputStream);
+        }
+
+        fullSnapshot.recoverFromSnapshot(inputStream);
+
+        baseId = snapshotBaseId;
+        snapshotsSinceBase = 0;
+    }
+
+    @Override
+    public void reset()
+    {
+        baseSnapshot.reset();
+        fullSnapshot.reset();
+
+        for (int i = 0; i < deltas.length; i++)
+        {
+            deltas[i].clearDelta();
+        }
+
+        baseId = NO_BASE;
+        snapshotsSinceBase = 0;
+    }
+
+    protected void deleteBaseSnapshotsExcept(long previousBaseId, long newBaseId) throws Exception
+    {
+        final String prefix = baseFilePrefix();
+        final File[] files = directory.listFiles((dir, fileName) -> fileName.startsWith(prefix));
+
+        for (File file : files)
+        {
+            // also deletes incomplete base snapshots of a previous run
+            final long id = parseBaseId(file.getName());
+            if (id == NO_BASE || (id != previousBaseId && id != newBaseId))
+            {
+                Files.deleteIfExists(file.toPath());
+            }
+        }
+    }
+
+    protected long highestExistingBaseId()
+    {
+        long highestId = NO_BASE;
+
+        final String prefix = baseFilePrefix();
+        final String[] fileNames = directory.list((dir, fileName) -> fileName.startsWith(prefix));
+
+        if (fileNames != null)
+        {
+            for (String fileName : fileNames)
+            {
+                highestId = Math.max(highestId, parseBaseId(fileName));
+            }
+        }
+
+        return highestId;
+    }
+
+    /**
+     * @return the id of the base snapshot, or {@link #NO_BASE} if the file is
+     *         not a complete base snapshot
+     */
+    protected long parseBaseId(String fileName)
+    {
+        try
+        {
+            return Long.parseLong(fileName.substring(baseFilePrefix().length()));
+        }
+        catch (NumberFormatException e)
+        {
+            return NO_BASE;
+        }
+    }
+
+    protected String baseFilePrefix()
+    {
+        return name + ".base.";
+    }
+
+    protected File baseFile(long id)
+    {
+        return new File(directory, baseFilePrefix() + id);
+    }
+}
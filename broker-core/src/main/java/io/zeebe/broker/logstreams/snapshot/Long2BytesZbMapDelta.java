@@ -0,0 +1,123 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.logstreams.snapshot;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import io.zeebe.logstreams.snapshot.ZbMapSnapshotSupport;
+import io.zeebe.map.Long2BytesZbMap;
+
+public class Long2BytesZbMapDelta implements ZbMapDelta
+{
+    private final Long2BytesZbMap map;
+    private final ZbMapSnapshotSupport<Long2BytesZbMap> snapshotSupport;
+    private final byte[] value;
+
+    private final DirtyKeys dirtyKeys = new DirtyKeys();
+    private boolean isEnabled = false;
+
+    public Long2BytesZbMapDelta(Long2BytesZbMap map, ZbMapSnapshotSupport<Long2BytesZbMap> snapshotSupport, int valueLength)
+    {
+        this.map = map;
+        this.snapshotSupport = snapshotSupport;
+        this.value = new byte[valueLength];
+    }
+
+    /**
+     * Must be called when the value of the key is put or removed.
+     */
+    public void markDirty(long key)
+    {
+        if (isEnabled)
+        {
+            dirtyKeys.add(key);
+        }
+    }
+
+    @Override
+    public ZbMapSnapshotSupport<Long2BytesZbMap> getSnapshotSupport()
+    {
+        return snapshotSupport;
+    }
+
+    @Override
+    public void enable()
+    {
+        isEnabled = true;
+    }
+
+    @Override
+    public int getDirtyKeyCount()
+    {
+        return dirtyKeys.size();
+    }
+
+    @Override
+    public void writeDelta(DataOutputStream outputStream) throws IOException
+    {
+        final int size = dirtyKeys.size();
+        outputStream.writeInt(size);
+
+        for (int i = 0; i < size; i++)
+        {
+            final long key = dirtyKeys.get(i);
+            final boolean isPresent = map.get(key, value);
+
+            outputStream.writeLong(key);
+            outputStream.writeBoolean(isPresent);
+
+            if (isPresent)
+            {
+                outputStream.write(value);
+            }
+        }
+    }
+
+    @Override
+    public void readDelta(DataInputStream inputStream) throws IOException
+    {
+        final int size = inputStream.readInt();
+
+        for (int i = 0; i < size; i++)
+        {
+            final long key = inputStream.readLong();
+            final boolean isPresent = inputStream.readBoolean();
+
+            if (isPresent)
+            {
+                inputStream.readFully(value);
+                map.put(key, value);
+            }
+            else
+            {
+                map.remove(key, value);
+            }
+
+            // the entry is still changed compared to the base snapshot
+            dirtyKeys.add(key);
+        }
+    }
+
+    @Override
+    public void clearDelta()
+    {
+        dirtyKeys.clear();
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.logstreams.snapshot;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import io.zeebe.logstreams.snapshot.ZbMapSnapshotSupport;
+
+/**
+ * Tracks the entries of a map which are changed since the last base snapshot,
+ * so that only these entries are written to an incremental snapshot.
+ */
+public interface ZbMapDelta
+{
+    /**
+     * @return the snapshot support to write and recover the whole map as base snapshot
+     */
+    ZbMapSnapshotSupport<?> getSnapshotSupport();
+
+    /**
+     * Starts tracking the changed entries. Until then, changes are ignored, so
+     * that a map which is not written incrementally doesn't retain its keys.
+     */
+    void enable();
+
+    /**
+     * @return the number of entries which are changed since the last base snapshot
+     */
+    int getDirtyKeyCount();
+
+    /**
+     * Writes the current values of the changed entries, or that they are removed.
+     */
+    void writeDelta(DataOutputStream outputStream) throws IOException;
+
+    /**
+     * Applies the changed entries to the map which is recovered from the base snapshot.
+     */
+    void readDelta(DataInputStream inputStream) throws IOException;
+
+    /**
+     * Forgets the changed entries, because they are contained in a new base snapshot.
+     */
+    void clearDelta();
+}
@@ -20,11 +20,13 @@ package io.zeebe.broker.system;
 import static io.zeebe.broker.system.SystemServiceNames.ACTOR_SCHEDULER_SERVICE;
 import static io.zeebe.broker.system.SystemServiceNames.COUNTERS_MANAGER_SERVICE;
 import static io.zeebe.broker.system.SystemServiceNames.EXECUTOR_SERVICE;
+import static io.zeebe.broker.system.SystemServiceNames.METRICS_SERVICE;
 
 import io.zeebe.broker.logstreams.LogStreamServiceNames;
 import io.zeebe.broker.services.CountersManagerService;
 import io.zeebe.broker.system.executor.ScheduledExecutorService;
 import io.zeebe.broker.system.log.SystemPartitionManager;
+import io.zeebe.broker.system.metrics.MetricsService;
 import io.zeebe.broker.system.threads.ActorSchedulerService;
 import io.zeebe.broker.transport.TransportServiceNames;
 import io.zeebe.servicecontainer.ServiceContainer;
@@ -50,9 +52,16 @@ public class SystemComponent implements Component
             .dependency(ACTOR_SCHEDULER_SERVICE, executorService.getActorSchedulerInjector())
             .install();
 
+        final MetricsService metricsService = new MetricsService(context.getConfigurationManager());
+        serviceContainer.createService(METRICS_SERVICE, metricsService)
+            .dependency(COUNTERS_MANAGER_SERVICE, metricsService.getCountersInjector())
+            .dependency(EXECUTOR_SERVICE, metricsService.getExecutorInjector())
+            .install();
+
         final SystemPartitionManager systemPartitionManager = new SystemPartitionManager();
         serviceContainer.createService(SystemServiceNames.SYSTEM_LOG_MANAGER, systemPartitionManager)
             .dependency(TransportServiceNames.serverTransport(TransportServiceNames.CLIENT_API_SERVER_NAME), systemPartitionManager.getClientApiTransportInjector())
+            .dependency(METRICS_SERVICE, systemPartitionManager.getRequestLatenciesInjector())
             .groupReference(LogStreamServiceNames.SYSTEM_STREAM_GROUP, systemPartitionManager.getLogStreamsGroupReference())
             .install();
 
@@ -20,6 +20,7 @@ package io.zeebe.broker.system;
 import io.zeebe.broker.services.Counters;
 import io.zeebe.broker.system.executor.ScheduledExecutor;
 import io.zeebe.broker.system.log.SystemPartitionManager;
+import io.zeebe.broker.system.metrics.RequestLatencies;
 import io.zeebe.logstreams.processor.StreamProcessorController;
 import io.zeebe.servicecontainer.ServiceName;
 import io.zeebe.util.actor.ActorScheduler;
@@ -30,6 +31,8 @@ public class SystemServiceNames
 
     public static final ServiceName<Counters> COUNTERS_MANAGER_SERVICE = ServiceName.newServiceName("broker.countersManager", Counters.class);
 
+    public static final ServiceName<RequestLatencies> METRICS_SERVICE = ServiceName.newServiceName("broker.metrics", RequestLatencies.class);
+
     public static final ServiceName<ScheduledExecutor> EXECUTOR_SERVICE = ServiceName.newServiceName("broker.executor", ScheduledExecutor.class);
 
     public static final ServiceName<SystemPartitionManager> SYSTEM_LOG_MANAGER = ServiceName.newServiceName("broker.system.log", SystemPartitionManager.class);
@@ -18,8 +18,6 @@
 package io.zeebe.broker.system.executor;
 
 import java.time.Duration;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
@@ -33,13 +31,34 @@ import io.zeebe.util.actor.ActorScheduler;
 import io.zeebe.util.time.ClockUtil;
 import org.slf4j.Logger;
 
+/**
+ * Keeps the scheduled commands in a hashed timer wheel. A command is added to
+ * the bucket of the tick of its due date, so that scheduling is constant time
+ * and each iteration only visits the buckets of the ticks which passed since
+ * the previous one. Commands which are due in a later round of the wheel stay
+ * in their bucket until their due date is reached. Cancelled commands are
+ * removed when their bucket is visited.
+ */
 public class ScheduledExecutorImpl implements Actor, ScheduledExecutor
 {
     public static final Logger LOG = Loggers.SYSTEM_LOGGER;
 
     protected static final String NAME = "scheduled-executor";
 
-    protected final List<ScheduledCommandImpl> scheduledCommands = new ArrayList<>();
+    public static final long TICK_DURATION_IN_MILLIS = 10;
+    public static final int WHEEL_SIZE = 512;
+
+    protected static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    // linked lists of the commands per bucket
+    protected final ScheduledCommandImpl[] bucketHeads = new ScheduledCommandImpl[WHEEL_SIZE];
+    protected final ScheduledCommandImpl[] bucketTails = new ScheduledCommandImpl[WHEEL_SIZE];
+
+    // the last tick which was visited, -1 before the first iteration
+    protected long currentTick = -1;
+
+    // the commands to add again after the due buckets are visited
+    protected ScheduledCommandImpl rescheduledCommands;
 
     protected final ManyToOneConcurrentArrayQueue<Runnable> cmdQueue = new ManyToOneConcurrentArrayQueue<>(100);
     protected final Consumer<Runnable> cmdConsumer = Runnable::run;
@@ -59,7 +78,7 @@ public class ScheduledExecutorImpl implements Actor, ScheduledExecutor
         final long dueDate = ClockUtil.getCurrentTimeInMillis() + delay.toMillis();
         final ScheduledCommandImpl scheduledCommand = new ScheduledCommandImpl(command, dueDate);
 
-        cmdQueue.add(() -> scheduledCommands.add(scheduledCommand));
+        cmdQueue.add(() -> addCommand(scheduledCommand));
 
         return scheduledCommand;
     }
@@ -70,7 +89,7 @@ public class ScheduledExecutorImpl implements Actor, ScheduledExecutor
         final long dueDate = ClockUtil.getCurrentTimeInMillis();
         final ScheduledCommandImpl scheduledCommand = new ScheduledCommandImpl(command, dueDate, period.toMillis());
 
-        cmdQueue.add(() -> scheduledCommands.add(scheduledCommand));
+        cmdQueue.add(() -> addCommand(scheduledCommand));
 
         return scheduledCommand;
     }
@@ -81,7 +100,7 @@ public class ScheduledExecutorImpl implements Actor, ScheduledExecutor
         final long dueDate = ClockUtil.getCurrentTimeInMillis() + initialDelay.toMillis();
         final ScheduledCommandImpl scheduledCommand = new ScheduledCommandImpl(command, dueDate, period.toMillis());
 
-        cmdQueue.add(() -> scheduledCommands.add(scheduledCommand));
+        cmdQueue.add(() -> addCommand(scheduledCommand));
 
         return scheduledCommand;
     }
@@ -91,40 +110,107 @@ public class ScheduledExecutorImpl implements Actor, ScheduledExecutor
     {
         int workCount = 0;
 
+        final long now = ClockUtil.getCurrentTimeInMillis();
+        final long nowTick = now / TICK_DURATION_IN_MILLIS;
+
+        if (currentTick < 0 || nowTick < currentTick)
+        {
+            // first iteration or the clock was set back
+            currentTick = nowTick;
+        }
+
         workCount += cmdQueue.drain(cmdConsumer);
 
-        final long now = ClockUtil.getCurrentTimeInMillis();
+        // the bucket of the current tick is visited again since it can contain commands which were not due yet
+        final long ticks = Math.min(nowTick - currentTick + 1, WHEEL_SIZE);
+
+        for (long tick = 0; tick < ticks && isRunning.get(); tick++)
+        {
+            final int bucket = (int) ((currentTick + tick) & WHEEL_MASK);
+
+            workCount += visitBucket(bucket, now);
+        }
 
-        int i = 0;
+        currentTick = nowTick;
 
-        while (i < scheduledCommands.size() && isRunning.get())
+        ScheduledCommandImpl command = rescheduledCommands;
+        rescheduledCommands = null;
+
+        while (command != null)
         {
-            final ScheduledCommandImpl scheduledCommand = scheduledCommands.get(i);
+            final ScheduledCommandImpl next = command.next;
+            command.next = null;
+
+            addCommand(command);
+
+            command = next;
+        }
+
+        return workCount;
+    }
 
-            if (scheduledCommand.getDueDate() <= now)
+    protected int visitBucket(int bucket, long now)
+    {
+        int workCount = 0;
+
+        ScheduledCommandImpl command = bucketHeads[bucket];
+
+        bucketHeads[bucket] = null;
+        bucketTails[bucket] = null;
+
+        while (command != null)
+        {
+            final ScheduledCommandImpl next = command.next;
+            command.next = null;
+
+            if (command.getDueDate() <= now && isRunning.get())
             {
                 workCount += 1;
 
-                final boolean reSchedule = executeCommand(scheduledCommand);
+                final boolean reSchedule = executeCommand(command);
 
                 if (reSchedule)
                 {
-                    i += 1;
-                }
-                else
-                {
-                    scheduledCommands.remove(i);
+                    command.next = rescheduledCommands;
+                    rescheduledCommands = command;
                 }
             }
-            else
+            else if (!command.isCancelled())
             {
-                i++;
+                // due in a later round of the wheel or the executor is stopped
+                appendToBucket(bucket, command);
             }
+
+            command = next;
         }
 
         return workCount;
     }
 
+    protected void addCommand(ScheduledCommandImpl command)
+    {
+        // a command which is already due is added to the bucket of the current tick
+        final long tick = Math.max(command.getDueDate() / TICK_DURATION_IN_MILLIS, currentTick);
+
+        appendToBucket((int) (tick & WHEEL_MASK), command);
+    }
+
+    protected void appendToBucket(int bucket, ScheduledCommandImpl command)
+    {
+        final ScheduledCommandImpl tail = bucketTails[bucket];
+
+        if (tail == null)
+        {
+            bucketHeads[bucket] = command;
+        }
+        else
+        {
+            tail.next = command;
+        }
+
+        bucketTails[bucket] = command;
+    }
+
     protected boolean executeCommand(final ScheduledCommandImpl scheduledCommand)
     {
         boolean reSchedule = false;
@@ -208,6 +294,9 @@ public class ScheduledExecutorImpl implements Actor, ScheduledExecutor
 
         protected boolean isCancelled = false;
 
+        // the next command in the same bucket of the timer wheel
+        protected ScheduledCommandImpl next;
+
         ScheduledCommandImpl(Runnable command, long dueDateInMillis)
         {
             this(command, dueDateInMillis, -1L);
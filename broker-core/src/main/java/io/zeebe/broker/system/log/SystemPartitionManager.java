@@ -19,10 +19,12 @@ package io.zeebe.broker.system.log;
 
 import static io.zeebe.broker.logstreams.LogStreamServiceNames.SNAPSHOT_STORAGE_SERVICE;
 import static io.zeebe.broker.system.SystemServiceNames.ACTOR_SCHEDULER_SERVICE;
+import static io.zeebe.broker.system.SystemServiceNames.COUNTERS_MANAGER_SERVICE;
 
 import io.zeebe.broker.logstreams.processor.StreamProcessorIds;
 import io.zeebe.broker.logstreams.processor.StreamProcessorService;
 import io.zeebe.broker.system.SystemServiceNames;
+import io.zeebe.broker.system.metrics.RequestLatencies;
 import io.zeebe.broker.transport.clientapi.CommandResponseWriter;
 import io.zeebe.logstreams.log.LogStream;
 import io.zeebe.servicecontainer.Injector;
@@ -38,6 +40,7 @@ public class SystemPartitionManager implements Service<SystemPartitionManager>
     protected ServiceStartContext serviceContext;
 
     protected final Injector<ServerTransport> clientApiTransportInjector = new Injector<>();
+    protected final Injector<RequestLatencies> requestLatenciesInjector = new Injector<>();
     protected ServerTransport clientApiTransport;
 
     protected final ServiceGroupReference<LogStream> logStreamsGroupReference = ServiceGroupReference.<LogStream>create()
@@ -47,7 +50,7 @@ public class SystemPartitionManager implements Service<SystemPartitionManager>
     public void addSystemPartition(LogStream logStream, ServiceName<LogStream> serviceName)
     {
         final CreateTopicStreamProcessor processor =
-                new CreateTopicStreamProcessor(new CommandResponseWriter(clientApiTransport.getOutput()));
+                new CreateTopicStreamProcessor(new CommandResponseWriter(clientApiTransport.getOutput(), requestLatenciesInjector.getValue()));
 
         final StreamProcessorService streamProcessorService = new StreamProcessorService(
             "system",
@@ -60,6 +63,7 @@ public class SystemPartitionManager implements Service<SystemPartitionManager>
             .dependency(serviceName, streamProcessorService.getTargetStreamInjector())
             .dependency(SNAPSHOT_STORAGE_SERVICE, streamProcessorService.getSnapshotStorageInjector())
             .dependency(ACTOR_SCHEDULER_SERVICE, streamProcessorService.getActorSchedulerInjector())
+            .dependency(COUNTERS_MANAGER_SERVICE, streamProcessorService.getCountersInjector())
             .install();
     }
 
@@ -88,6 +92,11 @@ public class SystemPartitionManager implements Service<SystemPartitionManager>
     }
 
 
+    public Injector<RequestLatencies> getRequestLatenciesInjector()
+    {
+        return requestLatenciesInjector;
+    }
+
     public Injector<ServerTransport> getClientApiTransportInjector()
     {
         return clientApiTransportInjector;
@@ -0,0 +1,150 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.system.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts recorded values in log-linear buckets, similar to an HDR histogram:
+ * each power of two is divided into {@link #SUB_BUCKET_HALF_COUNT} buckets,
+ * so that the value of a percentile is exact up to about 3%. Values can be
+ * recorded concurrently.
+ */
+public class LatencyHistogram
+{
+    public static final int SUB_BUCKET_HALF_COUNT_BITS = 5;
+    public static final int SUB_BUCKET_HALF_COUNT = 1 << SUB_BUCKET_HALF_COUNT_BITS;
+    public static final int SUB_BUCKET_COUNT = SUB_BUCKET_HALF_COUNT << 1;
+
+    // the highest bit of a positive long is the 63rd bit
+    protected static final int BUCKET_COUNT = (62 - SUB_BUCKET_HALF_COUNT_BITS) * SUB_BUCKET_HALF_COUNT + SUB_BUCKET_COUNT;
+
+    protected final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    public void record(long value)
+    {
+        counts.getAndIncrement(bucketIndex(Math.max(value, 0L)));
+    }
+
+    /**
+     * Moves the counts of this histogram to the given histogram, so that the
+     * values which are recorded meanwhile are not lost.
+     */
+    public void drainTo(LatencyHistogram histogram)
+    {
+        for (int i = 0; i < BUCKET_COUNT; i++)
+        {
+            final long count = counts.getAndSet(i, 0L);
+
+            if (count > 0)
+            {
+                histogram.counts.getAndAdd(i, count);
+            }
+        }
+    }
+
+    public void reset()
+    {
+        for (int i = 0; i < BUCKET_COUNT; i++)
+        {
+            counts.set(i, 0L);
+        }
+    }
+
+    public long getTotalCount()
+    {
+        long totalCount = 0L;
+
+        for (int i = 0; i < BUCKET_COUNT; i++)
+        {
+            totalCount += counts.get(i);
+        }
+
+        return totalCount;
+    }
+
+    /**
+     * @param percentile the percentile between 0 and 100
+     * @return the highest value which is equivalent to the value at the given
+     *         percentile, or 0 if no value is recorded
+     */
+    public long getValueAtPercentile(double percentile)
+    {
+        final long totalCount = getTotalCount();
+        final long countAtPercentile = Math.max(1L, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * totalCount));
+
+        long count = 0L;
+
+        for (int i = 0; i < BUCKET_COUNT; i++)
+        {
+            count += counts.get(i);
+
+            if (count >= countAtPercentile)
+            {
+                return highestEquivalentValue(i);
+            }
+        }
+
+        return 0L;
+    }
+
+    /**
+     * @return the highest value which is equivalent to the highest recorded
+     *         value, or 0 if no value is recorded
+     */
+    public long getMaxValue()
+    {
+        for (int i = BUCKET_COUNT - 1; i >= 0; i--)
+        {
+            if (counts.get(i) > 0)
+            {
+                return highestEquivalentValue(i);
+            }
+        }
+
+        return 0L;
+    }
+
+    protected static int bucketIndex(long value)
+    {
+        if (value < SUB_BUCKET_COUNT)
+        {
+            return (int) value;
+        }
+        else
+        {
+            // keeps the highest bits of the value
+            final int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_HALF_COUNT_BITS;
+            return shift * SUB_BUCKET_HALF_COUNT + (int) (value >> shift);
+        }
+    }
+
+    protected static long highestEquivalentValue(int bucketIndex)
+    {
+        if (bucketIndex < SUB_BUCKET_COUNT)
+        {
+            return bucketIndex;
+        }
+        else
+        {
+            final int shift = bucketIndex / SUB_BUCKET_HALF_COUNT - 1;
+            final long lowestValue = (long) (bucketIndex - shift * SUB_BUCKET_HALF_COUNT) << shift;
+            return lowestValue + (1L << shift) - 1;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.system.metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import org.agrona.concurrent.AtomicBuffer;
+import org.agrona.concurrent.status.AtomicCounter;
+import org.agrona.concurrent.status.CountersManager;
+import org.slf4j.Logger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.zeebe.broker.Loggers;
+import io.zeebe.broker.services.Counters;
+import io.zeebe.broker.system.ConfigurationManager;
+import io.zeebe.broker.system.executor.ScheduledCommand;
+import io.zeebe.broker.system.executor.ScheduledExecutor;
+import io.zeebe.broker.system.metrics.cfg.MetricsCfg;
+import io.zeebe.servicecontainer.Injector;
+import io.zeebe.servicecontainer.Service;
+import io.zeebe.servicecontainer.ServiceStartContext;
+import io.zeebe.servicecontainer.ServiceStopContext;
+
+/**
+ * Publishes the request latencies periodically as counters and optionally
+ * serves all counters as text over HTTP, one line of label and value per
+ * counter.
+ */
+public class MetricsService implements Service<RequestLatencies>
+{
+    public static final Logger LOG = Loggers.SERVICES_LOGGER;
+
+    public static final String REQUEST_LATENCY_PREFIX = "clientApi.requestLatency";
+
+    protected final Injector<Counters> countersInjector = new Injector<>();
+    protected final Injector<ScheduledExecutor> executorInjector = new Injector<>();
+
+    protected final MetricsCfg metricsCfg;
+    protected final RequestLatencies requestLatencies;
+
+    // only accessed by the executor
+    protected final LatencyHistogram intervalHistogram = new LatencyHistogram();
+
+    protected Counters counters;
+    protected AtomicCounter requestCount;
+    protected AtomicCounter latencyP50;
+    protected AtomicCounter latencyP99;
+    protected AtomicCounter latencyP999;
+    protected AtomicCounter latencyMax;
+
+    protected ScheduledCommand scheduledReportCmd;
+    protected HttpServer httpServer;
+
+    public MetricsService(ConfigurationManager configurationManager)
+    {
+        metricsCfg = configurationManager.readEntry("metrics", MetricsCfg.class);
+        requestLatencies = new RequestLatencies(metricsCfg.requestLatencyCapacity);
+    }
+
+    @Override
+    public void start(ServiceStartContext startContext)
+    {
+        counters = countersInjector.getValue();
+
+        final CountersManager countersManager = counters.getCountersManager();
+        requestCount = countersManager.newCounter(REQUEST_LATENCY_PREFIX + ".count");
+        latencyP50 = countersManager.newCounter(REQUEST_LATENCY_PREFIX + ".p50Nanos");
+        latencyP99 = countersManager.newCounter(REQUEST_LATENCY_PREFIX + ".p99Nanos");
+        latencyP999 = countersManager.newCounter(REQUEST_LATENCY_PREFIX + ".p999Nanos");
+        latencyMax = countersManager.newCounter(REQUEST_LATENCY_PREFIX + ".maxNanos");
+
+        final ScheduledExecutor executor = executorInjector.getValue();
+        scheduledReportCmd = executor.scheduleAtFixedRate(this::reportLatencies, Duration.ofSeconds(metricsCfg.reportInterval));
+
+        if (metricsCfg.httpPort > 0)
+        {
+            startContext.run(this::startHttpServer);
+        }
+    }
+
+    @Override
+    public void stop(ServiceStopContext stopContext)
+    {
+        scheduledReportCmd.cancel();
+
+        if (httpServer != null)
+        {
+            httpServer.stop(0);
+            httpServer = null;
+        }
+
+        requestCount.close();
+        latencyP50.close();
+        latencyP99.close();
+        latencyP999.close();
+        latencyMax.close();
+    }
+
+    protected void reportLatencies()
+    {
+        intervalHistogram.reset();
+        requestLatencies.getHistogram().drainTo(intervalHistogram);
+
+        requestCount.addOrdered(intervalHistogram.getTotalCount());
+        latencyP50.setOrdered(intervalHistogram.getValueAtPercentile(50.0));
+        latencyP99.setOrdered(intervalHistogram.getValueAtPercentile(99.0));
+        latencyP999.setOrdered(intervalHistogram.getValueAtPercentile(99.9));
+        latencyMax.setOrdered(intervalHistogram.getMaxValue());
+    }
+
+    protected void startHttpServer()
+    {
+        final InetSocketAddress address = new InetSocketAddress(metricsCfg.httpHost, metricsCfg.httpPort);
+
+        try
+        {
+            httpServer = HttpServer.create(address, 0);
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException("Cannot bind metrics endpoint to " + address, e);
+        }
+
+        httpServer.createContext("/", this::writeCounters);
+        httpServer.start();
+
+        LOG.info("Serving metrics on http://{}:{}/", metricsCfg.httpHost, metricsCfg.httpPort);
+    }
+
+    protected void writeCounters(HttpExchange exchange) throws IOException
+    {
+        try
+        {
+            final byte[] body = formatCounters(counters).getBytes(StandardCharsets.UTF_8);
+
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+
+            try (OutputStream outputStream = exchange.getResponseBody())
+            {
+                outputStream.write(body);
+            }
+        }
+        finally
+        {
+            exchange.close();
+        }
+    }
+
+    public static String formatCounters(Counters counters)
+    {
+        final AtomicBuffer countersBuffer = counters.getCountersBuffer();
+        final StringBuilder builder = new StringBuilder();
+
+        counters.getCountersManager().forEach((id, label) ->
+        {
+            final long value = countersBuffer.getLongVolatile(CountersManager.counterOffset(id));
+
+            builder.append(label)
+                .append(' ')
+                .append(value)
+                .append('\n');
+        });
+
+        return builder.toString();
+    }
+
+    @Override
+    public RequestLatencies get()
+    {
+        return requestLatencies;
+    }
+
+    public Injector<Counters> getCountersInjector()
+    {
+        return countersInjector;
+    }
+
+    public Injector<ScheduledExecutor> getExecutorInjector()
+    {
+        return executorInjector;
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.system.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Measures the time from receiving a command until its response is sent. The
+ * start time of a request is kept in a fixed-size table which is indexed by
+ * the hash of the request, so that the request and the response can be
+ * handled by different threads without allocation. A request whose slot is
+ * taken by a later request is not measured.
+ */
+public class RequestLatencies
+{
+    protected static final long EMPTY = -1L;
+
+    protected final AtomicLongArray slots;
+    protected final int slotShift;
+
+    protected final LatencyHistogram histogram = new LatencyHistogram();
+
+    /**
+     * @param capacity the number of requests which can be tracked at the same
+     *            time; rounded up to a power of two
+     */
+    public RequestLatencies(int capacity)
+    {
+        final int slotCount = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+
+        this.slotShift = Long.SIZE - Integer.numberOfTrailingZeros(slotCount);
+        this.slots = new AtomicLongArray(slotCount * 2);
+
+        for (int i = 0; i < slotCount; i++)
+        {
+            slots.set(keyIndex(i), EMPTY);
+        }
+    }
+
+    public void onRequest(int streamId, long requestId)
+    {
+        onRequest(streamId, requestId, System.nanoTime());
+    }
+
+    public void onRequest(int streamId, long requestId, long nanoTime)
+    {
+        final long key = requestKey(streamId, requestId);
+        final int slot = slot(key);
+
+        slots.set(startTimeIndex(slot), nanoTime);
+        slots.set(keyIndex(slot), key);
+    }
+
+    public void onResponse(int streamId, long requestId)
+    {
+        onResponse(streamId, requestId, System.nanoTime());
+    }
+
+    public void onResponse(int streamId, long requestId, long nanoTime)
+    {
+        final long key = requestKey(streamId, requestId);
+        final int slot = slot(key);
+
+        if (slots.get(keyIndex(slot)) == key)
+        {
+            final long startTime = slots.get(startTimeIndex(slot));
+
+            if (slots.compareAndSet(keyIndex(slot), key, EMPTY))
+            {
+                histogram.record(nanoTime - startTime);
+            }
+        }
+    }
+
+    /**
+     * @return the latencies in nanoseconds
+     */
+    public LatencyHistogram getHistogram()
+    {
+        return histogram;
+    }
+
+    protected int slot(long key)
+    {
+        // fibonacci hashing, uses the highest bits of the product
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> slotShift);
+    }
+
+    protected static long requestKey(int streamId, long requestId)
+    {
+        // the request ids are unique per stream
+        return ((long) streamId << 40) ^ requestId;
+    }
+
+    protected static int keyIndex(int slot)
+    {
+        return slot << 1;
+    }
+
+    protected static int startTimeIndex(int slot)
+    {
+        return (slot << 1) + 1;
+    }
+}
@@ -21,6 +21,29 @@ import io.zeebe.broker.system.DirectoryConfiguration;
 
 public class MetricsCfg extends DirectoryConfiguration
 {
+    /**
+     * The interval in seconds in which the latency percentiles are published
+     * as counters. The percentiles are calculated from the requests of the
+     * last interval.
+     */
+    public int reportInterval = 10;
+
+    /**
+     * The number of requests whose latency can be tracked at the same time.
+     */
+    public int requestLatencyCapacity = 4096;
+
+    /**
+     * The host of the endpoint which serves the counters as text on HTTP GET.
+     */
+    public String httpHost = "localhost";
+
+    /**
+     * The port of the endpoint which serves the counters. The endpoint is
+     * disabled if less than one.
+     */
+    public int httpPort = -1;
+
     @Override
     protected String componentDirectoryName()
     {
@@ -20,15 +20,12 @@ package io.zeebe.broker.task;
 import org.agrona.BitUtil;
 import org.agrona.DirectBuffer;
 import org.agrona.concurrent.UnsafeBuffer;
-import org.agrona.concurrent.ringbuffer.OneToOneRingBuffer;
 
-import io.zeebe.util.collection.CompactList;
 import io.zeebe.util.buffer.BufferReader;
 
 public class CreditsRequest implements BufferReader
 {
     protected static final int LENGTH = BitUtil.SIZE_OF_LONG + BitUtil.SIZE_OF_INT;
-    protected static final int TYPE = 42;
 
     protected UnsafeBuffer content = new UnsafeBuffer(new byte[LENGTH]);
 
@@ -74,25 +71,6 @@ public class CreditsRequest implements BufferReader
         this.content.putInt(BitUtil.SIZE_OF_LONG, credits);
     }
 
-    /**
-     * @param ringBuffer
-     * @return true if success
-     */
-    public boolean writeTo(OneToOneRingBuffer ringBuffer)
-    {
-        return ringBuffer.write(TYPE, content, 0, LENGTH);
-    }
-
-    public void appendTo(CompactList list)
-    {
-        list.add(content);
-    }
-
-    public void wrapListElement(CompactList list, int index)
-    {
-        list.wrap(index, content);
-    }
-
     @Override
     public boolean equals(Object obj)
     {
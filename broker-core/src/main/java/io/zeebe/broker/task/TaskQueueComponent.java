@@ -20,6 +20,7 @@ package io.zeebe.broker.task;
 import static io.zeebe.broker.logstreams.LogStreamServiceNames.WORKFLOW_STREAM_GROUP;
 import static io.zeebe.broker.system.SystemServiceNames.ACTOR_SCHEDULER_SERVICE;
 import static io.zeebe.broker.system.SystemServiceNames.EXECUTOR_SERVICE;
+import static io.zeebe.broker.system.SystemServiceNames.METRICS_SERVICE;
 import static io.zeebe.broker.task.TaskQueueServiceNames.TASK_QUEUE_MANAGER;
 import static io.zeebe.broker.task.TaskQueueServiceNames.TASK_QUEUE_SUBSCRIPTION_MANAGER;
 import static io.zeebe.broker.transport.TransportServiceNames.CLIENT_API_SERVER_NAME;
@@ -50,6 +51,7 @@ public class TaskQueueComponent implements Component
             .dependency(EXECUTOR_SERVICE, taskQueueManagerService.getExecutorInjector())
             .dependency(TASK_QUEUE_SUBSCRIPTION_MANAGER, taskQueueManagerService.getTaskSubscriptionManagerInjector())
             .dependency(ACTOR_SCHEDULER_SERVICE, taskQueueManagerService.getActorSchedulerInjector())
+            .dependency(METRICS_SERVICE, taskQueueManagerService.getRequestLatenciesInjector())
             .groupReference(WORKFLOW_STREAM_GROUP, taskQueueManagerService.getLogStreamsGroupReference())
             .install();
 
@@ -17,11 +17,14 @@
  */
 package io.zeebe.broker.task;
 
+import static io.zeebe.broker.logstreams.LogStreamServiceNames.LOG_RETENTION_SERVICE;
+import static io.zeebe.broker.logstreams.LogStreamServiceNames.PROCESSING_POSITIONS_SERVICE;
 import static io.zeebe.broker.logstreams.LogStreamServiceNames.SNAPSHOT_STORAGE_SERVICE;
 import static io.zeebe.broker.logstreams.LogStreamServiceNames.logStreamServiceName;
 import static io.zeebe.broker.logstreams.processor.StreamProcessorIds.TASK_EXPIRE_LOCK_STREAM_PROCESSOR_ID;
 import static io.zeebe.broker.logstreams.processor.StreamProcessorIds.TASK_QUEUE_STREAM_PROCESSOR_ID;
 import static io.zeebe.broker.system.SystemServiceNames.ACTOR_SCHEDULER_SERVICE;
+import static io.zeebe.broker.system.SystemServiceNames.COUNTERS_MANAGER_SERVICE;
 import static io.zeebe.broker.task.TaskQueueServiceNames.TASK_QUEUE_STREAM_PROCESSOR_SERVICE_GROUP_NAME;
 import static io.zeebe.broker.task.TaskQueueServiceNames.taskQueueExpireLockStreamProcessorServiceName;
 import static io.zeebe.broker.task.TaskQueueServiceNames.taskQueueInstanceStreamProcessorServiceName;
@@ -31,6 +34,7 @@ import java.time.Duration;
 import io.zeebe.broker.logstreams.processor.StreamProcessorService;
 import io.zeebe.broker.system.executor.ScheduledCommand;
 import io.zeebe.broker.system.executor.ScheduledExecutor;
+import io.zeebe.broker.system.metrics.RequestLatencies;
 import io.zeebe.broker.task.processor.TaskExpireLockStreamProcessor;
 import io.zeebe.broker.task.processor.TaskInstanceStreamProcessor;
 import io.zeebe.broker.transport.clientapi.CommandResponseWriter;
@@ -58,6 +62,7 @@ public class TaskQueueManagerService implements Service<TaskQueueManager>, TaskQ
     protected final Injector<ScheduledExecutor> executorInjector = new Injector<>();
     protected final Injector<TaskSubscriptionManager> taskSubscriptionManagerInjector = new Injector<>();
     protected final Injector<ActorScheduler> actorSchedulerInjector = new Injector<>();
+    protected final Injector<RequestLatencies> requestLatenciesInjector = new Injector<>();
 
     protected final ServiceGroupReference<LogStream> logStreamsGroupReference = ServiceGroupReference.<LogStream>create()
             .onAdd((name, stream) -> addStream(stream, name))
@@ -83,7 +88,7 @@ public class TaskQueueManagerService implements Service<TaskQueueManager>, TaskQ
 
         final ServerTransport serverTransport = clientApiTransportInjector.getValue();
 
-        final CommandResponseWriter responseWriter = new CommandResponseWriter(serverTransport.getOutput());
+        final CommandResponseWriter responseWriter = new CommandResponseWriter(serverTransport.getOutput(), requestLatenciesInjector.getValue());
         final SubscribedEventWriter subscribedEventWriter = new SubscribedEventWriter(serverTransport.getOutput());
         final ServiceName<LogStream> logStreamServiceName = logStreamServiceName(logName);
         final TaskSubscriptionManager taskSubscriptionManager = taskSubscriptionManagerInjector.getValue();
@@ -93,14 +98,18 @@ public class TaskQueueManagerService implements Service<TaskQueueManager>, TaskQ
                 streamProcessorName,
                 TASK_QUEUE_STREAM_PROCESSOR_ID,
                 taskInstanceStreamProcessor)
-                .eventFilter(TaskInstanceStreamProcessor.eventFilter());
+                .eventFilter(TaskInstanceStreamProcessor.eventFilter())
+                .stateIndependentOfLog();
 
         serviceContext.createService(streamProcessorServiceName, taskInstanceStreamProcessorService)
               .group(TASK_QUEUE_STREAM_PROCESSOR_SERVICE_GROUP_NAME)
               .dependency(logStreamServiceName, taskInstanceStreamProcessorService.getSourceStreamInjector())
               .dependency(logStreamServiceName, taskInstanceStreamProcessorService.getTargetStreamInjector())
               .dependency(SNAPSHOT_STORAGE_SERVICE, taskInstanceStreamProcessorService.getSnapshotStorageInjector())
+              .dependency(LOG_RETENTION_SERVICE, taskInstanceStreamProcessorService.getRetentionPositionsInjector())
               .dependency(ACTOR_SCHEDULER_SERVICE, taskInstanceStreamProcessorService.getActorSchedulerInjector())
+              .dependency(COUNTERS_MANAGER_SERVICE, taskInstanceStreamProcessorService.getCountersInjector())
+              .dependency(PROCESSING_POSITIONS_SERVICE, taskInstanceStreamProcessorService.getProcessingPositionsInjector())
               .install();
 
         startExpireLockService(logName, logStreamServiceName);
@@ -123,7 +132,9 @@ public class TaskQueueManagerService implements Service<TaskQueueManager>, TaskQ
             .dependency(logStreamServiceName, expireLockStreamProcessorService.getSourceStreamInjector())
             .dependency(logStreamServiceName, expireLockStreamProcessorService.getTargetStreamInjector())
             .dependency(SNAPSHOT_STORAGE_SERVICE, expireLockStreamProcessorService.getSnapshotStorageInjector())
+            .dependency(LOG_RETENTION_SERVICE, expireLockStreamProcessorService.getRetentionPositionsInjector())
             .dependency(ACTOR_SCHEDULER_SERVICE, expireLockStreamProcessorService.getActorSchedulerInjector())
+            .dependency(COUNTERS_MANAGER_SERVICE, expireLockStreamProcessorService.getCountersInjector())
             .install()
             .thenRun(() ->
             {
@@ -182,6 +193,11 @@ public class TaskQueueManagerService implements Service<TaskQueueManager>, TaskQ
         return logStreamsGroupReference;
     }
 
+    public Injector<RequestLatencies> getRequestLatenciesInjector()
+    {
+        return requestLatenciesInjector;
+    }
+
     public Injector<ActorScheduler> getActorSchedulerInjector()
     {
         return actorSchedulerInjector;
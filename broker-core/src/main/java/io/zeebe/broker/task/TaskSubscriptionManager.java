@@ -17,24 +17,23 @@
  */
 package io.zeebe.broker.task;
 
+import static io.zeebe.broker.logstreams.LogStreamServiceNames.LOG_RETENTION_SERVICE;
 import static io.zeebe.broker.logstreams.LogStreamServiceNames.SNAPSHOT_STORAGE_SERVICE;
 import static io.zeebe.broker.logstreams.processor.StreamProcessorIds.TASK_LOCK_STREAM_PROCESSOR_ID;
 import static io.zeebe.broker.system.SystemServiceNames.ACTOR_SCHEDULER_SERVICE;
+import static io.zeebe.broker.system.SystemServiceNames.COUNTERS_MANAGER_SERVICE;
 import static io.zeebe.broker.task.TaskQueueServiceNames.taskQueueLockStreamProcessorServiceName;
 import static io.zeebe.util.EnsureUtil.ensureNotNull;
 import static io.zeebe.util.buffer.BufferUtil.bufferAsString;
-import static io.zeebe.util.buffer.BufferUtil.cloneBuffer;
 
 import java.util.*;
-import java.util.Map.Entry;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.CompletionStage;
-import java.util.function.Function;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 import io.zeebe.broker.logstreams.processor.StreamProcessorService;
 import io.zeebe.broker.task.processor.LockTaskStreamProcessor;
 import io.zeebe.broker.task.processor.TaskSubscription;
-import io.zeebe.util.collection.CompactList;
 import io.zeebe.logstreams.log.LogStream;
 import io.zeebe.logstreams.processor.StreamProcessorController;
 import io.zeebe.servicecontainer.ServiceName;
@@ -43,8 +42,6 @@ import io.zeebe.transport.RemoteAddress;
 import io.zeebe.transport.TransportListener;
 import io.zeebe.util.DeferredCommandContext;
 import io.zeebe.util.actor.Actor;
-import io.zeebe.util.allocation.HeapBufferAllocator;
-import io.zeebe.util.buffer.BufferUtil;
 import org.agrona.DirectBuffer;
 import org.agrona.collections.Int2ObjectHashMap;
 import org.agrona.collections.Long2ObjectHashMap;
@@ -55,54 +52,33 @@ public class TaskSubscriptionManager implements Actor, TransportListener
     public static final int NUM_CONCURRENT_REQUESTS = 1_024;
 
     protected final ServiceStartContext serviceContext;
-    protected final Function<DirectBuffer, LockTaskStreamProcessor> streamProcessorSupplier;
+    protected final Supplier<LockTaskStreamProcessor> streamProcessorSupplier;
 
     protected final Map<DirectBuffer, Int2ObjectHashMap<LogStreamBucket>> logStreamBuckets = new HashMap<>();
-    protected final Long2ObjectHashMap<LockTaskStreamProcessor> streamProcessorBySubscriptionId = new Long2ObjectHashMap<>();
+    protected final Long2ObjectHashMap<LogStreamBucket> logStreamBucketBySubscriptionId = new Long2ObjectHashMap<>();
 
     protected final DeferredCommandContext asyncContext = new DeferredCommandContext(NUM_CONCURRENT_REQUESTS);
 
     /*
-     * For credits handling, we use two datastructures here:
-     *   * a one-to-one thread-safe ring buffer for ingestion of requests
-     *   * a non-thread-safe list for requests that could not be successfully dispatched to the corresponding stream processor
-     *
-     * Note: we could also use a single data structure, if the thread-safe buffer allowed us to decide in the consuming
-     *   handler whether we actually want to consume an item off of it; then, we could simply leave a request
-     *   if it cannot be dispatched.
-     *   afaik there is no such datastructure available out of the box, so we are going with two datastructures
-     *   see also https://github.com/real-logic/Agrona/issues/96
+     * The credits are added to the subscriptions directly by the threads which
+     * handle the credits requests. A subscription hands itself over to its stream
+     * processor if it gets credits again after it has used all of them.
      */
-    protected final CreditsRequestBuffer creditRequestBuffer;
-    protected final CompactList backPressuredCreditsRequests;
-    protected final CreditsRequest creditsRequest = new CreditsRequest();
+    protected final Map<Long, TaskSubscription> subscriptionsById = new ConcurrentHashMap<>();
 
     protected long nextSubscriptionId = 0;
 
-
-
     public TaskSubscriptionManager(ServiceStartContext serviceContext)
     {
-        this(serviceContext, taskType -> new LockTaskStreamProcessor(taskType));
+        this(serviceContext, () -> new LockTaskStreamProcessor());
     }
 
     public TaskSubscriptionManager(
             ServiceStartContext serviceContext,
-            Function<DirectBuffer, LockTaskStreamProcessor> streamProcessorBuilder)
+            Supplier<LockTaskStreamProcessor> streamProcessorSupplier)
     {
         this.serviceContext = serviceContext;
-        this.streamProcessorSupplier = streamProcessorBuilder;
-        this.creditRequestBuffer = new CreditsRequestBuffer(
-            NUM_CONCURRENT_REQUESTS,
-            (r) ->
-            {
-                final boolean dispatched = dispatchSubscriptionCredits(r);
-                if (!dispatched)
-                {
-                    backpressureRequest(r);
-                }
-            });
-        this.backPressuredCreditsRequests = new CompactList(CreditsRequest.LENGTH, creditRequestBuffer.getCapacityUpperBound(), new HeapBufferAllocator());
+        this.streamProcessorSupplier = streamProcessorSupplier;
     }
 
     @Override
@@ -114,22 +90,7 @@ public class TaskSubscriptionManager implements Actor, TransportListener
     @Override
     public int doWork() throws Exception
     {
-        final int asyncWork = asyncContext.doWork();
-
-        final int backpressuredWork = dispatchBackpressuredSubscriptionCredits();
-        final int creditsRequests;
-        if (backPressuredCreditsRequests.size() == 0)
-        {
-            // only accept new requests when backpressured ones have been processed
-            // this is required to guarantee that backPressuredCreditsRequests won't overflow
-            creditsRequests = creditRequestBuffer.handleRequests();
-        }
-        else
-        {
-            creditsRequests = 0;
-        }
-
-        return asyncWork + backpressuredWork + creditsRequests;
+        return asyncContext.doWork();
     }
 
     public CompletableFuture<Void> addSubscription(final TaskSubscription subscription)
@@ -138,9 +99,12 @@ public class TaskSubscriptionManager implements Actor, TransportListener
         {
             ensureNotNull("subscription", subscription);
 
-            final DirectBuffer taskType = subscription.getLockTaskType();
+            final DirectBuffer[] taskTypes = subscription.getLockTaskTypes();
 
-            ensureNotNull("lock task type", taskType);
+            for (DirectBuffer taskType : taskTypes)
+            {
+                ensureNotNull("lock task type", taskType);
+            }
 
             final DirectBuffer topicName = subscription.getTopicName();
             final int partitionId = subscription.getPartitionId();
@@ -155,57 +119,85 @@ public class TaskSubscriptionManager implements Actor, TransportListener
             final long subscriptionId = nextSubscriptionId++;
             subscription.setSubscriberKey(subscriptionId);
 
-            final LockTaskStreamProcessor streamProcessor = logStreamBucket.getStreamProcessorByTaskType(taskType);
-            if (streamProcessor != null)
+            final CompletableFuture<LockTaskStreamProcessor> streamProcessorFuture;
+            if (!logStreamBucket.hasStreamProcessor())
             {
-                streamProcessorBySubscriptionId.put(subscriptionId, streamProcessor);
-
-                streamProcessor
-                    .addSubscription(subscription)
-                    .handle((r, t) -> t == null ? future.complete(null) : future.completeExceptionally(t));
+                streamProcessorFuture = createStreamProcessorService(logStreamBucket);
             }
             else
             {
-                createStreamProcessorService(logStreamBucket, taskType)
-                    .thenCompose(processor ->
+                // the running processor locks the already existing tasks of a new type
+                streamProcessorFuture = logStreamBucket.getStreamProcessorFuture();
+            }
+
+            logStreamBucket.addSubscription(subscription);
+            logStreamBucketBySubscriptionId.put(subscriptionId, logStreamBucket);
+            subscriptionsById.put(subscriptionId, subscription);
+
+            streamProcessorFuture
+                .thenCompose(processor -> processor.addSubscription(subscription))
+                .whenComplete((r, t) ->
+                {
+                    if (t != null)
                     {
-                        streamProcessorBySubscriptionId.put(subscriptionId, processor);
+                        asyncContext.runAsync(() -> removeFailedSubscription(subscriptionId));
+                    }
+                })
+                .handle((r, t) -> t == null ? future.complete(null) : future.completeExceptionally(t));
+        });
+    }
+
+    protected void removeFailedSubscription(long subscriptionId)
+    {
+        subscriptionsById.remove(subscriptionId);
 
-                        logStreamBucket.addStreamProcessor(processor);
+        final LogStreamBucket logStreamBucket = logStreamBucketBySubscriptionId.remove(subscriptionId);
+        if (logStreamBucket != null)
+        {
+            logStreamBucket.removeSubscription(subscriptionId);
 
-                        return processor.addSubscription(subscription);
-                    })
-                    .handle((r, t) -> t == null ? future.complete(null) : future.completeExceptionally(t));
+            if (!logStreamBucket.hasSubscriptions() && logStreamBucket.hasStreamProcessor())
+            {
+                removeStreamProcessorService(logStreamBucket, logStreamBucket.getStreamProcessorFuture());
             }
-        });
+        }
     }
 
-    protected CompletableFuture<LockTaskStreamProcessor> createStreamProcessorService(final LogStreamBucket logStreamBucket, final DirectBuffer taskType)
+    protected CompletableFuture<LockTaskStreamProcessor> createStreamProcessorService(final LogStreamBucket logStreamBucket)
+    {
+        final LockTaskStreamProcessor streamProcessor = streamProcessorSupplier.get();
+
+        final CompletableFuture<LockTaskStreamProcessor> future = logStreamBucket.getServiceRemovedFuture()
+            .thenCompose(v -> installStreamProcessorService(logStreamBucket, streamProcessor));
+
+        logStreamBucket.setStreamProcessor(streamProcessor, future);
+
+        return future;
+    }
+
+    protected CompletableFuture<LockTaskStreamProcessor> installStreamProcessorService(final LogStreamBucket logStreamBucket, final LockTaskStreamProcessor streamProcessor)
     {
         final CompletableFuture<LockTaskStreamProcessor> future = new CompletableFuture<>();
 
         final ServiceName<LogStream> logStreamServiceName = logStreamBucket.getLogServiceName();
 
-        final String logName = logStreamBucket.getLogStream().getLogName();
-        final ServiceName<StreamProcessorController> streamProcessorServiceName = taskQueueLockStreamProcessorServiceName(logName, bufferAsString(taskType));
+        final ServiceName<StreamProcessorController> streamProcessorServiceName = logStreamBucket.getStreamProcessorServiceName();
         final String streamProcessorName = streamProcessorServiceName.getName();
 
-        // need to copy the type buffer because it is not durable
-        final DirectBuffer newTaskTypeBuffer = cloneBuffer(taskType);
-
-        final LockTaskStreamProcessor streamProcessor = streamProcessorSupplier.apply(newTaskTypeBuffer);
         final StreamProcessorService streamProcessorService = new StreamProcessorService(
                 streamProcessorName,
                 TASK_LOCK_STREAM_PROCESSOR_ID,
                 streamProcessor)
-            .eventFilter(LockTaskStreamProcessor.eventFilter())
-            .reprocessingEventFilter(LockTaskStreamProcessor.reprocessingEventFilter(newTaskTypeBuffer));
+            // the processor reads the log from the beginning to restore the pending tasks
+            .snapshotPositionProvider((event, lastWrittenEventPosition) -> -1L);
 
         serviceContext.createService(streamProcessorServiceName, streamProcessorService)
             .dependency(logStreamServiceName, streamProcessorService.getSourceStreamInjector())
             .dependency(logStreamServiceName, streamProcessorService.getTargetStreamInjector())
             .dependency(SNAPSHOT_STORAGE_SERVICE, streamProcessorService.getSnapshotStorageInjector())
+            .dependency(LOG_RETENTION_SERVICE, streamProcessorService.getRetentionPositionsInjector())
             .dependency(ACTOR_SCHEDULER_SERVICE, streamProcessorService.getActorSchedulerInjector())
+            .dependency(COUNTERS_MANAGER_SERVICE, streamProcessorService.getCountersInjector())
             .install()
             .handle((r, t) -> t == null ? future.complete(streamProcessor) : future.completeExceptionally(t));
 
@@ -216,13 +208,23 @@ public class TaskSubscriptionManager implements Actor, TransportListener
     {
         return asyncContext.runAsync(future ->
         {
-            final LockTaskStreamProcessor streamProcessor = streamProcessorBySubscriptionId.remove(subscriptionId);
-            if (streamProcessor != null)
+            subscriptionsById.remove(subscriptionId);
+
+            final LogStreamBucket logStreamBucket = logStreamBucketBySubscriptionId.remove(subscriptionId);
+            if (logStreamBucket != null && logStreamBucket.hasStreamProcessor())
             {
-                streamProcessor
-                    .removeSubscription(subscriptionId)
-                    .thenCompose(hasSubscriptions -> !hasSubscriptions ? removeStreamProcessorService(streamProcessor) : CompletableFuture.completedFuture(null))
-                    .handle((r, t) -> t == null ? future.complete(null) : future.completeExceptionally(t));
+                logStreamBucket.removeSubscription(subscriptionId);
+
+                CompletableFuture<Void> removeFuture = logStreamBucket.getStreamProcessorFuture()
+                    .thenCompose(processor -> processor.removeSubscription(subscriptionId))
+                    .thenApply(hasSubscriptions -> null);
+
+                if (!logStreamBucket.hasSubscriptions())
+                {
+                    removeFuture = removeStreamProcessorService(logStreamBucket, removeFuture);
+                }
+
+                removeFuture.handle((r, t) -> t == null ? future.complete(null) : future.completeExceptionally(t));
             }
             else
             {
@@ -231,71 +233,35 @@ public class TaskSubscriptionManager implements Actor, TransportListener
         });
     }
 
-    protected CompletionStage<Void> removeStreamProcessorService(final LockTaskStreamProcessor streamProcessor)
+    protected CompletableFuture<Void> removeStreamProcessorService(final LogStreamBucket logStreamBucket, final CompletableFuture<?> precedingOperation)
     {
-        final LogStreamBucket logStreamBucket = getLogStreamBucket(streamProcessor.getLogStreamTopicName(), streamProcessor.getLogStreamPartitionId());
-
-        logStreamBucket.removeStreamProcessor(streamProcessor);
+        final ServiceName<StreamProcessorController> streamProcessorServiceName = logStreamBucket.getStreamProcessorServiceName();
 
-        final String logName = logStreamBucket.getLogStream().getLogName();
-        final String taskType = bufferAsString(streamProcessor.getSubscriptedTaskType());
-        final ServiceName<StreamProcessorController> streamProcessorServiceName = taskQueueLockStreamProcessorServiceName(logName, taskType);
+        final CompletableFuture<Void> future = precedingOperation
+            .handle((r, t) -> null)
+            .thenCompose(v -> serviceContext.removeService(streamProcessorServiceName));
 
-        return serviceContext.removeService(streamProcessorServiceName);
-    }
+        // a failed removal should not prevent to create a new stream processor
+        logStreamBucket.removeStreamProcessor(future.<Void>handle((r, t) -> null));
 
-    public boolean increaseSubscriptionCreditsAsync(CreditsRequest request)
-    {
-        return creditRequestBuffer.offerRequest(request);
+        return future;
     }
 
     /**
-     * @param request
-     * @return if request was handled
+     * Increases the credits of the subscription. Can be called from any thread.
+     * Credits of unknown subscriptions are ignored.
+     *
+     * @return <code>true</code> if the request was handled
      */
-    protected boolean dispatchSubscriptionCredits(CreditsRequest request)
-    {
-        final LockTaskStreamProcessor streamProcessor = streamProcessorBySubscriptionId.get(request.getSubscriberKey());
-
-        if (streamProcessor != null)
-        {
-            return streamProcessor.increaseSubscriptionCreditsAsync(request);
-        }
-        else
-        {
-            // ignore
-            return true;
-        }
-    }
-
-    protected void backpressureRequest(CreditsRequest request)
-    {
-        request.appendTo(backPressuredCreditsRequests);
-    }
-
-    protected int dispatchBackpressuredSubscriptionCredits()
+    public boolean increaseSubscriptionCreditsAsync(CreditsRequest request)
     {
-        int nextRequestToConsume = backPressuredCreditsRequests.size() - 1;
-        int numSuccessfulRequests = 0;
-
-        while (nextRequestToConsume >= 0)
+        final TaskSubscription subscription = subscriptionsById.get(request.getSubscriberKey());
+        if (subscription != null)
         {
-            creditsRequest.wrapListElement(backPressuredCreditsRequests, nextRequestToConsume);
-            final boolean success = dispatchSubscriptionCredits(creditsRequest);
-
-            if (success)
-            {
-                backPressuredCreditsRequests.remove(nextRequestToConsume);
-                numSuccessfulRequests++;
-                nextRequestToConsume--;
-            }
-            else
-            {
-                break;
-            }
+            subscription.addCredits(request.getCredits());
         }
 
-        return numSuccessfulRequests;
+        return true;
     }
 
     public void addStream(LogStream logStream, ServiceName<LogStream> logStreamServiceName)
@@ -319,51 +285,56 @@ public class TaskSubscriptionManager implements Actor, TransportListener
 
             if (partitions != null)
             {
-                partitions.remove(partitionId);
+                final LogStreamBucket logStreamBucket = partitions.remove(partitionId);
 
                 if (partitions.isEmpty())
                 {
                     logStreamBuckets.remove(topicName);
                 }
-            }
 
-            removeSubscriptionsForLogStream(topicName, partitionId);
+                if (logStreamBucket != null)
+                {
+                    removeSubscriptionsForLogStream(logStreamBucket);
+                }
+            }
         });
     }
 
-    protected void removeSubscriptionsForLogStream(DirectBuffer topicName, final int partitionId)
+    protected void removeSubscriptionsForLogStream(LogStreamBucket logStreamBucket)
     {
-        final Set<Entry<Long, LockTaskStreamProcessor>> entrySet = streamProcessorBySubscriptionId.entrySet();
-        for (Entry<Long, LockTaskStreamProcessor> entry : entrySet)
-        {
-            final LockTaskStreamProcessor streamProcessor = entry.getValue();
-            if (topicName.equals(streamProcessor.getLogStreamTopicName()) && partitionId == streamProcessor.getLogStreamPartitionId())
-            {
-                entrySet.remove(entry);
-            }
-        }
+        subscriptionsById.values().removeIf(subscription -> logStreamBucketBySubscriptionId.get(subscription.getSubscriberKey()) == logStreamBucket);
+
+        final Collection<LogStreamBucket> buckets = logStreamBucketBySubscriptionId.values();
+        buckets.removeIf(bucket -> bucket == logStreamBucket);
     }
 
     public void onClientChannelCloseAsync(int channelId)
     {
         asyncContext.runAsync(() ->
         {
-            final Iterator<LockTaskStreamProcessor> processorIt = streamProcessorBySubscriptionId.values().iterator();
-            while (processorIt.hasNext())
+            for (Int2ObjectHashMap<LogStreamBucket> partitions : logStreamBuckets.values())
             {
-                final LockTaskStreamProcessor processor = processorIt.next();
-                processor
-                    .onClientChannelCloseAsync(channelId)
-                    .thenCompose(hasSubscriptions -> !hasSubscriptions ? removeStreamProcessorService(processor) : CompletableFuture.completedFuture(null));
+                for (LogStreamBucket logStreamBucket : partitions.values())
+                {
+                    final boolean hasRemovedSubscriptions = logStreamBucket.removeSubscriptionsOfChannel(channelId, logStreamBucketBySubscriptionId, subscriptionsById);
+
+                    if (hasRemovedSubscriptions && logStreamBucket.hasStreamProcessor())
+                    {
+                        if (logStreamBucket.hasSubscriptions())
+                        {
+                            logStreamBucket.getStreamProcessorFuture()
+                                .thenCompose(processor -> processor.onClientChannelCloseAsync(channelId));
+                        }
+                        else
+                        {
+                            removeStreamProcessorService(logStreamBucket, logStreamBucket.getStreamProcessorFuture());
+                        }
+                    }
+                }
             }
         });
     }
 
-    public int getCreditRequestCapacityUpperBound()
-    {
-        return creditRequestBuffer.getCapacityUpperBound();
-    }
-
     protected LogStreamBucket getLogStreamBucket(final DirectBuffer topicName, final int partitionId)
     {
         final Int2ObjectHashMap<LogStreamBucket> partitions = logStreamBuckets.get(topicName);
@@ -380,13 +351,21 @@ public class TaskSubscriptionManager implements Actor, TransportListener
     {
         protected final LogStream logStream;
         protected final ServiceName<LogStream> logStreamServiceName;
+        protected final ServiceName<StreamProcessorController> streamProcessorServiceName;
+
+        protected final Long2ObjectHashMap<TaskSubscription> subscriptions = new Long2ObjectHashMap<>();
 
-        protected List<LockTaskStreamProcessor> streamProcessors = new ArrayList<>();
+        protected LockTaskStreamProcessor streamProcessor;
+        // completes when the stream processor service is installed
+        protected CompletableFuture<LockTaskStreamProcessor> streamProcessorFuture;
+        // completes when the previous stream processor service is removed
+        protected CompletableFuture<Void> serviceRemovedFuture = CompletableFuture.completedFuture(null);
 
         LogStreamBucket(LogStream logStream, ServiceName<LogStream> logStreamServiceName)
         {
             this.logStream = logStream;
             this.logStreamServiceName = logStreamServiceName;
+            this.streamProcessorServiceName = taskQueueLockStreamProcessorServiceName(logStream.getLogName());
         }
 
         public LogStream getLogStream()
@@ -399,36 +378,80 @@ public class TaskSubscriptionManager implements Actor, TransportListener
             return logStreamServiceName;
         }
 
-        public LockTaskStreamProcessor getStreamProcessorByTaskType(DirectBuffer taskType)
+        public ServiceName<StreamProcessorController> getStreamProcessorServiceName()
         {
-            LockTaskStreamProcessor streamProcessorForType = null;
+            return streamProcessorServiceName;
+        }
 
-            final int size = streamProcessors.size();
-            int current = 0;
+        public boolean hasStreamProcessor()
+        {
+            return streamProcessor != null;
+        }
 
-            while (current < size && streamProcessorForType == null)
-            {
-                final LockTaskStreamProcessor streamProcessor = streamProcessors.get(current);
+        public LockTaskStreamProcessor getStreamProcessor()
+        {
+            return streamProcessor;
+        }
 
-                if (BufferUtil.equals(taskType, streamProcessor.getSubscriptedTaskType()))
-                {
-                    streamProcessorForType = streamProcessor;
-                }
+        public CompletableFuture<LockTaskStreamProcessor> getStreamProcessorFuture()
+        {
+            return streamProcessorFuture;
+        }
 
-                current += 1;
-            }
+        public CompletableFuture<Void> getServiceRemovedFuture()
+        {
+            return serviceRemovedFuture;
+        }
+
+        public void setStreamProcessor(LockTaskStreamProcessor streamProcessor, CompletableFuture<LockTaskStreamProcessor> streamProcessorFuture)
+        {
+            this.streamProcessor = streamProcessor;
+            this.streamProcessorFuture = streamProcessorFuture;
+        }
+
+        public void removeStreamProcessor(CompletableFuture<Void> serviceRemovedFuture)
+        {
+            this.streamProcessor = null;
+            this.streamProcessorFuture = null;
+            this.serviceRemovedFuture = serviceRemovedFuture;
+
+            subscriptions.clear();
+        }
 
-            return streamProcessorForType;
+        public void addSubscription(TaskSubscription subscription)
+        {
+            subscriptions.put(subscription.getSubscriberKey(), subscription);
+        }
+
+        public void removeSubscription(long subscriptionId)
+        {
+            subscriptions.remove(subscriptionId);
         }
 
-        public void addStreamProcessor(LockTaskStreamProcessor streamProcessor)
+        public boolean hasSubscriptions()
         {
-            streamProcessors.add(streamProcessor);
+            return !subscriptions.isEmpty();
         }
 
-        public void removeStreamProcessor(LockTaskStreamProcessor streamProcessor)
+        public boolean removeSubscriptionsOfChannel(int channelId, Long2ObjectHashMap<LogStreamBucket> bucketBySubscriptionId, Map<Long, TaskSubscription> subscriptionsById)
         {
-            streamProcessors.remove(streamProcessor);
+            boolean hasRemovedSubscriptions = false;
+
+            final Iterator<TaskSubscription> iterator = subscriptions.values().iterator();
+            while (iterator.hasNext())
+            {
+                final TaskSubscription subscription = iterator.next();
+                if (subscription.getStreamId() == channelId)
+                {
+                    bucketBySubscriptionId.remove(subscription.getSubscriberKey());
+                    subscriptionsById.remove(subscription.getSubscriberKey());
+                    iterator.remove();
+
+                    hasRemovedSubscriptions = true;
+                }
+            }
+
+            return hasRemovedSubscriptions;
         }
     }
 
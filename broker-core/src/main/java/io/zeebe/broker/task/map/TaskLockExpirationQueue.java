@@ -0,0 +1,274 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.task.map;
+
+import static org.agrona.BitUtil.SIZE_OF_LONG;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteOrder;
+
+import io.zeebe.util.StreamUtil;
+import io.zeebe.util.allocation.AllocatedBuffer;
+import io.zeebe.util.allocation.DirectBufferAllocator;
+import org.agrona.concurrent.UnsafeBuffer;
+
+/**
+ * Off-heap min-heap of locked tasks which is ordered by the lock expiration
+ * time. An entry consists of
+ *
+ * <li> lock expiration time
+ * <li> task instance key
+ * <li> position of the task locked event
+ *
+ * <p>
+ * Entries can't be removed by key. Callers have to skip the entries of tasks
+ * which are unlocked in the meantime.
+ *
+ * <p>
+ * The queue can be written to and read from a stream as it is, so that it
+ * doesn't have to be rebuilt when the state is recovered from a snapshot.
+ */
+public class TaskLockExpirationQueue
+{
+    private static final int EXPIRATION_TIME_OFFSET = 0;
+    private static final int KEY_OFFSET = EXPIRATION_TIME_OFFSET + SIZE_OF_LONG;
+    private static final int POSITION_OFFSET = KEY_OFFSET + SIZE_OF_LONG;
+
+    private static final int ENTRY_LENGTH = POSITION_OFFSET + SIZE_OF_LONG;
+
+    private static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    private static final int COPY_BUFFER_LENGTH = 4096;
+
+    private final DirectBufferAllocator allocator = new DirectBufferAllocator();
+    private final UnsafeBuffer buffer = new UnsafeBuffer(0, 0);
+    private final byte[] copyBuffer = new byte[COPY_BUFFER_LENGTH];
+
+    private AllocatedBuffer allocatedBuffer;
+    private int capacity;
+    private int size = 0;
+
+    public TaskLockExpirationQueue(int initialCapacity)
+    {
+        allocate(initialCapacity);
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    public void add(long expirationTime, long key, long position)
+    {
+        if (size == capacity)
+        {
+            allocate(capacity * 2);
+        }
+
+        int index = size;
+        size += 1;
+
+        while (index > 0)
+        {
+            final int parent = (index - 1) >>> 1;
+            if (getExpirationTime(parent) <= expirationTime)
+            {
+                break;
+            }
+
+            copyEntry(parent, index);
+            index = parent;
+        }
+
+        setEntry(index, expirationTime, key, position);
+    }
+
+    /**
+     * @return the lock expiration time of the first entry or
+     *         {@link Long#MAX_VALUE} if the queue is empty
+     */
+    public long peekExpirationTime()
+    {
+        return size > 0 ? getExpirationTime(0) : Long.MAX_VALUE;
+    }
+
+    public long peekKey()
+    {
+        ensureNotEmpty();
+        return buffer.getLong(offset(0) + KEY_OFFSET, BYTE_ORDER);
+    }
+
+    public long peekPosition()
+    {
+        ensureNotEmpty();
+        return buffer.getLong(offset(0) + POSITION_OFFSET, BYTE_ORDER);
+    }
+
+    /**
+     * Removes the first entry, i.e. the one with the earliest lock expiration time.
+     */
+    public void poll()
+    {
+        ensureNotEmpty();
+
+        size -= 1;
+
+        if (size > 0)
+        {
+            final int last = size;
+            final long expirationTime = getExpirationTime(last);
+            final long key = buffer.getLong(offset(last) + KEY_OFFSET, BYTE_ORDER);
+            final long position = buffer.getLong(offset(last) + POSITION_OFFSET, BYTE_ORDER);
+
+            int index = 0;
+            final int half = size >>> 1;
+
+            while (index < half)
+            {
+                int child = (index << 1) + 1;
+                final int right = child + 1;
+
+                if (right < size && getExpirationTime(right) < getExpirationTime(child))
+                {
+                    child = right;
+                }
+
+                if (expirationTime <= getExpirationTime(child))
+                {
+                    break;
+                }
+
+                copyEntry(child, index);
+                index = child;
+            }
+
+            setEntry(index, expirationTime, key, position);
+        }
+    }
+
+    public void clear()
+    {
+        size = 0;
+    }
+
+    public void writeToStream(OutputStream outputStream) throws IOException
+    {
+        StreamUtil.writeLong(outputStream, size);
+
+        final int length = size * ENTRY_LENGTH;
+        for (int offset = 0; offset < length; offset += COPY_BUFFER_LENGTH)
+        {
+            final int chunkLength = Math.min(COPY_BUFFER_LENGTH, length - offset);
+
+            buffer.getBytes(offset, copyBuffer, 0, chunkLength);
+            outputStream.write(copyBuffer, 0, chunkLength);
+        }
+    }
+
+    public void readFromStream(InputStream inputStream) throws IOException
+    {
+        final int readSize = (int) StreamUtil.readLong(inputStream);
+
+        if (readSize < 0)
+        {
+            throw new IOException("Failed to read task lock expiration queue, invalid size: " + readSize);
+        }
+
+        if (readSize > capacity)
+        {
+            size = 0;
+            allocate(Math.max(readSize, capacity * 2));
+        }
+
+        final int length = readSize * ENTRY_LENGTH;
+        int offset = 0;
+        while (offset < length)
+        {
+            final int readBytes = inputStream.read(copyBuffer, 0, Math.min(COPY_BUFFER_LENGTH, length - offset));
+            if (readBytes < 0)
+            {
+                throw new IOException("Failed to read task lock expiration queue, managed to read " + offset + " bytes.");
+            }
+
+            buffer.putBytes(offset, copyBuffer, 0, readBytes);
+            offset += readBytes;
+        }
+
+        size = readSize;
+    }
+
+    public void close()
+    {
+        allocatedBuffer.close();
+    }
+
+    private void allocate(int newCapacity)
+    {
+        final AllocatedBuffer newBuffer = allocator.allocate(newCapacity * ENTRY_LENGTH);
+
+        if (allocatedBuffer != null)
+        {
+            new UnsafeBuffer(newBuffer.getRawBuffer()).putBytes(0, buffer, 0, size * ENTRY_LENGTH);
+            allocatedBuffer.close();
+        }
+
+        allocatedBuffer = newBuffer;
+        buffer.wrap(newBuffer.getRawBuffer());
+        capacity = newCapacity;
+    }
+
+    private long getExpirationTime(int index)
+    {
+        return buffer.getLong(offset(index) + EXPIRATION_TIME_OFFSET, BYTE_ORDER);
+    }
+
+    private void setEntry(int index, long expirationTime, long key, long position)
+    {
+        final int offset = offset(index);
+
+        buffer.putLong(offset + EXPIRATION_TIME_OFFSET, expirationTime, BYTE_ORDER);
+        buffer.putLong(offset + KEY_OFFSET, key, BYTE_ORDER);
+        buffer.putLong(offset + POSITION_OFFSET, position, BYTE_ORDER);
+    }
+
+    private void copyEntry(int from, int to)
+    {
+        buffer.putBytes(offset(to), buffer, offset(from), ENTRY_LENGTH);
+    }
+
+    private static int offset(int index)
+    {
+        return index * ENTRY_LENGTH;
+    }
+
+    private void ensureNotEmpty()
+    {
+        if (size == 0)
+        {
+            throw new IllegalStateException("queue is empty");
+        }
+    }
+
+}
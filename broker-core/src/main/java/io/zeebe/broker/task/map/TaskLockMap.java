@@ -0,0 +1,131 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.task.map;
+
+import static org.agrona.BitUtil.SIZE_OF_LONG;
+
+import java.nio.ByteOrder;
+
+import io.zeebe.logstreams.snapshot.ZbMapSnapshotSupport;
+import io.zeebe.map.Long2BytesZbMap;
+import org.agrona.concurrent.UnsafeBuffer;
+
+/**
+ * Maps <b>task instance key</b> of a locked task to
+ *
+ * <li> lock expiration time
+ * <li> task locked event position
+ */
+public class TaskLockMap
+{
+    private static final int LOCK_TIME_OFFSET = 0;
+    private static final int EVENT_POSITION_OFFSET = LOCK_TIME_OFFSET + SIZE_OF_LONG;
+
+    private static final int MAP_VALUE_SIZE = SIZE_OF_LONG + SIZE_OF_LONG;
+
+    private static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    private final byte[] rawBuffer = new byte[MAP_VALUE_SIZE];
+    private final UnsafeBuffer buffer = new UnsafeBuffer(rawBuffer);
+
+    private final Long2BytesZbMap map;
+    private final ZbMapSnapshotSupport<Long2BytesZbMap> snapshotSupport;
+
+    private long key;
+    private boolean isRead = false;
+
+    public TaskLockMap()
+    {
+        this.map = new Long2BytesZbMap(MAP_VALUE_SIZE);
+        this.snapshotSupport = new ZbMapSnapshotSupport<>(map);
+    }
+
+    public ZbMapSnapshotSupport<Long2BytesZbMap> getSnapshotSupport()
+    {
+        return snapshotSupport;
+    }
+
+    public void reset()
+    {
+        isRead = false;
+    }
+
+    public void remove(long taskInstanceKey)
+    {
+        map.remove(taskInstanceKey, rawBuffer);
+    }
+
+    public TaskLockMap wrapTaskInstanceKey(long key)
+    {
+        this.isRead = map.get(key, rawBuffer);
+        this.key = key;
+
+        return this;
+    }
+
+    public long getLockTime()
+    {
+        return isRead ? buffer.getLong(LOCK_TIME_OFFSET, BYTE_ORDER) : -1L;
+    }
+
+    public long getEventPosition()
+    {
+        return isRead ? buffer.getLong(EVENT_POSITION_OFFSET, BYTE_ORDER) : -1L;
+    }
+
+    public TaskLockMap newTaskInstance(long taskInstanceKey)
+    {
+        key = taskInstanceKey;
+        isRead = true;
+        return this;
+    }
+
+    public void write()
+    {
+        ensureRead();
+        map.put(key, buffer.byteArray());
+    }
+
+    public TaskLockMap setLockTime(long lockTime)
+    {
+        ensureRead();
+        buffer.putLong(LOCK_TIME_OFFSET, lockTime, BYTE_ORDER);
+        return this;
+    }
+
+    public TaskLockMap setEventPosition(long position)
+    {
+        ensureRead();
+        buffer.putLong(EVENT_POSITION_OFFSET, position, BYTE_ORDER);
+        return this;
+    }
+
+    private void ensureRead()
+    {
+        if (!isRead)
+        {
+            throw new IllegalStateException("must call wrapTaskInstanceKey() before");
+        }
+    }
+
+    public void close()
+    {
+        map.close();
+    }
+
+}
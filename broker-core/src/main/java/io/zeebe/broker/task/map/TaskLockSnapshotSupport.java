@@ -0,0 +1,62 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.task.map;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import io.zeebe.logstreams.spi.SnapshotSupport;
+
+/**
+ * Snapshot of the task lock state. The expiration queue is written in front
+ * of the lock map, so that it is recovered as it is instead of being rebuilt
+ * from the map.
+ */
+public class TaskLockSnapshotSupport implements SnapshotSupport
+{
+    private final TaskLockMap lockMap;
+    private final TaskLockExpirationQueue expirationQueue;
+
+    public TaskLockSnapshotSupport(TaskLockMap lockMap, TaskLockExpirationQueue expirationQueue)
+    {
+        this.lockMap = lockMap;
+        this.expirationQueue = expirationQueue;
+    }
+
+    @Override
+    public void writeSnapshot(OutputStream outputStream) throws Exception
+    {
+        expirationQueue.writeToStream(outputStream);
+        lockMap.getSnapshotSupport().writeSnapshot(outputStream);
+    }
+
+    @Override
+    public void recoverFromSnapshot(InputStream inputStream) throws Exception
+    {
+        expirationQueue.readFromStream(inputStream);
+        lockMap.getSnapshotSupport().recoverFromSnapshot(inputStream);
+    }
+
+    @Override
+    public void reset()
+    {
+        expirationQueue.clear();
+        lockMap.getSnapshotSupport().reset();
+    }
+
+}
@@ -22,68 +22,103 @@ import static io.zeebe.util.EnsureUtil.ensureGreaterThan;
 import static io.zeebe.util.EnsureUtil.ensureLessThanOrEqual;
 import static io.zeebe.util.EnsureUtil.ensureNotNull;
 
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 import org.agrona.DirectBuffer;
+import org.agrona.collections.Long2LongHashMap;
+import org.agrona.collections.Long2ObjectHashMap;
+import org.agrona.concurrent.ManyToOneConcurrentLinkedQueue;
 
-import io.zeebe.broker.logstreams.processor.MetadataFilter;
 import io.zeebe.broker.logstreams.processor.NoopSnapshotSupport;
-import io.zeebe.broker.task.CreditsRequest;
-import io.zeebe.broker.task.CreditsRequestBuffer;
-import io.zeebe.broker.task.TaskSubscriptionManager;
 import io.zeebe.broker.task.data.TaskEvent;
 import io.zeebe.broker.task.data.TaskState;
-import io.zeebe.broker.task.processor.TaskSubscriptions.SubscriptionIterator;
 import io.zeebe.logstreams.log.LogStream;
+import io.zeebe.logstreams.log.LogStreamReader;
 import io.zeebe.logstreams.log.LogStreamWriter;
 import io.zeebe.logstreams.log.LoggedEvent;
-import io.zeebe.logstreams.processor.EventFilter;
 import io.zeebe.logstreams.processor.EventProcessor;
 import io.zeebe.logstreams.processor.StreamProcessor;
 import io.zeebe.logstreams.processor.StreamProcessorContext;
 import io.zeebe.logstreams.spi.SnapshotSupport;
 import io.zeebe.protocol.Protocol;
-import io.zeebe.protocol.clientapi.EventType;
 import io.zeebe.protocol.impl.BrokerEventMetadata;
 import io.zeebe.util.DeferredCommandContext;
 import io.zeebe.util.buffer.BufferUtil;
 import io.zeebe.util.time.ClockUtil;
 
+/**
+ * Locks the tasks of a partition for all task types. Each task event is read
+ * once and dispatched to the subscriptions of its type by looking up the type
+ * in an index, so the costs don't grow with the number of subscribed task types.
+ * <p>
+ * A task which can't be locked when its event is processed - because its type
+ * is not subscribed or the subscriptions of its type have no credits - is kept
+ * as pending task of its type. The pending tasks of a type are locked as soon as
+ * a subscription of this type is added or gets new credits again. Since a type
+ * never blocks the processor, the other types are locked independently of it.
+ * A pending task is locked by reading its event from the log and writing the
+ * LOCK event outside of the event processing.
+ * <p>
+ * Only the key and the position of a pending task are kept in memory, see
+ * {@link PendingTasks}. The pending tasks are not bounded: the tasks of a type
+ * which is never subscribed stay in memory until they are completed or
+ * canceled.
+ * <p>
+ * The processor doesn't take snapshots. It reads the log from the beginning to
+ * restore the pending tasks but doesn't lock any task until it has read all
+ * events which were written before it was opened. So a task which is locked
+ * already isn't locked again.
+ * <p>
+ * A subscription can span multiple task types which share the credits of the
+ * subscription. The credits are increased by other threads directly on the
+ * subscription. When a subscription gets credits again after it has used all of
+ * them, it is handed over to the processor by a lock-free queue. So the processor
+ * doesn't have to look at subscriptions without credits to select the next one.
+ */
 public class LockTaskStreamProcessor implements StreamProcessor, EventProcessor
 {
+    protected final BrokerEventMetadata eventMetadata = new BrokerEventMetadata();
     protected final BrokerEventMetadata targetEventMetadata = new BrokerEventMetadata();
 
     protected final NoopSnapshotSupport noopSnapshotSupport = new NoopSnapshotSupport();
     protected DeferredCommandContext cmdQueue;
-    protected CreditsRequestBuffer creditsBuffer = new CreditsRequestBuffer(TaskSubscriptionManager.NUM_CONCURRENT_REQUESTS, this::increaseSubscriptionCredits);
 
-    protected final TaskSubscriptions subscriptions = new TaskSubscriptions(8);
-    protected final SubscriptionIterator taskDistributionIterator;
-    protected final SubscriptionIterator managementIterator;
+    protected final Map<DirectBuffer, TaskSubscriptions> subscriptionsByTaskType = new HashMap<>();
+    protected final Long2ObjectHashMap<TaskSubscription> subscriptionsBySubscriberKey = new Long2ObjectHashMap<>();
+
+    // subscriptions which got credits again after they have used all of them
+    protected final ManyToOneConcurrentLinkedQueue<TaskSubscription> availableSubscriptions = new ManyToOneConcurrentLinkedQueue<>();
+    protected final AtomicBoolean isAvailableSubscriptionsCmdScheduled = new AtomicBoolean(false);
+    protected final Consumer<TaskSubscription> creditsListener = this::onCreditsAvailable;
 
-    protected final DirectBuffer subscribedTaskType;
+    protected final Map<DirectBuffer, PendingTasks> pendingTasksByTaskType = new HashMap<>();
+    protected final Long2LongHashMap pendingTaskPositionsByKey = new Long2LongHashMap(PendingTasks.NO_POSITION);
+
+    // the position of the last event which was written before the processor was opened
+    protected long recoveryPosition = -1L;
+    protected boolean isRecovered;
 
     protected DirectBuffer logStreamTopicName;
     protected int logStreamPartitionId;
+    protected int streamProcessorId;
 
     protected LogStream targetStream;
+    protected LogStreamReader targetLogStreamReader;
+    protected LogStreamWriter targetLogStreamWriter;
 
     protected final TaskEvent taskEvent = new TaskEvent();
+    protected final TaskEvent pendingTaskEvent = new TaskEvent();
     protected long eventKey = 0;
+    protected long eventPosition = 0;
 
-    protected boolean hasLockedTask;
+    protected boolean isLockable;
     protected TaskSubscription lockSubscription;
 
-    // activate the processor while adding the first subscription
-    protected boolean isSuspended = true;
-
-    public LockTaskStreamProcessor(DirectBuffer taskType)
-    {
-        this.subscribedTaskType = taskType;
-        this.taskDistributionIterator = subscriptions.iterator();
-        this.managementIterator = subscriptions.iterator();
-    }
-
     @Override
     public SnapshotSupport getStateResource()
     {
@@ -91,19 +126,6 @@ public class LockTaskStreamProcessor implements StreamProcessor, EventProcessor
         return noopSnapshotSupport;
     }
 
-    @Override
-    public boolean isSuspended()
-    {
-        creditsBuffer.handleRequests();
-
-        return isSuspended;
-    }
-
-    public DirectBuffer getSubscriptedTaskType()
-    {
-        return subscribedTaskType;
-    }
-
     public DirectBuffer getLogStreamTopicName()
     {
         return logStreamTopicName;
@@ -117,6 +139,7 @@ public class LockTaskStreamProcessor implements StreamProcessor, EventProcessor
     @Override
     public void onOpen(StreamProcessorContext context)
     {
+        streamProcessorId = context.getId();
         cmdQueue = context.getStreamProcessorCmdQueue();
 
         final LogStream sourceStream = context.getSourceStream();
@@ -124,29 +147,50 @@ public class LockTaskStreamProcessor implements StreamProcessor, EventProcessor
         logStreamPartitionId = sourceStream.getPartitionId();
 
         targetStream = context.getTargetStream();
+        targetLogStreamReader = context.getTargetLogStreamReader();
+        targetLogStreamWriter = context.getLogStreamWriter();
+
+        pendingTasksByTaskType.clear();
+        pendingTaskPositionsByKey.clear();
+
+        recoveryPosition = -1L;
+
+        targetLogStreamReader.seekToLastEvent();
+        if (targetLogStreamReader.hasNext())
+        {
+            recoveryPosition = targetLogStreamReader.next().getPosition();
+        }
+
+        isRecovered = recoveryPosition < 0;
     }
 
     public CompletableFuture<Void> addSubscription(TaskSubscription subscription)
     {
         ensureNotNull("subscription", subscription);
-        ensureNotNull("lock task type", subscription.getLockTaskType());
+        ensureGreaterThan("number of lock task types", subscription.getLockTaskTypes().length, 0);
+        for (DirectBuffer taskType : subscription.getLockTaskTypes())
+        {
+            ensureNotNull("lock task type", taskType);
+        }
         ensureNotNull("lock owner", subscription.getLockOwner());
         ensureGreaterThan("length of lock owner", subscription.getLockOwner().capacity(), 0);
         ensureLessThanOrEqual("length of lock owner", subscription.getLockOwner().capacity(), TaskSubscription.LOCK_OWNER_MAX_LENGTH);
         ensureGreaterThan("lock duration", subscription.getLockDuration(), 0);
         ensureGreaterThan("subscription credits", subscription.getCredits(), 0);
 
-        if (!BufferUtil.equals(subscription.getLockTaskType(), subscribedTaskType))
-        {
-            final String errorMessage = String.format("Subscription task type is not equal to '%s'.", BufferUtil.bufferAsString(subscribedTaskType));
-            throw new RuntimeException(errorMessage);
-        }
-
         return cmdQueue.runAsync(future ->
         {
-            subscriptions.addSubscription(subscription);
+            subscription.setCreditsListener(creditsListener);
+            subscriptionsBySubscriberKey.put(subscription.getSubscriberKey(), subscription);
 
-            isSuspended = false;
+            for (DirectBuffer taskType : subscription.getLockTaskTypes())
+            {
+                subscriptionsByTaskType
+                    .computeIfAbsent(taskType, type -> new TaskSubscriptions(8))
+                    .addSubscription(subscription);
+            }
+
+            lockPendingTasks(subscription.getLockTaskTypes());
 
             future.complete(null);
         });
@@ -156,10 +200,15 @@ public class LockTaskStreamProcessor implements StreamProcessor, EventProcessor
     {
         return cmdQueue.runAsync(future ->
         {
-            subscriptions.removeSubscription(subscriberKey);
-            isSuspended = subscriptions.isEmpty();
+            final TaskSubscription subscription = subscriptionsBySubscriberKey.remove(subscriberKey);
+            if (subscription != null)
+            {
+                removeFromTaskTypes(subscription);
+            }
+
+            removeEmptySubscriptionGroups();
 
-            future.complete(!isSuspended);
+            future.complete(!subscriptionsByTaskType.isEmpty());
         });
     }
 
@@ -167,87 +216,227 @@ public class LockTaskStreamProcessor implements StreamProcessor, EventProcessor
     {
         return cmdQueue.runAsync(future ->
         {
-            managementIterator.reset();
-
-            while (managementIterator.hasNext())
+            final Iterator<TaskSubscription> subscriptionIterator = subscriptionsBySubscriberKey.values().iterator();
+            while (subscriptionIterator.hasNext())
             {
-                final TaskSubscription subscription = managementIterator.next();
+                final TaskSubscription subscription = subscriptionIterator.next();
                 if (subscription.getStreamId() == channelId)
                 {
-                    managementIterator.remove();
+                    subscriptionIterator.remove();
+                    removeFromTaskTypes(subscription);
                 }
             }
 
-            isSuspended = subscriptions.isEmpty();
+            removeEmptySubscriptionGroups();
 
-            future.complete(!isSuspended);
+            future.complete(!subscriptionsByTaskType.isEmpty());
         });
     }
 
-    public boolean increaseSubscriptionCreditsAsync(CreditsRequest request)
+    protected void removeFromTaskTypes(TaskSubscription subscription)
     {
-        return this.creditsBuffer.offerRequest(request);
+        subscription.setCreditsListener(null);
+
+        for (DirectBuffer taskType : subscription.getLockTaskTypes())
+        {
+            final TaskSubscriptions subscriptions = subscriptionsByTaskType.get(taskType);
+            if (subscriptions != null)
+            {
+                subscriptions.removeSubscription(subscription.getSubscriberKey());
+            }
+        }
     }
 
-    protected void increaseSubscriptionCredits(CreditsRequest request)
+    protected void removeEmptySubscriptionGroups()
     {
-        final long subscriberKey = request.getSubscriberKey();
-        final int credits = request.getCredits();
-
-        subscriptions.addCredits(subscriberKey, credits);
-        isSuspended = false;
+        final Iterator<TaskSubscriptions> groupIterator = subscriptionsByTaskType.values().iterator();
+        while (groupIterator.hasNext())
+        {
+            if (groupIterator.next().isEmpty())
+            {
+                groupIterator.remove();
+            }
+        }
     }
 
-    protected TaskSubscription getNextAvailableSubscription()
+    /**
+     * Called by the thread which increases the credits of the subscription.
+     * Schedules a single command to handle all subscriptions which are available
+     * again, so that the pending tasks are locked even if no new event is written.
+     */
+    protected void onCreditsAvailable(TaskSubscription subscription)
     {
-        TaskSubscription nextSubscription = null;
+        availableSubscriptions.offer(subscription);
 
-        if (subscriptions.getTotalCredits() > 0)
+        if (isAvailableSubscriptionsCmdScheduled.compareAndSet(false, true))
         {
+            cmdQueue.runAsync(this::handleAvailableSubscriptions);
+        }
+    }
 
-            final int subscriptionSize = subscriptions.size();
-            int seenSubscriptions = 0;
+    /**
+     * Queues the subscriptions again which got new credits after they have used
+     * all of them and locks the pending tasks of their types.
+     */
+    protected void handleAvailableSubscriptions()
+    {
+        isAvailableSubscriptionsCmdScheduled.set(false);
 
-            while (seenSubscriptions < subscriptionSize && nextSubscription == null)
+        TaskSubscription subscription = availableSubscriptions.poll();
+        while (subscription != null)
+        {
+            if (subscriptionsBySubscriberKey.get(subscription.getSubscriberKey()) == subscription)
             {
-                if (!taskDistributionIterator.hasNext())
+                for (DirectBuffer taskType : subscription.getLockTaskTypes())
                 {
-                    taskDistributionIterator.reset();
+                    final TaskSubscriptions subscriptions = subscriptionsByTaskType.get(taskType);
+                    if (subscriptions != null)
+                    {
+                        subscriptions.onCreditsAvailable(subscription);
+                    }
                 }
 
-                final TaskSubscription subscription = taskDistributionIterator.next();
-                if (subscription.getCredits() > 0)
-                {
-                    nextSubscription = subscription;
-                }
+                lockPendingTasks(subscription.getLockTaskTypes());
+            }
+
+            subscription = availableSubscriptions.poll();
+        }
+    }
 
-                seenSubscriptions += 1;
+    protected void lockPendingTasks(DirectBuffer[] taskTypes)
+    {
+        for (int i = 0; i < taskTypes.length; i++)
+        {
+            if (!lockPendingTasks(taskTypes[i]))
+            {
+                break;
             }
         }
-        return nextSubscription;
     }
 
-    public static MetadataFilter eventFilter()
+    protected void lockAllPendingTasks()
     {
-        return m -> m.getEventType() == EventType.TASK_EVENT;
+        for (DirectBuffer taskType : subscriptionsByTaskType.keySet())
+        {
+            if (!lockPendingTasks(taskType))
+            {
+                break;
+            }
+        }
     }
 
-    public static final EventFilter reprocessingEventFilter(final DirectBuffer taskType)
+    /**
+     * Locks the pending tasks of the given type until the subscriptions of this
+     * type have no credits left. If the log stream can't take more events then
+     * it tries again later.
+     *
+     * @return <code>false</code> if the LOCK event could not be written
+     */
+    protected boolean lockPendingTasks(DirectBuffer taskType)
     {
-        final TaskEvent taskEvent = new TaskEvent();
+        if (!isRecovered)
+        {
+            // the tasks are locked when the processor has read all events which were written before
+            return true;
+        }
+
+        final PendingTasks pendingTasks = pendingTasksByTaskType.get(taskType);
+        final TaskSubscriptions subscriptions = subscriptionsByTaskType.get(taskType);
 
-        return event ->
+        if (pendingTasks == null || subscriptions == null)
         {
-            taskEvent.reset();
-            event.readValue(taskEvent);
+            return true;
+        }
+
+        while (!pendingTasks.isEmpty() && subscriptions.hasAvailableSubscription())
+        {
+            final long pendingTaskPosition = pendingTasks.peekPosition();
+            final LoggedEvent loggedEvent = findEvent(pendingTaskPosition);
+
+            final long pendingTaskKey = loggedEvent.getKey();
+            pendingTaskEvent.reset();
+            loggedEvent.readValue(pendingTaskEvent);
+
+            final TaskSubscription subscription = subscriptions.getNextAvailableSubscription();
+
+            final long position = writeLockEvent(
+                    targetLogStreamWriter
+                        .producerId(streamProcessorId)
+                        .sourceEvent(logStreamTopicName, logStreamPartitionId, pendingTaskPosition),
+                    pendingTaskKey,
+                    pendingTaskEvent,
+                    subscription);
+
+            if (position < 0)
+            {
+                cmdQueue.runAsync(this::lockAllPendingTasks);
+                return false;
+            }
+
+            subscription.consumeCredit();
+            removePendingTask(pendingTaskKey);
+        }
+
+        return true;
+    }
+
+    protected LoggedEvent findEvent(long position)
+    {
+        final boolean found = targetLogStreamReader.seek(position);
+
+        if (found && targetLogStreamReader.hasNext())
+        {
+            return targetLogStreamReader.next();
+        }
+        else
+        {
+            throw new IllegalStateException("Failed to lock pending task. Task event not found in log stream.");
+        }
+    }
+
+    protected void addPendingTask(DirectBuffer taskType, long key, long position)
+    {
+        PendingTasks pendingTasks = pendingTasksByTaskType.get(taskType);
+        if (pendingTasks == null)
+        {
+            pendingTasks = new PendingTasks(pendingTaskPositionsByKey);
+            pendingTasksByTaskType.put(BufferUtil.cloneBuffer(taskType), pendingTasks);
+        }
 
-            return BufferUtil.equals(taskEvent.getType(), taskType);
-        };
+        pendingTasks.add(key, position);
+    }
+
+    protected void removePendingTask(long key)
+    {
+        // the entry in the queue of the task type is removed lazily
+        pendingTaskPositionsByKey.remove(key);
+    }
+
+    protected boolean hasPendingTasks(DirectBuffer taskType)
+    {
+        final PendingTasks pendingTasks = pendingTasksByTaskType.get(taskType);
+        return pendingTasks != null && !pendingTasks.isEmpty();
     }
 
     @Override
     public EventProcessor onEvent(LoggedEvent event)
     {
+        eventPosition = event.getPosition();
+
+        if (!isRecovered && eventPosition >= recoveryPosition)
+        {
+            isRecovered = true;
+            cmdQueue.runAsync(this::lockAllPendingTasks);
+        }
+
+        eventMetadata.reset();
+        event.readMetadata(eventMetadata);
+
+        if (eventMetadata.getEventType() != TASK_EVENT)
+        {
+            return null;
+        }
+
         eventKey = event.getKey();
 
         taskEvent.reset();
@@ -255,20 +444,25 @@ public class LockTaskStreamProcessor implements StreamProcessor, EventProcessor
 
         EventProcessor eventProcessor = null;
 
-        if (BufferUtil.equals(taskEvent.getType(), subscribedTaskType))
+        switch (taskEvent.getState())
         {
-            switch (taskEvent.getState())
-            {
-                case CREATED:
-                case LOCK_EXPIRED:
-                case FAILED:
-                case RETRIES_UPDATED:
-                    eventProcessor = this;
-                    break;
-
-                default:
-                    break;
-            }
+            case CREATED:
+            case LOCK_EXPIRED:
+            case FAILED:
+            case RETRIES_UPDATED:
+                isLockable = taskEvent.getRetries() > 0;
+                eventProcessor = this;
+                break;
+
+            case LOCK:
+            case COMPLETED:
+            case CANCELED:
+                isLockable = false;
+                eventProcessor = this;
+                break;
+
+            default:
+                break;
         }
         return eventProcessor;
     }
@@ -276,21 +470,17 @@ public class LockTaskStreamProcessor implements StreamProcessor, EventProcessor
     @Override
     public void processEvent()
     {
-        hasLockedTask = false;
+        lockSubscription = null;
+
+        final DirectBuffer taskType = taskEvent.getType();
 
-        if (taskEvent.getRetries() > 0)
+        // keep the order of the tasks if older tasks of this type are pending
+        if (isLockable && isRecovered && !hasPendingTasks(taskType))
         {
-            lockSubscription = getNextAvailableSubscription();
-            if (lockSubscription != null)
+            final TaskSubscriptions subscriptions = subscriptionsByTaskType.get(taskType);
+            if (subscriptions != null)
             {
-                final long lockTimeout = ClockUtil.getCurrentTimeInMillis() + lockSubscription.getLockDuration();
-
-                taskEvent
-                    .setState(TaskState.LOCK)
-                    .setLockTime(lockTimeout)
-                    .setLockOwner(lockSubscription.getLockOwner());
-
-                hasLockedTask = true;
+                lockSubscription = subscriptions.getNextAvailableSubscription();
             }
         }
     }
@@ -300,36 +490,51 @@ public class LockTaskStreamProcessor implements StreamProcessor, EventProcessor
     {
         long position = 0;
 
-        if (hasLockedTask)
+        if (lockSubscription != null)
         {
-            targetEventMetadata.reset();
-
-            targetEventMetadata
-                .requestStreamId(lockSubscription.getStreamId())
-                .subscriberKey(lockSubscription.getSubscriberKey())
-                .protocolVersion(Protocol.PROTOCOL_VERSION)
-                .raftTermId(targetStream.getTerm())
-                .eventType(TASK_EVENT);
-
-            position = writer.key(eventKey)
-                    .metadataWriter(targetEventMetadata)
-                    .valueWriter(taskEvent)
-                    .tryWrite();
+            position = writeLockEvent(writer, eventKey, taskEvent, lockSubscription);
         }
         return position;
     }
 
+    protected long writeLockEvent(LogStreamWriter writer, long key, TaskEvent event, TaskSubscription subscription)
+    {
+        final long lockTimeout = ClockUtil.getCurrentTimeInMillis() + subscription.getLockDuration();
+
+        event
+            .setState(TaskState.LOCK)
+            .setLockTime(lockTimeout)
+            .setLockOwner(subscription.getLockOwner());
+
+        targetEventMetadata.reset();
+
+        targetEventMetadata
+            .requestStreamId(subscription.getStreamId())
+            .subscriberKey(subscription.getSubscriberKey())
+            .protocolVersion(Protocol.PROTOCOL_VERSION)
+            .raftTermId(targetStream.getTerm())
+            .eventType(TASK_EVENT);
+
+        return writer.key(key)
+                .metadataWriter(targetEventMetadata)
+                .valueWriter(event)
+                .tryWrite();
+    }
+
     @Override
     public void updateState()
     {
-        if (hasLockedTask)
+        if (lockSubscription != null)
         {
-            subscriptions.addCredits(lockSubscription.getSubscriberKey(), -1);
-
-            if (subscriptions.getTotalCredits() <= 0)
-            {
-                isSuspended = true;
-            }
+            lockSubscription.consumeCredit();
+        }
+        else if (isLockable)
+        {
+            addPendingTask(taskEvent.getType(), eventKey, eventPosition);
+        }
+        else
+        {
+            removePendingTask(eventKey);
         }
     }
 
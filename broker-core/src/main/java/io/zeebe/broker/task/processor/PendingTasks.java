@@ -0,0 +1,173 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.task.processor;
+
+import org.agrona.collections.Long2LongHashMap;
+
+/**
+ * The tasks of a task type which can be locked but are not locked yet. A task
+ * is referenced by the position of the event which made it lockable, e.g. the
+ * CREATED event.
+ * <p>
+ * The positions of the pending tasks of all types are kept in one map which is
+ * shared by the queues of the types. A task is removed from the map only, so
+ * that it doesn't have to be looked up in the queue of its type. The tasks are
+ * kept in the queue in the order in which they became lockable. When a task is
+ * removed or added again, its old entry in the queue becomes stale. Such
+ * entries are removed lazily when they reach the head of the queue, or when the
+ * queue is full and is compacted.
+ * <p>
+ * So a pending task takes a map entry and a queue entry of two longs each,
+ * without any object per task. The memory is not bounded by the number of
+ * subscriptions: the tasks of a type which is not subscribed stay pending until
+ * they are locked, completed or canceled.
+ */
+public class PendingTasks
+{
+    public static final long NO_POSITION = -1L;
+
+    protected static final int MIN_CAPACITY = 16;
+
+    // shared by the pending tasks of all types
+    protected final Long2LongHashMap positionsByKey;
+
+    // ring buffer of (key, position) pairs
+    protected long[] queue = new long[2 * MIN_CAPACITY];
+    protected int head = 0;
+    protected int size = 0;
+
+    /**
+     * @param positionsByKey the positions of the pending tasks of all types,
+     *            with {@link #NO_POSITION} as missing value
+     */
+    public PendingTasks(Long2LongHashMap positionsByKey)
+    {
+        this.positionsByKey = positionsByKey;
+    }
+
+    /**
+     * Adds the task to this type. If the task is pending for another type, then
+     * it is removed from the other type.
+     */
+    public void add(long key, long position)
+    {
+        positionsByKey.put(key, position);
+
+        if (size == queue.length / 2)
+        {
+            final int pendingTaskCount = countPendingTasks();
+
+            if (pendingTaskCount <= size / 2)
+            {
+                compact(queue.length);
+            }
+            else
+            {
+                compact(2 * queue.length);
+            }
+        }
+
+        final int index = (head + 2 * size) % queue.length;
+        queue[index] = key;
+        queue[index + 1] = position;
+        size += 1;
+    }
+
+    public boolean isEmpty()
+    {
+        return peekPosition() == NO_POSITION;
+    }
+
+    /**
+     * @return the number of entries in the queue, including the stale ones
+     */
+    public int queueSize()
+    {
+        return size;
+    }
+
+    /**
+     * @return the position of the task which became lockable first, or
+     *         {@link #NO_POSITION} if no task is pending
+     */
+    public long peekPosition()
+    {
+        while (size > 0)
+        {
+            final long key = queue[head];
+            final long position = queue[head + 1];
+
+            if (isPending(key, position))
+            {
+                return position;
+            }
+
+            head = (head + 2) % queue.length;
+            size -= 1;
+        }
+
+        return NO_POSITION;
+    }
+
+    protected boolean isPending(long key, long position)
+    {
+        return positionsByKey.get(key) == position;
+    }
+
+    protected int countPendingTasks()
+    {
+        int count = 0;
+
+        for (int i = 0; i < size; i++)
+        {
+            final int index = (head + 2 * i) % queue.length;
+
+            if (isPending(queue[index], queue[index + 1]))
+            {
+                count += 1;
+            }
+        }
+
+        return count;
+    }
+
+    protected void compact(int newLength)
+    {
+        final long[] newQueue = new long[newLength];
+        int newSize = 0;
+
+        for (int i = 0; i < size; i++)
+        {
+            final int index = (head + 2 * i) % queue.length;
+            final long key = queue[index];
+            final long position = queue[index + 1];
+
+            if (isPending(key, position))
+            {
+                newQueue[2 * newSize] = key;
+                newQueue[2 * newSize + 1] = position;
+                newSize += 1;
+            }
+        }
+
+        queue = newQueue;
+        head = 0;
+        size = newSize;
+    }
+
+}
@@ -18,18 +18,18 @@
 package io.zeebe.broker.task.processor;
 
 import static io.zeebe.protocol.clientapi.EventType.TASK_EVENT;
-import static org.agrona.BitUtil.SIZE_OF_INT;
-
-import java.util.HashMap;
-import java.util.Iterator;
-
 import io.zeebe.protocol.Protocol;
 import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
 
 import io.zeebe.protocol.impl.BrokerEventMetadata;
 import io.zeebe.broker.logstreams.processor.MetadataFilter;
 import io.zeebe.broker.task.data.TaskEvent;
 import io.zeebe.broker.task.data.TaskState;
+import io.zeebe.broker.task.map.TaskLockExpirationQueue;
+import io.zeebe.broker.task.map.TaskLockMap;
+import io.zeebe.broker.task.map.TaskLockSnapshotSupport;
+import io.zeebe.broker.util.cache.OffHeapBufferCache;
 import io.zeebe.logstreams.log.LogStream;
 import io.zeebe.logstreams.log.LogStreamReader;
 import io.zeebe.logstreams.log.LogStreamWriter;
@@ -37,7 +37,6 @@ import io.zeebe.logstreams.log.LoggedEvent;
 import io.zeebe.logstreams.processor.EventProcessor;
 import io.zeebe.logstreams.processor.StreamProcessor;
 import io.zeebe.logstreams.processor.StreamProcessorContext;
-import io.zeebe.logstreams.snapshot.SerializableWrapper;
 import io.zeebe.logstreams.spi.SnapshotSupport;
 import io.zeebe.protocol.clientapi.EventType;
 import io.zeebe.util.DeferredCommandContext;
@@ -45,7 +44,8 @@ import io.zeebe.util.time.ClockUtil;
 
 public class TaskExpireLockStreamProcessor implements StreamProcessor
 {
-    protected static final int INDEX_VALUE_LENGTH = SIZE_OF_INT + SIZE_OF_INT;
+    protected static final int EXPIRATION_QUEUE_INITIAL_CAPACITY = 1024;
+    public static final int DEFAULT_LOCKED_EVENT_CACHE_CAPACITY = 8 * 1024 * 1024;
 
     protected final EventProcessor lockedEventProcessor = new LockedEventProcessor();
     protected final EventProcessor unlockEventProcessor = new UnlockEventProcessor();
@@ -53,9 +53,17 @@ public class TaskExpireLockStreamProcessor implements StreamProcessor
 
     protected final Runnable checkLockExpirationCmd = new CheckLockExpirationCmd();
 
-    // TODO #161 - replace the map by a more efficient one
-    protected HashMap<Long, ExpirationTimeBucket> index = new HashMap<>();
-    protected SerializableWrapper<HashMap<Long, ExpirationTimeBucket>> indexSnapshot = new SerializableWrapper<>(index);
+    protected final TaskLockMap index = new TaskLockMap();
+
+    // the locked tasks ordered by expiration time
+    protected final TaskLockExpirationQueue expirationQueue = new TaskLockExpirationQueue(EXPIRATION_QUEUE_INITIAL_CAPACITY);
+
+    protected final TaskLockSnapshotSupport snapshotSupport = new TaskLockSnapshotSupport(index, expirationQueue);
+
+    // the values of the task locked events by their position, so that the log
+    // is only read for an expired lock if its event is evicted or not cached after recovery
+    protected final OffHeapBufferCache lockedEventCache;
+    protected final UnsafeBuffer eventValue = new UnsafeBuffer(0, 0);
 
     protected DeferredCommandContext cmdQueue;
 
@@ -74,10 +82,24 @@ public class TaskExpireLockStreamProcessor implements StreamProcessor
 
     protected long lastWrittenEventPosition = 0;
 
+    public TaskExpireLockStreamProcessor()
+    {
+        this(DEFAULT_LOCKED_EVENT_CACHE_CAPACITY);
+    }
+
+    /**
+     * @param lockedEventCacheCapacity
+     *            the size of the cache of task locked events in bytes
+     */
+    public TaskExpireLockStreamProcessor(int lockedEventCacheCapacity)
+    {
+        this.lockedEventCache = new OffHeapBufferCache(lockedEventCacheCapacity, position -> { });
+    }
+
     @Override
     public SnapshotSupport getStateResource()
     {
-        return indexSnapshot;
+        return snapshotSupport;
     }
 
     @Override
@@ -91,9 +113,14 @@ public class TaskExpireLockStreamProcessor implements StreamProcessor
         targetStream = context.getTargetStream();
         targetLogStreamTopicName = targetStream.getTopicName();
         targetLogStreamPartitionId = targetStream.getPartitionId();
+    }
 
-        // restore map from snapshot
-        index = indexSnapshot.getObject();
+    @Override
+    public void onClose()
+    {
+        index.close();
+        expirationQueue.close();
+        lockedEventCache.close();
     }
 
     public static MetadataFilter eventFilter()
@@ -110,6 +137,8 @@ public class TaskExpireLockStreamProcessor implements StreamProcessor
         taskEvent.reset();
         event.readValue(taskEvent);
 
+        eventValue.wrap(event.getValueBuffer(), event.getValueOffset(), event.getValueLength());
+
         EventProcessor eventProcessor = null;
 
         switch (taskEvent.getState())
@@ -144,8 +173,17 @@ public class TaskExpireLockStreamProcessor implements StreamProcessor
         @Override
         public void updateState()
         {
-            final ExpirationTimeBucket expirationTimeBucket = new ExpirationTimeBucket(eventPosition, taskEvent.getLockTime());
-            index.put(eventKey, expirationTimeBucket);
+            final long lockTime = taskEvent.getLockTime();
+
+            index
+                .newTaskInstance(eventKey)
+                .setLockTime(lockTime)
+                .setEventPosition(eventPosition)
+                .write();
+
+            expirationQueue.add(lockTime, eventKey, eventPosition);
+
+            lockedEventCache.put(eventPosition, eventValue);
         }
 
     }
@@ -162,6 +200,13 @@ public class TaskExpireLockStreamProcessor implements StreamProcessor
         @Override
         public void updateState()
         {
+            // the entry of the expiration queue is skipped when it is polled
+            final long lockedEventPosition = index.wrapTaskInstanceKey(eventKey).getEventPosition();
+            if (lockedEventPosition >= 0)
+            {
+                lockedEventCache.remove(lockedEventPosition);
+            }
+
             index.remove(eventKey);
         }
 
@@ -195,31 +240,41 @@ public class TaskExpireLockStreamProcessor implements StreamProcessor
         @Override
         public void run()
         {
-            if (index.size() > 0)
+            final long currentTime = ClockUtil.getCurrentTimeInMillis();
+
+            // only touch the entries which are expired
+            while (expirationQueue.peekExpirationTime() <= currentTime)
             {
-                final Iterator<Long> eventKeyIt = index.keySet().iterator();
+                final long eventKey = expirationQueue.peekKey();
+                final long eventPosition = expirationQueue.peekPosition();
 
-                while (eventKeyIt.hasNext())
+                // the task can be unlocked or locked again in the meantime
+                if (index.wrapTaskInstanceKey(eventKey).getEventPosition() == eventPosition)
                 {
-                    final long eventKey = eventKeyIt.next();
-                    final ExpirationTimeBucket expirationTimeBucket = index.get(eventKey);
-
-                    final long eventPosition = expirationTimeBucket.getEventPosition();
-                    final long lockExpirationTime = expirationTimeBucket.getExpirationTime();
-
-                    if (lockExpired(lockExpirationTime))
-                    {
-                        final LoggedEvent taskLockedEvent = findEvent(eventPosition);
-                        writeLockExpireEvent(eventKey, taskLockedEvent);
-                        eventKeyIt.remove();
-                    }
+                    readLockedEvent(eventPosition);
+                    writeLockExpireEvent(eventKey, eventPosition);
+
+                    index.remove(eventKey);
+                    lockedEventCache.remove(eventPosition);
                 }
+
+                expirationQueue.poll();
             }
         }
 
-        protected boolean lockExpired(long lockExpirationTime)
+        protected void readLockedEvent(long position)
         {
-            return lockExpirationTime <= ClockUtil.getCurrentTimeInMillis();
+            taskEvent.reset();
+
+            final DirectBuffer cachedValue = lockedEventCache.get(position);
+            if (cachedValue != null)
+            {
+                taskEvent.wrap(cachedValue, 0, cachedValue.capacity());
+            }
+            else
+            {
+                findEvent(position).readValue(taskEvent);
+            }
         }
 
         protected LoggedEvent findEvent(long position)
@@ -236,11 +291,8 @@ public class TaskExpireLockStreamProcessor implements StreamProcessor
             }
         }
 
-        protected void writeLockExpireEvent(long eventKey, final LoggedEvent lockedEvent)
+        protected void writeLockExpireEvent(long eventKey, long lockedEventPosition)
         {
-            taskEvent.reset();
-            lockedEvent.readValue(taskEvent);
-
             taskEvent.setState(TaskState.EXPIRE_LOCK);
 
             targetEventMetadata
@@ -251,7 +303,7 @@ public class TaskExpireLockStreamProcessor implements StreamProcessor
 
             final long position = targetLogStreamWriter
                     .producerId(streamProcessorId)
-                    .sourceEvent(targetLogStreamTopicName, targetLogStreamPartitionId, lockedEvent.getPosition())
+                    .sourceEvent(targetLogStreamTopicName, targetLogStreamPartitionId, lockedEventPosition)
                     .key(eventKey)
                     .metadataWriter(targetEventMetadata)
                     .valueWriter(taskEvent)
@@ -19,6 +19,9 @@ package io.zeebe.broker.task.processor;
 
 import static io.zeebe.util.buffer.BufferUtil.cloneBuffer;
 
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
 import org.agrona.DirectBuffer;
 
 public class TaskSubscription
@@ -28,7 +31,7 @@ public class TaskSubscription
     private final DirectBuffer topicName;
     private final int partitionId;
 
-    private final DirectBuffer lockTaskType;
+    private final DirectBuffer[] lockTaskTypes;
 
     private final long lockDuration;
     private final DirectBuffer lockOwner;
@@ -37,13 +40,26 @@ public class TaskSubscription
 
     private long subscriberKey;
 
-    private int credits;
+    // shared by all task types of the subscription - can be increased by any thread
+    // but is only decreased by the lock task stream processor
+    private final AtomicInteger credits = new AtomicInteger();
+
+    private volatile Consumer<TaskSubscription> creditsListener;
 
     public TaskSubscription(DirectBuffer topicName, int partitionId, DirectBuffer lockTaskType, long lockDuration, DirectBuffer lockOwner, int streamId)
+    {
+        this(topicName, partitionId, new DirectBuffer[] { lockTaskType }, lockDuration, lockOwner, streamId);
+    }
+
+    public TaskSubscription(DirectBuffer topicName, int partitionId, DirectBuffer[] lockTaskTypes, long lockDuration, DirectBuffer lockOwner, int streamId)
     {
         this.topicName = cloneBuffer(topicName);
         this.partitionId = partitionId;
-        this.lockTaskType = cloneBuffer(lockTaskType);
+        this.lockTaskTypes = new DirectBuffer[lockTaskTypes.length];
+        for (int i = 0; i < lockTaskTypes.length; i++)
+        {
+            this.lockTaskTypes[i] = lockTaskTypes[i] != null ? cloneBuffer(lockTaskTypes[i]) : null;
+        }
         this.lockDuration = lockDuration;
         this.lockOwner = cloneBuffer(lockOwner);
         this.streamId = streamId;
@@ -51,12 +67,51 @@ public class TaskSubscription
 
     public int getCredits()
     {
-        return credits;
+        return credits.get();
     }
 
     public void setCredits(int credits)
     {
-        this.credits = credits;
+        this.credits.set(credits);
+    }
+
+    /**
+     * Increases the credits of the subscription. Can be called from any thread.
+     * Notifies the credits listener if the subscription had no credits left
+     * before.
+     */
+    public void addCredits(int credits)
+    {
+        final int previousCredits = this.credits.getAndAdd(credits);
+
+        if (previousCredits <= 0 && previousCredits + credits > 0)
+        {
+            final Consumer<TaskSubscription> listener = creditsListener;
+            if (listener != null)
+            {
+                listener.accept(this);
+            }
+        }
+    }
+
+    /**
+     * Decreases the credits of the subscription by one. Must only be called by
+     * the lock task stream processor.
+     *
+     * @return <code>true</code> if the subscription has credits left
+     */
+    public boolean consumeCredit()
+    {
+        return credits.decrementAndGet() > 0;
+    }
+
+    /**
+     * Sets the listener which is notified when the subscription gets credits
+     * again after it has used all of them.
+     */
+    public void setCreditsListener(Consumer<TaskSubscription> creditsListener)
+    {
+        this.creditsListener = creditsListener;
     }
 
     public long getSubscriberKey()
@@ -64,9 +119,17 @@ public class TaskSubscription
         return subscriberKey;
     }
 
+    /**
+     * @return the first task type of the subscription
+     */
     public DirectBuffer getLockTaskType()
     {
-        return lockTaskType;
+        return lockTaskTypes[0];
+    }
+
+    public DirectBuffer[] getLockTaskTypes()
+    {
+        return lockTaskTypes;
     }
 
     public long getLockDuration()
@@ -19,15 +19,25 @@ package io.zeebe.broker.task.processor;
 
 import io.zeebe.msgpack.UnpackedObject;
 import io.zeebe.msgpack.property.*;
+import io.zeebe.msgpack.spec.MsgPackHelper;
+import io.zeebe.msgpack.value.ArrayValue;
+import io.zeebe.msgpack.value.StringValue;
 import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
 
 public class TaskSubscriptionRequest extends UnpackedObject
 {
+    protected static final DirectBuffer EMPTY_ARRAY = new UnsafeBuffer(MsgPackHelper.EMPTY_ARRAY);
+
     protected LongProperty subscriberKeyProp = new LongProperty("subscriberKey", -1);
 
     protected StringProperty topicNameProp = new StringProperty("topicName");
     protected IntegerProperty partitionIdProp = new IntegerProperty("partitionId");
     protected StringProperty taskTypeProp = new StringProperty("taskType", "");
+    protected ArrayProperty<StringValue> additionalTaskTypesProp = new ArrayProperty<>("additionalTaskTypes",
+        new ArrayValue<>(),
+        new ArrayValue<>(EMPTY_ARRAY, 0, EMPTY_ARRAY.capacity()),
+        new StringValue());
 
     protected LongProperty lockDurationProp = new LongProperty("lockDuration", -1);
     protected StringProperty lockOwnerProp = new StringProperty("lockOwner", "default");
@@ -40,6 +50,7 @@ public class TaskSubscriptionRequest extends UnpackedObject
             .declareProperty(topicNameProp)
             .declareProperty(partitionIdProp)
             .declareProperty(taskTypeProp)
+            .declareProperty(additionalTaskTypesProp)
             .declareProperty(lockDurationProp)
             .declareProperty(lockOwnerProp)
             .declareProperty(creditsProp);
@@ -97,6 +108,14 @@ public class TaskSubscriptionRequest extends UnpackedObject
         return taskTypeProp.getValue();
     }
 
+    /**
+     * @return the task types which are subscribed in addition to the task type
+     */
+    public ArrayProperty<StringValue> additionalTaskTypes()
+    {
+        return additionalTaskTypesProp;
+    }
+
     public long getLockDuration()
     {
         return lockDurationProp.getValue();
@@ -17,154 +17,119 @@
  */
 package io.zeebe.broker.task.processor;
 
+import java.util.ArrayDeque;
 import java.util.Iterator;
 
-import org.agrona.collections.ArrayUtil;
-import org.agrona.collections.Long2LongHashMap;
-
+import org.agrona.collections.Long2ObjectHashMap;
+import org.agrona.collections.LongHashSet;
+
+/**
+ * The subscriptions of a task type. Subscriptions which have credits are kept
+ * in a ready queue, so that the next subscription can be selected without
+ * looking at the subscriptions which have no credits.
+ * <p>
+ * Since the credits of a subscription are shared by all of its task types, a
+ * subscription can run out of credits while it is queued for another task type.
+ * Such entries are removed lazily when they reach the head of the queue.
+ * The subscription is queued again by {@link #onCreditsAvailable(TaskSubscription)}.
+ */
 public class TaskSubscriptions implements Iterable<TaskSubscription>
 {
+    protected final Long2ObjectHashMap<TaskSubscription> subscriptions = new Long2ObjectHashMap<>();
 
-    protected TaskSubscription[] subscriptions;
-    protected Long2LongHashMap lookupTable = new Long2LongHashMap(-1);
-    protected int totalCredits = 0;
+    protected final ArrayDeque<TaskSubscription> readyQueue;
+    protected final LongHashSet queuedSubscriberKeys;
 
     public TaskSubscriptions(int initialCapacity)
     {
-        this.subscriptions = new TaskSubscription[initialCapacity];
+        this.readyQueue = new ArrayDeque<>(initialCapacity);
+        this.queuedSubscriberKeys = new LongHashSet(initialCapacity);
     }
 
     public void addSubscription(TaskSubscription subscription)
     {
-        int insertIndex = -1;
-        final int currentSubscriptionsLength = subscriptions.length;
-        for (int i = 0; i < currentSubscriptionsLength; i++)
-        {
-            if (subscriptions[i] == null)
-            {
-                insertIndex = i;
-                break;
-            }
-        }
+        subscriptions.put(subscription.getSubscriberKey(), subscription);
 
-        if (insertIndex < 0)
-        {
-            subscriptions = ArrayUtil.ensureCapacity(subscriptions, subscriptions.length * 2);
-            insertIndex = currentSubscriptionsLength;
-        }
-
-        subscriptions[insertIndex] = subscription;
-        lookupTable.put(subscription.getSubscriberKey(), insertIndex);
-        totalCredits += subscription.getCredits();
+        onCreditsAvailable(subscription);
     }
 
     public void removeSubscription(long subscriberKey)
     {
-        final long idx = lookupTable.get(subscriberKey);
-        if (idx >= 0)
-        {
-            remove((int) idx);
-        }
+        subscriptions.remove(subscriberKey);
     }
 
-    protected void remove(int index)
+    /**
+     * Queues the subscription if it has credits and is not queued already.
+     */
+    public void onCreditsAvailable(TaskSubscription subscription)
     {
-        final TaskSubscription currentValue = subscriptions[index];
-        if (currentValue != null)
+        final long subscriberKey = subscription.getSubscriberKey();
+
+        if (subscription.getCredits() > 0 && subscriptions.get(subscriberKey) == subscription && queuedSubscriberKeys.add(subscriberKey))
         {
-            subscriptions[index] = null;
-            lookupTable.remove(currentValue.getSubscriberKey());
-            totalCredits -= currentValue.getCredits();
+            readyQueue.addLast(subscription);
         }
     }
 
     public boolean isEmpty()
     {
-        return lookupTable.isEmpty();
+        return subscriptions.isEmpty();
     }
 
-    @Override
-    public SubscriptionIterator iterator()
+    public int size()
     {
-        return new SubscriptionIterator();
+        return subscriptions.size();
     }
 
-    public void addCredits(long subscriberKey, int credits)
-    {
-        final long idx = lookupTable.get(subscriberKey);
-
-        if (idx >= 0)
-        {
-            final TaskSubscription subscription = subscriptions[(int) idx];
-            subscription.setCredits(subscription.getCredits() + credits);
-            totalCredits += credits;
-        }
-    }
-
-    public int getTotalCredits()
+    @Override
+    public Iterator<TaskSubscription> iterator()
     {
-        return totalCredits;
+        return subscriptions.values().iterator();
     }
 
-    public int size()
+    /**
+     * @return <code>true</code> if at least one subscription has credits
+     */
+    public boolean hasAvailableSubscription()
     {
-        return lookupTable.size();
+        return peekAvailableSubscription() != null;
     }
 
-    public class SubscriptionIterator implements Iterator<TaskSubscription>
+    /**
+     * Selects the next subscription which has credits in a round-robin fashion.
+     *
+     * @return the subscription or <code>null</code> if no subscription has credits
+     */
+    public TaskSubscription getNextAvailableSubscription()
     {
-        int index;
-
-        public SubscriptionIterator()
-        {
-            reset();
-        }
+        final TaskSubscription subscription = peekAvailableSubscription();
 
-        @Override
-        public boolean hasNext()
+        if (subscription != null && readyQueue.size() > 1)
         {
-            return findNext() < subscriptions.length;
+            readyQueue.addLast(readyQueue.pollFirst());
         }
 
-        @Override
-        public TaskSubscription next()
-        {
-            final int nextElementIdx = findNext();
-            if (nextElementIdx < subscriptions.length)
-            {
-                index = nextElementIdx;
-                return subscriptions[index];
-            }
-            else
-            {
-                return null;
-            }
-        }
+        return subscription;
+    }
 
-        protected int findNext()
-        {
-            int currIndex = index;
-            do
-            {
-                currIndex++;
-            }
-            while (currIndex < subscriptions.length && subscriptions[currIndex] == null);
-
-            return currIndex;
-        }
+    protected TaskSubscription peekAvailableSubscription()
+    {
+        TaskSubscription subscription = readyQueue.peekFirst();
 
-        @Override
-        public void remove()
+        while (subscription != null && !isAvailable(subscription))
         {
-            TaskSubscriptions.this.remove(index);
-        }
+            readyQueue.pollFirst();
+            queuedSubscriberKeys.remove(subscription.getSubscriberKey());
 
-        public void reset()
-        {
-            index = -1;
+            subscription = readyQueue.peekFirst();
         }
 
+        return subscription;
     }
 
+    protected boolean isAvailable(TaskSubscription subscription)
+    {
+        return subscription.getCredits() > 0 && subscriptions.get(subscription.getSubscriberKey()) == subscription;
+    }
 
 }
@@ -19,6 +19,7 @@ package io.zeebe.broker.transport;
 
 import static io.zeebe.broker.system.SystemServiceNames.ACTOR_SCHEDULER_SERVICE;
 import static io.zeebe.broker.system.SystemServiceNames.COUNTERS_MANAGER_SERVICE;
+import static io.zeebe.broker.system.SystemServiceNames.METRICS_SERVICE;
 import static io.zeebe.broker.transport.TransportServiceNames.CLIENT_API_MESSAGE_HANDLER;
 import static io.zeebe.broker.transport.TransportServiceNames.CLIENT_API_SERVER_NAME;
 import static io.zeebe.broker.transport.TransportServiceNames.MANAGEMENT_API_CLIENT_NAME;
@@ -97,9 +98,12 @@ public class TransportComponent implements Component
             transportComponentCfg.clientApi.getReceiveBufferSize(transportComponentCfg.defaultReceiveBufferSize),
             DispatcherSubscriptionNames.TRANSPORT_CONTROL_MESSAGE_HANDLER_SUBSCRIPTION);
 
-        final ClientApiMessageHandlerService messageHandlerService = new ClientApiMessageHandlerService();
+        final ClientApiMessageHandlerService messageHandlerService = new ClientApiMessageHandlerService(
+                transportComponentCfg.clientApi.maxInFlightCommandsPerPartition);
         serviceContainer.createService(CLIENT_API_MESSAGE_HANDLER, messageHandlerService)
             .dependency(controlMessageBufferService, messageHandlerService.getControlMessageBufferInjector())
+            .dependency(LogStreamServiceNames.PROCESSING_POSITIONS_SERVICE, messageHandlerService.getProcessingPositionsInjector())
+            .dependency(METRICS_SERVICE, messageHandlerService.getRequestLatenciesInjector())
             .groupReference(LogStreamServiceNames.WORKFLOW_STREAM_GROUP, messageHandlerService.getLogStreamsGroupReference())
             .groupReference(LogStreamServiceNames.SYSTEM_STREAM_GROUP, messageHandlerService.getLogStreamsGroupReference())
             .install();
@@ -26,6 +26,7 @@ public class SocketBindingCfg extends ComponentConfiguration
     public int receiveBufferSize = -1;
     public int sendBufferSize = -1;
     public long controlMessageRequestTimeoutInMillis = 10_000;
+    public int maxInFlightCommandsPerPartition = 0;
 
     public String getHost(String defaultValue)
     {
@@ -0,0 +1,36 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.transport.clientapi;
+
+import io.zeebe.broker.event.processor.TopicSubscriptionEvent;
+
+/**
+ * Takes the acknowledgements of the topic subscriptions of a partition, so
+ * that they are not written to the log one by one.
+ */
+@FunctionalInterface
+public interface AcknowledgementHandler
+{
+    /**
+     * Must not keep a reference to the given event, it is reused.
+     *
+     * @return false if the acknowledgement is not taken and must be written
+     *         to the log as command
+     */
+    boolean acknowledge(TopicSubscriptionEvent event, long key, int requestStreamId, long requestId);
+}
@@ -22,6 +22,7 @@ import static io.zeebe.util.buffer.BufferUtil.bufferAsString;
 
 import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.function.Consumer;
 
@@ -33,7 +34,10 @@ import org.agrona.concurrent.UnsafeBuffer;
 
 import io.zeebe.broker.event.processor.TopicSubscriberEvent;
 import io.zeebe.broker.event.processor.TopicSubscriptionEvent;
+import io.zeebe.broker.event.processor.TopicSubscriptionState;
+import io.zeebe.broker.logstreams.processor.ProcessingPositions;
 import io.zeebe.broker.system.log.TopicEvent;
+import io.zeebe.broker.system.metrics.RequestLatencies;
 import io.zeebe.broker.task.data.TaskEvent;
 import io.zeebe.broker.transport.controlmessage.ControlMessageRequestHeaderDescriptor;
 import io.zeebe.broker.workflow.data.DeploymentEvent;
@@ -59,6 +63,14 @@ import io.zeebe.transport.ServerRequestHandler;
 
 public class ClientApiMessageHandler implements ServerMessageHandler, ServerRequestHandler
 {
+    /**
+     * Prefix of the error message if a command is rejected because of
+     * backpressure. The error code {@link ErrorCode#REQUEST_WRITE_FAILURE} is
+     * also used for other failures, so that the client needs the message to
+     * decide if the request can be retried after a backoff. The protocol has
+     * no dedicated error code for backpressure yet.
+     */
+    public static final String BACKPRESSURE_ERROR_MESSAGE = "Cannot execute command. Too many commands in flight.";
 
     protected final MessageHeaderDecoder messageHeaderDecoder = new MessageHeaderDecoder();
     protected final ExecuteCommandRequestDecoder executeCommandRequestDecoder = new ExecuteCommandRequestDecoder();
@@ -79,6 +91,12 @@ public class ClientApiMessageHandler implements ServerMessageHandler, ServerRequ
 
     protected final EnumMap<EventType, UnpackedObject> eventsByType = new EnumMap<>(EventType.class);
 
+    protected ProcessingPositions processingPositions;
+    protected int maxInFlightCommands = 0;
+    protected final Map<LogStream, InFlightCommands> inFlightCommandsByLogStream = new IdentityHashMap<>();
+    protected final Map<LogStream, AcknowledgementHandler> acknowledgementHandlersByLogStream = new IdentityHashMap<>();
+    protected RequestLatencies requestLatencies;
+
     public ClientApiMessageHandler(final Dispatcher controlMessageDispatcher)
     {
         this.controlMessageDispatcher = controlMessageDispatcher;
@@ -86,6 +104,38 @@ public class ClientApiMessageHandler implements ServerMessageHandler, ServerRequ
         initEventTypeMap();
     }
 
+    /**
+     * Limits the number of commands per partition which are written but not
+     * processed yet. Further commands are rejected with
+     * {@link ErrorCode#REQUEST_WRITE_FAILURE} and an error message which starts
+     * with {@link #BACKPRESSURE_ERROR_MESSAGE}. Must be set before the streams
+     * are added.
+     *
+     * @param processingPositions
+     *            the positions of the stream processors which process the
+     *            commands
+     * @param maxInFlightCommands
+     *            the maximum number of commands in flight; disabled if less
+     *            than one
+     */
+    public ClientApiMessageHandler setInFlightCommandLimit(final ProcessingPositions processingPositions, final int maxInFlightCommands)
+    {
+        this.processingPositions = processingPositions;
+        this.maxInFlightCommands = processingPositions != null ? maxInFlightCommands : 0;
+        return this;
+    }
+
+    /**
+     * @param requestLatencies
+     *            if not null, the time is recorded when a command is written,
+     *            so that its latency can be measured when it is answered
+     */
+    public ClientApiMessageHandler setRequestLatencies(final RequestLatencies requestLatencies)
+    {
+        this.requestLatencies = requestLatencies;
+        return this;
+    }
+
     private void initEventTypeMap()
     {
         eventsByType.put(EventType.DEPLOYMENT_EVENT, new DeploymentEvent());
@@ -157,6 +207,23 @@ public class ClientApiMessageHandler implements ServerMessageHandler, ServerRequ
                     .tryWriteResponseOrLogFailure(output, requestAddress.getStreamId(), requestId);
         }
 
+        if (eventType == EventType.SUBSCRIPTION_EVENT && acknowledge(logStream, (TopicSubscriptionEvent) event, key, requestAddress.getStreamId(), requestId))
+        {
+            return true;
+        }
+
+        final InFlightCommands inFlightCommands = inFlightCommandsByLogStream.get(logStream);
+
+        if (inFlightCommands != null && inFlightCommands.isLimitReached(processingPositions.getLowestPosition(logStream)))
+        {
+            return errorResponseWriter
+                    .errorCode(ErrorCode.REQUEST_WRITE_FAILURE)
+                    .errorMessage(BACKPRESSURE_ERROR_MESSAGE + " Topic with name '%s' and partition id '%d' has %d commands which are not processed yet.",
+                            bufferAsString(topicName), partitionId, inFlightCommands.size())
+                    .failedRequest(buffer, messageOffset, messageLength)
+                    .tryWriteResponseOrLogFailure(output, requestAddress.getStreamId(), requestId);
+        }
+
         eventMetadata.eventType(eventType);
         eventMetadata.raftTermId(logStream.getTerm());
 
@@ -176,9 +243,28 @@ public class ClientApiMessageHandler implements ServerMessageHandler, ServerRequ
                 .value(buffer, eventOffset, eventLength)
                 .tryWrite();
 
+        if (eventPosition >= 0 && inFlightCommands != null)
+        {
+            inFlightCommands.add(eventPosition);
+        }
+
+        if (eventPosition >= 0 && requestLatencies != null)
+        {
+            requestLatencies.onRequest(requestAddress.getStreamId(), requestId);
+        }
+
         return eventPosition >= 0;
     }
 
+    private boolean acknowledge(final LogStream logStream, final TopicSubscriptionEvent event, final long key, final int requestStreamId, final long requestId)
+    {
+        final AcknowledgementHandler acknowledgementHandler = acknowledgementHandlersByLogStream.get(logStream);
+
+        return acknowledgementHandler != null
+                && event.getState() == TopicSubscriptionState.ACKNOWLEDGE
+                && acknowledgementHandler.acknowledge(event, key, requestStreamId, requestId);
+    }
+
     private String concatErrorMessages(Throwable t)
     {
         final StringBuilder sb = new StringBuilder();
@@ -248,10 +334,30 @@ public class ClientApiMessageHandler implements ServerMessageHandler, ServerRequ
     public void addStream(final LogStream logStream)
     {
         cmdQueue.add(() ->
+        {
             logStreamsByTopic
                 .computeIfAbsent(logStream.getTopicName(), topicName -> new Int2ObjectHashMap<>())
-                .put(logStream.getPartitionId(), logStream)
-        );
+                .put(logStream.getPartitionId(), logStream);
+
+            if (maxInFlightCommands > 0)
+            {
+                inFlightCommandsByLogStream.put(logStream, new InFlightCommands(maxInFlightCommands));
+            }
+        });
+    }
+
+    /**
+     * Passes the acknowledgements of the topic subscriptions of the given
+     * stream to the handler instead of writing them to the log.
+     */
+    public void addAcknowledgementHandler(final LogStream logStream, final AcknowledgementHandler acknowledgementHandler)
+    {
+        cmdQueue.add(() -> acknowledgementHandlersByLogStream.put(logStream, acknowledgementHandler));
+    }
+
+    public void removeAcknowledgementHandler(final LogStream logStream)
+    {
+        cmdQueue.add(() -> acknowledgementHandlersByLogStream.remove(logStream));
     }
 
     public void removeStream(final LogStream logStream)
@@ -263,6 +369,8 @@ public class ClientApiMessageHandler implements ServerMessageHandler, ServerRequ
 
             final Int2ObjectHashMap<LogStream> logStreamPartitions = logStreamsByTopic.get(topicName);
 
+            inFlightCommandsByLogStream.remove(logStream);
+
             if (logStreamPartitions != null)
             {
                 logStreamPartitions.remove(partitionId);
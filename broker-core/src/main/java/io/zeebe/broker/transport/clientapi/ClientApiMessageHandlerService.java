@@ -17,6 +17,8 @@
  */
 package io.zeebe.broker.transport.clientapi;
 
+import io.zeebe.broker.logstreams.processor.ProcessingPositions;
+import io.zeebe.broker.system.metrics.RequestLatencies;
 import io.zeebe.dispatcher.Dispatcher;
 import io.zeebe.logstreams.log.LogStream;
 import io.zeebe.servicecontainer.Injector;
@@ -28,6 +30,9 @@ import io.zeebe.servicecontainer.ServiceStopContext;
 public class ClientApiMessageHandlerService implements Service<ClientApiMessageHandler>
 {
     private final Injector<Dispatcher> controlMessageBufferInjector = new Injector<>();
+    private final Injector<ProcessingPositions> processingPositionsInjector = new Injector<>();
+    private final Injector<RequestLatencies> requestLatenciesInjector = new Injector<>();
+    protected final int maxInFlightCommandsPerPartition;
     protected ClientApiMessageHandler service;
 
     protected final ServiceGroupReference<LogStream> logStreamsGroupReference = ServiceGroupReference.<LogStream>create()
@@ -35,11 +40,21 @@ public class ClientApiMessageHandlerService implements Service<ClientApiMessageH
         .onRemove((name, stream) -> service.removeStream(stream))
         .build();
 
+    public ClientApiMessageHandlerService(int maxInFlightCommandsPerPartition)
+    {
+        this.maxInFlightCommandsPerPartition = maxInFlightCommandsPerPartition;
+    }
+
     @Override
     public void start(ServiceStartContext startContext)
     {
         final Dispatcher controlMessageBuffer = controlMessageBufferInjector.getValue();
-        service = new ClientApiMessageHandler(controlMessageBuffer);
+        final ProcessingPositions processingPositions = processingPositionsInjector.getValue();
+        final RequestLatencies requestLatencies = requestLatenciesInjector.getValue();
+
+        service = new ClientApiMessageHandler(controlMessageBuffer)
+            .setInFlightCommandLimit(processingPositions, maxInFlightCommandsPerPartition)
+            .setRequestLatencies(requestLatencies);
     }
 
     @Override
@@ -59,6 +74,16 @@ public class ClientApiMessageHandlerService implements Service<ClientApiMessageH
         return controlMessageBufferInjector;
     }
 
+    public Injector<ProcessingPositions> getProcessingPositionsInjector()
+    {
+        return processingPositionsInjector;
+    }
+
+    public Injector<RequestLatencies> getRequestLatenciesInjector()
+    {
+        return requestLatenciesInjector;
+    }
+
     public ServiceGroupReference<LogStream> getLogStreamsGroupReference()
     {
         return logStreamsGroupReference;
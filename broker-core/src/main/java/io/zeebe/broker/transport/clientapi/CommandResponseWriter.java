@@ -22,6 +22,7 @@ import static io.zeebe.protocol.clientapi.SubscribedEventEncoder.positionNullVal
 
 import java.util.Objects;
 
+import io.zeebe.broker.system.metrics.RequestLatencies;
 import io.zeebe.protocol.Protocol;
 import io.zeebe.protocol.clientapi.ExecuteCommandResponseEncoder;
 import io.zeebe.protocol.clientapi.MessageHeaderEncoder;
@@ -45,10 +46,21 @@ public class CommandResponseWriter implements BufferWriter
     protected BufferWriter eventWriter;
     protected final ServerResponse response = new ServerResponse();
     protected final ServerOutput output;
+    protected final RequestLatencies requestLatencies;
 
     public CommandResponseWriter(final ServerOutput output)
+    {
+        this(output, null);
+    }
+
+    /**
+     * @param requestLatencies if not null, the latency of each request is
+     *            recorded when its response is sent
+     */
+    public CommandResponseWriter(final ServerOutput output, final RequestLatencies requestLatencies)
     {
         this.output = output;
+        this.requestLatencies = requestLatencies;
     }
 
     public CommandResponseWriter topicName(final DirectBuffer topicName)
@@ -92,7 +104,14 @@ public class CommandResponseWriter implements BufferWriter
                 .requestId(requestId)
                 .writer(this);
 
-            return output.sendResponse(response);
+            final boolean isSent = output.sendResponse(response);
+
+            if (isSent && requestLatencies != null)
+            {
+                requestLatencies.onResponse(remoteStreamId, requestId);
+            }
+
+            return isSent;
         }
         finally
         {
@@ -0,0 +1,76 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.transport.clientapi;
+
+import org.agrona.BitUtil;
+
+/**
+ * The positions of the commands which are written to a log stream but not
+ * processed yet, in the order they are written. The commands are processed in
+ * the same order, so that the processed ones can be removed from the head.
+ */
+public class InFlightCommands
+{
+    protected final int limit;
+    protected final long[] positions;
+    protected final int mask;
+
+    protected long head = 0;
+    protected long tail = 0;
+
+    public InFlightCommands(int limit)
+    {
+        this.limit = limit;
+
+        final int capacity = BitUtil.findNextPositivePowerOfTwo(limit);
+        this.positions = new long[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Removes all commands up to the given position.
+     *
+     * @return <code>true</code> if the limit of in-flight commands is reached
+     */
+    public boolean isLimitReached(long processingPosition)
+    {
+        while (head < tail && positions[(int) (head & mask)] <= processingPosition)
+        {
+            head += 1;
+        }
+
+        return tail - head >= limit;
+    }
+
+    public void add(long position)
+    {
+        if (tail - head == positions.length)
+        {
+            // should not happen if the limit is checked before
+            head += 1;
+        }
+
+        positions[(int) (tail & mask)] = position;
+        tail += 1;
+    }
+
+    public int size()
+    {
+        return (int) (tail - head);
+    }
+}
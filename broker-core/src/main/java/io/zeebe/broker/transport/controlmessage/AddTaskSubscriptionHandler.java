@@ -17,16 +17,21 @@
  */
 package io.zeebe.broker.transport.controlmessage;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 import io.zeebe.broker.task.TaskSubscriptionManager;
 import io.zeebe.broker.task.processor.TaskSubscription;
 import io.zeebe.broker.task.processor.TaskSubscriptionRequest;
 import io.zeebe.broker.transport.clientapi.ErrorResponseWriter;
+import io.zeebe.msgpack.property.ArrayProperty;
+import io.zeebe.msgpack.value.StringValue;
 import io.zeebe.protocol.clientapi.ControlMessageType;
 import io.zeebe.protocol.clientapi.ErrorCode;
 import io.zeebe.protocol.impl.BrokerEventMetadata;
 import io.zeebe.transport.ServerOutput;
+import io.zeebe.util.buffer.BufferUtil;
 import org.agrona.DirectBuffer;
 
 public class AddTaskSubscriptionHandler implements ControlMessageHandler
@@ -60,7 +65,7 @@ public class AddTaskSubscriptionHandler implements ControlMessageHandler
         final long requestId = eventMetada.getRequestId();
         final int requestStreamId = eventMetada.getRequestStreamId();
 
-        final TaskSubscription taskSubscription = new TaskSubscription(request.getTopicName(), request.getPartitionId(), request.getLockTaskType(),
+        final TaskSubscription taskSubscription = new TaskSubscription(request.getTopicName(), request.getPartitionId(), getLockTaskTypes(request),
                 request.getLockDuration(), request.getLockOwner(), requestStreamId);
         taskSubscription.setCredits(request.getCredits());
 
@@ -90,4 +95,19 @@ public class AddTaskSubscriptionHandler implements ControlMessageHandler
         });
     }
 
+    protected DirectBuffer[] getLockTaskTypes(TaskSubscriptionRequest request)
+    {
+        final List<DirectBuffer> taskTypes = new ArrayList<>();
+        taskTypes.add(request.getLockTaskType());
+
+        final ArrayProperty<StringValue> additionalTaskTypes = request.additionalTaskTypes();
+        while (additionalTaskTypes.hasNext())
+        {
+            // the value is reused by the iterator
+            taskTypes.add(BufferUtil.cloneBuffer(additionalTaskTypes.next().getValue()));
+        }
+
+        return taskTypes.toArray(new DirectBuffer[taskTypes.size()]);
+    }
+
 }
@@ -0,0 +1,124 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.util;
+
+import org.agrona.DirectBuffer;
+
+import io.zeebe.msgpack.spec.MsgPackFormat;
+import io.zeebe.msgpack.spec.MsgPackReader;
+import io.zeebe.msgpack.spec.MsgPackType;
+
+/**
+ * Reads single properties of a msgpack document without unpacking the whole
+ * document, e.g. to check the state of an event before it is read.
+ */
+public class MsgPackPropertyReader
+{
+    protected final MsgPackReader reader = new MsgPackReader();
+
+    public MsgPackPropertyReader wrap(DirectBuffer buffer, int offset, int length)
+    {
+        reader.wrap(buffer, offset, length);
+        return this;
+    }
+
+    /**
+     * @return the underlying reader which is positioned at the current value
+     */
+    public MsgPackReader getReader()
+    {
+        return reader;
+    }
+
+    /**
+     * Moves the reader from the start of a map to the value of the given key.
+     * A binary value is read as the msgpack document which it contains, e.g.
+     * the payload of an event.
+     *
+     * @return false if the current value is no map or has no such key
+     */
+    public boolean moveToProperty(DirectBuffer key)
+    {
+        if (currentType() == MsgPackType.BINARY)
+        {
+            reader.readBinaryLength();
+        }
+
+        if (currentType() != MsgPackType.MAP)
+        {
+            return false;
+        }
+
+        final int size = reader.readMapHeader();
+        for (int i = 0; i < size; i++)
+        {
+            if (currentType() != MsgPackType.STRING)
+            {
+                // a key of a value is always a string
+                return false;
+            }
+
+            final int keyLength = reader.readStringLength();
+            final boolean isKey = currentBytesEqual(keyLength, key);
+
+            reader.skipBytes(keyLength);
+
+            if (isKey)
+            {
+                return true;
+            }
+            else
+            {
+                reader.skipValue();
+            }
+        }
+
+        return false;
+    }
+
+    public MsgPackType currentType()
+    {
+        final byte format = reader.getBuffer().getByte(reader.getOffset());
+        return MsgPackFormat.valueOf(format).getType();
+    }
+
+    /**
+     * Compares the next bytes of the document with the given buffer, e.g. the
+     * bytes of a string after its header was read. The reader is not moved.
+     */
+    public boolean currentBytesEqual(int length, DirectBuffer other)
+    {
+        final DirectBuffer buffer = reader.getBuffer();
+        final int offset = reader.getOffset();
+
+        if (length != other.capacity())
+        {
+            return false;
+        }
+
+        for (int i = 0; i < length; i++)
+        {
+            if (buffer.getByte(offset + i) != other.getByte(i))
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,342 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.util.cache;
+
+import static org.agrona.BitUtil.SIZE_OF_INT;
+import static org.agrona.BitUtil.SIZE_OF_LONG;
+import static org.agrona.BitUtil.align;
+
+import java.nio.ByteOrder;
+import java.util.function.LongConsumer;
+
+import io.zeebe.util.allocation.AllocatedBuffer;
+import io.zeebe.util.allocation.DirectBufferAllocator;
+import org.agrona.DirectBuffer;
+import org.agrona.ExpandableArrayBuffer;
+import org.agrona.collections.Long2LongHashMap;
+import org.agrona.concurrent.UnsafeBuffer;
+
+/**
+ * Off-heap cache of buffers which is bounded by the total size of the
+ * buffers in bytes, instead of the number of entries.
+ *
+ * <p>
+ * The entries are appended to a ring buffer. If there is not enough space
+ * then the oldest entries are evicted. An entry which was read since it was
+ * written gets a second chance: it is moved to the end instead of being
+ * evicted (CLOCK).
+ *
+ * <p>
+ * An entry consists of
+ *
+ * <li> key
+ * <li> value length
+ * <li> flags
+ * <li> value
+ *
+ * <p>
+ * Removed entries are only marked and their space is reclaimed when they
+ * reach the head of the ring buffer.
+ */
+public class OffHeapBufferCache implements AutoCloseable
+{
+    private static final int KEY_OFFSET = 0;
+    private static final int LENGTH_OFFSET = KEY_OFFSET + SIZE_OF_LONG;
+    private static final int FLAGS_OFFSET = LENGTH_OFFSET + SIZE_OF_INT;
+    private static final int HEADER_LENGTH = FLAGS_OFFSET + SIZE_OF_INT;
+
+    private static final int ALIGNMENT = SIZE_OF_LONG;
+
+    private static final int FLAG_REFERENCED = 1;
+    private static final int FLAG_REMOVED = 1 << 1;
+    private static final int FLAG_PADDING = 1 << 2;
+
+    private static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    private static final long MISSING_OFFSET = -1L;
+
+    private final DirectBufferAllocator allocator = new DirectBufferAllocator();
+    private final AllocatedBuffer allocatedBuffer;
+    private final UnsafeBuffer buffer;
+
+    private final UnsafeBuffer readBuffer = new UnsafeBuffer(0, 0);
+    private final ExpandableArrayBuffer moveBuffer = new ExpandableArrayBuffer();
+
+    private final Long2LongHashMap offsetByKey = new Long2LongHashMap(MISSING_OFFSET);
+    private final LongConsumer evictionListener;
+
+    private final int capacity;
+
+    private int head = 0;
+    private int tail = 0;
+    private int usedBytes = 0;
+
+    /**
+     * @param capacity
+     *            the size of the cache in bytes, including the entry headers
+     * @param evictionListener
+     *            is called with the key of an entry which is evicted to make
+     *            space for another one
+     */
+    public OffHeapBufferCache(int capacity, LongConsumer evictionListener)
+    {
+        this.capacity = align(capacity, ALIGNMENT);
+        this.evictionListener = evictionListener;
+
+        this.allocatedBuffer = allocator.allocate(this.capacity);
+        this.buffer = new UnsafeBuffer(allocatedBuffer.getRawBuffer());
+    }
+
+    /**
+     * @return a view of the cached buffer which is valid until the cache is
+     *         modified, or <code>null</code> if the key is not cached
+     */
+    public DirectBuffer get(long key)
+    {
+        final long offset = offsetByKey.get(key);
+
+        if (offset != MISSING_OFFSET)
+        {
+            final int entryOffset = (int) offset;
+
+            setFlag(entryOffset, FLAG_REFERENCED);
+            readBuffer.wrap(buffer, entryOffset + HEADER_LENGTH, getValueLength(entryOffset));
+
+            return readBuffer;
+        }
+        else
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Adds the buffer to the cache or replaces the cached one.
+     *
+     * @return <code>true</code> if the buffer is cached, or
+     *         <code>false</code> if it is larger than the cache
+     */
+    public boolean put(long key, DirectBuffer value)
+    {
+        remove(key);
+
+        final int length = value.capacity();
+        final int entryLength = entryLength(length);
+
+        if (entryLength > capacity)
+        {
+            return false;
+        }
+
+        ensureSpace(entryLength);
+
+        buffer.putBytes(tail + HEADER_LENGTH, value, 0, length);
+        append(key, length, 0);
+
+        return true;
+    }
+
+    public void remove(long key)
+    {
+        final long offset = offsetByKey.remove(key);
+
+        if (offset != MISSING_OFFSET)
+        {
+            setFlag((int) offset, FLAG_REMOVED);
+        }
+    }
+
+    public void clear()
+    {
+        offsetByKey.clear();
+
+        head = 0;
+        tail = 0;
+        usedBytes = 0;
+    }
+
+    /**
+     * @return the number of cached entries
+     */
+    public int getSize()
+    {
+        return offsetByKey.size();
+    }
+
+    /**
+     * @return the number of bytes which are occupied, including removed
+     *         entries which are not reclaimed yet
+     */
+    public int getUsedBytes()
+    {
+        return usedBytes;
+    }
+
+    public int getCapacity()
+    {
+        return capacity;
+    }
+
+    @Override
+    public void close()
+    {
+        allocatedBuffer.close();
+    }
+
+    private void ensureSpace(int entryLength)
+    {
+        while (true)
+        {
+            if (usedBytes == 0)
+            {
+                head = 0;
+                tail = 0;
+                return;
+            }
+            else if (tail > head)
+            {
+                final int remainingAtEnd = capacity - tail;
+
+                if (remainingAtEnd >= entryLength)
+                {
+                    return;
+                }
+                else if (head >= entryLength)
+                {
+                    wrapTail();
+                    return;
+                }
+            }
+            else if (head - tail >= entryLength)
+            {
+                return;
+            }
+
+            evictHead();
+        }
+    }
+
+    private void wrapTail()
+    {
+        final int remaining = capacity - tail;
+
+        if (remaining >= HEADER_LENGTH)
+        {
+            buffer.putLong(tail + KEY_OFFSET, 0L, BYTE_ORDER);
+            buffer.putInt(tail + LENGTH_OFFSET, remaining - HEADER_LENGTH, BYTE_ORDER);
+            buffer.putInt(tail + FLAGS_OFFSET, FLAG_PADDING, BYTE_ORDER);
+        }
+
+        usedBytes += remaining;
+        tail = 0;
+    }
+
+    private void evictHead()
+    {
+        final int remaining = capacity - head;
+
+        if (remaining < HEADER_LENGTH || hasFlag(head, FLAG_PADDING))
+        {
+            releaseHead(remaining);
+            return;
+        }
+
+        final int valueLength = getValueLength(head);
+        final int entryLength = entryLength(valueLength);
+
+        if (hasFlag(head, FLAG_REMOVED))
+        {
+            releaseHead(entryLength);
+        }
+        else
+        {
+            final long key = buffer.getLong(head + KEY_OFFSET, BYTE_ORDER);
+
+            if (hasFlag(head, FLAG_REFERENCED))
+            {
+                // second chance - move the entry to the end
+                moveBuffer.putBytes(0, buffer, head + HEADER_LENGTH, valueLength);
+                releaseHead(entryLength);
+
+                // doesn't evict other entries since the space of the entry is released
+                ensureSpace(entryLength);
+
+                buffer.putBytes(tail + HEADER_LENGTH, moveBuffer, 0, valueLength);
+                append(key, valueLength, 0);
+            }
+            else
+            {
+                offsetByKey.remove(key);
+                releaseHead(entryLength);
+
+                evictionListener.accept(key);
+            }
+        }
+    }
+
+    private void releaseHead(int length)
+    {
+        usedBytes -= length;
+        head += length;
+
+        if (head >= capacity)
+        {
+            head = 0;
+        }
+    }
+
+    private void append(long key, int valueLength, int flags)
+    {
+        buffer.putLong(tail + KEY_OFFSET, key, BYTE_ORDER);
+        buffer.putInt(tail + LENGTH_OFFSET, valueLength, BYTE_ORDER);
+        buffer.putInt(tail + FLAGS_OFFSET, flags, BYTE_ORDER);
+
+        offsetByKey.put(key, tail);
+
+        final int entryLength = entryLength(valueLength);
+        usedBytes += entryLength;
+        tail += entryLength;
+
+        if (tail >= capacity)
+        {
+            tail = 0;
+        }
+    }
+
+    private int getValueLength(int offset)
+    {
+        return buffer.getInt(offset + LENGTH_OFFSET, BYTE_ORDER);
+    }
+
+    private boolean hasFlag(int offset, int flag)
+    {
+        return (buffer.getInt(offset + FLAGS_OFFSET, BYTE_ORDER) & flag) != 0;
+    }
+
+    private void setFlag(int offset, int flag)
+    {
+        final int flags = buffer.getInt(offset + FLAGS_OFFSET, BYTE_ORDER);
+        buffer.putInt(offset + FLAGS_OFFSET, flags | flag, BYTE_ORDER);
+    }
+
+    private static int entryLength(int valueLength)
+    {
+        return align(HEADER_LENGTH + valueLength, ALIGNMENT);
+    }
+
+}
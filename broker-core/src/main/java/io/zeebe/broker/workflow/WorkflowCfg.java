@@ -23,5 +23,38 @@ public class WorkflowCfg extends ComponentConfiguration
 {
     public int deploymentCacheSize = 32;
 
-    public int payloadCacheSize = 64;
+    /**
+     * the size of the payload cache per partition in bytes
+     */
+    public int payloadCacheCapacity = 4 * 1024 * 1024;
+
+    /**
+     * if enabled, the deployment, incident and workflow instance stream processors
+     * of a partition read the log together in one pipeline instead of one reader each
+     */
+    public boolean processingPipeline = false;
+
+    /**
+     * if enabled, the snapshots of the workflow instance stream processor only contain
+     * the workflow instances which are changed since the last base snapshot
+     */
+    public boolean incrementalSnapshots = false;
+
+    /**
+     * the number of incremental snapshots after which a new base snapshot is written
+     */
+    public int snapshotsPerBaseSnapshot = 10;
+
+    /**
+     * if enabled, the workflow instance stream processor writes the events which follow
+     * from the workflow graph only in one batch until a service task or an end event is reached
+     */
+    public boolean chainTransitions = false;
+
+    /**
+     * if enabled, the workflow instance events which don't change the payload contain
+     * a reference to the event with the payload instead of the payload itself. The
+     * references are resolved when the events are pushed to a topic subscription.
+     */
+    public boolean payloadReferences = false;
 }
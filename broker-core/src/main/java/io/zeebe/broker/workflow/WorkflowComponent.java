@@ -19,6 +19,8 @@ package io.zeebe.broker.workflow;
 
 import static io.zeebe.broker.logstreams.LogStreamServiceNames.WORKFLOW_STREAM_GROUP;
 import static io.zeebe.broker.system.SystemServiceNames.ACTOR_SCHEDULER_SERVICE;
+import static io.zeebe.broker.system.SystemServiceNames.COUNTERS_MANAGER_SERVICE;
+import static io.zeebe.broker.system.SystemServiceNames.METRICS_SERVICE;
 import static io.zeebe.broker.workflow.WorkflowQueueServiceNames.WORKFLOW_QUEUE_MANAGER;
 
 import io.zeebe.broker.system.Component;
@@ -40,6 +42,8 @@ public class WorkflowComponent implements Component
         serviceContainer.createService(WORKFLOW_QUEUE_MANAGER, workflowQueueManagerService)
             .dependency(TransportServiceNames.serverTransport(TransportServiceNames.CLIENT_API_SERVER_NAME), workflowQueueManagerService.getClientApiTransportInjector())
             .dependency(ACTOR_SCHEDULER_SERVICE, workflowQueueManagerService.getActorSchedulerInjector())
+            .dependency(COUNTERS_MANAGER_SERVICE, workflowQueueManagerService.getCountersInjector())
+            .dependency(METRICS_SERVICE, workflowQueueManagerService.getRequestLatenciesInjector())
             .groupReference(WORKFLOW_STREAM_GROUP, workflowQueueManagerService.getLogStreamsGroupReference())
             .install();
     }
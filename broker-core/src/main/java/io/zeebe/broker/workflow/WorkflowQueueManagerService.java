@@ -17,19 +17,30 @@
  */
 package io.zeebe.broker.workflow;
 
+import static io.zeebe.broker.logstreams.LogStreamServiceNames.LOG_RETENTION_SERVICE;
+import static io.zeebe.broker.logstreams.LogStreamServiceNames.PROCESSING_POSITIONS_SERVICE;
 import static io.zeebe.broker.logstreams.LogStreamServiceNames.SNAPSHOT_STORAGE_SERVICE;
 import static io.zeebe.broker.logstreams.LogStreamServiceNames.logStreamServiceName;
 import static io.zeebe.broker.logstreams.processor.StreamProcessorIds.INCIDENT_PROCESSOR_ID;
+import static io.zeebe.broker.logstreams.processor.StreamProcessorIds.WORKFLOW_PIPELINE_PROCESSOR_ID;
 import static io.zeebe.broker.system.SystemServiceNames.ACTOR_SCHEDULER_SERVICE;
+import static io.zeebe.broker.system.SystemServiceNames.COUNTERS_MANAGER_SERVICE;
 import static io.zeebe.broker.workflow.WorkflowQueueServiceNames.deploymentStreamProcessorServiceName;
 import static io.zeebe.broker.workflow.WorkflowQueueServiceNames.incidentStreamProcessorServiceName;
 import static io.zeebe.broker.workflow.WorkflowQueueServiceNames.workflowInstanceStreamProcessorServiceName;
+import static io.zeebe.broker.workflow.WorkflowQueueServiceNames.workflowPipelineStreamProcessorServiceName;
+
+import java.io.File;
 
 import io.zeebe.broker.incident.IncidentStreamProcessorErrorHandler;
 import io.zeebe.broker.incident.processor.IncidentStreamProcessor;
+import io.zeebe.broker.logstreams.cfg.SnapshotStorageCfg;
 import io.zeebe.broker.logstreams.processor.StreamProcessorIds;
+import io.zeebe.broker.logstreams.processor.StreamProcessorPipeline;
 import io.zeebe.broker.logstreams.processor.StreamProcessorService;
+import io.zeebe.broker.services.Counters;
 import io.zeebe.broker.system.ConfigurationManager;
+import io.zeebe.broker.system.metrics.RequestLatencies;
 import io.zeebe.broker.transport.clientapi.CommandResponseWriter;
 import io.zeebe.broker.workflow.processor.DeploymentStreamProcessor;
 import io.zeebe.broker.workflow.processor.WorkflowInstanceStreamProcessor;
@@ -54,6 +65,8 @@ public class WorkflowQueueManagerService implements Service<WorkflowQueueManager
 
     protected final Injector<ServerTransport> clientApiTransportInjector = new Injector<>();
     protected final Injector<ActorScheduler> actorSchedulerInjector = new Injector<>();
+    protected final Injector<Counters> countersInjector = new Injector<>();
+    protected final Injector<RequestLatencies> requestLatenciesInjector = new Injector<>();
 
     protected final ServiceGroupReference<LogStream> logStreamsGroupReference = ServiceGroupReference.<LogStream>create()
             .onAdd((name, stream) -> addStream(stream, name))
@@ -62,12 +75,14 @@ public class WorkflowQueueManagerService implements Service<WorkflowQueueManager
     protected ServiceStartContext serviceContext;
     protected DeferredCommandContext asyncContext;
     protected WorkflowCfg workflowCfg;
+    protected SnapshotStorageCfg snapshotStorageCfg;
 
     protected ActorReference actorRef;
 
     public WorkflowQueueManagerService(final ConfigurationManager configurationManager)
     {
         workflowCfg = configurationManager.readEntry("workflow", WorkflowCfg.class);
+        snapshotStorageCfg = configurationManager.readEntry("snapshot", SnapshotStorageCfg.class);
     }
 
     @Override
@@ -75,9 +90,16 @@ public class WorkflowQueueManagerService implements Service<WorkflowQueueManager
     {
         EnsureUtil.ensureNotNull("logStream", logStream);
 
-        installDeploymentStreamProcessor(logStream.getLogName());
-        installWorkflowStreamProcessor(logStream);
-        installIncidentStreamProcessor(logStream);
+        if (workflowCfg.processingPipeline)
+        {
+            installWorkflowPipelineStreamProcessor(logStream);
+        }
+        else
+        {
+            installDeploymentStreamProcessor(logStream.getLogName());
+            installWorkflowStreamProcessor(logStream);
+            installIncidentStreamProcessor(logStream);
+        }
     }
 
     private void installDeploymentStreamProcessor(final String logName)
@@ -86,7 +108,7 @@ public class WorkflowQueueManagerService implements Service<WorkflowQueueManager
         final String streamProcessorName = streamProcessorServiceName.getName();
 
         final ServerTransport transport = clientApiTransportInjector.getValue();
-        final CommandResponseWriter responseWriter = new CommandResponseWriter(transport.getOutput());
+        final CommandResponseWriter responseWriter = new CommandResponseWriter(transport.getOutput(), requestLatenciesInjector.getValue());
         final ServiceName<LogStream> logStreamServiceName = logStreamServiceName(logName);
 
         final DeploymentStreamProcessor deploymentStreamProcessor = new DeploymentStreamProcessor(responseWriter);
@@ -100,7 +122,9 @@ public class WorkflowQueueManagerService implements Service<WorkflowQueueManager
                 .dependency(logStreamServiceName, deploymentStreamProcessorService.getSourceStreamInjector())
                 .dependency(logStreamServiceName, deploymentStreamProcessorService.getTargetStreamInjector())
                 .dependency(SNAPSHOT_STORAGE_SERVICE, deploymentStreamProcessorService.getSnapshotStorageInjector())
+                .dependency(LOG_RETENTION_SERVICE, deploymentStreamProcessorService.getRetentionPositionsInjector())
                 .dependency(ACTOR_SCHEDULER_SERVICE, deploymentStreamProcessorService.getActorSchedulerInjector())
+                .dependency(COUNTERS_MANAGER_SERVICE, deploymentStreamProcessorService.getCountersInjector())
                 .install();
     }
 
@@ -109,16 +133,11 @@ public class WorkflowQueueManagerService implements Service<WorkflowQueueManager
         final ServiceName<StreamProcessorController> streamProcessorServiceName = workflowInstanceStreamProcessorServiceName(logStream.getLogName());
         final String streamProcessorName = streamProcessorServiceName.getName();
 
-        final ServerTransport transport = clientApiTransportInjector.getValue();
-        final CommandResponseWriter responseWriter = new CommandResponseWriter(transport.getOutput());
         final ServiceName<LogStream> logStreamServiceName = logStreamServiceName(logStream.getLogName());
 
         final IncidentStreamProcessorErrorHandler errorHandler = new IncidentStreamProcessorErrorHandler(logStream);
 
-        final WorkflowInstanceStreamProcessor workflowInstanceStreamProcessor = new WorkflowInstanceStreamProcessor(
-                responseWriter,
-                workflowCfg.deploymentCacheSize,
-                workflowCfg.payloadCacheSize);
+        final WorkflowInstanceStreamProcessor workflowInstanceStreamProcessor = createWorkflowInstanceStreamProcessor(streamProcessorName);
 
         final StreamProcessorService workflowStreamProcessorService = new StreamProcessorService(
                 streamProcessorName,
@@ -131,7 +150,11 @@ public class WorkflowQueueManagerService implements Service<WorkflowQueueManager
                 .dependency(logStreamServiceName, workflowStreamProcessorService.getSourceStreamInjector())
                 .dependency(logStreamServiceName, workflowStreamProcessorService.getTargetStreamInjector())
                 .dependency(SNAPSHOT_STORAGE_SERVICE, workflowStreamProcessorService.getSnapshotStorageInjector())
+                .dependency(LOG_RETENTION_SERVICE, workflowStreamProcessorService.getRetentionPositionsInjector())
                 .dependency(ACTOR_SCHEDULER_SERVICE, workflowStreamProcessorService.getActorSchedulerInjector())
+                .dependency(PROCESSING_POSITIONS_SERVICE, workflowStreamProcessorService.getProcessingPositionsInjector())
+                // the counters of the stream processor are freed when it is closed
+                .dependency(COUNTERS_MANAGER_SERVICE, workflowStreamProcessorService.getCountersInjector())
                 .install();
     }
 
@@ -154,10 +177,86 @@ public class WorkflowQueueManagerService implements Service<WorkflowQueueManager
                 .dependency(logStreamServiceName, incidentStreamProcessorService.getSourceStreamInjector())
                 .dependency(logStreamServiceName, incidentStreamProcessorService.getTargetStreamInjector())
                 .dependency(SNAPSHOT_STORAGE_SERVICE, incidentStreamProcessorService.getSnapshotStorageInjector())
+                .dependency(LOG_RETENTION_SERVICE, incidentStreamProcessorService.getRetentionPositionsInjector())
                 .dependency(ACTOR_SCHEDULER_SERVICE, incidentStreamProcessorService.getActorSchedulerInjector())
+                .dependency(COUNTERS_MANAGER_SERVICE, incidentStreamProcessorService.getCountersInjector())
+                .install();
+    }
+
+    private void installWorkflowPipelineStreamProcessor(final LogStream logStream)
+    {
+        final ServiceName<StreamProcessorController> streamProcessorServiceName = workflowPipelineStreamProcessorServiceName(logStream.getLogName());
+        final String streamProcessorName = streamProcessorServiceName.getName();
+
+        final ServerTransport transport = clientApiTransportInjector.getValue();
+        final ServiceName<LogStream> logStreamServiceName = logStreamServiceName(logStream.getLogName());
+
+        final IncidentStreamProcessorErrorHandler errorHandler = new IncidentStreamProcessorErrorHandler(logStream, WORKFLOW_PIPELINE_PROCESSOR_ID);
+
+        final WorkflowInstanceStreamProcessor workflowInstanceStreamProcessor = createWorkflowInstanceStreamProcessor(streamProcessorName);
+
+        // the errors are handled by the pipeline, so that the other stages still process an event
+        // which the workflow instance processor fails to process
+        final StreamProcessorPipeline pipeline = new StreamProcessorPipeline()
+                .errorHandler(errorHandler)
+                .stage(new DeploymentStreamProcessor(new CommandResponseWriter(transport.getOutput(), requestLatenciesInjector.getValue())), DeploymentStreamProcessor.eventFilter())
+                .stage(new IncidentStreamProcessor(), IncidentStreamProcessor.eventFilter())
+                .stage(workflowInstanceStreamProcessor, WorkflowInstanceStreamProcessor.eventFilter());
+
+        final StreamProcessorService pipelineStreamProcessorService = new StreamProcessorService(
+                streamProcessorName,
+                WORKFLOW_PIPELINE_PROCESSOR_ID,
+                pipeline)
+                .eventFilter(pipeline.eventFilter());
+
+        serviceContext.createService(streamProcessorServiceName, pipelineStreamProcessorService)
+                .dependency(logStreamServiceName, pipelineStreamProcessorService.getSourceStreamInjector())
+                .dependency(logStreamServiceName, pipelineStreamProcessorService.getTargetStreamInjector())
+                .dependency(SNAPSHOT_STORAGE_SERVICE, pipelineStreamProcessorService.getSnapshotStorageInjector())
+                .dependency(LOG_RETENTION_SERVICE, pipelineStreamProcessorService.getRetentionPositionsInjector())
+                .dependency(ACTOR_SCHEDULER_SERVICE, pipelineStreamProcessorService.getActorSchedulerInjector())
+                .dependency(PROCESSING_POSITIONS_SERVICE, pipelineStreamProcessorService.getProcessingPositionsInjector())
+                .dependency(COUNTERS_MANAGER_SERVICE, pipelineStreamProcessorService.getCountersInjector())
                 .install();
     }
 
+    protected WorkflowInstanceStreamProcessor createWorkflowInstanceStreamProcessor(String streamProcessorName)
+    {
+        final ServerTransport transport = clientApiTransportInjector.getValue();
+        final CommandResponseWriter responseWriter = new CommandResponseWriter(transport.getOutput(), requestLatenciesInjector.getValue());
+
+        final WorkflowInstanceStreamProcessor workflowInstanceStreamProcessor = new WorkflowInstanceStreamProcessor(
+                responseWriter,
+                workflowCfg.deploymentCacheSize,
+                workflowCfg.payloadCacheCapacity);
+
+        final Counters counters = countersInjector.getValue();
+        workflowInstanceStreamProcessor.registerCounters(counters.getCountersManager(), streamProcessorName);
+        configureSnapshots(workflowInstanceStreamProcessor, streamProcessorName);
+
+        if (workflowCfg.chainTransitions)
+        {
+            workflowInstanceStreamProcessor.enableTransitionChaining();
+        }
+
+        if (workflowCfg.payloadReferences)
+        {
+            workflowInstanceStreamProcessor.enablePayloadReferences();
+        }
+
+        return workflowInstanceStreamProcessor;
+    }
+
+    protected void configureSnapshots(WorkflowInstanceStreamProcessor streamProcessor, String streamProcessorName)
+    {
+        if (workflowCfg.incrementalSnapshots)
+        {
+            // the base snapshots are not managed by the snapshot storage
+            final File baseSnapshotDirectory = new File(snapshotStorageCfg.directory, "incremental");
+            streamProcessor.enableIncrementalSnapshots(baseSnapshotDirectory, streamProcessorName, workflowCfg.snapshotsPerBaseSnapshot);
+        }
+    }
+
     @Override
     public void start(ServiceStartContext serviceContext)
     {
@@ -193,11 +292,21 @@ public class WorkflowQueueManagerService implements Service<WorkflowQueueManager
         return logStreamsGroupReference;
     }
 
+    public Injector<RequestLatencies> getRequestLatenciesInjector()
+    {
+        return requestLatenciesInjector;
+    }
+
     public Injector<ActorScheduler> getActorSchedulerInjector()
     {
         return actorSchedulerInjector;
     }
 
+    public Injector<Counters> getCountersInjector()
+    {
+        return countersInjector;
+    }
+
     public void addStream(LogStream logStream, ServiceName<LogStream> logStreamServiceName)
     {
         asyncContext.runAsync((r) ->
@@ -38,4 +38,9 @@ public class WorkflowQueueServiceNames
     {
         return ServiceName.newServiceName(String.format("workflow.%s.processor.incident", queueName), StreamProcessorController.class);
     }
+
+    public static ServiceName<StreamProcessorController> workflowPipelineStreamProcessorServiceName(String queueName)
+    {
+        return ServiceName.newServiceName(String.format("workflow.%s.processor.pipeline", queueName), StreamProcessorController.class);
+    }
 }
@@ -0,0 +1,100 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.workflow.data;
+
+import org.agrona.DirectBuffer;
+import org.agrona.ExpandableArrayBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import io.zeebe.logstreams.log.LogStreamReader;
+import io.zeebe.logstreams.log.LoggedEvent;
+
+/**
+ * Replaces the payload reference of a workflow instance event by the payload
+ * of the referenced event, so that a subscriber receives the complete event.
+ */
+public class PayloadReferenceResolver implements AutoCloseable
+{
+    private final WorkflowInstanceEvent workflowInstanceEvent = new WorkflowInstanceEvent();
+    private final WorkflowInstanceEvent referencedEvent = new WorkflowInstanceEvent();
+
+    private final ExpandableArrayBuffer resolvedEventBuffer = new ExpandableArrayBuffer();
+    private final UnsafeBuffer resolvedEvent = new UnsafeBuffer(0, 0);
+
+    private final LogStreamReader logStreamReader;
+
+    public PayloadReferenceResolver(LogStreamReader logStreamReader)
+    {
+        this.logStreamReader = logStreamReader;
+    }
+
+    /**
+     * @return a view of the given workflow instance event which contains the
+     *         payload of the referenced event, if the event has a payload
+     *         reference; otherwise, a view of the given event. The view is
+     *         valid until the next call.
+     * @throws IllegalStateException
+     *             if the referenced event is not available
+     */
+    public DirectBuffer resolve(DirectBuffer buffer, int offset, int length)
+    {
+        workflowInstanceEvent.reset();
+        workflowInstanceEvent.wrap(buffer, offset, length);
+
+        if (workflowInstanceEvent.hasPayloadReference())
+        {
+            workflowInstanceEvent.setPayload(lookupPayload(workflowInstanceEvent.getPayloadPosition()));
+
+            final int resolvedLength = workflowInstanceEvent.getLength();
+            resolvedEventBuffer.checkLimit(resolvedLength);
+            workflowInstanceEvent.write(resolvedEventBuffer, 0);
+
+            resolvedEvent.wrap(resolvedEventBuffer, 0, resolvedLength);
+        }
+        else
+        {
+            resolvedEvent.wrap(buffer, offset, length);
+        }
+
+        return resolvedEvent;
+    }
+
+    private DirectBuffer lookupPayload(long position)
+    {
+        final boolean found = logStreamReader.seek(position);
+        if (found && logStreamReader.hasNext())
+        {
+            final LoggedEvent event = logStreamReader.next();
+
+            referencedEvent.reset();
+            event.readValue(referencedEvent);
+
+            return referencedEvent.getPayload();
+        }
+        else
+        {
+            throw new IllegalStateException(String.format("Cannot resolve payload reference. The referenced event at position %d is not available.", position));
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        logStreamReader.close();
+    }
+}
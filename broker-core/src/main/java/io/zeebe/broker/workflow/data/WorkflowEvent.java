@@ -20,9 +20,12 @@ package io.zeebe.broker.workflow.data;
 import io.zeebe.msgpack.UnpackedObject;
 import io.zeebe.msgpack.property.*;
 import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
 
 public class WorkflowEvent extends UnpackedObject
 {
+    private static final DirectBuffer EMPTY_BUFFER = new UnsafeBuffer(0, 0);
+
     private final EnumProperty<WorkflowState> stateProp = new EnumProperty<>("state", WorkflowState.class);
 
     private final StringProperty bpmnProcessIdProp = new StringProperty("bpmnProcessId");
@@ -31,13 +34,16 @@ public class WorkflowEvent extends UnpackedObject
 
     private final LongProperty deploymentKeyProp = new LongProperty("deploymentKey");
 
+    private final BinaryProperty executableWorkflowProp = new BinaryProperty("executableWorkflow", EMPTY_BUFFER);
+
     public WorkflowEvent()
     {
         this.declareProperty(stateProp)
             .declareProperty(bpmnProcessIdProp)
             .declareProperty(versionProp)
             .declareProperty(bpmnXmlProp)
-            .declareProperty(deploymentKeyProp);
+            .declareProperty(deploymentKeyProp)
+            .declareProperty(executableWorkflowProp);
     }
 
     public WorkflowState getState()
@@ -105,4 +111,19 @@ public class WorkflowEvent extends UnpackedObject
         return this;
     }
 
+    /**
+     * @return the serialized workflow graph, or an empty buffer if the event
+     *         is written by a previous version
+     */
+    public DirectBuffer getExecutableWorkflow()
+    {
+        return executableWorkflowProp.getValue();
+    }
+
+    public WorkflowEvent setExecutableWorkflow(DirectBuffer executableWorkflow)
+    {
+        this.executableWorkflowProp.setValue(executableWorkflow, 0, executableWorkflow.capacity());
+        return this;
+    }
+
 }
@@ -17,8 +17,11 @@
  */
 package io.zeebe.broker.workflow.data;
 
+import java.nio.ByteOrder;
+
 import io.zeebe.msgpack.UnpackedObject;
 import io.zeebe.msgpack.property.*;
+import io.zeebe.msgpack.spec.MsgPackCodes;
 import io.zeebe.msgpack.spec.MsgPackHelper;
 import org.agrona.DirectBuffer;
 import org.agrona.concurrent.UnsafeBuffer;
@@ -31,10 +34,21 @@ public class WorkflowInstanceEvent extends UnpackedObject
     public static final String PROP_WORKFLOW_BPMN_PROCESS_ID = "bpmnProcessId";
     public static final String PROP_WORKFLOW_INSTANCE_KEY = "workflowInstanceKey";
     public static final String PROP_WORKFLOW_ACTIVITY_ID = "activityId";
+    public static final String PROP_WORKFLOW_ACTIVITY_INDEX = "activityIndex";
     public static final String PROP_WORKFLOW_VERSION = "version";
     public static final String PROP_WORKFLOW_KEY = "workflowKey";
     public static final String PROP_WORKFLOW_PAYLOAD = "payload";
 
+    /**
+     * The msgpack extension type of a payload reference. The reference is a
+     * fixext 8 value with the position of the referenced event, so that an
+     * event without reference doesn't contain an additional property.
+     */
+    public static final byte PAYLOAD_REFERENCE_TYPE = 1;
+
+    private static final int PAYLOAD_REFERENCE_LENGTH = 10;
+    private static final int PAYLOAD_REFERENCE_POSITION_OFFSET = 2;
+
     private final EnumProperty<WorkflowInstanceState> stateProp = new EnumProperty<>(PROP_STATE, WorkflowInstanceState.class);
 
     private final StringProperty bpmnProcessIdProp = new StringProperty(PROP_WORKFLOW_BPMN_PROCESS_ID, "");
@@ -43,9 +57,12 @@ public class WorkflowInstanceEvent extends UnpackedObject
 
     private final LongProperty workflowInstanceKeyProp = new LongProperty(PROP_WORKFLOW_INSTANCE_KEY, -1L);
     private final StringProperty activityIdProp = new StringProperty(PROP_WORKFLOW_ACTIVITY_ID, "");
+    private final IntegerProperty activityIndexProp = new IntegerProperty(PROP_WORKFLOW_ACTIVITY_INDEX, -1);
 
     private final BinaryProperty payloadProp = new BinaryProperty(PROP_WORKFLOW_PAYLOAD, NO_PAYLOAD);
 
+    private final UnsafeBuffer payloadReference = new UnsafeBuffer(new byte[PAYLOAD_REFERENCE_LENGTH]);
+
     public WorkflowInstanceEvent()
     {
         this
@@ -55,6 +72,7 @@ public class WorkflowInstanceEvent extends UnpackedObject
             .declareProperty(workflowKeyProp)
             .declareProperty(workflowInstanceKeyProp)
             .declareProperty(activityIdProp)
+            .declareProperty(activityIndexProp)
             .declareProperty(payloadProp);
     }
 
@@ -108,6 +126,20 @@ public class WorkflowInstanceEvent extends UnpackedObject
         return this;
     }
 
+    /**
+     * @return the index of the activity in the workflow, or -1 if not set
+     */
+    public int getActivityIndex()
+    {
+        return activityIndexProp.getValue();
+    }
+
+    public WorkflowInstanceEvent setActivityIndex(int activityIndex)
+    {
+        this.activityIndexProp.setValue(activityIndex);
+        return this;
+    }
+
     public Long getWorkflowInstanceKey()
     {
         return workflowInstanceKeyProp.getValue();
@@ -141,9 +173,12 @@ public class WorkflowInstanceEvent extends UnpackedObject
         return this;
     }
 
+    /**
+     * @return the payload, or {@link #NO_PAYLOAD} if the event has a payload reference
+     */
     public DirectBuffer getPayload()
     {
-        return payloadProp.getValue();
+        return hasPayloadReference() ? NO_PAYLOAD : payloadProp.getValue();
     }
 
     public WorkflowInstanceEvent setPayload(DirectBuffer payload)
@@ -158,4 +193,38 @@ public class WorkflowInstanceEvent extends UnpackedObject
         return this;
     }
 
+    /**
+     * @return the position of the event which contains the payload of this event,
+     *         or -1 if the event contains its payload itself
+     */
+    public long getPayloadPosition()
+    {
+        return hasPayloadReference()
+                ? payloadProp.getValue().getLong(PAYLOAD_REFERENCE_POSITION_OFFSET, ByteOrder.BIG_ENDIAN)
+                : -1L;
+    }
+
+    public boolean hasPayloadReference()
+    {
+        final DirectBuffer payload = payloadProp.getValue();
+
+        return payload.capacity() == PAYLOAD_REFERENCE_LENGTH
+                && payload.getByte(0) == MsgPackCodes.FIXEXT8
+                && payload.getByte(1) == PAYLOAD_REFERENCE_TYPE;
+    }
+
+    /**
+     * Replaces the payload by a reference to the event at the given position
+     * which contains the payload.
+     */
+    public WorkflowInstanceEvent setPayloadReference(long payloadPosition)
+    {
+        payloadReference.putByte(0, MsgPackCodes.FIXEXT8);
+        payloadReference.putByte(1, PAYLOAD_REFERENCE_TYPE);
+        payloadReference.putLong(PAYLOAD_REFERENCE_POSITION_OFFSET, payloadPosition, ByteOrder.BIG_ENDIAN);
+
+        payloadProp.setValue(payloadReference);
+        return this;
+    }
+
 }
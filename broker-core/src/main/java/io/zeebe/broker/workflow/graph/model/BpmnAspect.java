@@ -17,16 +17,65 @@
  */
 package io.zeebe.broker.workflow.graph.model;
 
+/**
+ * The id of an aspect is persisted with the serialized workflow and must not
+ * be changed or reused.
+ */
 public enum BpmnAspect
 {
-    NONE,
+    NONE(0),
 
     // event occurred, activity completed
-    TAKE_SEQUENCE_FLOW,
+    TAKE_SEQUENCE_FLOW(1),
 
     // end event, activity completed without outgoing sequence flow
-    CONSUME_TOKEN;
+    CONSUME_TOKEN(2);
 
     // CREATE_TOKEN -> parallel gateway, activity with multiple outgoing sequence flows
 
+    private static final BpmnAspect[] ASPECTS_BY_ID;
+
+    static
+    {
+        int maxId = 0;
+        for (BpmnAspect aspect : values())
+        {
+            maxId = Math.max(maxId, aspect.id);
+        }
+
+        ASPECTS_BY_ID = new BpmnAspect[maxId + 1];
+        for (BpmnAspect aspect : values())
+        {
+            ASPECTS_BY_ID[aspect.id] = aspect;
+        }
+    }
+
+    private final byte id;
+
+    BpmnAspect(int id)
+    {
+        this.id = (byte) id;
+    }
+
+    public byte getId()
+    {
+        return id;
+    }
+
+    /**
+     * @return the aspect with the given id, or <code>null</code> if no aspect
+     *         has this id
+     */
+    public static BpmnAspect fromId(byte id)
+    {
+        if (id >= 0 && id < ASPECTS_BY_ID.length)
+        {
+            return ASPECTS_BY_ID[id];
+        }
+        else
+        {
+            return null;
+        }
+    }
+
 }
@@ -24,6 +24,7 @@ import io.zeebe.util.buffer.BufferUtil;
 public class ExecutableFlowElement
 {
     private DirectBuffer id;
+    private int index = -1;
 
     private String name;
     private ExecutableScope flowScope;
@@ -39,6 +40,20 @@ public class ExecutableFlowElement
         return id;
     }
 
+    /**
+     * @return the position of the element in the workflow, or -1 if the
+     *         element is not part of a workflow
+     */
+    public int getIndex()
+    {
+        return index;
+    }
+
+    public void setIndex(int index)
+    {
+        this.index = index;
+    }
+
     public String getName()
     {
         return name;
@@ -17,7 +17,9 @@
  */
 package io.zeebe.broker.workflow.graph.model;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.agrona.DirectBuffer;
@@ -25,6 +27,7 @@ import org.agrona.DirectBuffer;
 public class ExecutableWorkflow extends ExecutableScope
 {
     private final Map<DirectBuffer, ExecutableFlowElement> flowElementMap = new HashMap<>();
+    private final List<ExecutableFlowElement> flowElementsByIndex = new ArrayList<>();
 
     private int version;
 
@@ -44,6 +47,40 @@ public class ExecutableWorkflow extends ExecutableScope
         return flowElementMap;
     }
 
+    /**
+     * Adds the element to the workflow and assigns the next index to it.
+     */
+    public void addFlowElement(ExecutableFlowElement flowElement)
+    {
+        flowElement.setIndex(flowElementsByIndex.size());
+
+        flowElementsByIndex.add(flowElement);
+        flowElementMap.put(flowElement.getId(), flowElement);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T extends ExecutableFlowElement> T getFlowElementByIndex(int index)
+    {
+        return (T) flowElementsByIndex.get(index);
+    }
+
+    /**
+     * Resolves the element by its index. Falls back to the id if the index is
+     * not set, e.g. for events which are written by a previous version.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends ExecutableFlowElement> T getFlowElement(int index, DirectBuffer id)
+    {
+        if (index >= 0 && index < flowElementsByIndex.size())
+        {
+            return (T) flowElementsByIndex.get(index);
+        }
+        else
+        {
+            return (T) flowElementMap.get(id);
+        }
+    }
+
     public void setVersion(int version)
     {
         this.version = version;
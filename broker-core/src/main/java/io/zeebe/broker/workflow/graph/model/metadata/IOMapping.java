@@ -23,11 +23,15 @@ import io.zeebe.msgpack.mapping.Mapping;
  * of a list of different input and output mapping's for a flow element.
  * Each input and output mapping has a source and target. The source and target
  * are represented via a json path expression.
+ *
+ * The mappings are compiled into a {@link MappingPlan} when they are set.
  */
 public class IOMapping
 {
     private Mapping inputMappings[];
     private Mapping outputMappings[];
+    private MappingPlan inputMappingPlan;
+    private MappingPlan outputMappingPlan;
 
     public Mapping[] getInputMappings()
     {
@@ -37,6 +41,7 @@ public class IOMapping
     public void setInputMappings(Mapping[] inputMappings)
     {
         this.inputMappings = inputMappings;
+        this.inputMappingPlan = MappingPlan.compile(inputMappings);
     }
 
     public Mapping[] getOutputMappings()
@@ -47,5 +52,16 @@ public class IOMapping
     public void setOutputMappings(Mapping[] outputMappings)
     {
         this.outputMappings = outputMappings;
+        this.outputMappingPlan = MappingPlan.compile(outputMappings);
+    }
+
+    public MappingPlan getInputMappingPlan()
+    {
+        return inputMappingPlan;
+    }
+
+    public MappingPlan getOutputMappingPlan()
+    {
+        return outputMappingPlan;
     }
 }
@@ -0,0 +1,122 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.workflow.graph.model.metadata;
+
+import static io.zeebe.util.buffer.BufferUtil.bufferAsString;
+import static io.zeebe.util.buffer.BufferUtil.wrapString;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.agrona.DirectBuffer;
+
+import io.zeebe.msgpack.mapping.Mapping;
+
+/**
+ * The mappings of an activity, compiled once when the workflow is deployed.
+ * If every mapping copies a top-level property of the source document to a
+ * top-level property of the target document (e.g. <code>$.orderId</code> to
+ * <code>$.id</code>), the plan holds the property names so that the payload
+ * can be mapped by a single scan of the msgpack document. Otherwise, the JSON
+ * path queries of the mappings are evaluated.
+ */
+public class MappingPlan
+{
+    private static final Pattern TOP_LEVEL_PROPERTY_PATTERN = Pattern.compile("\\$\\.([^.\\[\\]*()|,'\"\\s]+)");
+
+    private final Mapping[] mappings;
+    private final DirectBuffer[] sourceProperties;
+    private final DirectBuffer[] targetProperties;
+    private final boolean isTopLevelCopy;
+
+    protected MappingPlan(Mapping[] mappings, DirectBuffer[] sourceProperties, DirectBuffer[] targetProperties)
+    {
+        this.mappings = mappings;
+        this.sourceProperties = sourceProperties;
+        this.targetProperties = targetProperties;
+        this.isTopLevelCopy = mappings.length > 0 && sourceProperties != null;
+    }
+
+    public static MappingPlan compile(Mapping[] mappings)
+    {
+        final DirectBuffer[] sourceProperties = new DirectBuffer[mappings.length];
+        final DirectBuffer[] targetProperties = new DirectBuffer[mappings.length];
+        final Set<String> targetNames = new HashSet<>();
+
+        for (int i = 0; i < mappings.length; i++)
+        {
+            final String sourceName = getTopLevelProperty(bufferAsString(mappings[i].getSource().getExpression()));
+            final String targetName = getTopLevelProperty(bufferAsString(mappings[i].getTargetQueryBuffer()));
+
+            // a property can't be written twice into the same document
+            if (sourceName == null || targetName == null || !targetNames.add(targetName))
+            {
+                return new MappingPlan(mappings, null, null);
+            }
+
+            sourceProperties[i] = wrapString(sourceName);
+            targetProperties[i] = wrapString(targetName);
+        }
+
+        return new MappingPlan(mappings, sourceProperties, targetProperties);
+    }
+
+    private static String getTopLevelProperty(String jsonPath)
+    {
+        final Matcher matcher = TOP_LEVEL_PROPERTY_PATTERN.matcher(jsonPath);
+        return matcher.matches() ? matcher.group(1) : null;
+    }
+
+    public Mapping[] getMappings()
+    {
+        return mappings;
+    }
+
+    public boolean isEmpty()
+    {
+        return mappings.length == 0;
+    }
+
+    /**
+     * @return <code>true</code> if the plan only copies top-level properties
+     */
+    public boolean isTopLevelCopy()
+    {
+        return isTopLevelCopy;
+    }
+
+    /**
+     * @return the names of the copied properties of the source document, or
+     *         <code>null</code> if the plan is no top-level copy
+     */
+    public DirectBuffer[] getSourceProperties()
+    {
+        return sourceProperties;
+    }
+
+    /**
+     * @return the names of the written properties of the target document, or
+     *         <code>null</code> if the plan is no top-level copy
+     */
+    public DirectBuffer[] getTargetProperties()
+    {
+        return targetProperties;
+    }
+}
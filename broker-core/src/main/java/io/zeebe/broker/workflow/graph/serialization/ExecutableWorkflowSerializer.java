@@ -0,0 +1,422 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.workflow.graph.serialization;
+
+import static org.agrona.BitUtil.SIZE_OF_BYTE;
+import static org.agrona.BitUtil.SIZE_OF_INT;
+
+import java.nio.ByteOrder;
+
+import io.zeebe.broker.workflow.graph.model.BpmnAspect;
+import io.zeebe.broker.workflow.graph.model.ExecutableEndEvent;
+import io.zeebe.broker.workflow.graph.model.ExecutableFlowElement;
+import io.zeebe.broker.workflow.graph.model.ExecutableFlowNode;
+import io.zeebe.broker.workflow.graph.model.ExecutableSequenceFlow;
+import io.zeebe.broker.workflow.graph.model.ExecutableServiceTask;
+import io.zeebe.broker.workflow.graph.model.ExecutableStartEvent;
+import io.zeebe.broker.workflow.graph.model.ExecutableWorkflow;
+import io.zeebe.broker.workflow.graph.model.metadata.IOMapping;
+import io.zeebe.broker.workflow.graph.model.metadata.TaskMetadata;
+import io.zeebe.msgpack.jsonpath.JsonPathQueryCompiler;
+import io.zeebe.msgpack.mapping.Mapping;
+import io.zeebe.util.StringUtil;
+import io.zeebe.util.buffer.BufferUtil;
+import org.agrona.DirectBuffer;
+import org.agrona.ExpandableArrayBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+
+/**
+ * Writes a transformed workflow in a compact binary form and reads it again,
+ * so that the workflow graph can be restored without parsing the BPMN XML.
+ *
+ * <p>
+ * The flow elements are written in the order of their index. References
+ * between the elements (e.g. the outgoing sequence flows of a flow node) are
+ * written as index. A workflow consists of
+ *
+ * <li> format version
+ * <li> workflow id and name
+ * <li> flow elements (type, id, name)
+ * <li> details of the flow elements (depending on the type)
+ * <li> index of the start event
+ *
+ * <p>
+ * The aspect of a flow node is written as its id which doesn't depend on the
+ * order of the aspects.
+ */
+public class ExecutableWorkflowSerializer
+{
+    public static final byte FORMAT_VERSION = 1;
+
+    private static final byte TYPE_START_EVENT = 0;
+    private static final byte TYPE_END_EVENT = 1;
+    private static final byte TYPE_SERVICE_TASK = 2;
+    private static final byte TYPE_SEQUENCE_FLOW = 3;
+
+    private static final int NULL_LENGTH = -1;
+
+    private static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    private final ExpandableArrayBuffer writeBuffer = new ExpandableArrayBuffer();
+    private final UnsafeBuffer serializedWorkflow = new UnsafeBuffer(0, 0);
+
+    private final UnsafeBuffer readBuffer = new UnsafeBuffer(0, 0);
+
+    private int offset;
+
+    /**
+     * @return a view of the serialized workflow which is valid until the next
+     *         workflow is serialized
+     */
+    public DirectBuffer serialize(ExecutableWorkflow workflow)
+    {
+        offset = 0;
+
+        writeByte(FORMAT_VERSION);
+
+        writeBuffer(workflow.getId());
+        writeString(workflow.getName());
+
+        final int elementCount = workflow.getFlowElementMap().size();
+        writeInt(elementCount);
+
+        for (int i = 0; i < elementCount; i++)
+        {
+            final ExecutableFlowElement element = workflow.getFlowElementByIndex(i);
+
+            writeByte(getType(element));
+            writeBuffer(element.getId());
+            writeString(element.getName());
+        }
+
+        for (int i = 0; i < elementCount; i++)
+        {
+            final ExecutableFlowElement element = workflow.getFlowElementByIndex(i);
+
+            if (element instanceof ExecutableFlowNode)
+            {
+                writeFlowNode((ExecutableFlowNode) element);
+            }
+
+            if (element instanceof ExecutableServiceTask)
+            {
+                writeServiceTask((ExecutableServiceTask) element);
+            }
+            else if (element instanceof ExecutableSequenceFlow)
+            {
+                final ExecutableSequenceFlow sequenceFlow = (ExecutableSequenceFlow) element;
+
+                writeInt(sequenceFlow.getSourceNode().getIndex());
+                writeInt(sequenceFlow.getTargetNode().getIndex());
+            }
+        }
+
+        writeInt(workflow.getScopeStartEvent().getIndex());
+
+        serializedWorkflow.wrap(writeBuffer, 0, offset);
+        return serializedWorkflow;
+    }
+
+    /**
+     * @return the workflow, or <code>null</code> if it is serialized in
+     *         another format version
+     */
+    public ExecutableWorkflow deserialize(DirectBuffer buffer, int offset, int length)
+    {
+        readBuffer.wrap(buffer, offset, length);
+        this.offset = 0;
+
+        if (readByte() != FORMAT_VERSION)
+        {
+            return null;
+        }
+
+        final ExecutableWorkflow workflow = new ExecutableWorkflow();
+        workflow.setId(readString());
+        workflow.setName(readString());
+
+        final int elementCount = readInt();
+        final ExecutableFlowElement[] elements = new ExecutableFlowElement[elementCount];
+
+        for (int i = 0; i < elementCount; i++)
+        {
+            final ExecutableFlowElement element = createElement(readByte());
+
+            element.setId(readString());
+            element.setName(readString());
+            element.setFlowScope(workflow);
+            element.setWorkflow(workflow);
+
+            workflow.addFlowElement(element);
+            elements[i] = element;
+        }
+
+        for (int i = 0; i < elementCount; i++)
+        {
+            final ExecutableFlowElement element = elements[i];
+
+            if (element instanceof ExecutableFlowNode)
+            {
+                readFlowNode((ExecutableFlowNode) element, workflow);
+            }
+
+            if (element instanceof ExecutableServiceTask)
+            {
+                readServiceTask((ExecutableServiceTask) element);
+            }
+            else if (element instanceof ExecutableSequenceFlow)
+            {
+                final ExecutableSequenceFlow sequenceFlow = (ExecutableSequenceFlow) element;
+
+                sequenceFlow.setSourceNode(workflow.getFlowElementByIndex(readInt()));
+                sequenceFlow.setTargetNode(workflow.getFlowElementByIndex(readInt()));
+            }
+        }
+
+        workflow.setFlowElements(elements);
+        workflow.setScopeStartEvent(workflow.getFlowElementByIndex(readInt()));
+
+        return workflow;
+    }
+
+    private static byte getType(ExecutableFlowElement element)
+    {
+        if (element instanceof ExecutableStartEvent)
+        {
+            return TYPE_START_EVENT;
+        }
+        else if (element instanceof ExecutableEndEvent)
+        {
+            return TYPE_END_EVENT;
+        }
+        else if (element instanceof ExecutableServiceTask)
+        {
+            return TYPE_SERVICE_TASK;
+        }
+        else if (element instanceof ExecutableSequenceFlow)
+        {
+            return TYPE_SEQUENCE_FLOW;
+        }
+        else
+        {
+            throw new RuntimeException("Cannot serialize flow element of type " + element.getClass());
+        }
+    }
+
+    private static ExecutableFlowElement createElement(byte type)
+    {
+        switch (type)
+        {
+            case TYPE_START_EVENT:
+                return new ExecutableStartEvent();
+            case TYPE_END_EVENT:
+                return new ExecutableEndEvent();
+            case TYPE_SERVICE_TASK:
+                return new ExecutableServiceTask();
+            case TYPE_SEQUENCE_FLOW:
+                return new ExecutableSequenceFlow();
+            default:
+                throw new RuntimeException("Cannot deserialize flow element of type " + type);
+        }
+    }
+
+    private void writeFlowNode(ExecutableFlowNode flowNode)
+    {
+        writeByte(flowNode.getBpmnAspect().getId());
+        writeSequenceFlows(flowNode.getOutgoingSequenceFlows());
+        writeSequenceFlows(flowNode.getIncomingSequenceFlows());
+    }
+
+    private void readFlowNode(ExecutableFlowNode flowNode, ExecutableWorkflow workflow)
+    {
+        final byte aspectId = readByte();
+        final BpmnAspect aspect = BpmnAspect.fromId(aspectId);
+        if (aspect == null)
+        {
+            throw new RuntimeException("Cannot deserialize flow node with aspect " + aspectId);
+        }
+
+        flowNode.setBpmnAspect(aspect);
+        flowNode.setOutgoingSequenceFlows(readSequenceFlows(workflow));
+        flowNode.setIncomingSequenceFlows(readSequenceFlows(workflow));
+    }
+
+    private void writeSequenceFlows(ExecutableSequenceFlow[] sequenceFlows)
+    {
+        writeInt(sequenceFlows.length);
+
+        for (int i = 0; i < sequenceFlows.length; i++)
+        {
+            writeInt(sequenceFlows[i].getIndex());
+        }
+    }
+
+    private ExecutableSequenceFlow[] readSequenceFlows(ExecutableWorkflow workflow)
+    {
+        final ExecutableSequenceFlow[] sequenceFlows = new ExecutableSequenceFlow[readInt()];
+
+        for (int i = 0; i < sequenceFlows.length; i++)
+        {
+            sequenceFlows[i] = workflow.getFlowElementByIndex(readInt());
+        }
+
+        return sequenceFlows;
+    }
+
+    private void writeServiceTask(ExecutableServiceTask serviceTask)
+    {
+        final TaskMetadata taskMetadata = serviceTask.getTaskMetadata();
+
+        writeBuffer(taskMetadata.getTaskType());
+        writeInt(taskMetadata.getRetries());
+        writeBuffer(taskMetadata.getHeaders());
+
+        final IOMapping ioMapping = serviceTask.getIoMapping();
+
+        writeMappings(ioMapping.getInputMappings());
+        writeMappings(ioMapping.getOutputMappings());
+    }
+
+    private void readServiceTask(ExecutableServiceTask serviceTask)
+    {
+        final TaskMetadata taskMetadata = new TaskMetadata();
+
+        taskMetadata.setTaskType(readBuffer());
+        taskMetadata.setRetries(readInt());
+        taskMetadata.setHeaders(readBuffer());
+
+        serviceTask.setTaskMetadata(taskMetadata);
+
+        final IOMapping ioMapping = new IOMapping();
+
+        ioMapping.setInputMappings(readMappings());
+        ioMapping.setOutputMappings(readMappings());
+
+        serviceTask.setIoMapping(ioMapping);
+    }
+
+    private void writeMappings(Mapping[] mappings)
+    {
+        writeInt(mappings.length);
+
+        for (int i = 0; i < mappings.length; i++)
+        {
+            final Mapping mapping = mappings[i];
+
+            writeBuffer(mapping.getSource().getExpression());
+            writeBuffer(mapping.getTargetQueryBuffer());
+        }
+    }
+
+    private Mapping[] readMappings()
+    {
+        final Mapping[] mappings = new Mapping[readInt()];
+
+        for (int i = 0; i < mappings.length; i++)
+        {
+            final DirectBuffer sourceQuery = readBuffer();
+            final DirectBuffer targetQuery = readBuffer();
+
+            // the compiler returns the same query instance for each expression
+            final JsonPathQueryCompiler queryCompiler = new JsonPathQueryCompiler();
+            mappings[i] = new Mapping(queryCompiler.compile(sourceQuery, 0, sourceQuery.capacity()), targetQuery);
+        }
+
+        return mappings;
+    }
+
+    private void writeByte(byte value)
+    {
+        writeBuffer.putByte(offset, value);
+        offset += SIZE_OF_BYTE;
+    }
+
+    private void writeInt(int value)
+    {
+        writeBuffer.putInt(offset, value, BYTE_ORDER);
+        offset += SIZE_OF_INT;
+    }
+
+    private void writeString(String value)
+    {
+        if (value != null)
+        {
+            writeBuffer(BufferUtil.wrapString(value));
+        }
+        else
+        {
+            writeInt(NULL_LENGTH);
+        }
+    }
+
+    private void writeBuffer(DirectBuffer value)
+    {
+        final int length = value.capacity();
+
+        writeInt(length);
+        writeBuffer.putBytes(offset, value, 0, length);
+        offset += length;
+    }
+
+    private byte readByte()
+    {
+        final byte value = readBuffer.getByte(offset);
+        offset += SIZE_OF_BYTE;
+        return value;
+    }
+
+    private int readInt()
+    {
+        final int value = readBuffer.getInt(offset, BYTE_ORDER);
+        offset += SIZE_OF_INT;
+        return value;
+    }
+
+    private String readString()
+    {
+        final int length = readInt();
+
+        if (length != NULL_LENGTH)
+        {
+            final byte[] bytes = new byte[length];
+            readBuffer.getBytes(offset, bytes);
+            offset += length;
+
+            return StringUtil.fromBytes(bytes);
+        }
+        else
+        {
+            return null;
+        }
+    }
+
+    /**
+     * @return a copy of the buffer, so that it is independent of the
+     *         serialized workflow
+     */
+    private DirectBuffer readBuffer()
+    {
+        final int length = readInt();
+
+        final DirectBuffer value = BufferUtil.cloneBuffer(readBuffer, offset, length);
+        offset += length;
+
+        return value;
+    }
+
+}
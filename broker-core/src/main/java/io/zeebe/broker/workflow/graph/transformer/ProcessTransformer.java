@@ -65,7 +65,8 @@ public class ProcessTransformer implements BpmnElementTransformer<Process, Execu
             executableElement.setFlowScope(scope);
             executableElement.setWorkflow(executableWorkflow);
 
-            executableWorkflow.getFlowElementMap().put(executableElement.getId(), executableElement);
+            // the index is assigned in document order, so that it is the same each time the workflow is transformed
+            executableWorkflow.addFlowElement(executableElement);
 
             executableFlowElements.put(flowElement, executableElement);
         }
@@ -21,6 +21,7 @@ import static org.agrona.BitUtil.*;
 
 import java.nio.ByteOrder;
 
+import io.zeebe.broker.logstreams.snapshot.Long2BytesZbMapDelta;
 import io.zeebe.broker.workflow.graph.transformer.BpmnTransformer;
 import io.zeebe.logstreams.snapshot.ZbMapSnapshotSupport;
 import io.zeebe.map.Long2BytesZbMap;
@@ -31,16 +32,18 @@ import org.agrona.concurrent.UnsafeBuffer;
  * Maps <b>activity instance key</b> to
  *
  * <li>task instance key
+ * <li>activity index
  * <li>activity id length
  * <li>activity id (max 255 chars)
  */
 public class ActivityInstanceMap implements AutoCloseable
 {
     private static final int SIZE_OF_ACTIVITY_ID = BpmnTransformer.ID_MAX_LENGTH * SIZE_OF_CHAR;
-    private static final int INDEX_VALUE_SIZE = SIZE_OF_LONG + SIZE_OF_INT + SIZE_OF_ACTIVITY_ID;
+    private static final int INDEX_VALUE_SIZE = SIZE_OF_LONG + SIZE_OF_INT + SIZE_OF_INT + SIZE_OF_ACTIVITY_ID;
 
     private static final int TASK_KEY_OFFSET = 0;
-    private static final int ACTIVITY_ID_LENGTH_OFFSET = TASK_KEY_OFFSET + SIZE_OF_LONG;
+    private static final int ACTIVITY_INDEX_OFFSET = TASK_KEY_OFFSET + SIZE_OF_LONG;
+    private static final int ACTIVITY_ID_LENGTH_OFFSET = ACTIVITY_INDEX_OFFSET + SIZE_OF_INT;
     private static final int ACTIVITY_ID_OFFSET = ACTIVITY_ID_LENGTH_OFFSET + SIZE_OF_INT;
 
     private static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
@@ -51,6 +54,7 @@ public class ActivityInstanceMap implements AutoCloseable
 
     private final Long2BytesZbMap map;
     private final ZbMapSnapshotSupport<Long2BytesZbMap> snapshotSupport;
+    private final Long2BytesZbMapDelta delta;
 
     private long key;
     private boolean isRead = false;
@@ -59,6 +63,7 @@ public class ActivityInstanceMap implements AutoCloseable
     {
         this.map = new Long2BytesZbMap(INDEX_VALUE_SIZE);
         this.snapshotSupport = new ZbMapSnapshotSupport<>(map);
+        this.delta = new Long2BytesZbMapDelta(map, snapshotSupport, INDEX_VALUE_SIZE);
     }
 
     public ZbMapSnapshotSupport<Long2BytesZbMap> getSnapshotSupport()
@@ -66,6 +71,11 @@ public class ActivityInstanceMap implements AutoCloseable
         return snapshotSupport;
     }
 
+    public Long2BytesZbMapDelta getDelta()
+    {
+        return delta;
+    }
+
     public void reset()
     {
         isRead = false;
@@ -74,6 +84,7 @@ public class ActivityInstanceMap implements AutoCloseable
     public void remove(long activityInstanceKey)
     {
         map.remove(activityInstanceKey, rawBuffer);
+        delta.markDirty(activityInstanceKey);
     }
 
     public ActivityInstanceMap wrapActivityInstanceKey(long key)
@@ -89,6 +100,11 @@ public class ActivityInstanceMap implements AutoCloseable
         return isRead ? buffer.getLong(TASK_KEY_OFFSET, BYTE_ORDER) : -1L;
     }
 
+    public int getActivityIndex()
+    {
+        return isRead ? buffer.getInt(ACTIVITY_INDEX_OFFSET, BYTE_ORDER) : -1;
+    }
+
     public DirectBuffer getActivityId()
     {
         if (isRead)
@@ -115,6 +131,7 @@ public class ActivityInstanceMap implements AutoCloseable
     {
         ensureRead();
         map.put(key, buffer.byteArray());
+        delta.markDirty(key);
     }
 
     public ActivityInstanceMap setActivityId(DirectBuffer activityId)
@@ -125,6 +142,13 @@ public class ActivityInstanceMap implements AutoCloseable
         return this;
     }
 
+    public ActivityInstanceMap setActivityIndex(int activityIndex)
+    {
+        ensureRead();
+        buffer.putInt(ACTIVITY_INDEX_OFFSET, activityIndex, BYTE_ORDER);
+        return this;
+    }
+
     public ActivityInstanceMap setTaskKey(long taskKey)
     {
         ensureRead();
@@ -17,21 +17,33 @@
  */
 package io.zeebe.broker.workflow.map;
 
+import io.zeebe.broker.logstreams.snapshot.Long2LongZbMapDelta;
+import io.zeebe.broker.util.cache.OffHeapBufferCache;
 import io.zeebe.broker.workflow.data.WorkflowInstanceEvent;
 import io.zeebe.logstreams.log.LogStreamReader;
 import io.zeebe.logstreams.log.LoggedEvent;
 import io.zeebe.logstreams.snapshot.ZbMapSnapshotSupport;
 import io.zeebe.map.Long2LongZbMap;
-import io.zeebe.util.cache.ExpandableBufferCache;
 import org.agrona.DirectBuffer;
+import org.agrona.concurrent.status.AtomicCounter;
+import org.agrona.concurrent.status.CountersManager;
 
 /**
- * Cache of workflow instance payload. It contains an LRU cache of the payload
- * and an map which holds the position of the payload events.
+ * Cache of workflow instance payload. It contains an off-heap cache of the
+ * payload which is bounded by its size in bytes and an map which holds the
+ * position of the payload events.
  *
  * <p>
  * When a payload is requested then the it is returned from the cache. If it is
  * not present in the cache then the payload event is seek in the log stream.
+ *
+ * <p>
+ * The cache is also used to resolve the payload references of workflow
+ * instance events, which are keyed by the position of the referenced event.
+ *
+ * <p>
+ * The hits, misses and evictions of the cache are counted and can be exposed
+ * as counters.
  */
 public class PayloadCache implements AutoCloseable
 {
@@ -39,17 +51,46 @@ public class PayloadCache implements AutoCloseable
 
     private final Long2LongZbMap map;
     private final ZbMapSnapshotSupport<Long2LongZbMap> snapshotSupport;
+    private final Long2LongZbMapDelta delta;
 
-    private final ExpandableBufferCache cache;
+    private final OffHeapBufferCache cache;
     private final LogStreamReader logStreamReader;
 
-    public PayloadCache(int cacheSize, LogStreamReader logStreamReader)
+    private long hitCount = 0;
+    private long missCount = 0;
+    private long evictionCount = 0;
+
+    private AtomicCounter hitCounter;
+    private AtomicCounter missCounter;
+    private AtomicCounter evictionCounter;
+
+    /**
+     * @param cacheCapacity
+     *            the size of the cache in bytes
+     */
+    public PayloadCache(int cacheCapacity, LogStreamReader logStreamReader)
     {
         this.map = new Long2LongZbMap();
         this.snapshotSupport = new ZbMapSnapshotSupport<>(map);
+        this.delta = new Long2LongZbMapDelta(map, snapshotSupport, -1L);
 
         this.logStreamReader = logStreamReader;
-        this.cache = new ExpandableBufferCache(cacheSize, 1024, this::lookupPayload);
+        this.cache = new OffHeapBufferCache(cacheCapacity, position -> onEviction());
+    }
+
+    /**
+     * Exposes the hits, misses and evictions as counters with the given
+     * prefix. The counters are freed when the cache is closed.
+     */
+    public void registerCounters(CountersManager countersManager, String prefix)
+    {
+        hitCounter = countersManager.newCounter(prefix + ".payloadCache.hits");
+        missCounter = countersManager.newCounter(prefix + ".payloadCache.misses");
+        evictionCounter = countersManager.newCounter(prefix + ".payloadCache.evictions");
+
+        hitCounter.setOrdered(hitCount);
+        missCounter.setOrdered(missCount);
+        evictionCounter.setOrdered(evictionCount);
     }
 
     private DirectBuffer lookupPayload(long position)
@@ -72,26 +113,107 @@ public class PayloadCache implements AutoCloseable
 
     public DirectBuffer getPayload(long workflowInstanceKey)
     {
-        DirectBuffer payload = null;
-
         final long position = map.get(workflowInstanceKey, -1L);
 
-        if (position > 0)
+        return position > 0 ? getPayloadAt(position) : WorkflowInstanceEvent.NO_PAYLOAD;
+    }
+
+    /**
+     * @return the payload of the event at the given position
+     * @throws IllegalStateException
+     *             if the event is not available
+     */
+    public DirectBuffer getPayloadAt(long position)
+    {
+        DirectBuffer payload = cache.get(position);
+
+        if (payload != null)
+        {
+            onHit();
+        }
+        else
         {
-            payload = cache.get(position);
+            onMiss();
+
+            payload = lookupPayload(position);
+            if (payload == null)
+            {
+                throw new IllegalStateException(String.format("Cannot find payload. The event at position %d is not available.", position));
+            }
+
+            cache.put(position, payload);
         }
-        return payload == null ? WorkflowInstanceEvent.NO_PAYLOAD : payload;
+        return payload;
     }
 
     public void addPayload(long workflowInstanceKey, long payloadEventPosition, DirectBuffer payload)
     {
+        final long previousPosition = map.get(workflowInstanceKey, -1L);
+        if (previousPosition > 0 && previousPosition != payloadEventPosition)
+        {
+            cache.remove(previousPosition);
+        }
+
         map.put(workflowInstanceKey, payloadEventPosition);
-        cache.put(payloadEventPosition, payload);
+        delta.markDirty(workflowInstanceKey);
+
+        // the payload can be a view of the cached entry if it is resolved from a reference
+        if (cache.get(payloadEventPosition) == null)
+        {
+            cache.put(payloadEventPosition, payload);
+        }
     }
 
     public void remove(long workflowInstanceKey)
     {
-        map.remove(workflowInstanceKey, -1L);
+        final long position = map.remove(workflowInstanceKey, -1L);
+        delta.markDirty(workflowInstanceKey);
+        if (position > 0)
+        {
+            cache.remove(position);
+        }
+    }
+
+    public long getHitCount()
+    {
+        return hitCount;
+    }
+
+    public long getMissCount()
+    {
+        return missCount;
+    }
+
+    public long getEvictionCount()
+    {
+        return evictionCount;
+    }
+
+    private void onHit()
+    {
+        hitCount += 1;
+        if (hitCounter != null)
+        {
+            hitCounter.orderedIncrement();
+        }
+    }
+
+    private void onMiss()
+    {
+        missCount += 1;
+        if (missCounter != null)
+        {
+            missCounter.orderedIncrement();
+        }
+    }
+
+    private void onEviction()
+    {
+        evictionCount += 1;
+        if (evictionCounter != null)
+        {
+            evictionCounter.orderedIncrement();
+        }
     }
 
     public ZbMapSnapshotSupport<Long2LongZbMap> getSnapshotSupport()
@@ -99,10 +221,23 @@ public class PayloadCache implements AutoCloseable
         return snapshotSupport;
     }
 
+    public Long2LongZbMapDelta getDelta()
+    {
+        return delta;
+    }
+
     @Override
     public void close()
     {
         map.close();
+        cache.close();
+
+        if (hitCounter != null)
+        {
+            hitCounter.close();
+            missCounter.close();
+            evictionCounter.close();
+        }
     }
 
 }
@@ -24,6 +24,7 @@ import java.nio.ByteOrder;
 
 import io.zeebe.broker.workflow.data.WorkflowEvent;
 import io.zeebe.broker.workflow.graph.model.ExecutableWorkflow;
+import io.zeebe.broker.workflow.graph.serialization.ExecutableWorkflowSerializer;
 import io.zeebe.broker.workflow.graph.transformer.BpmnTransformer;
 import io.zeebe.logstreams.log.LogStreamReader;
 import io.zeebe.logstreams.log.LoggedEvent;
@@ -41,7 +42,9 @@ import org.agrona.concurrent.UnsafeBuffer;
  * <p>
  * When a workflow is requested then the parsed workflow is returned from the
  * cache. If it is not present in the cache then the deployed event is seek in
- * the log stream.
+ * the log stream. The workflow is restored from its serialized form which is
+ * part of the event. Only if the event doesn't contain it (i.e. it is written
+ * by a previous version) then the BPMN XML is parsed.
  */
 public class WorkflowDeploymentCache implements AutoCloseable
 {
@@ -55,6 +58,7 @@ public class WorkflowDeploymentCache implements AutoCloseable
 
     private final WorkflowEvent workflowEvent = new WorkflowEvent();
     private final BpmnTransformer bpmnTransformer = new BpmnTransformer();
+    private final ExecutableWorkflowSerializer workflowSerializer = new ExecutableWorkflowSerializer();
 
     private final Bytes2LongZbMap idVersionToKeyMap;
 
@@ -133,8 +137,17 @@ public class WorkflowDeploymentCache implements AutoCloseable
             workflowEvent.reset();
             event.readValue(workflowEvent);
 
-            // currently, it can only be one
-            workflow = bpmnTransformer.transform(workflowEvent.getBpmnXml()).get(0);
+            final DirectBuffer executableWorkflow = workflowEvent.getExecutableWorkflow();
+            if (executableWorkflow.capacity() > 0)
+            {
+                workflow = workflowSerializer.deserialize(executableWorkflow, 0, executableWorkflow.capacity());
+            }
+
+            if (workflow == null)
+            {
+                // currently, it can only be one
+                workflow = bpmnTransformer.transform(workflowEvent.getBpmnXml()).get(0);
+            }
 
             workflow.setVersion(workflowEvent.getVersion());
         }
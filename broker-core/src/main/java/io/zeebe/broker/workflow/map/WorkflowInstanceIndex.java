@@ -22,6 +22,7 @@ import static org.agrona.BitUtil.SIZE_OF_LONG;
 
 import java.nio.ByteOrder;
 
+import io.zeebe.broker.logstreams.snapshot.Long2BytesZbMapDelta;
 import io.zeebe.logstreams.snapshot.ZbMapSnapshotSupport;
 import io.zeebe.map.Long2BytesZbMap;
 import org.agrona.concurrent.UnsafeBuffer;
@@ -32,14 +33,16 @@ import org.agrona.concurrent.UnsafeBuffer;
  * <li>workflow instance event position
  * <li>active token count
  * <li>activity instance key
+ * <li>chained event count
  */
 public class WorkflowInstanceIndex implements AutoCloseable
 {
-    private static final int INDEX_VALUE_SIZE = SIZE_OF_LONG + SIZE_OF_INT + SIZE_OF_LONG;
+    private static final int INDEX_VALUE_SIZE = SIZE_OF_LONG + SIZE_OF_INT + SIZE_OF_LONG + SIZE_OF_INT;
 
     private static final int POSITION_OFFSET = 0;
     private static final int TOKEN_COUNT_OFFSET = POSITION_OFFSET + SIZE_OF_LONG;
     private static final int ACTIVITY_INSTANCE_KEY_OFFSET = TOKEN_COUNT_OFFSET + SIZE_OF_INT;
+    private static final int CHAINED_EVENT_COUNT_OFFSET = ACTIVITY_INSTANCE_KEY_OFFSET + SIZE_OF_LONG;
 
     private static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
 
@@ -48,6 +51,7 @@ public class WorkflowInstanceIndex implements AutoCloseable
 
     private final Long2BytesZbMap map;
     private final ZbMapSnapshotSupport<Long2BytesZbMap> snapshotSupport;
+    private final Long2BytesZbMapDelta delta;
 
     private long key;
     private boolean isRead = false;
@@ -56,6 +60,7 @@ public class WorkflowInstanceIndex implements AutoCloseable
     {
         this.map = new Long2BytesZbMap(INDEX_VALUE_SIZE);
         this.snapshotSupport = new ZbMapSnapshotSupport<>(map);
+        this.delta = new Long2BytesZbMapDelta(map, snapshotSupport, INDEX_VALUE_SIZE);
     }
 
     public ZbMapSnapshotSupport<Long2BytesZbMap> getSnapshotSupport()
@@ -63,6 +68,11 @@ public class WorkflowInstanceIndex implements AutoCloseable
         return snapshotSupport;
     }
 
+    public Long2BytesZbMapDelta getDelta()
+    {
+        return delta;
+    }
+
     public void reset()
     {
         isRead = false;
@@ -71,6 +81,7 @@ public class WorkflowInstanceIndex implements AutoCloseable
     public void remove(long workflowInstanceKey)
     {
         map.remove(workflowInstanceKey, rawBuffer);
+        delta.markDirty(workflowInstanceKey);
     }
 
     public WorkflowInstanceIndex wrapWorkflowInstanceKey(long key)
@@ -96,6 +107,15 @@ public class WorkflowInstanceIndex implements AutoCloseable
         return isRead ? buffer.getLong(ACTIVITY_INSTANCE_KEY_OFFSET, BYTE_ORDER) : -1L;
     }
 
+    /**
+     * @return the number of following events of the workflow instance which are
+     *         already processed, since they were written as part of a chain
+     */
+    public int getChainedEventCount()
+    {
+        return isRead ? buffer.getInt(CHAINED_EVENT_COUNT_OFFSET, BYTE_ORDER) : -1;
+    }
+
     public WorkflowInstanceIndex newWorkflowInstance(long workflowInstanceKey)
     {
         key = workflowInstanceKey;
@@ -107,6 +127,7 @@ public class WorkflowInstanceIndex implements AutoCloseable
     {
         ensureRead();
         map.put(key, buffer.byteArray());
+        delta.markDirty(key);
     }
 
     public WorkflowInstanceIndex setPosition(long position)
@@ -130,6 +151,13 @@ public class WorkflowInstanceIndex implements AutoCloseable
         return this;
     }
 
+    public WorkflowInstanceIndex setChainedEventCount(int chainedEventCount)
+    {
+        ensureRead();
+        buffer.putInt(CHAINED_EVENT_COUNT_OFFSET, chainedEventCount, BYTE_ORDER);
+        return this;
+    }
+
     private void ensureRead()
     {
         if (!isRead)
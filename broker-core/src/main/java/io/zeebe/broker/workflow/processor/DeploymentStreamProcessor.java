@@ -33,6 +33,7 @@ import io.zeebe.broker.workflow.data.WorkflowEvent;
 import io.zeebe.broker.workflow.data.WorkflowState;
 import io.zeebe.broker.workflow.graph.WorkflowValidationResultFormatter;
 import io.zeebe.broker.workflow.graph.model.ExecutableWorkflow;
+import io.zeebe.broker.workflow.graph.serialization.ExecutableWorkflowSerializer;
 import io.zeebe.broker.workflow.graph.transformer.BpmnTransformer;
 import io.zeebe.logstreams.log.*;
 import io.zeebe.logstreams.processor.EventProcessor;
@@ -44,6 +45,7 @@ import io.zeebe.map.Bytes2LongZbMap;
 import io.zeebe.protocol.Protocol;
 import io.zeebe.protocol.clientapi.EventType;
 import io.zeebe.protocol.impl.BrokerEventMetadata;
+import io.zeebe.util.buffer.BufferUtil;
 import org.agrona.DirectBuffer;
 import org.camunda.bpm.model.bpmn.BpmnModelInstance;
 import org.camunda.bpm.model.xml.validation.ValidationResults;
@@ -57,6 +59,7 @@ public class DeploymentStreamProcessor implements StreamProcessor, EventProcesso
     protected final WorkflowEvent workflowEvent = new WorkflowEvent();
 
     protected final BpmnTransformer bpmnTransformer = new BpmnTransformer();
+    protected final ExecutableWorkflowSerializer workflowSerializer = new ExecutableWorkflowSerializer();
     protected final WorkflowValidationResultFormatter validationResultFormatter = new WorkflowValidationResultFormatter();
 
     protected final CommandResponseWriter responseWriter;
@@ -195,7 +198,10 @@ public class DeploymentStreamProcessor implements StreamProcessor, EventProcesso
             .setBpmnProcessId(bpmnProcessId)
             .setVersion(version);
 
-        deployedWorkflows.add(new DeployedWorkflow(bpmnProcessId, version));
+        // the serialized workflow is written with the workflow event, so that it doesn't have to be parsed again
+        final DirectBuffer executableWorkflow = BufferUtil.cloneBuffer(workflowSerializer.serialize(workflow));
+
+        deployedWorkflows.add(new DeployedWorkflow(bpmnProcessId, version, executableWorkflow));
     }
 
     protected String generateErrorMessage(final ValidationResults validationResults)
@@ -261,7 +267,8 @@ public class DeploymentStreamProcessor implements StreamProcessor, EventProcesso
                 .setBpmnProcessId(deployedWorkflow.getBpmnProcessId())
                 .setVersion(deployedWorkflow.getVersion())
                 .setBpmnXml(deploymentEvent.getBpmnXml())
-                .setDeploymentKey(eventKey);
+                .setDeploymentKey(eventKey)
+                .setExecutableWorkflow(deployedWorkflow.getExecutableWorkflow());
 
             logStreamBatchWriter.event()
                 .positionAsKey()
@@ -288,11 +295,13 @@ public class DeploymentStreamProcessor implements StreamProcessor, EventProcesso
     {
         private final DirectBuffer bpmnProcessId;
         private final int version;
+        private final DirectBuffer executableWorkflow;
 
-        DeployedWorkflow(DirectBuffer bpmnProcessId, int version)
+        DeployedWorkflow(DirectBuffer bpmnProcessId, int version, DirectBuffer executableWorkflow)
         {
             this.bpmnProcessId = bpmnProcessId;
             this.version = version;
+            this.executableWorkflow = executableWorkflow;
         }
 
         public DirectBuffer getBpmnProcessId()
@@ -304,6 +313,11 @@ public class DeploymentStreamProcessor implements StreamProcessor, EventProcesso
         {
             return version;
         }
+
+        public DirectBuffer getExecutableWorkflow()
+        {
+            return executableWorkflow;
+        }
     }
 
 }
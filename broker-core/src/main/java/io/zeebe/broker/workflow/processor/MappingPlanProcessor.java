@@ -0,0 +1,353 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.workflow.processor;
+
+import java.util.Arrays;
+
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import io.zeebe.broker.workflow.graph.model.metadata.MappingPlan;
+import io.zeebe.msgpack.mapping.MappingProcessor;
+import io.zeebe.msgpack.spec.MsgPackFormat;
+import io.zeebe.msgpack.spec.MsgPackReader;
+import io.zeebe.msgpack.spec.MsgPackType;
+import io.zeebe.msgpack.spec.MsgPackWriter;
+
+/**
+ * Executes a {@link MappingPlan}. A plan which only copies top-level
+ * properties is executed by scanning the msgpack documents once and copying
+ * the values as they are. If the plan has other mappings or a document is
+ * not as expected (e.g. a source property is missing), the mappings are
+ * executed by the {@link MappingProcessor} which also reports the error.
+ */
+public class MappingPlanProcessor
+{
+    // map32 header and str32 header
+    private static final int MAX_HEADER_LENGTH = 5;
+
+    protected final MappingProcessor mappingProcessor;
+
+    protected final MsgPackReader reader = new MsgPackReader();
+    protected final MsgPackWriter writer = new MsgPackWriter();
+
+    protected final UnsafeBuffer resultBuffer;
+    protected MutableDirectBuffer currentResultBuffer;
+
+    // indexed like the properties of the plan
+    protected int[] valueOffsets = new int[0];
+    protected int[] valueLengths = new int[0];
+    protected boolean[] isTargetPropertyPresent = new boolean[0];
+
+    public MappingPlanProcessor(int initialBufferCapacity)
+    {
+        this.mappingProcessor = new MappingProcessor(initialBufferCapacity);
+        this.resultBuffer = new UnsafeBuffer(new byte[initialBufferCapacity]);
+    }
+
+    /**
+     * Extracts the mapped properties of the given document into a new
+     * document.
+     *
+     * @return the length of the result which is written to {@link #getResultBuffer()}
+     */
+    public int extract(DirectBuffer document, MappingPlan plan)
+    {
+        if (plan.isTopLevelCopy() && scanSourceProperties(document, plan))
+        {
+            final DirectBuffer[] targetProperties = plan.getTargetProperties();
+            ensureResultCapacity(MAX_HEADER_LENGTH + getCopiedLength(targetProperties));
+
+            writer.wrap(resultBuffer, 0);
+            writer.writeMapHeader(targetProperties.length);
+
+            int offset = writer.getOffset();
+            for (int i = 0; i < targetProperties.length; i++)
+            {
+                offset = writeProperty(offset, targetProperties[i], document, valueOffsets[i], valueLengths[i]);
+            }
+
+            currentResultBuffer = resultBuffer;
+            return offset;
+        }
+        else
+        {
+            final int resultLength = mappingProcessor.extract(document, plan.getMappings());
+            currentResultBuffer = mappingProcessor.getResultBuffer();
+            return resultLength;
+        }
+    }
+
+    /**
+     * Merges the mapped properties of the source document into the target
+     * document. Existing properties of the target document are replaced.
+     *
+     * @return the length of the result which is written to {@link #getResultBuffer()}
+     */
+    public int merge(DirectBuffer sourceDocument, DirectBuffer targetDocument, MappingPlan plan)
+    {
+        if (plan.isTopLevelCopy()
+                && scanSourceProperties(sourceDocument, plan)
+                && scanTargetProperties(targetDocument, plan))
+        {
+            final DirectBuffer[] targetProperties = plan.getTargetProperties();
+            ensureResultCapacity(MAX_HEADER_LENGTH + targetDocument.capacity() + getCopiedLength(targetProperties));
+
+            reader.wrap(targetDocument, 0, targetDocument.capacity());
+            final int size = reader.readMapHeader();
+
+            int addedProperties = 0;
+            for (int i = 0; i < targetProperties.length; i++)
+            {
+                if (!isTargetPropertyPresent[i])
+                {
+                    addedProperties += 1;
+                }
+            }
+
+            writer.wrap(resultBuffer, 0);
+            writer.writeMapHeader(size + addedProperties);
+
+            int offset = writer.getOffset();
+            for (int i = 0; i < size; i++)
+            {
+                final int propertyOffset = reader.getOffset();
+                final int keyLength = reader.readStringLength();
+                final int property = indexOf(targetProperties, targetDocument, reader.getOffset(), keyLength);
+
+                reader.skipBytes(keyLength);
+                final int valueOffset = reader.getOffset();
+                reader.skipValue();
+
+                if (property < 0)
+                {
+                    final int propertyLength = reader.getOffset() - propertyOffset;
+                    resultBuffer.putBytes(offset, targetDocument, propertyOffset, propertyLength);
+                    offset += propertyLength;
+                }
+                else
+                {
+                    final int keyHeaderLength = valueOffset - propertyOffset;
+                    resultBuffer.putBytes(offset, targetDocument, propertyOffset, keyHeaderLength);
+                    offset += keyHeaderLength;
+
+                    resultBuffer.putBytes(offset, sourceDocument, valueOffsets[property], valueLengths[property]);
+                    offset += valueLengths[property];
+                }
+            }
+
+            for (int i = 0; i < targetProperties.length; i++)
+            {
+                if (!isTargetPropertyPresent[i])
+                {
+                    offset = writeProperty(offset, targetProperties[i], sourceDocument, valueOffsets[i], valueLengths[i]);
+                }
+            }
+
+            currentResultBuffer = resultBuffer;
+            return offset;
+        }
+        else
+        {
+            final int resultLength = mappingProcessor.merge(sourceDocument, targetDocument, plan.getMappings());
+            currentResultBuffer = mappingProcessor.getResultBuffer();
+            return resultLength;
+        }
+    }
+
+    /**
+     * @return the buffer which contains the result of the last extract or merge
+     */
+    public MutableDirectBuffer getResultBuffer()
+    {
+        return currentResultBuffer;
+    }
+
+    /**
+     * Finds the values of the source properties of the plan.
+     *
+     * @return <code>false</code> if the document is no map with string keys
+     *         or a source property is missing
+     */
+    protected boolean scanSourceProperties(DirectBuffer document, MappingPlan plan)
+    {
+        final DirectBuffer[] sourceProperties = plan.getSourceProperties();
+        final int propertyCount = sourceProperties.length;
+
+        if (valueOffsets.length < propertyCount)
+        {
+            valueOffsets = new int[propertyCount];
+            valueLengths = new int[propertyCount];
+        }
+        Arrays.fill(valueOffsets, 0, propertyCount, -1);
+
+        if (!isMap(document, 0))
+        {
+            return false;
+        }
+
+        reader.wrap(document, 0, document.capacity());
+        final int size = reader.readMapHeader();
+
+        int foundProperties = 0;
+        for (int i = 0; i < size && foundProperties < propertyCount; i++)
+        {
+            if (currentType() != MsgPackType.STRING)
+            {
+                return false;
+            }
+
+            final int keyLength = reader.readStringLength();
+            final int keyOffset = reader.getOffset();
+
+            reader.skipBytes(keyLength);
+            final int valueOffset = reader.getOffset();
+            reader.skipValue();
+            final int valueLength = reader.getOffset() - valueOffset;
+
+            // the same source property can be mapped multiple times
+            for (int p = 0; p < propertyCount; p++)
+            {
+                if (valueOffsets[p] < 0 && bytesEqual(document, keyOffset, keyLength, sourceProperties[p]))
+                {
+                    valueOffsets[p] = valueOffset;
+                    valueLengths[p] = valueLength;
+                    foundProperties += 1;
+                }
+            }
+        }
+
+        return foundProperties == propertyCount;
+    }
+
+    /**
+     * Checks which target properties of the plan are already present.
+     *
+     * @return <code>false</code> if the document is no map with string keys
+     */
+    protected boolean scanTargetProperties(DirectBuffer document, MappingPlan plan)
+    {
+        final DirectBuffer[] targetProperties = plan.getTargetProperties();
+
+        if (isTargetPropertyPresent.length < targetProperties.length)
+        {
+            isTargetPropertyPresent = new boolean[targetProperties.length];
+        }
+        Arrays.fill(isTargetPropertyPresent, false);
+
+        if (!isMap(document, 0))
+        {
+            return false;
+        }
+
+        reader.wrap(document, 0, document.capacity());
+        final int size = reader.readMapHeader();
+
+        for (int i = 0; i < size; i++)
+        {
+            if (currentType() != MsgPackType.STRING)
+            {
+                return false;
+            }
+
+            final int keyLength = reader.readStringLength();
+            final int property = indexOf(targetProperties, document, reader.getOffset(), keyLength);
+            if (property >= 0)
+            {
+                isTargetPropertyPresent[property] = true;
+            }
+
+            reader.skipBytes(keyLength);
+            reader.skipValue();
+        }
+
+        return true;
+    }
+
+    protected int writeProperty(int offset, DirectBuffer key, DirectBuffer valueBuffer, int valueOffset, int valueLength)
+    {
+        writer.wrap(resultBuffer, offset);
+        writer.writeString(key);
+
+        final int keyEndOffset = writer.getOffset();
+        resultBuffer.putBytes(keyEndOffset, valueBuffer, valueOffset, valueLength);
+
+        return keyEndOffset + valueLength;
+    }
+
+    protected int getCopiedLength(DirectBuffer[] targetProperties)
+    {
+        int length = 0;
+        for (int i = 0; i < targetProperties.length; i++)
+        {
+            length += MAX_HEADER_LENGTH + targetProperties[i].capacity() + valueLengths[i];
+        }
+        return length;
+    }
+
+    protected void ensureResultCapacity(int length)
+    {
+        if (resultBuffer.capacity() < length)
+        {
+            resultBuffer.wrap(new byte[Math.max(length, 2 * resultBuffer.capacity())]);
+        }
+    }
+
+    protected MsgPackType currentType()
+    {
+        final byte format = reader.getBuffer().getByte(reader.getOffset());
+        return MsgPackFormat.valueOf(format).getType();
+    }
+
+    protected static boolean isMap(DirectBuffer document, int offset)
+    {
+        return document.capacity() > offset
+                && MsgPackFormat.valueOf(document.getByte(offset)).getType() == MsgPackType.MAP;
+    }
+
+    protected static int indexOf(DirectBuffer[] properties, DirectBuffer buffer, int offset, int length)
+    {
+        for (int i = 0; i < properties.length; i++)
+        {
+            if (bytesEqual(buffer, offset, length, properties[i]))
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    protected static boolean bytesEqual(DirectBuffer buffer, int offset, int length, DirectBuffer other)
+    {
+        if (length != other.capacity())
+        {
+            return false;
+        }
+
+        for (int i = 0; i < length; i++)
+        {
+            if (buffer.getByte(offset + i) != other.getByte(i))
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -22,14 +22,19 @@ import static io.zeebe.broker.util.PayloadUtil.isValidPayload;
 import static io.zeebe.protocol.clientapi.EventType.TASK_EVENT;
 import static io.zeebe.protocol.clientapi.EventType.WORKFLOW_INSTANCE_EVENT;
 
+import java.io.File;
 import java.util.EnumMap;
 import java.util.Map;
 
 import org.agrona.DirectBuffer;
 import org.agrona.MutableDirectBuffer;
 import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.status.CountersManager;
 
+import io.zeebe.broker.logstreams.processor.EventStateProbe;
 import io.zeebe.broker.logstreams.processor.MetadataFilter;
+import io.zeebe.broker.logstreams.snapshot.IncrementalSnapshotSupport;
+import io.zeebe.broker.logstreams.snapshot.ZbMapDelta;
 import io.zeebe.broker.task.data.TaskEvent;
 import io.zeebe.broker.task.data.TaskHeaders;
 import io.zeebe.broker.task.data.TaskState;
@@ -37,6 +42,7 @@ import io.zeebe.broker.transport.clientapi.CommandResponseWriter;
 import io.zeebe.broker.workflow.data.WorkflowEvent;
 import io.zeebe.broker.workflow.data.WorkflowInstanceEvent;
 import io.zeebe.broker.workflow.data.WorkflowInstanceState;
+import io.zeebe.broker.workflow.data.WorkflowState;
 import io.zeebe.broker.workflow.graph.model.BpmnAspect;
 import io.zeebe.broker.workflow.graph.model.ExecutableEndEvent;
 import io.zeebe.broker.workflow.graph.model.ExecutableFlowElement;
@@ -45,6 +51,7 @@ import io.zeebe.broker.workflow.graph.model.ExecutableSequenceFlow;
 import io.zeebe.broker.workflow.graph.model.ExecutableServiceTask;
 import io.zeebe.broker.workflow.graph.model.ExecutableStartEvent;
 import io.zeebe.broker.workflow.graph.model.ExecutableWorkflow;
+import io.zeebe.broker.workflow.graph.model.metadata.MappingPlan;
 import io.zeebe.broker.workflow.graph.model.metadata.TaskMetadata;
 import io.zeebe.broker.workflow.map.ActivityInstanceMap;
 import io.zeebe.broker.workflow.map.PayloadCache;
@@ -63,9 +70,7 @@ import io.zeebe.logstreams.processor.StreamProcessor;
 import io.zeebe.logstreams.processor.StreamProcessorContext;
 import io.zeebe.logstreams.snapshot.ComposedZbMapSnapshot;
 import io.zeebe.logstreams.spi.SnapshotSupport;
-import io.zeebe.msgpack.mapping.Mapping;
 import io.zeebe.msgpack.mapping.MappingException;
-import io.zeebe.msgpack.mapping.MappingProcessor;
 import io.zeebe.protocol.Protocol;
 import io.zeebe.protocol.clientapi.EventType;
 import io.zeebe.protocol.impl.BrokerEventMetadata;
@@ -92,6 +97,9 @@ public class WorkflowInstanceStreamProcessor implements StreamProcessor
     protected final EventProcessor taskCompletedEventProcessor = new TaskCompletedEventProcessor();
     protected final EventProcessor taskCreatedEventProcessor = new TaskCreatedProcessor();
 
+    protected final EventProcessor chainedEventProcessor = new ChainedEventProcessor();
+    protected final TransitionChain transitionChain = new TransitionChain();
+
     protected final Map<BpmnAspect, EventProcessor> aspectHandlers;
     {
         aspectHandlers = new EnumMap<>(BpmnAspect.class);
@@ -109,6 +117,11 @@ public class WorkflowInstanceStreamProcessor implements StreamProcessor
     protected final WorkflowInstanceEvent workflowInstanceEvent = new WorkflowInstanceEvent();
     protected final TaskEvent taskEvent = new TaskEvent();
 
+    // reads only the state of an event to select the processor - the event is read completely if it is processed
+    protected final EventStateProbe<WorkflowInstanceState> workflowInstanceStateProbe = new EventStateProbe<>(WorkflowInstanceState.class);
+    protected final EventStateProbe<TaskState> taskStateProbe = new EventStateProbe<>(TaskState.class);
+    protected final EventStateProbe<WorkflowState> workflowStateProbe = new EventStateProbe<>(WorkflowState.class);
+
     // internal //////////////////////////////////////
 
     protected final CommandResponseWriter responseWriter;
@@ -118,7 +131,7 @@ public class WorkflowInstanceStreamProcessor implements StreamProcessor
     protected final WorkflowDeploymentCache workflowDeploymentCache;
     protected final PayloadCache payloadCache;
 
-    protected final ComposedZbMapSnapshot composedSnapshot;
+    protected SnapshotSupport snapshotSupport;
 
     protected LogStreamReader logStreamReader;
     protected LogStreamBatchWriter logStreamBatchWriter;
@@ -129,27 +142,30 @@ public class WorkflowInstanceStreamProcessor implements StreamProcessor
     protected long eventKey;
     protected long eventPosition;
 
-    protected final MappingProcessor payloadMappingProcessor;
+    protected final MappingPlanProcessor payloadMappingProcessor;
 
     protected LogStream targetStream;
 
+    protected boolean isTransitionChainingEnabled = false;
+    protected boolean isPayloadReferencesEnabled = false;
+
     public WorkflowInstanceStreamProcessor(
             CommandResponseWriter responseWriter,
             int deploymentCacheSize,
-            int payloadCacheSize)
+            int payloadCacheCapacity)
     {
         this.responseWriter = responseWriter;
         this.logStreamReader = new BufferedLogStreamReader();
 
         this.workflowDeploymentCache = new WorkflowDeploymentCache(deploymentCacheSize, logStreamReader);
-        this.payloadCache = new PayloadCache(payloadCacheSize, logStreamReader);
+        this.payloadCache = new PayloadCache(payloadCacheCapacity, logStreamReader);
 
         this.workflowInstanceIndex = new WorkflowInstanceIndex();
         this.activityInstanceMap = new ActivityInstanceMap();
 
-        this.payloadMappingProcessor = new MappingProcessor(4096);
+        this.payloadMappingProcessor = new MappingPlanProcessor(4096);
 
-        this.composedSnapshot = new ComposedZbMapSnapshot(
+        this.snapshotSupport = new ComposedZbMapSnapshot(
             workflowInstanceIndex.getSnapshotSupport(),
             activityInstanceMap.getSnapshotSupport(),
             workflowDeploymentCache.getSnapshotSupport(),
@@ -157,6 +173,52 @@ public class WorkflowInstanceStreamProcessor implements StreamProcessor
 
     }
 
+    /**
+     * Writes the workflow instance index, the activity instance map and the payload
+     * cache map incrementally, i.e. only the entries which are changed since the last
+     * base snapshot. Must be called before the stream processor is opened.
+     */
+    public void enableIncrementalSnapshots(File baseSnapshotDirectory, String name, int snapshotsPerBase)
+    {
+        this.snapshotSupport = new IncrementalSnapshotSupport(
+            baseSnapshotDirectory,
+            name,
+            snapshotsPerBase,
+            new ZbMapDelta[] {
+                workflowInstanceIndex.getDelta(),
+                activityInstanceMap.getDelta(),
+                payloadCache.getDelta()
+            },
+            workflowDeploymentCache.getSnapshotSupport());
+    }
+
+    /**
+     * Computes the events which follow from the workflow graph only (i.e. sequence flow
+     * taken, end event occurred and activity ready) in memory and writes them together
+     * with the processed event in one batch, instead of reading each of them from the
+     * log again. Must be called before the stream processor is opened.
+     */
+    public void enableTransitionChaining()
+    {
+        this.isTransitionChainingEnabled = true;
+    }
+
+    /**
+     * Writes a reference to the event which contains the payload instead of the payload
+     * itself, if an event is written with the payload of the processed event. Only the
+     * events which change the payload contain it. Must be called before the stream
+     * processor is opened.
+     */
+    public void enablePayloadReferences()
+    {
+        this.isPayloadReferencesEnabled = true;
+    }
+
+    public void registerCounters(CountersManager countersManager, String prefix)
+    {
+        payloadCache.registerCounters(countersManager, prefix);
+    }
+
     @Override
     public int getPriority(long now)
     {
@@ -166,7 +228,7 @@ public class WorkflowInstanceStreamProcessor implements StreamProcessor
     @Override
     public SnapshotSupport getStateResource()
     {
-        return composedSnapshot;
+        return snapshotSupport;
     }
 
     @Override
@@ -241,11 +303,14 @@ public class WorkflowInstanceStreamProcessor implements StreamProcessor
 
     protected EventProcessor onWorkflowInstanceEvent(LoggedEvent event)
     {
-        workflowInstanceEvent.reset();
-        event.readValue(workflowInstanceEvent);
+        final WorkflowInstanceState state = workflowInstanceStateProbe.readState(event);
+        if (state == null)
+        {
+            return null;
+        }
 
         EventProcessor eventProcessor = null;
-        switch (workflowInstanceEvent.getState())
+        switch (state)
         {
             case CREATE_WORKFLOW_INSTANCE:
                 eventProcessor = createWorkflowInstanceEventProcessor;
@@ -260,8 +325,11 @@ public class WorkflowInstanceStreamProcessor implements StreamProcessor
                 break;
 
             case SEQUENCE_FLOW_TAKEN:
-                eventProcessor = sequenceFlowTakenEventProcessor;
-                break;
+            {
+                readWorkflowInstanceEvent(event);
+
+                return isChainedEvent() ? chainedEventProcessor : sequenceFlowTakenEventProcessor;
+            }
 
             case ACTIVITY_READY:
                 eventProcessor = activityReadyEventProcessor;
@@ -279,9 +347,15 @@ public class WorkflowInstanceStreamProcessor implements StreamProcessor
             case END_EVENT_OCCURRED:
             case ACTIVITY_COMPLETED:
             {
+                readWorkflowInstanceEvent(event);
+
+                if (isChainedEvent())
+                {
+                    return chainedEventProcessor;
+                }
+
                 final ExecutableFlowNode currentActivity = getCurrentActivity();
-                eventProcessor = aspectHandlers.get(currentActivity.getBpmnAspect());
-                break;
+                return aspectHandlers.get(currentActivity.getBpmnAspect());
             }
 
             case UPDATE_PAYLOAD:
@@ -292,40 +366,93 @@ public class WorkflowInstanceStreamProcessor implements StreamProcessor
                 break;
         }
 
+        if (eventProcessor != null)
+        {
+            readWorkflowInstanceEvent(event);
+        }
+
         return eventProcessor;
     }
 
+    protected void readWorkflowInstanceEvent(LoggedEvent event)
+    {
+        workflowInstanceEvent.reset();
+        event.readValue(workflowInstanceEvent);
+    }
+
+    /**
+     * Replaces the payload of the workflow instance event by a reference to the processed
+     * event, if the event is written with the payload of the processed event.
+     */
+    protected void referencePayload()
+    {
+        if (isPayloadReferencesEnabled
+                && !workflowInstanceEvent.hasPayloadReference()
+                && !isNilPayload(workflowInstanceEvent.getPayload()))
+        {
+            workflowInstanceEvent.setPayloadReference(eventPosition);
+        }
+    }
+
+    /**
+     * @return the payload of the workflow instance event, or the payload of the
+     *         referenced event if the event has a payload reference
+     */
+    protected DirectBuffer resolvePayload()
+    {
+        return workflowInstanceEvent.hasPayloadReference()
+                ? payloadCache.getPayloadAt(workflowInstanceEvent.getPayloadPosition())
+                : workflowInstanceEvent.getPayload();
+    }
+
+    protected boolean isChainedEvent()
+    {
+        return workflowInstanceIndex
+                .wrapWorkflowInstanceKey(workflowInstanceEvent.getWorkflowInstanceKey())
+                .getChainedEventCount() > 0;
+    }
+
     protected EventProcessor onTaskEvent(LoggedEvent event)
     {
-        taskEvent.reset();
-        event.readValue(taskEvent);
+        final TaskState state = taskStateProbe.readState(event);
+        if (state == null)
+        {
+            return null;
+        }
 
-        switch (taskEvent.getState())
+        EventProcessor eventProcessor = null;
+        switch (state)
         {
             case CREATED:
-                return taskCreatedEventProcessor;
+                eventProcessor = taskCreatedEventProcessor;
+                break;
 
             case COMPLETED:
-                return taskCompletedEventProcessor;
+                eventProcessor = taskCompletedEventProcessor;
+                break;
 
             default:
+                // most task events are not relevant for the workflow instance - skip them without reading
                 return null;
         }
+
+        taskEvent.reset();
+        event.readValue(taskEvent);
+
+        return eventProcessor;
     }
 
     protected EventProcessor onWorkflowEvent(LoggedEvent event)
     {
+        if (workflowStateProbe.readState(event) != WorkflowState.CREATED)
+        {
+            return null;
+        }
+
         workflowEvent.reset();
         event.readValue(workflowEvent);
 
-        switch (workflowEvent.getState())
-        {
-            case CREATED:
-                return workflowCreatedEventProcessor;
-
-            default:
-                return null;
-        }
+        return workflowCreatedEventProcessor;
     }
 
     protected void lookupWorkflowInstanceEvent(long position)
@@ -351,9 +478,7 @@ public class WorkflowInstanceStreamProcessor implements StreamProcessor
 
         if (workflow != null)
         {
-            final DirectBuffer currentActivityId = workflowInstanceEvent.getActivityId();
-
-            return workflow.getChildById(currentActivityId);
+            return workflow.getFlowElement(workflowInstanceEvent.getActivityIndex(), workflowInstanceEvent.getActivityId());
         }
         else
         {
@@ -376,6 +501,37 @@ public class WorkflowInstanceStreamProcessor implements StreamProcessor
                 .tryWrite();
     }
 
+    protected void writeWorkflowEvent(LogEntryBuilder logEntryBuilder)
+    {
+        targetEventMetadata.reset();
+        targetEventMetadata
+                .protocolVersion(Protocol.PROTOCOL_VERSION)
+                .eventType(WORKFLOW_INSTANCE_EVENT)
+                .raftTermId(targetStream.getTerm());
+
+        // don't forget to set the key or use positionAsKey
+        logEntryBuilder
+                .metadataWriter(targetEventMetadata)
+                .valueWriter(workflowInstanceEvent)
+                .done();
+    }
+
+    protected static WorkflowInstanceState getSequenceFlowTargetState(ExecutableFlowNode targetNode)
+    {
+        if (targetNode instanceof ExecutableEndEvent)
+        {
+            return WorkflowInstanceState.END_EVENT_OCCURRED;
+        }
+        else if (targetNode instanceof ExecutableServiceTask)
+        {
+            return WorkflowInstanceState.ACTIVITY_READY;
+        }
+        else
+        {
+            return null;
+        }
+    }
+
     protected long writeTaskEvent(LogStreamWriter writer)
     {
         targetEventMetadata.reset();
@@ -491,12 +647,16 @@ public class WorkflowInstanceStreamProcessor implements StreamProcessor
             if (workflow != null)
             {
                 final ExecutableStartEvent startEvent = workflow.getScopeStartEvent();
-                final DirectBuffer activityId = startEvent.getId();
 
                 workflowInstanceEvent
                     .setState(WorkflowInstanceState.START_EVENT_OCCURRED)
                     .setWorkflowInstanceKey(eventKey)
-                    .setActivityId(activityId);
+                    .setActivityId(startEvent.getId())
+                    .setActivityIndex(startEvent.getIndex());
+
+                referencePayload();
+
+                transitionChain.followFlowNode(startEvent);
             }
             else
             {
@@ -507,7 +667,7 @@ public class WorkflowInstanceStreamProcessor implements StreamProcessor
         @Override
         public long writeEvent(LogStreamWriter writer)
         {
-            return writeWorkflowEvent(writer.positionAsKey());
+            return transitionChain.write(writer, TransitionChain.POSITION_AS_KEY);
         }
 
         @Override
@@ -518,6 +678,7 @@ public class WorkflowInstanceStreamProcessor implements StreamProcessor
                 .setPosition(eventPosition)
                 .setActiveTokenCount(1)
                 .setActivityKey(-1L)
+                .setChainedEventCount(transitionChain.getChainedEventCount())
                 .write();
         }
     }
@@ -534,13 +695,30 @@ public class WorkflowInstanceStreamProcessor implements StreamProcessor
 
             workflowInstanceEvent
                 .setState(WorkflowInstanceState.SEQUENCE_FLOW_TAKEN)
-                .setActivityId(sequenceFlow.getId());
+                .setActivityId(sequenceFlow.getId())
+                .setActivityIndex(sequenceFlow.getIndex());
+
+            referencePayload();
+
+            transitionChain.followSequenceFlow(sequenceFlow);
         }
 
         @Override
         public long writeEvent(LogStreamWriter writer)
         {
-            return writeWorkflowEvent(writer.positionAsKey());
+            return transitionChain.write(writer, TransitionChain.POSITION_AS_KEY);
+        }
+
+        @Override
+        public void updateState()
+        {
+            final int chainedEventCount = transitionChain.getChainedEventCount();
+            if (chainedEventCount > 0)
+            {
+                workflowInstanceIndex
+                    .setChainedEventCount(chainedEventCount)
+                    .write();
+            }
         }
     }
 
@@ -561,7 +739,10 @@ public class WorkflowInstanceStreamProcessor implements StreamProcessor
             {
                 workflowInstanceEvent
                     .setState(WorkflowInstanceState.WORKFLOW_INSTANCE_COMPLETED)
-                    .setActivityId("");
+                    .setActivityId("")
+                    .setActivityIndex(-1);
+
+                referencePayload();
 
                 isCompleted = true;
             }
@@ -605,15 +786,16 @@ public class WorkflowInstanceStreamProcessor implements StreamProcessor
             final ExecutableSequenceFlow sequenceFlow = getCurrentActivity();
             final ExecutableFlowNode targetNode = sequenceFlow.getTargetNode();
 
-            workflowInstanceEvent.setActivityId(targetNode.getId());
+            workflowInstanceEvent
+                .setActivityId(targetNode.getId())
+                .setActivityIndex(targetNode.getIndex());
 
-            if (targetNode instanceof ExecutableEndEvent)
-            {
-                workflowInstanceEvent.setState(WorkflowInstanceState.END_EVENT_OCCURRED);
-            }
-            else if (targetNode instanceof ExecutableServiceTask)
+            final WorkflowInstanceState targetState = getSequenceFlowTargetState(targetNode);
+            if (targetState != null)
             {
-                workflowInstanceEvent.setState(WorkflowInstanceState.ACTIVITY_READY);
+                workflowInstanceEvent.setState(targetState);
+
+                referencePayload();
             }
             else
             {
@@ -631,6 +813,7 @@ public class WorkflowInstanceStreamProcessor implements StreamProcessor
     private final class ActivityReadyEventProcessor implements EventProcessor
     {
         private final DirectBuffer sourcePayload = new UnsafeBuffer(0, 0);
+        private long sourcePayloadPosition;
 
         @Override
         public void processEvent()
@@ -645,7 +828,7 @@ public class WorkflowInstanceStreamProcessor implements StreamProcessor
 
                 try
                 {
-                    setWorkflowInstancePayload(serviceTask.getIoMapping().getInputMappings());
+                    setWorkflowInstancePayload(serviceTask.getIoMapping().getInputMappingPlan());
                 }
                 catch (Exception e)
                 {
@@ -661,16 +844,21 @@ public class WorkflowInstanceStreamProcessor implements StreamProcessor
             }
         }
 
-        private void setWorkflowInstancePayload(Mapping[] mappings)
+        private void setWorkflowInstancePayload(MappingPlan mappingPlan)
         {
-            sourcePayload.wrap(workflowInstanceEvent.getPayload());
+            sourcePayloadPosition = workflowInstanceEvent.hasPayloadReference() ? workflowInstanceEvent.getPayloadPosition() : eventPosition;
+            sourcePayload.wrap(resolvePayload());
             // only if we have no default mapping we have to use the mapping processor
-            if (mappings.length > 0)
+            if (!mappingPlan.isEmpty())
             {
-                final int resultLen = payloadMappingProcessor.extract(sourcePayload, mappings);
+                final int resultLen = payloadMappingProcessor.extract(sourcePayload, mappingPlan);
                 final MutableDirectBuffer buffer = payloadMappingProcessor.getResultBuffer();
                 workflowInstanceEvent.setPayload(buffer, 0, resultLen);
             }
+            else
+            {
+                referencePayload();
+            }
         }
 
         @Override
@@ -690,12 +878,13 @@ public class WorkflowInstanceStreamProcessor implements StreamProcessor
             activityInstanceMap
                 .newActivityInstance(eventKey)
                 .setActivityId(workflowInstanceEvent.getActivityId())
+                .setActivityIndex(workflowInstanceEvent.getActivityIndex())
                 .setTaskKey(-1L)
                 .write();
 
             if (!isNilPayload(sourcePayload))
             {
-                payloadCache.addPayload(workflowInstanceEvent.getWorkflowInstanceKey(), eventPosition, sourcePayload);
+                payloadCache.addPayload(workflowInstanceEvent.getWorkflowInstanceKey(), sourcePayloadPosition, sourcePayload);
             }
         }
     }
@@ -714,7 +903,7 @@ public class WorkflowInstanceStreamProcessor implements StreamProcessor
                 .setState(TaskState.CREATE)
                 .setType(taskMetadata.getTaskType())
                 .setRetries(taskMetadata.getRetries())
-                .setPayload(workflowInstanceEvent.getPayload());
+                .setPayload(resolvePayload());
 
             setTaskHeaders(serviceTask, taskMetadata);
         }
@@ -797,6 +986,7 @@ public class WorkflowInstanceStreamProcessor implements StreamProcessor
                     .setWorkflowKey(taskHeaders.getWorkflowKey())
                     .setWorkflowInstanceKey(taskHeaders.getWorkflowInstanceKey())
                     .setActivityId(taskHeaders.getActivityId())
+                    .setActivityIndex(activityInstanceMap.getActivityIndex())
                     .setPayload(taskEvent.getPayload());
 
                 isActivityCompleted = true;
@@ -838,21 +1028,23 @@ public class WorkflowInstanceStreamProcessor implements StreamProcessor
 
             workflowInstanceEvent.setState(WorkflowInstanceState.ACTIVITY_COMPLETED);
 
-            setWorkflowInstancePayload(serviceTask.getIoMapping().getOutputMappings());
+            setWorkflowInstancePayload(serviceTask.getIoMapping().getOutputMappingPlan());
+
+            transitionChain.followFlowNode(serviceTask);
         }
 
-        private void setWorkflowInstancePayload(Mapping[] mappings)
+        private void setWorkflowInstancePayload(MappingPlan mappingPlan)
         {
             final DirectBuffer workflowInstancePayload = payloadCache.getPayload(workflowInstanceEvent.getWorkflowInstanceKey());
             final DirectBuffer taskPayload = workflowInstanceEvent.getPayload();
             final boolean isNilPayload = isNilPayload(taskPayload);
-            if (mappings.length > 0)
+            if (!mappingPlan.isEmpty())
             {
                 if (isNilPayload)
                 {
                     throw new MappingException(INCIDENT_ERROR_MSG_MISSING_TASK_PAYLOAD_ON_OUT_MAPPING);
                 }
-                final int resultLen = payloadMappingProcessor.merge(taskPayload, workflowInstancePayload, mappings);
+                final int resultLen = payloadMappingProcessor.merge(taskPayload, workflowInstancePayload, mappingPlan);
                 final MutableDirectBuffer buffer = payloadMappingProcessor.getResultBuffer();
                 workflowInstanceEvent.setPayload(buffer, 0, resultLen);
             }
@@ -866,7 +1058,7 @@ public class WorkflowInstanceStreamProcessor implements StreamProcessor
         @Override
         public long writeEvent(LogStreamWriter writer)
         {
-            return writeWorkflowEvent(writer.key(eventKey));
+            return transitionChain.write(writer, eventKey);
         }
 
         @Override
@@ -875,6 +1067,7 @@ public class WorkflowInstanceStreamProcessor implements StreamProcessor
             workflowInstanceIndex
                 .wrapWorkflowInstanceKey(workflowInstanceEvent.getWorkflowInstanceKey())
                 .setActivityKey(-1L)
+                .setChainedEventCount(transitionChain.getChainedEventCount())
                 .write();
 
             activityInstanceMap.remove(eventKey);
@@ -992,7 +1185,8 @@ public class WorkflowInstanceStreamProcessor implements StreamProcessor
                 .setBpmnProcessId(workflowInstanceEvent.getBpmnProcessId())
                 .setVersion(workflowInstanceEvent.getVersion())
                 .setWorkflowInstanceKey(eventKey)
-                .setActivityId(activityInstanceMap.getActivityId());
+                .setActivityId(activityInstanceMap.getActivityId())
+                .setActivityIndex(activityInstanceMap.getActivityIndex());
 
             logEntryBuilder
                 .key(activityInstanceKey)
@@ -1067,6 +1261,138 @@ public class WorkflowInstanceStreamProcessor implements StreamProcessor
         }
     }
 
+    /**
+     * The events of a chain are processed already when the chain is written,
+     * so they are skipped when they are read from the log again.
+     */
+    private final class ChainedEventProcessor implements EventProcessor
+    {
+        @Override
+        public void processEvent()
+        {
+        }
+
+        @Override
+        public void updateState()
+        {
+            final int chainedEventCount = workflowInstanceIndex.getChainedEventCount();
+
+            workflowInstanceIndex
+                .setChainedEventCount(chainedEventCount - 1)
+                .write();
+        }
+    }
+
+    /**
+     * The events which follow from the current workflow instance event by the workflow graph
+     * only. They are written together with the current event in one batch. The last event of
+     * the chain is processed as usual when it is read from the log, since it waits for the
+     * workflow instance state (end event) or it is keyed by its own position (activity ready).
+     */
+    private final class TransitionChain
+    {
+        public static final long POSITION_AS_KEY = -1L;
+
+        private static final int MAX_LENGTH = 2;
+
+        private final ExecutableFlowElement[] elements = new ExecutableFlowElement[MAX_LENGTH];
+        private final WorkflowInstanceState[] states = new WorkflowInstanceState[MAX_LENGTH];
+        private int length;
+
+        private ExecutableFlowElement headElement;
+
+        public void followFlowNode(ExecutableFlowNode flowNode)
+        {
+            length = 0;
+            headElement = flowNode;
+
+            if (isTransitionChainingEnabled && flowNode.getBpmnAspect() == BpmnAspect.TAKE_SEQUENCE_FLOW)
+            {
+                // the activity has exactly one outgoing sequence flow
+                final ExecutableSequenceFlow sequenceFlow = flowNode.getOutgoingSequenceFlows()[0];
+
+                add(sequenceFlow, WorkflowInstanceState.SEQUENCE_FLOW_TAKEN);
+                addTargetNode(sequenceFlow);
+            }
+        }
+
+        public void followSequenceFlow(ExecutableSequenceFlow sequenceFlow)
+        {
+            length = 0;
+            headElement = sequenceFlow;
+
+            if (isTransitionChainingEnabled)
+            {
+                addTargetNode(sequenceFlow);
+            }
+        }
+
+        private void addTargetNode(ExecutableSequenceFlow sequenceFlow)
+        {
+            final ExecutableFlowNode targetNode = sequenceFlow.getTargetNode();
+            final WorkflowInstanceState targetState = getSequenceFlowTargetState(targetNode);
+
+            // an unsupported target is rejected when the sequence flow event is processed
+            if (targetState != null)
+            {
+                add(targetNode, targetState);
+            }
+        }
+
+        private void add(ExecutableFlowElement element, WorkflowInstanceState state)
+        {
+            elements[length] = element;
+            states[length] = state;
+            length += 1;
+        }
+
+        /**
+         * @return the number of written events which are processed already,
+         *         i.e. the head and all chained events except the last one
+         */
+        public int getChainedEventCount()
+        {
+            return length;
+        }
+
+        public long write(LogStreamWriter writer, long headKey)
+        {
+            if (length == 0)
+            {
+                return writeWorkflowEvent(headKey == POSITION_AS_KEY ? writer.positionAsKey() : writer.key(headKey));
+            }
+
+            logStreamBatchWriter
+                .producerId(streamProcessorId)
+                .sourceEvent(logStreamTopicName, logStreamPartitionId, eventPosition);
+
+            final LogEntryBuilder headEntry = logStreamBatchWriter.event();
+            writeWorkflowEvent(headKey == POSITION_AS_KEY ? headEntry.positionAsKey() : headEntry.key(headKey));
+
+            final WorkflowInstanceState headState = workflowInstanceEvent.getState();
+
+            for (int i = 0; i < length; i++)
+            {
+                final ExecutableFlowElement element = elements[i];
+
+                workflowInstanceEvent
+                    .setState(states[i])
+                    .setActivityId(element.getId())
+                    .setActivityIndex(element.getIndex());
+
+                writeWorkflowEvent(logStreamBatchWriter.event().positionAsKey());
+            }
+
+            // restore the head event since the write can be retried
+            workflowInstanceEvent
+                .setState(headState)
+                .setActivityId(headElement.getId())
+                .setActivityIndex(headElement.getIndex());
+
+            return logStreamBatchWriter.tryWrite();
+        }
+    }
+
     private final class ActiveWorkflowInstanceProcessor implements EventProcessor
     {
         private final EventProcessor processor;
@@ -0,0 +1,262 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.clustering.gossip.protocol;
+
+import static io.zeebe.test.util.BufferWriterUtil.writeAndRead;
+import static io.zeebe.util.buffer.BufferUtil.wrapString;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.agrona.DirectBuffer;
+import org.junit.After;
+import org.junit.Test;
+
+import io.zeebe.broker.clustering.gossip.data.Peer;
+import io.zeebe.broker.clustering.gossip.data.PeerList;
+import io.zeebe.broker.clustering.gossip.data.RaftMembership;
+import io.zeebe.broker.clustering.gossip.message.GossipRequest;
+import io.zeebe.broker.clustering.gossip.message.GossipResponse;
+import io.zeebe.clustering.gossip.RaftMembershipState;
+
+/**
+ * Exchanges gossip messages between in-process brokers like the
+ * dissemination and the gossip controller, without transport.
+ */
+public class DeltaDisseminationTest
+{
+    private static final int TOPICS_PER_PEER = 3;
+
+    private final List<Broker> brokers = new ArrayList<>();
+
+    @After
+    public void cleanUp()
+    {
+        brokers.forEach(Broker::close);
+    }
+
+    @Test
+    public void shouldSendLessBytesPerRoundWith50Peers()
+    {
+        assertDeltaSendsLessBytesPerRound(50);
+    }
+
+    @Test
+    public void shouldSendLessBytesPerRoundWith200Peers()
+    {
+        assertDeltaSendsLessBytesPerRound(200);
+    }
+
+    @Test
+    public void shouldRespondWithNewerPeersToDigests()
+    {
+        // given
+        final Broker requester = newBroker(0, 3, 4);
+        final Broker receiver = newBroker(1, 4, 4);
+
+        requester.updateHeartbeat(2);
+
+        // when
+        exchange(requester, receiver, true);
+
+        // then the receiver does not merge the newer digest of peer 2
+        final Peer peer = new Peer();
+        receiver.peers.get(receiver.peers.find(newPeer(2)), peer);
+        assertThat(peer.heartbeat().version()).isEqualTo(0);
+
+        // and the requester received the peer which it did not know
+        assertThat(requester.peers.size()).isEqualTo(4);
+        assertThat(requester.peers.find(newPeer(3))).isGreaterThanOrEqualTo(0);
+    }
+
+    @Test
+    public void shouldDisseminateChangedPeerWithDeltas()
+    {
+        // given
+        final int clusterSize = 5;
+        for (int i = 0; i < clusterSize; i++)
+        {
+            newBroker(i, clusterSize, clusterSize);
+        }
+
+        final Broker changedBroker = brokers.get(0);
+        changedBroker.localPeer.raftMemberships().add(newRaftMembership("new-topic", 99, RaftMembershipState.LEADER));
+        changedBroker.heartbeat();
+
+        // when
+        for (int round = 0; round < clusterSize; round++)
+        {
+            for (int i = 0; i < clusterSize; i++)
+            {
+                // each broker pulls from its neighbour
+                exchange(brokers.get(i), brokers.get((i + 1) % clusterSize), true);
+            }
+        }
+
+        // then
+        for (final Broker broker : brokers)
+        {
+            final Peer peer = new Peer();
+            broker.peers.get(broker.peers.find(changedBroker.localPeer), peer);
+
+            assertThat(peer.heartbeat()).isEqualTo(changedBroker.localPeer.heartbeat());
+            assertThat(peer.raftMemberships().size()).isEqualTo(TOPICS_PER_PEER + 1);
+            assertThat(peer.clientEndpoint()).isEqualTo(changedBroker.localPeer.clientEndpoint());
+        }
+    }
+
+    protected void assertDeltaSendsLessBytesPerRound(int clusterSize)
+    {
+        // each broker sends one request per round
+        final long fullBytesPerRound = clusterSize * bytesPerExchange(clusterSize, false);
+        final long deltaBytesPerRound = clusterSize * bytesPerExchange(clusterSize, true);
+
+        assertThat(deltaBytesPerRound).isLessThan(fullBytesPerRound / 2);
+    }
+
+    protected long bytesPerExchange(int clusterSize, boolean delta)
+    {
+        // two brokers which know the whole cluster, each has newer heartbeats of a tenth of the peers
+        final Broker requester = newBroker(0, clusterSize, clusterSize);
+        final Broker receiver = newBroker(1, clusterSize, clusterSize);
+
+        for (int i = 2; i < clusterSize; i++)
+        {
+            if (i % 10 == 0)
+            {
+                requester.updateHeartbeat(i);
+            }
+            else if (i % 10 == 5)
+            {
+                receiver.updateHeartbeat(i);
+            }
+        }
+
+        requester.heartbeat();
+        receiver.heartbeat();
+
+        return exchange(requester, receiver, delta);
+    }
+
+    /**
+     * @return the bytes of the request and the response
+     */
+    protected long exchange(Broker requester, Broker receiver, boolean delta)
+    {
+        final GossipRequest request = new GossipRequest();
+        if (delta)
+        {
+            request.peerDigests(requester.peers, requester.localPeer);
+        }
+        else
+        {
+            request.peers(requester.peers);
+        }
+
+        final PeerList diff = receiver.diff;
+        diff.clear();
+        receiver.peers.merge(writeAndRead(request).peers(), diff);
+
+        final GossipResponse response = new GossipResponse().peers(diff);
+        requester.peers.merge(writeAndRead(response).peers());
+
+        return request.getLength() + response.getLength();
+    }
+
+    protected Broker newBroker(int id, int clusterSize, int capacity)
+    {
+        final Broker broker = new Broker(newPeer(id), capacity);
+
+        for (int i = 0; i < clusterSize; i++)
+        {
+            broker.peers.insert(i == id ? broker.localPeer : newPeer(i));
+        }
+
+        brokers.add(broker);
+        return broker;
+    }
+
+    protected static Peer newPeer(int id)
+    {
+        final Peer peer = new Peer();
+
+        peer.clientEndpoint().host("broker-" + id).port(51015);
+        peer.managementEndpoint().host("broker-" + id).port(51016);
+        peer.replicationEndpoint().host("broker-" + id).port(51017);
+
+        peer.heartbeat().generation(1L).version(0);
+
+        for (int i = 0; i < TOPICS_PER_PEER; i++)
+        {
+            peer.raftMemberships().add(newRaftMembership("topic-" + i, id, RaftMembershipState.FOLLOWER));
+        }
+
+        return peer.alive();
+    }
+
+    protected static RaftMembership newRaftMembership(String topicName, int partitionId, RaftMembershipState state)
+    {
+        final DirectBuffer topicNameBuffer = wrapString(topicName);
+
+        return new RaftMembership()
+            .topicName(topicNameBuffer, 0, topicNameBuffer.capacity())
+            .partitionId(partitionId)
+            .term(1)
+            .state(state);
+    }
+
+    protected static class Broker
+    {
+        protected final Peer localPeer;
+        protected final PeerList peers;
+        protected final PeerList diff;
+
+        Broker(Peer localPeer, int capacity)
+        {
+            this.localPeer = localPeer;
+            this.peers = new PeerList(capacity);
+            this.diff = new PeerList(capacity);
+        }
+
+        /**
+         * Increments the heartbeat of the local peer like the gossip controller.
+         */
+        public void heartbeat()
+        {
+            localPeer.heartbeat().version(localPeer.heartbeat().version() + 1);
+            peers.update(localPeer);
+        }
+
+        /**
+         * Simulates that the broker received a newer heartbeat of another peer.
+         */
+        public void updateHeartbeat(int peerId)
+        {
+            final Peer peer = newPeer(peerId);
+            peer.heartbeat().version(1);
+            peers.update(peer);
+        }
+
+        public void close()
+        {
+            peers.close();
+            diff.close();
+        }
+    }
+}
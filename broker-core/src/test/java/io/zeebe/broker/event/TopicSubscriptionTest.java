@@ -31,7 +31,6 @@ import io.zeebe.protocol.clientapi.ControlMessageType;
 import io.zeebe.protocol.clientapi.ErrorCode;
 import io.zeebe.protocol.clientapi.EventType;
 import io.zeebe.protocol.clientapi.SubscriptionType;
-import io.zeebe.servicecontainer.ServiceName;
 import io.zeebe.test.broker.protocol.MsgPackHelper;
 import io.zeebe.test.broker.protocol.clientapi.ClientApiRule;
 import io.zeebe.test.broker.protocol.clientapi.ControlMessageResponse;
@@ -476,33 +475,119 @@ public class TopicSubscriptionTest
     }
 
     @Test
-    public void shouldReturnErrorIfSubscriptionProcessorRemovalFails()
+    public void shouldNotOpenSubscriptionWithSameNameTwice()
     {
         // given
-        final ExecuteCommandResponse subscriptionResponse = apiRule
+        apiRule
             .openTopicSubscription("foo", 0)
             .await();
 
-        final long subscriberKey = subscriptionResponse.key();
+        // when
+        final ErrorResponse errorResponse = apiRule
+                .openTopicSubscription("foo", 0)
+                .awaitError();
 
-        // and the subscription service has abnormally closed
-        final String name = "log.log." + DEFAULT_LOG_NAME +  ".subscription.push.foo";
-        final ServiceName<Object> subscriptionServiceName = ServiceName.newServiceName(name, Object.class);
-        brokerRule.removeService(subscriptionServiceName);
+        // then
+        assertThat(errorResponse.getErrorCode()).isEqualTo(ErrorCode.REQUEST_PROCESSING_FAILURE);
+        assertThat(errorResponse.getErrorData()).contains("A subscription with this name is already open.");
+    }
+
+    @Test
+    public void shouldPushEventsToAllSubscriptions()
+    {
+        // given
+        final long firstSubscriberKey = apiRule
+                .openTopicSubscription("foo", 0)
+                .await()
+                .key();
+
+        final long secondSubscriberKey = apiRule
+                .openTopicSubscription("bar", 0)
+                .await()
+                .key();
 
         // when
-        final ErrorResponse errorResponse = apiRule.createControlMessageRequest()
-            .messageType(ControlMessageType.REMOVE_TOPIC_SUBSCRIPTION)
-            .data()
-                .put("topicName", DEFAULT_TOPIC_NAME)
-                .put("partitionId", DEFAULT_PARTITION_ID)
-                .put("subscriberKey", subscriberKey)
+        final ExecuteCommandResponse createTaskResponse = apiRule.createCmdRequest()
+            .topicName(DEFAULT_TOPIC_NAME)
+            .partitionId(DEFAULT_PARTITION_ID)
+            .eventTypeTask()
+            .command()
+                .put("state", "CREATE")
+                .put("type", "theTaskType")
                 .done()
-            .send().awaitError();
+            .sendAndAwait();
+
+        final long taskKey = createTaskResponse.key();
+
+        // then
+        final List<SubscribedEvent> taskEvents = apiRule.subscribedEvents()
+            .filter((e) -> e.eventType() == EventType.TASK_EVENT)
+            .limit(4)
+            .collect(Collectors.toList());
+
+        assertThat(taskEvents).extracting(SubscribedEvent::key).containsOnly(taskKey);
+        assertThat(taskEvents).filteredOn((e) -> e.subscriberKey() == firstSubscriberKey).hasSize(2);
+        assertThat(taskEvents).filteredOn((e) -> e.subscriberKey() == secondSubscriberKey).hasSize(2);
+    }
+
+    @Test
+    public void shouldPushOnlyEventsWhichPassTheFilter()
+    {
+        // given
+        final long fooTaskKey = createTask("foo");
+        createTask("bar");
+
+        // when
+        final long subscriberKey = openFilteredTopicSubscription(
+                Arrays.asList("TASK_EVENT"),
+                Arrays.asList("CREATED"),
+                "$.type",
+                "foo")
+            .await()
+            .key();
+
+        final long secondFooTaskKey = createTask("foo");
+
+        // then
+        final List<SubscribedEvent> events = apiRule.subscribedEvents()
+            .limit(2)
+            .collect(Collectors.toList());
+
+        assertThat(events).extracting(SubscribedEvent::subscriberKey).containsOnly(subscriberKey);
+        assertThat(events).extracting(SubscribedEvent::key).containsExactly(fooTaskKey, secondFooTaskKey);
+        assertThat(events).extracting(e -> e.event().get("state")).containsOnly("CREATED");
+    }
+
+    @Test
+    public void shouldNotOpenSubscriptionWithUnknownEventType()
+    {
+        // when
+        final ErrorResponse errorResponse = openFilteredTopicSubscription(
+                Arrays.asList("FOO_EVENT"),
+                Arrays.asList(),
+                "",
+                "")
+            .awaitError();
 
         // then
         assertThat(errorResponse.getErrorCode()).isEqualTo(ErrorCode.REQUEST_PROCESSING_FAILURE);
-        assertThat(errorResponse.getErrorData()).contains("Cannot close topic subscription. Cannot remove service");
+        assertThat(errorResponse.getErrorData()).isEqualTo("Cannot open topic subscription foo. Unknown event type 'FOO_EVENT'.");
+    }
+
+    @Test
+    public void shouldNotOpenSubscriptionWithUnsupportedValueFilterPath()
+    {
+        // when
+        final ErrorResponse errorResponse = openFilteredTopicSubscription(
+                Arrays.asList(),
+                Arrays.asList(),
+                "$.headers[0]",
+                "foo")
+            .awaitError();
+
+        // then
+        assertThat(errorResponse.getErrorCode()).isEqualTo(ErrorCode.REQUEST_PROCESSING_FAILURE);
+        assertThat(errorResponse.getErrorData()).contains("Value filter path '$.headers[0]' is not supported.");
     }
 
     @Test
@@ -583,6 +668,35 @@ public class TopicSubscriptionTest
         return response;
     }
 
+    protected ExecuteCommandRequest openFilteredTopicSubscription(List<String> eventTypes, List<String> eventStates, String valueFilterPath, String valueFilterValue)
+    {
+        return apiRule.createCmdRequest()
+            .topicName(DEFAULT_TOPIC_NAME)
+            .partitionId(DEFAULT_PARTITION_ID)
+            .eventTypeSubscriber()
+            .command()
+                .put("startPosition", 0)
+                .put("name", "foo")
+                .put("state", "SUBSCRIBE")
+                .put("eventTypes", eventTypes)
+                .put("eventStates", eventStates)
+                .put("valueFilterPath", valueFilterPath)
+                .put("valueFilterValue", valueFilterValue)
+                .done()
+            .send();
+    }
 
-
+    protected long createTask(String type)
+    {
+        return apiRule.createCmdRequest()
+            .topicName(DEFAULT_TOPIC_NAME)
+            .partitionId(DEFAULT_PARTITION_ID)
+            .eventTypeTask()
+            .command()
+                .put("state", "CREATE")
+                .put("type", type)
+                .done()
+            .sendAndAwait()
+            .key();
+    }
 }
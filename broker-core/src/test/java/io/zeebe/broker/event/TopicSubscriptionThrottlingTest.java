@@ -29,6 +29,7 @@ import org.junit.rules.RuleChain;
 
 import io.zeebe.broker.test.EmbeddedBrokerRule;
 import io.zeebe.test.broker.protocol.clientapi.ClientApiRule;
+import io.zeebe.test.broker.protocol.clientapi.SubscribedEvent;
 import io.zeebe.test.util.TestUtil;
 
 public class TopicSubscriptionThrottlingTest
@@ -43,17 +44,23 @@ public class TopicSubscriptionThrottlingTest
 
     public void openSubscription(int prefetchCapacity)
     {
-        apiRule.createCmdRequest()
+        openSubscription(SUBSCRIPTION_NAME, prefetchCapacity);
+    }
+
+    public long openSubscription(String name, int prefetchCapacity)
+    {
+        return apiRule.createCmdRequest()
             .topicName(DEFAULT_TOPIC_NAME)
             .partitionId(0)
             .eventTypeSubscriber()
             .command()
                 .put("startPosition", 0)
-                .put("name", "foo")
+                .put("name", name)
                 .put("state", "SUBSCRIBE")
                 .put("prefetchCapacity", prefetchCapacity)
                 .done()
-            .sendAndAwait();
+            .sendAndAwait()
+            .key();
     }
 
     @Test
@@ -136,6 +143,34 @@ public class TopicSubscriptionThrottlingTest
         TestUtil.waitUntil(() -> apiRule.numSubscribedEventsAvailable() == expectedNumberOfEvents);
     }
 
+    @Test
+    public void shouldPushEventsToOtherSubscriptionsWhileThrottled() throws InterruptedException
+    {
+        // given
+        final int nrOfTasks = 5;
+
+        createTasks(nrOfTasks);
+
+        final long throttledSubscriberKey = openSubscription(SUBSCRIPTION_NAME, 1);
+        TestUtil.waitUntil(() -> apiRule.numSubscribedEventsAvailable() == 1);
+
+        // when
+        final long subscriberKey = openSubscription("bar", -1);
+
+        // then
+        final int expectedNumberOfEvents = nrOfTasks * 2; // CREATE and CREATED
+
+        TestUtil.waitUntil(() -> apiRule.numSubscribedEventsAvailable() == expectedNumberOfEvents + 1);
+        Thread.sleep(1000L); // there might be more received in case throttling is broken
+
+        final List<SubscribedEvent> events = apiRule.subscribedEvents()
+                .limit(apiRule.numSubscribedEventsAvailable())
+                .collect(Collectors.toList());
+
+        assertThat(events).filteredOn((e) -> e.subscriberKey() == throttledSubscriberKey).hasSize(1);
+        assertThat(events).filteredOn((e) -> e.subscriberKey() == subscriberKey).hasSize(expectedNumberOfEvents);
+    }
+
     protected void createTasks(int nrOfTasks)
     {
         for (int i = 0; i < nrOfTasks; i++)
@@ -0,0 +1,67 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.event.processor;
+
+import static io.zeebe.util.buffer.BufferUtil.wrapString;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import org.junit.Test;
+
+public class SubscriptionAckPositionsTest
+{
+    private final SubscriptionAckPositions ackPositions = new SubscriptionAckPositions();
+
+    @Test
+    public void shouldPublishLowestPosition()
+    {
+        assertThat(ackPositions.getLowestPosition()).isEqualTo(SubscriptionAckPositions.NO_SUBSCRIPTION);
+
+        // when
+        ackPositions.put(wrapString("foo"), 30L);
+        ackPositions.put(wrapString("bar"), 20L);
+        ackPositions.put(wrapString("bar"), 40L);
+
+        // then
+        assertThat(ackPositions.getLowestPosition()).isEqualTo(30L);
+        assertThat(ackPositions.get(wrapString("bar"), -1L)).isEqualTo(40L);
+        assertThat(ackPositions.get(wrapString("baz"), -1L)).isEqualTo(-1L);
+    }
+
+    @Test
+    public void shouldRecoverFromSnapshot() throws Exception
+    {
+        // given
+        ackPositions.put(wrapString("foo"), 30L);
+        ackPositions.put(wrapString("bar"), 20L);
+
+        final ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        ackPositions.writeSnapshot(snapshot);
+
+        // when
+        final SubscriptionAckPositions recoveredPositions = new SubscriptionAckPositions();
+        recoveredPositions.recoverFromSnapshot(new ByteArrayInputStream(snapshot.toByteArray()));
+
+        // then
+        assertThat(recoveredPositions.get(wrapString("foo"), -1L)).isEqualTo(30L);
+        assertThat(recoveredPositions.get(wrapString("bar"), -1L)).isEqualTo(20L);
+        assertThat(recoveredPositions.getLowestPosition()).isEqualTo(20L);
+    }
+}
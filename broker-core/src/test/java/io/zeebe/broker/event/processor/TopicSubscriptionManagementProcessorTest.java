@@ -0,0 +1,383 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.event.processor;
+
+import static io.zeebe.protocol.clientapi.EventType.SUBSCRIPTION_EVENT;
+import static io.zeebe.util.buffer.BufferUtil.wrapString;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.agrona.DirectBuffer;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import io.zeebe.broker.test.MockStreamProcessorController;
+import io.zeebe.broker.transport.clientapi.CommandResponseWriter;
+import io.zeebe.broker.transport.clientapi.ErrorResponseWriter;
+import io.zeebe.broker.transport.clientapi.SubscribedEventWriter;
+import io.zeebe.logstreams.log.LogStream;
+import io.zeebe.logstreams.log.LoggedEvent;
+import io.zeebe.logstreams.processor.StreamProcessorContext;
+import io.zeebe.protocol.clientapi.EventType;
+import io.zeebe.protocol.clientapi.ExecuteCommandRequestDecoder;
+import io.zeebe.protocol.impl.BrokerEventMetadata;
+import io.zeebe.test.util.FluentMock;
+
+public class TopicSubscriptionManagementProcessorTest
+{
+    private static final DirectBuffer SUBSCRIPTION_NAME = wrapString("foo");
+
+    @Mock
+    private LogStream mockLogStream;
+
+    @Mock
+    private TopicSubscriptionPushService mockPushService;
+
+    @FluentMock
+    private CommandResponseWriter mockResponseWriter;
+
+    @FluentMock
+    private ErrorResponseWriter mockErrorWriter;
+
+    @FluentMock
+    private SubscribedEventWriter mockEventWriter;
+
+    @Rule
+    public MockStreamProcessorController<TopicSubscriptionEvent> mockController = new MockStreamProcessorController<>(
+        TopicSubscriptionEvent.class,
+        SUBSCRIPTION_EVENT);
+
+    private TopicSubscriptionManagementProcessor streamProcessor;
+    private TopicSubscriptionPushProcessor pushProcessor;
+    private StreamProcessorContext context;
+
+    public void openProcessor(int acknowledgementsPerCommand)
+    {
+        MockitoAnnotations.initMocks(this);
+
+        when(mockLogStream.getTopicName()).thenReturn(wrapString("test-topic"));
+        when(mockLogStream.getPartitionId()).thenReturn(1);
+
+        streamProcessor = new TopicSubscriptionManagementProcessor(mockResponseWriter, mockErrorWriter, mockPushService, acknowledgementsPerCommand);
+
+        context = new StreamProcessorContext();
+        context.setSourceStream(mockLogStream);
+        context.setTargetStream(mockLogStream);
+
+        mockController.initStreamProcessor(streamProcessor, context);
+
+        pushProcessor = new TopicSubscriptionPushProcessor(1, 2L, 0L, SUBSCRIPTION_NAME, -1, TopicSubscriptionFilter.ALL_EVENTS);
+        streamProcessor.registerPushProcessor(pushProcessor);
+    }
+
+    @After
+    public void cleanUp()
+    {
+        streamProcessor.onClose();
+    }
+
+    @Test
+    public void shouldWriteAcknowledgedEventForEachAcknowledgeCommand()
+    {
+        // given
+        openProcessor(3);
+
+        // when
+        acknowledge(10L);
+        acknowledge(20L);
+
+        // then
+        assertThat(mockController.getWrittenEventValues())
+            .extracting(TopicSubscriptionEvent::getAckPosition)
+            .containsExactly(10L, 20L);
+        assertThat(mockController.getLastWrittenEventValue().getState()).isEqualTo(TopicSubscriptionState.ACKNOWLEDGED);
+    }
+
+    @Test
+    public void shouldCoalesceAcknowledgements()
+    {
+        // given
+        openProcessor(3);
+
+        // when
+        for (int i = 1; i <= 7; i++)
+        {
+            acknowledgeAsync(SUBSCRIPTION_NAME, i * 10L);
+        }
+
+        // then
+        assertThat(mockController.getWrittenEventValues())
+            .extracting(TopicSubscriptionEvent::getAckPosition)
+            .containsExactly(30L, 60L);
+        assertThat(mockController.getLastWrittenEventValue().getState()).isEqualTo(TopicSubscriptionState.ACKNOWLEDGE);
+        assertThat(mockController.getLastWrittenEventMetadata().getRequestId()).isEqualTo(-1L);
+    }
+
+    @Test
+    public void shouldRespondToCoalescedAcknowledgement()
+    {
+        // given
+        openProcessor(3);
+
+        // when
+        acknowledgeAsync(SUBSCRIPTION_NAME, 10L);
+
+        // then
+        assertThat(mockController.getWrittenEvents()).isEmpty();
+        verify(mockResponseWriter).tryWriteResponse(3, 4L);
+    }
+
+    @Test
+    public void shouldWriteUnwrittenAcknowledgementOnClose()
+    {
+        // given
+        openProcessor(3);
+        when(mockPushService.closeSubscriptionAsync(any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        acknowledgeAsync(SUBSCRIPTION_NAME, 10L);
+
+        // when
+        streamProcessor.closePushProcessorAsync(2L);
+        mockController.drainCommandQueue();
+
+        // then
+        final TopicSubscriptionEvent ackCommand = mockController.getLastWrittenEventValue();
+        assertThat(ackCommand.getState()).isEqualTo(TopicSubscriptionState.ACKNOWLEDGE);
+        assertThat(ackCommand.getAckPosition()).isEqualTo(10L);
+    }
+
+    @Test
+    public void shouldRetryUnwrittenAcknowledgementBeforeClose()
+    {
+        // given
+        openProcessor(3);
+        when(mockPushService.closeSubscriptionAsync(any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        acknowledgeAsync(SUBSCRIPTION_NAME, 10L);
+
+        doReturn(-1L).when(context.getLogStreamWriter()).tryWrite();
+
+        final CompletableFuture<Void> closeFuture = streamProcessor.closePushProcessorAsync(2L);
+        mockController.drainCommandQueue();
+
+        assertThat(closeFuture).isNotDone();
+        verify(mockPushService, never()).closeSubscriptionAsync(pushProcessor);
+
+        // when
+        doReturn(1L).when(context.getLogStreamWriter()).tryWrite();
+
+        streamProcessor.flushAcknowledgementsAsync();
+        mockController.drainCommandQueue();
+
+        // then
+        assertThat(closeFuture).isCompleted();
+        assertThat(pushProcessor.getUnwrittenAckPosition()).isEqualTo(TopicSubscriptionPushProcessor.UNKNOWN_POSITION);
+        verify(mockPushService).closeSubscriptionAsync(pushProcessor);
+    }
+
+    @Test
+    public void shouldFlushUnwrittenAcknowledgement()
+    {
+        // given
+        openProcessor(3);
+        acknowledgeAsync(SUBSCRIPTION_NAME, 10L);
+
+        // when
+        streamProcessor.flushAcknowledgementsAsync();
+        mockController.drainCommandQueue();
+
+        // then
+        final TopicSubscriptionEvent ackCommand = mockController.getLastWrittenEventValue();
+        assertThat(ackCommand.getState()).isEqualTo(TopicSubscriptionState.ACKNOWLEDGE);
+        assertThat(ackCommand.getAckPosition()).isEqualTo(10L);
+        assertThat(pushProcessor.getUnwrittenAckPosition()).isEqualTo(TopicSubscriptionPushProcessor.UNKNOWN_POSITION);
+    }
+
+    @Test
+    public void shouldWriteAcknowledgementOfSubscriptionWhichIsNotOpen()
+    {
+        // given
+        openProcessor(3);
+
+        // when
+        acknowledgeAsync(wrapString("bar"), 10L);
+
+        // then
+        final TopicSubscriptionEvent ackCommand = mockController.getLastWrittenEventValue();
+        assertThat(ackCommand.getState()).isEqualTo(TopicSubscriptionState.ACKNOWLEDGE);
+        assertThat(ackCommand.getAckPosition()).isEqualTo(10L);
+        assertThat(mockController.getLastWrittenEventMetadata().getRequestId()).isEqualTo(4L);
+    }
+
+    @Test
+    public void shouldClearUnwrittenAcknowledgementIfSkippedEventsAreAcknowledged()
+    {
+        // given
+        openProcessor(3);
+        acknowledgeAsync(SUBSCRIPTION_NAME, 10L);
+
+        pushProcessor.onSkipped(11L);
+
+        // when
+        pushProcessor.acknowledgeSkippedEvents(true);
+        mockController.drainCommandQueue();
+
+        // then
+        assertThat(mockController.getLastWrittenEventValue().getAckPosition()).isEqualTo(11L);
+        assertThat(pushProcessor.getUnwrittenAckPosition()).isEqualTo(TopicSubscriptionPushProcessor.UNKNOWN_POSITION);
+    }
+
+    @Test
+    public void shouldPublishLowestAckPosition()
+    {
+        // given
+        openProcessor(1);
+
+        // when
+        acknowledge(10L);
+
+        // then
+        assertThat(streamProcessor.getLowestAckPosition()).isEqualTo(10L);
+        assertThat(streamProcessor.retentionPosition().getAsLong()).isEqualTo(10L);
+    }
+
+    @Test
+    public void shouldAcknowledgeSkippedEvents()
+    {
+        // given
+        openProcessor(1);
+        acknowledge(10L);
+
+        pushProcessor.onSkipped(11L);
+        pushProcessor.onSkipped(12L);
+
+        // when
+        final boolean acknowledged = pushProcessor.acknowledgeSkippedEvents(true);
+        mockController.drainCommandQueue();
+
+        // then
+        assertThat(acknowledged).isTrue();
+
+        final TopicSubscriptionEvent ackCommand = mockController.getLastWrittenEventValue();
+        assertThat(ackCommand.getState()).isEqualTo(TopicSubscriptionState.ACKNOWLEDGE);
+        assertThat(ackCommand.getAckPosition()).isEqualTo(12L);
+        assertThat(mockController.getLastWrittenEventMetadata().getRequestId()).isEqualTo(-1L);
+    }
+
+    @Test
+    public void shouldNotAcknowledgeSkippedEventsIfPushedEventIsNotAcknowledged()
+    {
+        // given
+        openProcessor(1);
+        acknowledge(10L);
+
+        push(11L);
+        pushProcessor.onSkipped(12L);
+
+        // when
+        final boolean acknowledged = pushProcessor.acknowledgeSkippedEvents(true);
+
+        // then
+        assertThat(acknowledged).isFalse();
+    }
+
+    @Test
+    public void shouldAcknowledgeSkippedEventsAfterPushedEvent()
+    {
+        // given
+        openProcessor(1);
+        acknowledge(10L);
+
+        push(11L);
+        pushProcessor.onSkipped(12L);
+
+        // when
+        acknowledge(11L);
+
+        // then
+        assertThat(pushProcessor.acknowledgeSkippedEvents(true)).isTrue();
+    }
+
+    @Test
+    public void shouldAcknowledgeSkippedEventsWhileBusyOnlyAfterSomeEvents()
+    {
+        // given
+        openProcessor(1);
+        acknowledge(10L);
+
+        for (int i = 1; i < TopicSubscriptionPushProcessor.SKIPPED_EVENTS_PER_ACKNOWLEDGEMENT; i++)
+        {
+            pushProcessor.onSkipped(10L + i);
+        }
+
+        // when
+        final boolean acknowledgedBefore = pushProcessor.acknowledgeSkippedEvents(false);
+        pushProcessor.onSkipped(10L + TopicSubscriptionPushProcessor.SKIPPED_EVENTS_PER_ACKNOWLEDGEMENT);
+        final boolean acknowledgedAfter = pushProcessor.acknowledgeSkippedEvents(false);
+
+        // then
+        assertThat(acknowledgedBefore).isFalse();
+        assertThat(acknowledgedAfter).isTrue();
+    }
+
+    protected void acknowledgeAsync(DirectBuffer subscriptionName, long position)
+    {
+        final TopicSubscriptionEvent event = new TopicSubscriptionEvent()
+            .setState(TopicSubscriptionState.ACKNOWLEDGE)
+            .setName(subscriptionName, 0, subscriptionName.capacity())
+            .setAckPosition(position);
+
+        final boolean isTaken = streamProcessor.acknowledgeAsync(event, ExecuteCommandRequestDecoder.keyNullValue(), 3, 4L);
+        assertThat(isTaken).isTrue();
+
+        mockController.drainCommandQueue();
+    }
+
+    protected void push(long position)
+    {
+        when(mockEventWriter.tryWriteMessage(anyInt())).thenReturn(true);
+
+        final LoggedEvent event = mock(LoggedEvent.class);
+        when(event.getPosition()).thenReturn(position);
+        when(event.getValueBuffer()).thenReturn(SUBSCRIPTION_NAME);
+
+        final BrokerEventMetadata metadata = new BrokerEventMetadata();
+        metadata.eventType(EventType.TASK_EVENT);
+
+        pushProcessor.push(mockEventWriter, wrapString("test-topic"), 1, event, metadata, SUBSCRIPTION_NAME);
+    }
+
+    protected void acknowledge(long position)
+    {
+        mockController.processEvent(2L, event -> event
+            .setState(TopicSubscriptionState.ACKNOWLEDGE)
+            .setName(SUBSCRIPTION_NAME, 0, SUBSCRIPTION_NAME.capacity())
+            .setAckPosition(position));
+    }
+}
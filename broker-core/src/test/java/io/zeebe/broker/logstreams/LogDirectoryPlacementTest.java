@@ -0,0 +1,124 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.logstreams;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class LogDirectoryPlacementTest
+{
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Test
+    public void shouldPlaceRoundRobin()
+    {
+        // given
+        final LogDirectoryPlacement placement = LogDirectoryPlacement.forName(LogDirectoryPlacement.ROUND_ROBIN);
+        final LogDirectory[] directories = directories(3);
+
+        // when
+        final int[] selected = new int[5];
+        for (int i = 0; i < selected.length; i++)
+        {
+            selected[i] = placement.selectDirectory(directories);
+        }
+
+        // then
+        assertThat(selected).containsExactly(0, 1, 2, 0, 1);
+    }
+
+    @Test
+    public void shouldPlaceInDirectoryWithLeastPartitions()
+    {
+        // given
+        final LogDirectoryPlacement placement = LogDirectoryPlacement.forName(LogDirectoryPlacement.LEAST_PARTITIONS);
+        final LogDirectory[] directories = directories(3);
+
+        directories[0].addPartition();
+        directories[1].addPartition();
+        directories[1].addPartition();
+
+        // when
+        final int selected = placement.selectDirectory(directories);
+
+        // then
+        assertThat(selected).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldPlaceInDirectoryWithMostFreeBytes()
+    {
+        // given
+        final LogDirectoryPlacement placement = LogDirectoryPlacement.forName(LogDirectoryPlacement.MOST_FREE_BYTES);
+        final LogDirectory[] directories = new LogDirectory[] {
+            directory("/a", 100L),
+            directory("/b", 300L),
+            directory("/c", 200L)
+        };
+
+        // when
+        final int selected = placement.selectDirectory(directories);
+
+        // then
+        assertThat(selected).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldMatchLogDirectoryOfPartition()
+    {
+        final LogDirectory directory = new LogDirectory("/data/logs");
+
+        assertThat(directory.contains("/data/logs/default-topic.0")).isTrue();
+        assertThat(directory.contains("/data/logs2/default-topic.0")).isFalse();
+    }
+
+    @Test
+    public void shouldRejectUnknownPlacement()
+    {
+        thrown.expect(RuntimeException.class);
+        thrown.expectMessage("Unknown log directory placement 'random'");
+
+        LogDirectoryPlacement.forName("random");
+    }
+
+    protected static LogDirectory[] directories(int count)
+    {
+        final LogDirectory[] directories = new LogDirectory[count];
+        for (int i = 0; i < count; i++)
+        {
+            directories[i] = new LogDirectory("/data/logs-" + i);
+        }
+        return directories;
+    }
+
+    protected static LogDirectory directory(String path, long usableSpace)
+    {
+        return new LogDirectory(path)
+        {
+            @Override
+            public long getUsableSpace()
+            {
+                return usableSpace;
+            }
+        };
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.logstreams;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.function.LongSupplier;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import io.zeebe.logstreams.log.LogStream;
+
+public class LogRetentionPositionsTest
+{
+    private final LogRetentionPositions retentionPositions = new LogRetentionPositions();
+
+    private LogStream logStream;
+
+    @Before
+    public void setUp()
+    {
+        logStream = mock(LogStream.class);
+        when(logStream.getCommitPosition()).thenReturn(100L);
+    }
+
+    @Test
+    public void shouldRetainFromCommitPositionWithoutRegisteredPositions()
+    {
+        assertThat(retentionPositions.getRetentionPosition(logStream)).isEqualTo(100L);
+    }
+
+    @Test
+    public void shouldRetainFromLowestRegisteredPosition()
+    {
+        // given
+        retentionPositions.register(logStream, () -> 70L);
+        retentionPositions.register(logStream, () -> 50L);
+        retentionPositions.register(logStream, () -> Long.MAX_VALUE);
+
+        // then
+        assertThat(retentionPositions.getRetentionPosition(logStream)).isEqualTo(50L);
+    }
+
+    @Test
+    public void shouldNotRetainFromRemovedPosition()
+    {
+        // given
+        final LongSupplier position = () -> 50L;
+        retentionPositions.register(logStream, () -> 70L);
+        retentionPositions.register(logStream, position);
+
+        // when
+        retentionPositions.remove(logStream, position);
+
+        // then
+        assertThat(retentionPositions.getRetentionPosition(logStream)).isEqualTo(70L);
+    }
+
+    @Test
+    public void shouldRetainWholeLogIfProcessorHasNoSnapshot()
+    {
+        // given
+        retentionPositions.register(logStream, () -> -1L);
+
+        // then
+        assertThat(retentionPositions.getRetentionPosition(logStream)).isEqualTo(-1L);
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.logstreams.processor;
+
+import static io.zeebe.util.buffer.BufferUtil.wrapString;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.function.Consumer;
+
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import io.zeebe.broker.task.data.TaskEvent;
+import io.zeebe.broker.task.data.TaskState;
+import io.zeebe.logstreams.log.LoggedEvent;
+import io.zeebe.msgpack.spec.MsgPackWriter;
+import org.junit.Test;
+
+public class EventStateProbeTest
+{
+    private final EventStateProbe<TaskState> stateProbe = new EventStateProbe<>(TaskState.class);
+
+    @Test
+    public void shouldReadState()
+    {
+        // given
+        final TaskEvent taskEvent = new TaskEvent()
+                .setState(TaskState.LOCKED)
+                .setType(wrapString("foo"))
+                .setRetries(3);
+
+        final UnsafeBuffer buffer = new UnsafeBuffer(new byte[taskEvent.getLength()]);
+        taskEvent.write(buffer, 0);
+
+        // when
+        final TaskState state = stateProbe.readState(loggedEvent(buffer));
+
+        // then
+        assertThat(state).isEqualTo(TaskState.LOCKED);
+    }
+
+    @Test
+    public void shouldReadStateIfNotFirstProperty()
+    {
+        // given
+        final DirectBuffer buffer = write(w ->
+        {
+            w.writeMapHeader(3);
+            w.writeString(wrapString("type"));
+            w.writeString(wrapString("foo"));
+            w.writeString(wrapString("headers"));
+            w.writeMapHeader(1);
+            w.writeString(wrapString("state"));
+            w.writeString(wrapString("CREATE"));
+            w.writeString(wrapString("state"));
+            w.writeString(wrapString("COMPLETED"));
+        });
+
+        // when
+        final TaskState state = stateProbe.readState(loggedEvent(buffer));
+
+        // then
+        assertThat(state).isEqualTo(TaskState.COMPLETED);
+    }
+
+    @Test
+    public void shouldReturnNullIfNoState()
+    {
+        // given
+        final DirectBuffer buffer = write(w ->
+        {
+            w.writeMapHeader(1);
+            w.writeString(wrapString("stateless"));
+            w.writeString(wrapString("CREATE"));
+        });
+
+        // when
+        final TaskState state = stateProbe.readState(loggedEvent(buffer));
+
+        // then
+        assertThat(state).isNull();
+    }
+
+    protected LoggedEvent loggedEvent(DirectBuffer value)
+    {
+        final LoggedEvent event = mock(LoggedEvent.class);
+
+        when(event.getValueBuffer()).thenReturn(value);
+        when(event.getValueOffset()).thenReturn(0);
+        when(event.getValueLength()).thenReturn(value.capacity());
+
+        return event;
+    }
+
+    protected DirectBuffer write(Consumer<MsgPackWriter> writer)
+    {
+        final UnsafeBuffer buffer = new UnsafeBuffer(new byte[1024]);
+
+        final MsgPackWriter msgPackWriter = new MsgPackWriter();
+        msgPackWriter.wrap(buffer, 0);
+        writer.accept(msgPackWriter);
+
+        return new UnsafeBuffer(buffer, 0, msgPackWriter.getOffset());
+    }
+
+}
@@ -0,0 +1,167 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.logstreams.processor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.status.CountersManager;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.zeebe.broker.services.Counters;
+import io.zeebe.broker.system.metrics.MetricsService;
+import io.zeebe.logstreams.log.LogStream;
+import io.zeebe.logstreams.log.LogStreamWriter;
+import io.zeebe.logstreams.log.LoggedEvent;
+import io.zeebe.logstreams.processor.EventProcessor;
+import io.zeebe.logstreams.processor.StreamProcessor;
+import io.zeebe.logstreams.processor.StreamProcessorContext;
+
+public class MeteredStreamProcessorTest
+{
+    private Counters counters;
+
+    private StreamProcessor streamProcessor;
+    private EventProcessor eventProcessor;
+    private LogStream logStream;
+
+    private MeteredStreamProcessor meteredStreamProcessor;
+
+    @Before
+    public void setUp()
+    {
+        final UnsafeBuffer labelsBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(64 * 1024));
+        final UnsafeBuffer countersBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(16 * 1024));
+        counters = new Counters(new CountersManager(labelsBuffer, countersBuffer), countersBuffer);
+
+        streamProcessor = mock(StreamProcessor.class);
+        eventProcessor = mock(EventProcessor.class);
+
+        logStream = mock(LogStream.class);
+        when(logStream.getCommitPosition()).thenReturn(100L);
+
+        meteredStreamProcessor = new MeteredStreamProcessor(streamProcessor, counters.getCountersManager(), "test");
+
+        final StreamProcessorContext context = new StreamProcessorContext();
+        context.setSourceStream(logStream);
+        context.setTargetStream(logStream);
+
+        meteredStreamProcessor.onOpen(context);
+    }
+
+    @Test
+    public void shouldCountProcessedEvents()
+    {
+        // when
+        process(event(40L));
+        process(event(60L));
+
+        // then
+        final Map<String, Long> values = readCounters();
+        assertThat(values).containsEntry("test.eventsProcessed", 2L);
+        assertThat(values).containsEntry("test.processedPosition", 60L);
+        assertThat(values).containsEntry("test.lag", 40L);
+    }
+
+    @Test
+    public void shouldDelegateToEventProcessor()
+    {
+        // given
+        final LogStreamWriter writer = mock(LogStreamWriter.class);
+        when(eventProcessor.executeSideEffects()).thenReturn(true);
+        when(eventProcessor.writeEvent(writer)).thenReturn(5L);
+
+        final LoggedEvent event = event(40L);
+
+        // when
+        final EventProcessor processor = meteredStreamProcessor.onEvent(event);
+
+        processor.processEvent();
+        final boolean sideEffectsResult = processor.executeSideEffects();
+        final long writeResult = processor.writeEvent(writer);
+        processor.updateState();
+
+        // then
+        assertThat(sideEffectsResult).isTrue();
+        assertThat(writeResult).isEqualTo(5L);
+
+        verify(streamProcessor).onEvent(event);
+        verify(eventProcessor).processEvent();
+        verify(eventProcessor).updateState();
+    }
+
+    @Test
+    public void shouldSkipEventWithoutEventProcessor()
+    {
+        // given
+        final LoggedEvent event = mock(LoggedEvent.class);
+        when(event.getPosition()).thenReturn(80L);
+
+        // when
+        final EventProcessor processor = meteredStreamProcessor.onEvent(event);
+
+        // then
+        assertThat(processor).isNull();
+
+        final Map<String, Long> values = readCounters();
+        assertThat(values).containsEntry("test.eventsProcessed", 0L);
+        assertThat(values).containsEntry("test.processedPosition", 80L);
+    }
+
+    protected LoggedEvent event(long position)
+    {
+        final LoggedEvent event = mock(LoggedEvent.class);
+        when(event.getPosition()).thenReturn(position);
+        when(streamProcessor.onEvent(event)).thenReturn(eventProcessor);
+        return event;
+    }
+
+    protected void process(LoggedEvent event)
+    {
+        final EventProcessor processor = meteredStreamProcessor.onEvent(event);
+
+        processor.processEvent();
+        processor.executeSideEffects();
+        processor.writeEvent(mock(LogStreamWriter.class));
+        processor.updateState();
+    }
+
+    protected Map<String, Long> readCounters()
+    {
+        final Map<String, Long> values = new HashMap<>();
+
+        for (String line : MetricsService.formatCounters(counters).split("\n"))
+        {
+            if (!line.isEmpty())
+            {
+                final int separator = line.lastIndexOf(' ');
+                values.put(line.substring(0, separator), Long.parseLong(line.substring(separator + 1)));
+            }
+        }
+
+        return values;
+    }
+}
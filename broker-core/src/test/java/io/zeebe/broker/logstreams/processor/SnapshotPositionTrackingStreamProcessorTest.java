@@ -0,0 +1,121 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.logstreams.processor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import io.zeebe.logstreams.processor.StreamProcessor;
+import io.zeebe.logstreams.spi.ReadableSnapshot;
+import io.zeebe.logstreams.spi.SnapshotStorage;
+import io.zeebe.logstreams.spi.SnapshotSupport;
+
+public class SnapshotPositionTrackingStreamProcessorTest
+{
+    private SnapshotStorage snapshotStorage;
+    private SnapshotSupport snapshotSupport;
+
+    private SnapshotPositionTrackingStreamProcessor streamProcessor;
+
+    @Before
+    public void setUp()
+    {
+        snapshotStorage = mock(SnapshotStorage.class);
+        snapshotSupport = mock(SnapshotSupport.class);
+
+        final StreamProcessor delegate = mock(StreamProcessor.class);
+        when(delegate.getStateResource()).thenReturn(snapshotSupport);
+
+        streamProcessor = new SnapshotPositionTrackingStreamProcessor(delegate, snapshotStorage, "foo");
+    }
+
+    @Test
+    public void shouldHaveNoSnapshotPositionInitially()
+    {
+        // then
+        assertThat(streamProcessor.getLastSnapshotPosition()).isEqualTo(SnapshotPositionTrackingStreamProcessor.NO_SNAPSHOT);
+    }
+
+    @Test
+    public void shouldPublishPositionOfRecoveredSnapshot() throws Exception
+    {
+        // given
+        givenLastSnapshot(50L);
+
+        final InputStream inputStream = new ByteArrayInputStream(new byte[0]);
+
+        // when
+        streamProcessor.getStateResource().recoverFromSnapshot(inputStream);
+
+        // then
+        verify(snapshotSupport).recoverFromSnapshot(inputStream);
+        assertThat(streamProcessor.getLastSnapshotPosition()).isEqualTo(50L);
+    }
+
+    @Test
+    public void shouldPublishPositionOfLastCommittedSnapshotBeforeWritingSnapshot() throws Exception
+    {
+        // given
+        givenLastSnapshot(50L);
+        streamProcessor.getStateResource().recoverFromSnapshot(new ByteArrayInputStream(new byte[0]));
+
+        givenLastSnapshot(80L);
+
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // when
+        streamProcessor.getStateResource().writeSnapshot(outputStream);
+
+        // then
+        verify(snapshotSupport).writeSnapshot(outputStream);
+        assertThat(streamProcessor.getLastSnapshotPosition()).isEqualTo(80L);
+    }
+
+    @Test
+    public void shouldRetainWholeLogOnReset() throws Exception
+    {
+        // given
+        givenLastSnapshot(50L);
+        streamProcessor.getStateResource().recoverFromSnapshot(new ByteArrayInputStream(new byte[0]));
+
+        // when
+        streamProcessor.getStateResource().reset();
+
+        // then
+        verify(snapshotSupport).reset();
+        assertThat(streamProcessor.getLastSnapshotPosition()).isEqualTo(SnapshotPositionTrackingStreamProcessor.NO_SNAPSHOT);
+    }
+
+    protected void givenLastSnapshot(long position) throws Exception
+    {
+        final ReadableSnapshot snapshot = mock(ReadableSnapshot.class);
+        when(snapshot.getPosition()).thenReturn(position);
+        when(snapshot.getData()).thenReturn(new ByteArrayInputStream(new byte[0]));
+
+        when(snapshotStorage.getLastSnapshot("foo")).thenReturn(snapshot);
+    }
+}
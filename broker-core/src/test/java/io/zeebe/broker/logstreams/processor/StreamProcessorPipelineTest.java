@@ -0,0 +1,385 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.logstreams.processor;
+
+import static io.zeebe.logstreams.log.LogStream.DEFAULT_TOPIC_NAME_BUFFER;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import io.zeebe.broker.logstreams.processor.StreamProcessorServiceTest.TestEvent;
+import io.zeebe.broker.test.MockStreamProcessorController;
+import io.zeebe.logstreams.log.LogStream;
+import io.zeebe.logstreams.log.LogStreamWriter;
+import io.zeebe.logstreams.log.LoggedEvent;
+import io.zeebe.logstreams.processor.EventProcessor;
+import io.zeebe.logstreams.processor.StreamProcessor;
+import io.zeebe.logstreams.processor.StreamProcessorContext;
+import io.zeebe.logstreams.processor.StreamProcessorErrorHandler;
+import io.zeebe.logstreams.spi.SnapshotSupport;
+import io.zeebe.protocol.clientapi.EventType;
+import io.zeebe.protocol.impl.BrokerEventMetadata;
+import io.zeebe.test.util.FluentAnswer;
+
+public class StreamProcessorPipelineTest
+{
+    @Rule
+    public MockStreamProcessorController<TestEvent> mockController = new MockStreamProcessorController<>(TestEvent.class);
+
+    private final List<String> invocations = new ArrayList<>();
+
+    private TestStage taskStage;
+    private TestStage workflowStage;
+    private StreamProcessorErrorHandler errorHandler;
+    private StreamProcessorPipeline pipeline;
+
+    @Before
+    public void setUp()
+    {
+        taskStage = new TestStage("task", 1L);
+        workflowStage = new TestStage("workflow", 2L);
+
+        errorHandler = mock(StreamProcessorErrorHandler.class);
+        when(errorHandler.canHandle(any())).thenAnswer(i -> i.getArguments()[0] instanceof HandledException);
+        when(errorHandler.onError(any(), any())).thenReturn(true);
+
+        pipeline = new StreamProcessorPipeline()
+            .errorHandler(errorHandler)
+            .stage(taskStage, m -> m.getEventType() == EventType.TASK_EVENT)
+            .stage(workflowStage, m -> m.getEventType() == EventType.TASK_EVENT || m.getEventType() == EventType.WORKFLOW_INSTANCE_EVENT);
+
+        final LogStream logStream = mock(LogStream.class);
+        when(logStream.getTopicName()).thenReturn(DEFAULT_TOPIC_NAME_BUFFER);
+        when(logStream.getPartitionId()).thenReturn(0);
+
+        final StreamProcessorContext context = new StreamProcessorContext();
+        context.setSourceStream(logStream);
+        context.setTargetStream(logStream);
+
+        mockController.initStreamProcessor(pipeline, context);
+    }
+
+    @Test
+    public void shouldRouteEventToStagesInOrder()
+    {
+        // when
+        mockController.processEvent(1L, e ->
+        { }, m -> m.eventType(EventType.TASK_EVENT));
+
+        // then
+        assertThat(invocations).containsExactly(
+                "task:process", "workflow:process",
+                "task:sideEffects", "workflow:sideEffects",
+                "task:write", "workflow:write",
+                "task:update", "workflow:update");
+    }
+
+    @Test
+    public void shouldRouteEventOnlyToStagesWithApplyingFilter()
+    {
+        // when
+        mockController.processEvent(1L, e ->
+        { }, m -> m.eventType(EventType.WORKFLOW_INSTANCE_EVENT));
+
+        // then
+        assertThat(invocations).containsExactly("workflow:process", "workflow:sideEffects", "workflow:write", "workflow:update");
+    }
+
+    @Test
+    public void shouldSkipEventIfNoStageApplies()
+    {
+        // given
+        final LoggedEvent event = mockController.buildLoggedEvent(1L, e ->
+        { }, m -> m.eventType(EventType.DEPLOYMENT_EVENT));
+
+        // when
+        final EventProcessor eventProcessor = pipeline.onEvent(event);
+
+        // then
+        assertThat(eventProcessor).isNull();
+        assertThat(pipeline.eventFilter().applies(readMetadata(event))).isFalse();
+    }
+
+    @Test
+    public void shouldNotRepeatSideEffectsAndWritesOfPreviousStages()
+    {
+        // given
+        workflowStage.failedSideEffects = 1;
+        workflowStage.failedWrites = 1;
+
+        final LoggedEvent event = mockController.buildLoggedEvent(1L, e ->
+        { }, m -> m.eventType(EventType.TASK_EVENT));
+
+        final EventProcessor eventProcessor = pipeline.onEvent(event);
+        eventProcessor.processEvent();
+
+        // when
+        assertThat(eventProcessor.executeSideEffects()).isFalse();
+        assertThat(eventProcessor.executeSideEffects()).isTrue();
+
+        final LogStreamWriter writer = mock(LogStreamWriter.class, new FluentAnswer());
+
+        assertThat(eventProcessor.writeEvent(writer)).isLessThan(0L);
+        assertThat(eventProcessor.writeEvent(writer)).isEqualTo(2L);
+
+        // then
+        assertThat(invocations).containsExactly(
+                "task:process", "workflow:process",
+                "task:sideEffects", "workflow:sideEffects", "workflow:sideEffects",
+                "task:write", "workflow:write", "workflow:write");
+    }
+
+    @Test
+    public void shouldProcessEventByOtherStagesIfStageFails()
+    {
+        // given
+        final HandledException failure = new HandledException();
+        taskStage.processingFailure = failure;
+
+        final LoggedEvent event = mockController.buildLoggedEvent(1L, e ->
+        { }, m -> m.eventType(EventType.TASK_EVENT));
+
+        final EventProcessor eventProcessor = pipeline.onEvent(event);
+
+        // when
+        eventProcessor.processEvent();
+        eventProcessor.executeSideEffects();
+        final long position = eventProcessor.writeEvent(mock(LogStreamWriter.class, new FluentAnswer()));
+        eventProcessor.updateState();
+
+        // then
+        assertThat(position).isEqualTo(2L);
+        assertThat(invocations).containsExactly(
+                "task:process", "workflow:process",
+                "workflow:sideEffects",
+                "workflow:write",
+                "workflow:update");
+
+        verify(errorHandler).onError(event, failure);
+    }
+
+    @Test
+    public void shouldRetryErrorHandlingIfItFails()
+    {
+        // given
+        final HandledException failure = new HandledException();
+        workflowStage.processingFailure = failure;
+
+        when(errorHandler.onError(any(), any())).thenReturn(false, true);
+
+        final LoggedEvent event = mockController.buildLoggedEvent(1L, e ->
+        { }, m -> m.eventType(EventType.TASK_EVENT));
+
+        final EventProcessor eventProcessor = pipeline.onEvent(event);
+        eventProcessor.processEvent();
+        eventProcessor.executeSideEffects();
+
+        final LogStreamWriter writer = mock(LogStreamWriter.class, new FluentAnswer());
+
+        // when
+        assertThat(eventProcessor.writeEvent(writer)).isLessThan(0L);
+        assertThat(eventProcessor.writeEvent(writer)).isEqualTo(1L);
+
+        // then
+        assertThat(invocations).containsExactly(
+                "task:process", "workflow:process",
+                "task:sideEffects",
+                "task:write");
+    }
+
+    @Test
+    public void shouldRethrowErrorWhichCannotBeHandled()
+    {
+        // given
+        final RuntimeException failure = new RuntimeException("expected");
+        taskStage.processingFailure = failure;
+
+        final LoggedEvent event = mockController.buildLoggedEvent(1L, e ->
+        { }, m -> m.eventType(EventType.TASK_EVENT));
+
+        final EventProcessor eventProcessor = pipeline.onEvent(event);
+
+        // when/then
+        assertThatThrownBy(() -> eventProcessor.processEvent()).isSameAs(failure);
+
+        verify(errorHandler, never()).onError(any(), any());
+    }
+
+    @Test
+    public void shouldRecoverStateOfAllStagesFromSnapshot() throws Exception
+    {
+        // given
+        taskStage.state = 3;
+        workflowStage.state = 5;
+
+        final ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        pipeline.getStateResource().writeSnapshot(snapshot);
+
+        pipeline.getStateResource().reset();
+        assertThat(taskStage.state).isEqualTo(0);
+        assertThat(workflowStage.state).isEqualTo(0);
+
+        // when
+        pipeline.getStateResource().recoverFromSnapshot(new ByteArrayInputStream(snapshot.toByteArray()));
+
+        // then
+        assertThat(taskStage.state).isEqualTo(3);
+        assertThat(workflowStage.state).isEqualTo(5);
+    }
+
+    @Test
+    public void shouldRecoverStateOfStageAfterLargeSnapshotWhichIsNotReadCompletely() throws Exception
+    {
+        // given
+        taskStage.state = 3;
+        taskStage.snapshotPadding = 10_000;
+        workflowStage.state = 5;
+
+        final ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        pipeline.getStateResource().writeSnapshot(snapshot);
+
+        pipeline.getStateResource().reset();
+
+        // when
+        pipeline.getStateResource().recoverFromSnapshot(new ByteArrayInputStream(snapshot.toByteArray()));
+
+        // then
+        assertThat(taskStage.state).isEqualTo(3);
+        assertThat(workflowStage.state).isEqualTo(5);
+    }
+
+    protected BrokerEventMetadata readMetadata(LoggedEvent event)
+    {
+        final BrokerEventMetadata metadata = new BrokerEventMetadata();
+        event.readMetadata(metadata);
+        return metadata;
+    }
+
+    protected static class HandledException extends RuntimeException
+    {
+        private static final long serialVersionUID = 1L;
+    }
+
+    protected class TestStage implements StreamProcessor, EventProcessor, SnapshotSupport
+    {
+        protected final String name;
+        protected final long writtenEventPosition;
+
+        protected int state = 0;
+        protected int snapshotPadding = 0;
+        protected int failedSideEffects = 0;
+        protected int failedWrites = 0;
+        protected RuntimeException processingFailure;
+
+        TestStage(String name, long writtenEventPosition)
+        {
+            this.name = name;
+            this.writtenEventPosition = writtenEventPosition;
+        }
+
+        @Override
+        public SnapshotSupport getStateResource()
+        {
+            return this;
+        }
+
+        @Override
+        public EventProcessor onEvent(LoggedEvent event)
+        {
+            return this;
+        }
+
+        @Override
+        public void processEvent()
+        {
+            invocations.add(name + ":process");
+
+            if (processingFailure != null)
+            {
+                throw processingFailure;
+            }
+        }
+
+        @Override
+        public boolean executeSideEffects()
+        {
+            invocations.add(name + ":sideEffects");
+
+            if (failedSideEffects > 0)
+            {
+                failedSideEffects -= 1;
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public long writeEvent(LogStreamWriter writer)
+        {
+            invocations.add(name + ":write");
+
+            if (failedWrites > 0)
+            {
+                failedWrites -= 1;
+                return -1L;
+            }
+            return writtenEventPosition;
+        }
+
+        @Override
+        public void updateState()
+        {
+            invocations.add(name + ":update");
+        }
+
+        @Override
+        public void writeSnapshot(OutputStream outputStream) throws Exception
+        {
+            outputStream.write(state);
+            // not read on recovery
+            outputStream.write(new byte[snapshotPadding]);
+        }
+
+        @Override
+        public void recoverFromSnapshot(InputStream inputStream) throws Exception
+        {
+            state = inputStream.read();
+        }
+
+        @Override
+        public void reset()
+        {
+            state = 0;
+        }
+    }
+}
@@ -20,14 +20,20 @@ package io.zeebe.broker.logstreams.processor;
 import static org.assertj.core.api.Assertions.assertThat;
 import static io.zeebe.logstreams.log.LogStream.DEFAULT_TOPIC_NAME_BUFFER;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayInputStream;
+
+import io.zeebe.broker.logstreams.LogRetentionPositions;
 import io.zeebe.broker.test.MockStreamProcessorController;
 import io.zeebe.logstreams.log.LogStream;
 import io.zeebe.logstreams.log.LoggedEvent;
 import io.zeebe.logstreams.processor.EventFilter;
 import io.zeebe.logstreams.processor.StreamProcessor;
 import io.zeebe.logstreams.processor.StreamProcessorController;
+import io.zeebe.logstreams.spi.ReadableSnapshot;
 import io.zeebe.logstreams.spi.SnapshotStorage;
 import io.zeebe.msgpack.UnpackedObject;
 import io.zeebe.servicecontainer.ServiceStartContext;
@@ -172,6 +178,65 @@ public class StreamProcessorServiceTest
         assertThat(reprocessingEventFilter.applies(event)).isFalse();
     }
 
+    @Test
+    public void shouldRetainWholeLogIfStateReferencesLog() throws Exception
+    {
+        // given
+        final StreamProcessorService streamProcessorService = new StreamProcessorService("foo", 1, mock(StreamProcessor.class));
+        injectMocks(streamProcessorService);
+
+        final LogRetentionPositions retentionPositions = injectRetentionPositions(streamProcessorService, 50L);
+
+        // when
+        streamProcessorService.start(mock(ServiceStartContext.class));
+
+        // then
+        final LogStream logStream = streamProcessorService.getSourceStreamInjector().getValue();
+        assertThat(retentionPositions.getRetentionPosition(logStream)).isEqualTo(LogRetentionPositions.WHOLE_LOG);
+    }
+
+    @Test
+    public void shouldRetainLogFromPublishedSnapshotPositionIfStateIsIndependentOfLog() throws Exception
+    {
+        // given
+        final StreamProcessorService streamProcessorService = new StreamProcessorService("foo", 1, mock(StreamProcessor.class));
+        injectMocks(streamProcessorService);
+        streamProcessorService.stateIndependentOfLog();
+
+        final LogRetentionPositions retentionPositions = injectRetentionPositions(streamProcessorService, 50L);
+
+        streamProcessorService.start(mock(ServiceStartContext.class));
+
+        // when
+        final LogStream logStream = streamProcessorService.getSourceStreamInjector().getValue();
+        final long retentionPosition = retentionPositions.getRetentionPosition(logStream);
+
+        // then
+        // the position is published when the stream processor recovers from its snapshot
+        assertThat(retentionPosition).isEqualTo(SnapshotPositionTrackingStreamProcessor.NO_SNAPSHOT);
+
+        final SnapshotStorage snapshotStorage = streamProcessorService.getSnapshotStorageInjector().getValue();
+        verify(snapshotStorage, never()).getLastSnapshot("foo");
+    }
+
+    protected LogRetentionPositions injectRetentionPositions(StreamProcessorService streamProcessorService, long snapshotPosition) throws Exception
+    {
+        final LogStream logStream = streamProcessorService.getSourceStreamInjector().getValue();
+        when(logStream.getCommitPosition()).thenReturn(100L);
+
+        final ReadableSnapshot snapshot = mock(ReadableSnapshot.class);
+        when(snapshot.getPosition()).thenReturn(snapshotPosition);
+        when(snapshot.getData()).thenReturn(new ByteArrayInputStream(new byte[0]));
+
+        final SnapshotStorage snapshotStorage = streamProcessorService.getSnapshotStorageInjector().getValue();
+        when(snapshotStorage.getLastSnapshot("foo")).thenReturn(snapshot);
+
+        final LogRetentionPositions retentionPositions = new LogRetentionPositions();
+        streamProcessorService.getRetentionPositionsInjector().inject(retentionPositions);
+
+        return retentionPositions;
+    }
+
     protected void injectMocks(StreamProcessorService streamProcessorService)
     {
         final ActorScheduler actorScheduler = mock(ActorScheduler.class);
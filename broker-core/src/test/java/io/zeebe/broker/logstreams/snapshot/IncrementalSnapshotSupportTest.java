@@ -0,0 +1,277 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.logstreams.snapshot;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import io.zeebe.logstreams.snapshot.ComposedZbMapSnapshot;
+import io.zeebe.logstreams.snapshot.ZbMapSnapshotSupport;
+import io.zeebe.map.Long2BytesZbMap;
+import io.zeebe.map.Long2LongZbMap;
+
+public class IncrementalSnapshotSupportTest
+{
+    private static final int VALUE_LENGTH = 64;
+    private static final int SNAPSHOTS_PER_BASE = 3;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private File directory;
+
+    private Long2BytesZbMap bytesMap;
+    private Long2LongZbMap longMap;
+    private Long2BytesZbMapDelta bytesDelta;
+    private Long2LongZbMapDelta longDelta;
+
+    private IncrementalSnapshotSupport snapshotSupport;
+
+    @Before
+    public void setUp()
+    {
+        directory = new File(tempFolder.getRoot(), "incremental");
+
+        bytesMap = new Long2BytesZbMap(VALUE_LENGTH);
+        longMap = new Long2LongZbMap();
+
+        bytesDelta = new Long2BytesZbMapDelta(bytesMap, new ZbMapSnapshotSupport<>(bytesMap), VALUE_LENGTH);
+        longDelta = new Long2LongZbMapDelta(longMap, new ZbMapSnapshotSupport<>(longMap), -1L);
+
+        snapshotSupport = new IncrementalSnapshotSupport(directory, "test", SNAPSHOTS_PER_BASE, new ZbMapDelta[] {bytesDelta, longDelta});
+    }
+
+    @After
+    public void cleanUp()
+    {
+        bytesMap.close();
+        longMap.close();
+    }
+
+    @Test
+    public void shouldWriteOnlyChangedEntries() throws Exception
+    {
+        // given
+        for (int i = 0; i < 1_000; i++)
+        {
+            put(i, i);
+        }
+        writeSnapshot();
+
+        // when
+        put(5, 50);
+        final byte[] incrementalSnapshot = writeSnapshot();
+
+        // then
+        final ByteArrayOutputStream fullSnapshot = new ByteArrayOutputStream();
+        new ComposedZbMapSnapshot(new ZbMapSnapshotSupport<>(bytesMap), new ZbMapSnapshotSupport<>(longMap)).writeSnapshot(fullSnapshot);
+
+        assertThat(incrementalSnapshot.length).isLessThan(fullSnapshot.size() / 10);
+    }
+
+    @Test
+    public void shouldRecoverFromBaseAndDelta() throws Exception
+    {
+        // given
+        put(1, 10);
+        put(2, 20);
+        writeSnapshot();
+
+        put(2, 21);
+        put(3, 30);
+        remove(1);
+        final byte[] snapshot = writeSnapshot();
+
+        // when
+        snapshotSupport.reset();
+        snapshotSupport.recoverFromSnapshot(new ByteArrayInputStream(snapshot));
+
+        // then
+        assertThat(longMap.get(1, -1L)).isEqualTo(-1L);
+        assertThat(longMap.get(2, -1L)).isEqualTo(21L);
+        assertThat(longMap.get(3, -1L)).isEqualTo(30L);
+
+        final byte[] value = new byte[VALUE_LENGTH];
+        assertThat(bytesMap.get(1, value)).isFalse();
+        assertThat(bytesMap.get(2, value)).isTrue();
+        assertThat(value[0]).isEqualTo((byte) 21);
+    }
+
+    @Test
+    public void shouldKeepChangesOfRecoveredDelta() throws Exception
+    {
+        // given
+        put(1, 10);
+        writeSnapshot();
+
+        put(1, 11);
+        final byte[] snapshot = writeSnapshot();
+
+        snapshotSupport.reset();
+        snapshotSupport.recoverFromSnapshot(new ByteArrayInputStream(snapshot));
+
+        // when
+        put(2, 20);
+        final byte[] nextSnapshot = writeSnapshot();
+
+        snapshotSupport.reset();
+        snapshotSupport.recoverFromSnapshot(new ByteArrayInputStream(nextSnapshot));
+
+        // then
+        assertThat(longMap.get(1, -1L)).isEqualTo(11L);
+        assertThat(longMap.get(2, -1L)).isEqualTo(20L);
+    }
+
+    @Test
+    public void shouldWriteNewBaseSnapshot() throws Exception
+    {
+        // when
+        for (int i = 0; i < 3 * SNAPSHOTS_PER_BASE; i++)
+        {
+            put(i, i);
+            writeSnapshot();
+        }
+
+        // then
+        assertThat(directory.list()).containsOnly("test.base.1", "test.base.2");
+    }
+
+    @Test
+    public void shouldRecoverAfterNewBaseSnapshot() throws Exception
+    {
+        // given
+        byte[] snapshot = null;
+        for (int i = 0; i < SNAPSHOTS_PER_BASE + 2; i++)
+        {
+            put(i, i);
+            snapshot = writeSnapshot();
+        }
+
+        // when
+        snapshotSupport.reset();
+        snapshotSupport.recoverFromSnapshot(new ByteArrayInputStream(snapshot));
+
+        // then
+        for (int i = 0; i < SNAPSHOTS_PER_BASE + 2; i++)
+        {
+            assertThat(longMap.get(i, -1L)).isEqualTo(i);
+        }
+    }
+
+    @Test
+    public void shouldNotOverwriteBaseSnapshotOfPreviousRun() throws Exception
+    {
+        // given
+        put(1, 10);
+        writeSnapshot();
+
+        // when
+        final IncrementalSnapshotSupport newSnapshotSupport = new IncrementalSnapshotSupport(directory, "test", SNAPSHOTS_PER_BASE, new ZbMapDelta[] {bytesDelta, longDelta});
+        newSnapshotSupport.writeSnapshot(new ByteArrayOutputStream());
+
+        // then
+        assertThat(directory.list()).containsOnly("test.base.0", "test.base.1");
+    }
+
+    @Test
+    public void shouldDeleteUnreferencedBaseSnapshots() throws Exception
+    {
+        // given
+        directory.mkdirs();
+        for (int i = 0; i < 4; i++)
+        {
+            new File(directory, "test.base." + i).createNewFile();
+        }
+        new File(directory, "test.base.4.tmp").createNewFile();
+        new File(directory, "other.base.0").createNewFile();
+
+        // when
+        put(1, 10);
+        writeSnapshot();
+
+        // then
+        assertThat(directory.list()).containsOnly("test.base.3", "test.base.4", "other.base.0");
+    }
+
+    @Test
+    public void shouldNotTrackChangesIfNotEnabled()
+    {
+        // given
+        final Long2LongZbMapDelta disabledDelta = new Long2LongZbMapDelta(longMap, new ZbMapSnapshotSupport<>(longMap), -1L);
+
+        // when
+        for (int i = 0; i < 1_000; i++)
+        {
+            longMap.put(i, i);
+            disabledDelta.markDirty(i);
+        }
+
+        // then
+        assertThat(disabledDelta.getDirtyKeyCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldTrackChangesOfEnabledDelta()
+    {
+        // when
+        put(1, 10);
+        put(2, 20);
+        put(1, 11);
+
+        // then
+        assertThat(bytesDelta.getDirtyKeyCount()).isEqualTo(2);
+        assertThat(longDelta.getDirtyKeyCount()).isEqualTo(2);
+    }
+
+    protected void put(long key, int value)
+    {
+        final byte[] bytes = new byte[VALUE_LENGTH];
+        bytes[0] = (byte) value;
+
+        bytesMap.put(key, bytes);
+        bytesDelta.markDirty(key);
+
+        longMap.put(key, value);
+        longDelta.markDirty(key);
+    }
+
+    protected void remove(long key)
+    {
+        bytesMap.remove(key, new byte[VALUE_LENGTH]);
+        bytesDelta.markDirty(key);
+
+        longMap.remove(key, -1L);
+        longDelta.markDirty(key);
+    }
+
+    protected byte[] writeSnapshot() throws Exception
+    {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        snapshotSupport.writeSnapshot(outputStream);
+        return outputStream.toByteArray();
+    }
+}
@@ -193,4 +193,28 @@ public class ScheduledExecutorTest
         assertThat(scheduledCommand.getDueDate()).isEqualTo(now.toEpochMilli());
     }
 
+    @Test
+    public void shouldExecuteCommandInLaterRoundOfTheWheel()
+    {
+        final AtomicInteger invocations = new AtomicInteger(0);
+
+        final long wheelDuration = ScheduledExecutorImpl.WHEEL_SIZE * ScheduledExecutorImpl.TICK_DURATION_IN_MILLIS;
+
+        executor.schedule(() -> invocations.incrementAndGet(), Duration.ofMillis(2 * wheelDuration + 5));
+
+        // the bucket of the command is visited in each round
+        for (long time = 0; time <= 2 * wheelDuration; time += ScheduledExecutorImpl.TICK_DURATION_IN_MILLIS)
+        {
+            ClockUtil.setCurrentTime(now.plusMillis(time));
+
+            agentRunnerService.waitUntilDone();
+            assertThat(invocations.get()).isEqualTo(0);
+        }
+
+        ClockUtil.setCurrentTime(now.plusMillis(2 * wheelDuration + 5));
+
+        agentRunnerService.waitUntilDone();
+        assertThat(invocations.get()).isEqualTo(1);
+    }
+
 }
@@ -0,0 +1,97 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.system.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest
+{
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    @Test
+    public void shouldRecordSmallValuesExactly()
+    {
+        // when
+        for (int i = 1; i <= 50; i++)
+        {
+            histogram.record(i);
+        }
+
+        // then
+        assertThat(histogram.getTotalCount()).isEqualTo(50);
+        assertThat(histogram.getValueAtPercentile(50.0)).isEqualTo(25);
+        assertThat(histogram.getValueAtPercentile(100.0)).isEqualTo(50);
+        assertThat(histogram.getMaxValue()).isEqualTo(50);
+    }
+
+    @Test
+    public void shouldApproximateLargeValues()
+    {
+        // when
+        for (int i = 1; i <= 10_000; i++)
+        {
+            histogram.record(i * 1_000L);
+        }
+
+        // then
+        assertThat(histogram.getValueAtPercentile(50.0)).isCloseTo(5_000_000L, within(5_000_000L * 3 / 100));
+        assertThat(histogram.getValueAtPercentile(99.0)).isCloseTo(9_900_000L, within(9_900_000L * 3 / 100));
+        assertThat(histogram.getValueAtPercentile(99.9)).isGreaterThanOrEqualTo(9_990_000L);
+        assertThat(histogram.getMaxValue()).isGreaterThanOrEqualTo(10_000_000L);
+    }
+
+    @Test
+    public void shouldRecordHighestValue()
+    {
+        // when
+        histogram.record(Long.MAX_VALUE);
+
+        // then
+        assertThat(histogram.getMaxValue()).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    public void shouldReturnZeroIfEmpty()
+    {
+        // then
+        assertThat(histogram.getTotalCount()).isEqualTo(0);
+        assertThat(histogram.getValueAtPercentile(99.0)).isEqualTo(0);
+        assertThat(histogram.getMaxValue()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldDrainToOtherHistogram()
+    {
+        // given
+        final LatencyHistogram intervalHistogram = new LatencyHistogram();
+
+        histogram.record(10);
+        histogram.record(20);
+
+        // when
+        histogram.drainTo(intervalHistogram);
+
+        // then
+        assertThat(histogram.getTotalCount()).isEqualTo(0);
+        assertThat(intervalHistogram.getTotalCount()).isEqualTo(2);
+        assertThat(intervalHistogram.getMaxValue()).isEqualTo(20);
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.system.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+public class RequestLatenciesTest
+{
+    private final RequestLatencies requestLatencies = new RequestLatencies(16);
+
+    @Test
+    public void shouldRecordLatencyOfRequest()
+    {
+        // given
+        requestLatencies.onRequest(1, 5L, 1_000L);
+
+        // when
+        requestLatencies.onResponse(1, 5L, 1_500L);
+
+        // then
+        final LatencyHistogram histogram = requestLatencies.getHistogram();
+        assertThat(histogram.getTotalCount()).isEqualTo(1);
+        assertThat(histogram.getMaxValue()).isBetween(500L, 515L);
+    }
+
+    @Test
+    public void shouldRecordLatencyOnlyOnce()
+    {
+        // given
+        requestLatencies.onRequest(1, 5L, 1_000L);
+        requestLatencies.onResponse(1, 5L, 1_500L);
+
+        // when
+        requestLatencies.onResponse(1, 5L, 2_000L);
+
+        // then
+        assertThat(requestLatencies.getHistogram().getTotalCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldNotRecordResponseOfUnknownRequest()
+    {
+        // given
+        requestLatencies.onRequest(1, 5L, 1_000L);
+
+        // when
+        requestLatencies.onResponse(2, 5L, 1_500L);
+        requestLatencies.onResponse(1, 6L, 1_500L);
+
+        // then
+        assertThat(requestLatencies.getHistogram().getTotalCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldRecordConcurrentRequests()
+    {
+        // given
+        for (int i = 0; i < 8; i++)
+        {
+            requestLatencies.onRequest(1, i, 0L);
+        }
+
+        // when
+        for (int i = 0; i < 8; i++)
+        {
+            requestLatencies.onResponse(1, i, 50L);
+        }
+
+        // then
+        assertThat(requestLatencies.getHistogram().getTotalCount()).isEqualTo(8);
+        assertThat(requestLatencies.getHistogram().getValueAtPercentile(100.0)).isEqualTo(50L);
+    }
+}
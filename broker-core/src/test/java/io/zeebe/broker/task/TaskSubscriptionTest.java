@@ -26,6 +26,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import java.io.IOException;
 import java.net.StandardSocketOptions;
 import java.nio.channels.SocketChannel;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -85,6 +86,39 @@ public class TaskSubscriptionTest
     }
 
 
+    @Test
+    public void shouldAddTaskSubscriptionForMultipleTaskTypes() throws InterruptedException
+    {
+        // given
+        final ControlMessageResponse subscriptionResponse = apiRule
+            .createControlMessageRequest()
+            .messageType(ControlMessageType.ADD_TASK_SUBSCRIPTION)
+            .data()
+                .put("topicName", DEFAULT_TOPIC_NAME)
+                .put("partitionId", DEFAULT_PARTITION_ID)
+                .put("taskType", "foo")
+                .put("additionalTaskTypes", Arrays.asList("baz"))
+                .put("lockDuration", 1000L)
+                .put("lockOwner", "bar")
+                .put("credits", 5)
+                .done()
+            .sendAndAwait();
+
+        final int subscriberKey = (int) subscriptionResponse.getData().get("subscriberKey");
+
+        // when
+        createTask("foo");
+        createTask("baz");
+
+        // then
+        final List<SubscribedEvent> taskEvents = apiRule.topic()
+                .receiveEvents(taskEvents("LOCKED"))
+                .limit(2)
+                .collect(Collectors.toList());
+
+        assertThat(taskEvents).extracting(e -> e.event().get("type")).containsExactly("foo", "baz");
+        assertThat(taskEvents).extracting(SubscribedEvent::subscriberKey).containsOnly((long) subscriberKey);
+    }
 
     @Test
     public void shouldCloseSubscriptionOnTransportChannelClose() throws InterruptedException
@@ -233,7 +267,8 @@ public class TaskSubscriptionTest
         createTask("bar");
 
         // then
-        final List<SubscribedEvent> taskEvents = apiRule.topic().receiveEvents(taskEvents("LOCKED"))
+        final List<SubscribedEvent> taskEvents = apiRule.subscribedEvents()
+                .filter(s -> s.subscriptionType() == SubscriptionType.TASK_SUBSCRIPTION)
                 .limit(2)
                 .collect(Collectors.toList());
 
@@ -0,0 +1,92 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.task.map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TaskLockExpirationQueueTest
+{
+    private TaskLockExpirationQueue queue;
+
+    @Before
+    public void setUp()
+    {
+        queue = new TaskLockExpirationQueue(2);
+    }
+
+    @After
+    public void tearDown()
+    {
+        queue.close();
+    }
+
+    @Test
+    public void shouldPollInOrderOfExpirationTime()
+    {
+        // given
+        queue.add(30L, 3L, 300L);
+        queue.add(10L, 1L, 100L);
+        queue.add(20L, 2L, 200L);
+
+        // then
+        assertThat(queue.peekExpirationTime()).isEqualTo(10L);
+        assertThat(queue.peekKey()).isEqualTo(1L);
+        assertThat(queue.peekPosition()).isEqualTo(100L);
+
+        queue.poll();
+        assertThat(queue.peekKey()).isEqualTo(2L);
+
+        queue.poll();
+        assertThat(queue.peekKey()).isEqualTo(3L);
+
+        queue.poll();
+        assertThat(queue.isEmpty()).isTrue();
+        assertThat(queue.peekExpirationTime()).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    public void shouldKeepEntriesWhenGrowing()
+    {
+        // given
+        final int entries = 100;
+
+        // when
+        for (int i = entries; i > 0; i--)
+        {
+            queue.add(i, i, i * 10L);
+        }
+
+        // then
+        assertThat(queue.size()).isEqualTo(entries);
+
+        for (int i = 1; i <= entries; i++)
+        {
+            assertThat(queue.peekExpirationTime()).isEqualTo(i);
+            assertThat(queue.peekKey()).isEqualTo(i);
+            assertThat(queue.peekPosition()).isEqualTo(i * 10L);
+
+            queue.poll();
+        }
+
+        assertThat(queue.isEmpty()).isTrue();
+    }
+}
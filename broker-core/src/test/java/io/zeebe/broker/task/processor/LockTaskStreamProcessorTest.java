@@ -21,24 +21,29 @@ import static io.zeebe.protocol.clientapi.EventType.TASK_EVENT;
 import static io.zeebe.util.StringUtil.getBytes;
 import static io.zeebe.util.buffer.BufferUtil.wrapString;
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.stream.*;
 
-import io.zeebe.broker.task.CreditsRequest;
 import io.zeebe.broker.task.data.TaskEvent;
 import io.zeebe.broker.task.data.TaskState;
 import io.zeebe.broker.test.MockStreamProcessorController;
 import io.zeebe.broker.test.WrittenEvent;
 import io.zeebe.logstreams.log.LogStream;
+import io.zeebe.logstreams.log.LogStreamReader;
 import io.zeebe.logstreams.log.LoggedEvent;
-import io.zeebe.logstreams.processor.EventFilter;
 import io.zeebe.logstreams.processor.StreamProcessorContext;
 import io.zeebe.protocol.Protocol;
 import io.zeebe.protocol.impl.BrokerEventMetadata;
@@ -71,6 +76,15 @@ public class LockTaskStreamProcessorTest
     @Mock
     private LogStream mockLogStream;
 
+    @Mock
+    private LogStreamReader mockTargetLogStreamReader;
+
+    private StreamProcessorContext context;
+
+    private final Map<Long, LoggedEvent> eventsByPosition = new HashMap<>();
+    private LoggedEvent lastEvent;
+    private LoggedEvent readEvent;
+
     @Rule
     public ExpectedException thrown = ExpectedException.none();
 
@@ -83,11 +97,27 @@ public class LockTaskStreamProcessorTest
         MockitoAnnotations.initMocks(this);
 
         when(mockLogStream.getTerm()).thenReturn(TERM);
+        when(mockLogStream.getTopicName()).thenReturn(wrapString("topic"));
+        when(mockLogStream.getPartitionId()).thenReturn(0);
+
+        doAnswer(invocation ->
+        {
+            readEvent = lastEvent;
+            return null;
+        }).when(mockTargetLogStreamReader).seekToLastEvent();
+
+        when(mockTargetLogStreamReader.seek(anyLong())).thenAnswer(invocation ->
+        {
+            readEvent = eventsByPosition.get((long) invocation.getArguments()[0]);
+            return readEvent != null;
+        });
+        when(mockTargetLogStreamReader.hasNext()).thenAnswer(invocation -> readEvent != null);
+        when(mockTargetLogStreamReader.next()).thenAnswer(invocation -> readEvent);
 
         // fix the current time to calculate lock time
         ClockUtil.setCurrentTime(Instant.now());
 
-        streamProcessor = new LockTaskStreamProcessor(TASK_TYPE_BUFFER);
+        streamProcessor = new LockTaskStreamProcessor();
 
         subscription = new TaskSubscription(wrapString("topic"), 0, TASK_TYPE_BUFFER, Duration.ofMinutes(5).toMillis(), wrapString("owner-1"), 11);
         subscription.setSubscriberKey(1L);
@@ -97,9 +127,10 @@ public class LockTaskStreamProcessorTest
         anotherSubscription.setSubscriberKey(2L);
         anotherSubscription.setCredits(2);
 
-        final StreamProcessorContext context = new StreamProcessorContext();
+        context = new StreamProcessorContext();
         context.setSourceStream(mockLogStream);
         context.setTargetStream(mockLogStream);
+        context.setTargetLogStreamReader(mockTargetLogStreamReader);
 
         mockController.initStreamProcessor(streamProcessor, context);
     }
@@ -246,6 +277,163 @@ public class LockTaskStreamProcessorTest
         assertThat(mockController.getWrittenEvents()).hasSize(0);
     }
 
+    @Test
+    public void shouldLockTasksOfDifferentTypes()
+    {
+        // given
+        final TaskSubscription subscriptionForAnotherType = new TaskSubscription(wrapString("topic"), 0, ANOTHER_TASK_TYPE_BUFFER, Duration.ofMinutes(10).toMillis(), wrapString("owner-3"), 13);
+        subscriptionForAnotherType.setSubscriberKey(3L);
+        subscriptionForAnotherType.setCredits(2);
+
+        streamProcessor.addSubscription(subscription);
+        streamProcessor.addSubscription(subscriptionForAnotherType);
+
+        // when
+        mockController.processEvent(2L, event -> event
+                .setState(TaskState.CREATED)
+                .setType(TASK_TYPE_BUFFER, 0, TASK_TYPE_BUFFER.capacity()));
+
+        mockController.processEvent(3L, event -> event
+                .setState(TaskState.CREATED)
+                .setType(ANOTHER_TASK_TYPE_BUFFER, 0, ANOTHER_TASK_TYPE_BUFFER.capacity()));
+
+        // then
+        assertThat(mockController.getWrittenEvents()).hasSize(2);
+
+        final WrittenEvent<TaskEvent> firstLockEvent = mockController.getWrittenEvents().get(0);
+        assertThat(firstLockEvent.getKey()).isEqualTo(2L);
+        assertThat(firstLockEvent.getValue().getLockOwner()).isEqualTo(wrapString("owner-1"));
+        assertThat(firstLockEvent.getMetadata().getSubscriberKey()).isEqualTo(subscription.getSubscriberKey());
+
+        final WrittenEvent<TaskEvent> secondLockEvent = mockController.getWrittenEvents().get(1);
+        assertThat(secondLockEvent.getKey()).isEqualTo(3L);
+        assertThat(secondLockEvent.getValue().getLockOwner()).isEqualTo(wrapString("owner-3"));
+        assertThat(secondLockEvent.getMetadata().getSubscriberKey()).isEqualTo(subscriptionForAnotherType.getSubscriberKey());
+    }
+
+    @Test
+    public void shouldLockTasksOfAllTypesOfSubscription()
+    {
+        // given
+        final TaskSubscription multiTypeSubscription = new TaskSubscription(wrapString("topic"), 0,
+                new DirectBuffer[] { TASK_TYPE_BUFFER, ANOTHER_TASK_TYPE_BUFFER }, Duration.ofMinutes(10).toMillis(), wrapString("owner-3"), 13);
+        multiTypeSubscription.setSubscriberKey(3L);
+        multiTypeSubscription.setCredits(2);
+
+        streamProcessor.addSubscription(multiTypeSubscription);
+
+        // when
+        mockController.processEvent(2L, event -> event
+                .setState(TaskState.CREATED)
+                .setType(TASK_TYPE_BUFFER, 0, TASK_TYPE_BUFFER.capacity()));
+
+        mockController.processEvent(3L, event -> event
+                .setState(TaskState.CREATED)
+                .setType(ANOTHER_TASK_TYPE_BUFFER, 0, ANOTHER_TASK_TYPE_BUFFER.capacity()));
+
+        // then
+        final List<WrittenEvent<TaskEvent>> lockEvents = mockController.getWrittenEvents();
+        assertThat(lockEvents).hasSize(2);
+        assertThat(lockEvents).extracting(e -> e.getMetadata().getSubscriberKey()).containsOnly(3L);
+        assertThat(lockEvents).extracting(e -> e.getValue().getType()).containsExactly(TASK_TYPE_BUFFER, ANOTHER_TASK_TYPE_BUFFER);
+    }
+
+    @Test
+    public void shouldShareCreditsBetweenTaskTypesOfSubscription()
+    {
+        // given
+        final TaskSubscription multiTypeSubscription = new TaskSubscription(wrapString("topic"), 0,
+                new DirectBuffer[] { TASK_TYPE_BUFFER, ANOTHER_TASK_TYPE_BUFFER }, Duration.ofMinutes(10).toMillis(), wrapString("owner-3"), 13);
+        multiTypeSubscription.setSubscriberKey(3L);
+        multiTypeSubscription.setCredits(1);
+
+        streamProcessor.addSubscription(multiTypeSubscription);
+
+        mockController.processEvent(logEvent(2L, event -> event
+                .setState(TaskState.CREATED)
+                .setType(TASK_TYPE_BUFFER)));
+
+        mockController.processEvent(logEvent(3L, event -> event
+                .setState(TaskState.CREATED)
+                .setType(ANOTHER_TASK_TYPE_BUFFER)));
+
+        assertThat(mockController.getWrittenEvents()).hasSize(1);
+
+        // when
+        multiTypeSubscription.addCredits(1);
+        mockController.drainCommandQueue();
+
+        // then
+        assertThat(mockController.getWrittenEvents()).hasSize(2);
+
+        final WrittenEvent<TaskEvent> lockEvent = mockController.getLastWrittenEvent();
+        assertThat(lockEvent.getKey()).isEqualTo(3L);
+        assertThat(lockEvent.getValue().getType()).isEqualTo(ANOTHER_TASK_TYPE_BUFFER);
+        assertThat(lockEvent.getMetadata().getSubscriberKey()).isEqualTo(3L);
+    }
+
+    @Test
+    public void shouldNotBlockOtherTaskTypesIfSubscriptionsOfTypeHaveNoCredits()
+    {
+        // given
+        final TaskSubscription subscriptionForAnotherType = new TaskSubscription(wrapString("topic"), 0, ANOTHER_TASK_TYPE_BUFFER, Duration.ofMinutes(10).toMillis(), wrapString("owner-3"), 13);
+        subscriptionForAnotherType.setSubscriberKey(3L);
+        subscriptionForAnotherType.setCredits(1);
+
+        streamProcessor.addSubscription(subscription);
+        streamProcessor.addSubscription(subscriptionForAnotherType);
+
+        mockController.processEvent(logEvent(2L, event -> event
+                .setState(TaskState.CREATED)
+                .setType(ANOTHER_TASK_TYPE_BUFFER)));
+
+        // when
+        mockController.processEvent(logEvent(3L, event -> event
+                .setState(TaskState.CREATED)
+                .setType(ANOTHER_TASK_TYPE_BUFFER)));
+
+        mockController.processEvent(logEvent(4L, event -> event
+                .setState(TaskState.CREATED)
+                .setType(TASK_TYPE_BUFFER)));
+
+        // then the task of the other type is locked
+        assertThat(mockController.getWrittenEvents()).extracting(WrittenEvent::getKey).containsExactly(2L, 4L);
+    }
+
+    @Test
+    public void shouldLockPendingTaskIfSubscriptionGetsCreditsAgain()
+    {
+        // given
+        final TaskSubscription subscriptionForAnotherType = new TaskSubscription(wrapString("topic"), 0, ANOTHER_TASK_TYPE_BUFFER, Duration.ofMinutes(10).toMillis(), wrapString("owner-3"), 13);
+        subscriptionForAnotherType.setSubscriberKey(3L);
+        subscriptionForAnotherType.setCredits(1);
+
+        streamProcessor.addSubscription(subscriptionForAnotherType);
+
+        mockController.processEvent(logEvent(2L, event -> event
+                .setState(TaskState.CREATED)
+                .setType(ANOTHER_TASK_TYPE_BUFFER)));
+
+        final LoggedEvent pendingTaskEvent = logEvent(3L, event -> event
+                .setState(TaskState.CREATED)
+                .setType(ANOTHER_TASK_TYPE_BUFFER));
+        mockController.processEvent(pendingTaskEvent);
+
+        // when
+        subscriptionForAnotherType.addCredits(1);
+        mockController.drainCommandQueue();
+
+        // then
+        assertThat(mockController.getWrittenEvents()).extracting(WrittenEvent::getKey).containsExactly(2L, 3L);
+
+        final WrittenEvent<TaskEvent> lockEvent = mockController.getLastWrittenEvent();
+        assertThat(lockEvent.getValue().getState()).isEqualTo(TaskState.LOCK);
+        assertThat(lockEvent.getValue().getLockOwner()).isEqualTo(wrapString("owner-3"));
+        assertThat(lockEvent.getMetadata().getSubscriberKey()).isEqualTo(3L);
+
+        verify(context.getLogStreamWriter()).sourceEvent(wrapString("topic"), 0, pendingTaskEvent.getPosition());
+    }
+
     @Test
     public void shouldLockTasksFairToAllSubscriptions()
     {
@@ -320,7 +508,7 @@ public class LockTaskStreamProcessorTest
         });
 
         // when increase credits by 1
-        streamProcessor.increaseSubscriptionCreditsAsync(new CreditsRequest(subscription.getSubscriberKey(), 1));
+        subscription.addCredits(1);
 
         Stream.of(3, 4, 5).forEach(key ->
         {
@@ -355,7 +543,6 @@ public class LockTaskStreamProcessorTest
         assertThat(mockController.getWrittenEvents()).hasSize(1);
 
         assertThat(future).isCompletedWithValue(true);
-        assertThat(streamProcessor.isSuspended()).isFalse();
 
         // when remove the last subscription
         future = streamProcessor.removeSubscription(anotherSubscription.getSubscriberKey());
@@ -364,11 +551,9 @@ public class LockTaskStreamProcessorTest
                 .setState(TaskState.CREATED)
                 .setType(TASK_TYPE_BUFFER, 0, TASK_TYPE_BUFFER.capacity()));
 
+        // then the task is not locked
         assertThat(mockController.getWrittenEvents()).hasSize(1);
-
-        // then the stream processor is suspended
         assertThat(future).isCompletedWithValue(false);
-        assertThat(streamProcessor.isSuspended()).isTrue();
     }
 
     @Test
@@ -385,10 +570,8 @@ public class LockTaskStreamProcessorTest
                     .setType(TASK_TYPE_BUFFER, 0, TASK_TYPE_BUFFER.capacity()));
         });
 
-        assertThat(streamProcessor.isSuspended()).isTrue();
-
         // when
-        streamProcessor.increaseSubscriptionCreditsAsync(new CreditsRequest(subscription.getSubscriberKey(), 2));
+        subscription.addCredits(2);
 
         // then
         mockController.processEvent(4L, event -> event
@@ -398,27 +581,104 @@ public class LockTaskStreamProcessorTest
         final WrittenEvent<TaskEvent> lastWrittenEvent = mockController.getLastWrittenEvent();
         assertThat(lastWrittenEvent.getKey()).isEqualTo(4L);
         assertThat(lastWrittenEvent.getValue().getState()).isEqualTo(TaskState.LOCK);
+    }
+
+    @Test
+    public void shouldLockPendingTasksIfAddSubscription()
+    {
+        // given
+        final LoggedEvent pendingTaskEvent = logEvent(2L, event -> event
+                .setState(TaskState.CREATED)
+                .setType(TASK_TYPE_BUFFER));
+        mockController.processEvent(pendingTaskEvent);
+
+        mockController.processEvent(logEvent(3L, event -> event
+                .setState(TaskState.CREATED)
+                .setType(ANOTHER_TASK_TYPE_BUFFER)));
+
+        assertThat(mockController.getWrittenEvents()).isEmpty();
+
+        // when
+        streamProcessor.addSubscription(subscription);
+        mockController.drainCommandQueue();
+
+        // then only the tasks of the new type are locked
+        assertThat(mockController.getWrittenEvents()).hasSize(1);
+
+        final WrittenEvent<TaskEvent> lockEvent = mockController.getLastWrittenEvent();
+        assertThat(lockEvent.getKey()).isEqualTo(2L);
+        assertThat(lockEvent.getValue().getState()).isEqualTo(TaskState.LOCK);
+        assertThat(lockEvent.getValue().getType()).isEqualTo(TASK_TYPE_BUFFER);
+        assertThat(lockEvent.getMetadata().getSubscriberKey()).isEqualTo(subscription.getSubscriberKey());
 
-        assertThat(streamProcessor.isSuspended()).isFalse();
+        verify(context.getLogStreamWriter()).sourceEvent(wrapString("topic"), 0, pendingTaskEvent.getPosition());
     }
 
     @Test
-    public void shouldContinueProcessingIfAddSubscription()
+    public void shouldLockPendingTasksInOrder()
     {
         // given
-        assertThat(streamProcessor.isSuspended()).isTrue();
+        Stream.of(2L, 3L, 4L).forEach(key ->
+        {
+            mockController.processEvent(logEvent(key, event -> event
+                    .setState(TaskState.CREATED)
+                    .setType(TASK_TYPE_BUFFER)));
+        });
 
         // when
         streamProcessor.addSubscription(subscription);
+        mockController.drainCommandQueue();
+
+        mockController.processEvent(logEvent(5L, event -> event
+                .setState(TaskState.CREATED)
+                .setType(TASK_TYPE_BUFFER)));
 
         // then
-        mockController.processEvent(2L, event -> event
+        assertThat(mockController.getWrittenEvents()).extracting(WrittenEvent::getKey).containsExactly(2L, 3L, 4L);
+    }
+
+    @Test
+    public void shouldNotLockPendingTaskWhichIsCanceled()
+    {
+        // given
+        mockController.processEvent(logEvent(2L, event -> event
                 .setState(TaskState.CREATED)
-                .setType(TASK_TYPE_BUFFER, 0, TASK_TYPE_BUFFER.capacity()));
+                .setType(TASK_TYPE_BUFFER)));
+
+        mockController.processEvent(logEvent(3L, event -> event
+                .setState(TaskState.CREATED)
+                .setType(TASK_TYPE_BUFFER)));
+
+        mockController.processEvent(logEvent(2L, event -> event
+                .setState(TaskState.CANCELED)
+                .setType(TASK_TYPE_BUFFER)));
+
+        // when
+        streamProcessor.addSubscription(subscription);
+        mockController.drainCommandQueue();
+
+        // then
+        assertThat(mockController.getWrittenEvents()).extracting(WrittenEvent::getKey).containsExactly(3L);
+    }
+
+    @Test
+    public void shouldReleasePendingTaskOfUnsubscribedTypeIfCanceled()
+    {
+        // given
+        mockController.processEvent(logEvent(2L, event -> event
+                .setState(TaskState.CREATED)
+                .setType(ANOTHER_TASK_TYPE_BUFFER)));
 
-        assertThat(mockController.getLastWrittenEventValue().getState()).isEqualTo(TaskState.LOCK);
+        assertThat(streamProcessor.pendingTaskPositionsByKey.size()).isEqualTo(1);
 
-        assertThat(streamProcessor.isSuspended()).isFalse();
+        // when
+        mockController.processEvent(logEvent(2L, event -> event
+                .setState(TaskState.CANCELED)
+                .setType(ANOTHER_TASK_TYPE_BUFFER)));
+
+        // then
+        assertThat(streamProcessor.pendingTaskPositionsByKey.isEmpty()).isTrue();
+        assertThat(streamProcessor.pendingTasksByTaskType.get(ANOTHER_TASK_TYPE_BUFFER).isEmpty()).isTrue();
     }
 
     @Test
@@ -466,19 +726,6 @@ public class LockTaskStreamProcessorTest
         streamProcessor.addSubscription(subscription);
     }
 
-    @Test
-    public void shouldFailToAddSubscriptionIfWrongType()
-    {
-        final TaskSubscription subscription = new TaskSubscription(wrapString("topic"), 0, ANOTHER_TASK_TYPE_BUFFER, Duration.ofMinutes(5).toMillis(),
-                wrapString("owner-1"), 11);
-        subscription.setCredits(5);
-
-        thrown.expect(RuntimeException.class);
-        thrown.expectMessage("Subscription task type is not equal to 'test-task'.");
-
-        streamProcessor.addSubscription(subscription);
-    }
-
     @Test
     public void shouldFailToAddSubscriptionIfZeroLockDuration()
     {
@@ -491,47 +738,44 @@ public class LockTaskStreamProcessorTest
     }
 
     @Test
-    public void shouldIgnoreCreditsIfNotExist()
-    {
-        // given
-        streamProcessor.increaseSubscriptionCreditsAsync(new CreditsRequest(123L, 5));
-
-        try
-        {
-            // when
-            mockController.processEvent(2L, event -> event
-                    .setState(TaskState.CREATED)
-                    .setType(TASK_TYPE_BUFFER, 0, TASK_TYPE_BUFFER.capacity()));
-        }
-        // then
-        catch (Exception e)
-        {
-            fail("nothing bad should happen");
-        }
-    }
-
-    @Test
-    public void shouldAcceptEventForReprocessingWithSubscribedType()
+    public void shouldNotLockTasksBeforeRecovered()
     {
-        final LoggedEvent loggedEvent = mockController.buildLoggedEvent(2L, event -> event
+        // given a log which contains a task which is locked already
+        final LoggedEvent lockedTaskEvent = logEvent(2L, event -> event
                 .setState(TaskState.CREATED)
                 .setType(TASK_TYPE_BUFFER));
+        final LoggedEvent taskEvent = logEvent(3L, event -> event
+                .setState(TaskState.CREATED)
+                .setType(TASK_TYPE_BUFFER));
+        final LoggedEvent lockEvent = logEvent(2L, event -> event
+                .setState(TaskState.LOCK)
+                .setType(TASK_TYPE_BUFFER));
 
-        final EventFilter eventFilter = LockTaskStreamProcessor.reprocessingEventFilter(TASK_TYPE_BUFFER);
+        lastEvent = lockEvent;
 
-        assertThat(eventFilter.applies(loggedEvent)).isTrue();
-    }
+        streamProcessor = new LockTaskStreamProcessor();
+        mockController.initStreamProcessor(streamProcessor, context);
 
-    @Test
-    public void shouldRejectEventForReprocessingWithDifferentType()
-    {
-        final LoggedEvent loggedEvent = mockController.buildLoggedEvent(2L, event -> event
-                .setState(TaskState.CREATED)
-                .setType(ANOTHER_TASK_TYPE_BUFFER));
+        streamProcessor.addSubscription(subscription);
 
-        final EventFilter eventFilter = LockTaskStreamProcessor.reprocessingEventFilter(TASK_TYPE_BUFFER);
+        // when
+        mockController.processEvent(lockedTaskEvent);
+        mockController.processEvent(taskEvent);
 
-        assertThat(eventFilter.applies(loggedEvent)).isFalse();
+        assertThat(mockController.getWrittenEvents()).isEmpty();
+
+        mockController.processEvent(lockEvent);
+        mockController.drainCommandQueue();
+
+        // then only the task which is not locked is locked after the processor read the last event
+        assertThat(mockController.getWrittenEvents()).extracting(WrittenEvent::getKey).containsExactly(3L);
+    }
+
+    protected LoggedEvent logEvent(long key, Consumer<TaskEvent> eventSetter)
+    {
+        final LoggedEvent event = mockController.buildLoggedEvent(key, eventSetter);
+        eventsByPosition.put(event.getPosition(), event);
+        return event;
     }
 
     protected long lockTimeOf(TaskSubscription subscription)
@@ -0,0 +1,109 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.task.processor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.agrona.collections.Long2LongHashMap;
+import org.junit.Test;
+
+public class PendingTasksTest
+{
+    private final Long2LongHashMap positionsByKey = new Long2LongHashMap(PendingTasks.NO_POSITION);
+
+    private final PendingTasks pendingTasks = new PendingTasks(positionsByKey);
+    private final PendingTasks otherPendingTasks = new PendingTasks(positionsByKey);
+
+    @Test
+    public void shouldPeekTasksInOrder()
+    {
+        // given
+        pendingTasks.add(1L, 10L);
+        pendingTasks.add(2L, 20L);
+
+        // when
+        final long position = pendingTasks.peekPosition();
+
+        // then
+        assertThat(position).isEqualTo(10L);
+    }
+
+    @Test
+    public void shouldSkipRemovedTask()
+    {
+        // given
+        pendingTasks.add(1L, 10L);
+        pendingTasks.add(2L, 20L);
+
+        // when
+        positionsByKey.remove(1L);
+
+        // then
+        assertThat(pendingTasks.peekPosition()).isEqualTo(20L);
+        assertThat(pendingTasks.queueSize()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldRemoveTaskFromOtherTypeIfAddedAgain()
+    {
+        // given
+        pendingTasks.add(1L, 10L);
+
+        // when
+        otherPendingTasks.add(1L, 20L);
+
+        // then
+        assertThat(pendingTasks.isEmpty()).isTrue();
+        assertThat(otherPendingTasks.peekPosition()).isEqualTo(20L);
+    }
+
+    @Test
+    public void shouldNotGrowQueueIfTasksAreRemoved()
+    {
+        // given
+        pendingTasks.add(1L, 10L);
+
+        // when
+        for (int i = 2; i < 1_000; i++)
+        {
+            pendingTasks.add(i, i * 10L);
+            positionsByKey.remove(i);
+        }
+
+        // then
+        assertThat(pendingTasks.queue.length).isEqualTo(2 * PendingTasks.MIN_CAPACITY);
+        assertThat(pendingTasks.peekPosition()).isEqualTo(10L);
+        assertThat(positionsByKey.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldGrowQueueForPendingTasks()
+    {
+        // when
+        for (int i = 0; i < 1_000; i++)
+        {
+            pendingTasks.add(i, i * 10L);
+        }
+
+        // then
+        assertThat(pendingTasks.queueSize()).isEqualTo(1_000);
+        assertThat(pendingTasks.queue.length).isLessThanOrEqualTo(2 * 2 * 1_000);
+        assertThat(pendingTasks.peekPosition()).isEqualTo(0L);
+    }
+
+}
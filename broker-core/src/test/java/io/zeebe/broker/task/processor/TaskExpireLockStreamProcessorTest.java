@@ -24,6 +24,8 @@ import static io.zeebe.util.StringUtil.*;
 import static io.zeebe.util.buffer.BufferUtil.*;
 import static org.mockito.Mockito.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.time.Instant;
 import java.util.concurrent.ExecutionException;
 
@@ -40,6 +42,7 @@ import io.zeebe.logstreams.log.LogStreamReader;
 import io.zeebe.logstreams.log.LogStreamWriter;
 import io.zeebe.logstreams.log.LoggedEvent;
 import io.zeebe.logstreams.processor.StreamProcessorContext;
+import io.zeebe.logstreams.spi.SnapshotSupport;
 import io.zeebe.util.time.ClockUtil;
 import org.junit.After;
 import org.junit.Before;
@@ -56,6 +59,7 @@ public class TaskExpireLockStreamProcessorTest
     private static final int TARGET_LOG_STREAM_PARTITION_ID = 3;
     private static final long INITIAL_POSITION = 10L;
     private static final int TARGET_LOG_STREAM_TERM = 3;
+    private static final int LOCKED_EVENT_CACHE_CAPACITY = 1024;
 
     private static final byte[] TASK_TYPE = getBytes("test-task");
     private static final DirectBuffer TASK_TYPE_BUFFER = new UnsafeBuffer(TASK_TYPE);
@@ -97,7 +101,7 @@ public class TaskExpireLockStreamProcessorTest
         when(mockTargetLogStream.getPartitionId()).thenReturn(TARGET_LOG_STREAM_PARTITION_ID);
         when(mockTargetLogStream.getTerm()).thenReturn(TARGET_LOG_STREAM_TERM);
 
-        streamProcessor = new TaskExpireLockStreamProcessor();
+        streamProcessor = new TaskExpireLockStreamProcessor(LOCKED_EVENT_CACHE_CAPACITY);
 
         final StreamProcessorContext streamProcessorContext = new StreamProcessorContext();
         streamProcessorContext.setId(STREAM_PROCESSOR_ID);
@@ -178,6 +182,111 @@ public class TaskExpireLockStreamProcessorTest
         assertThat(mockController.getWrittenEvents()).hasSize(1);
     }
 
+    @Test
+    public void shouldExpireOnlyExpiredLocks()
+    {
+        // given
+        ClockUtil.setCurrentTime(LOCK_TIME);
+
+        final LoggedEvent lockedEvent = mockController.buildLoggedEvent(2L, event -> event
+                .setState(TaskState.LOCKED));
+
+        mockController.processEvent(3L, event -> event
+                .setState(TaskState.LOCKED)
+                .setLockTime(AFTER_LOCK_TIME.toEpochMilli()));
+
+        mockController.processEvent(lockedEvent);
+
+        when(mockTargetLogStreamReader.seek(INITIAL_POSITION)).thenReturn(true);
+        when(mockTargetLogStreamReader.hasNext()).thenReturn(true);
+        when(mockTargetLogStreamReader.next()).thenReturn(lockedEvent);
+
+        // when
+        streamProcessor.checkLockExpirationAsync();
+        mockController.drainCommandQueue();
+
+        // then
+        assertThat(mockController.getWrittenEvents()).hasSize(1);
+        verify(mockLogStreamWriter).key(2L);
+    }
+
+    @Test
+    public void shouldExpireLockWithoutReadingLockedEvent()
+    {
+        // given
+        ClockUtil.setCurrentTime(AFTER_LOCK_TIME);
+
+        mockController.processEvent(2L, event -> event
+                .setState(TaskState.LOCKED));
+
+        // when
+        streamProcessor.checkLockExpirationAsync();
+        mockController.drainCommandQueue();
+
+        // then
+        final TaskEvent taskEvent = mockController.getLastWrittenEventValue();
+        assertThat(taskEvent.getState()).isEqualTo(TaskState.EXPIRE_LOCK);
+        assertThatBuffer(taskEvent.getType()).hasBytes(TASK_TYPE_BUFFER);
+
+        verify(mockTargetLogStreamReader, never()).seek(anyLong());
+    }
+
+    @Test
+    public void shouldNotExpireLockIfLockedAgain()
+    {
+        // given
+        ClockUtil.setCurrentTime(LOCK_TIME);
+
+        mockController.processEvent(2L, event -> event
+                .setState(TaskState.LOCKED));
+
+        mockController.processEvent(2L, event -> event
+                .setState(TaskState.LOCK_EXPIRED));
+
+        mockController.processEvent(2L, event -> event
+                .setState(TaskState.LOCKED)
+                .setLockTime(AFTER_LOCK_TIME.toEpochMilli()));
+
+        // when
+        streamProcessor.checkLockExpirationAsync();
+        mockController.drainCommandQueue();
+
+        // then
+        assertThat(mockController.getWrittenEvents()).isEmpty();
+    }
+
+    @Test
+    public void shouldExpireLockAfterRecoveringFromSnapshot() throws Exception
+    {
+        // given
+        ClockUtil.setCurrentTime(AFTER_LOCK_TIME);
+
+        final LoggedEvent lockedEvent = mockController.buildLoggedEvent(2L, event -> event
+                .setState(TaskState.LOCKED));
+
+        mockController.processEvent(lockedEvent);
+
+        final SnapshotSupport snapshotSupport = streamProcessor.getStateResource();
+
+        final ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        snapshotSupport.writeSnapshot(snapshot);
+
+        snapshotSupport.reset();
+        snapshotSupport.recoverFromSnapshot(new ByteArrayInputStream(snapshot.toByteArray()));
+
+        when(mockTargetLogStreamReader.seek(INITIAL_POSITION)).thenReturn(true);
+        when(mockTargetLogStreamReader.hasNext()).thenReturn(true);
+        when(mockTargetLogStreamReader.next()).thenReturn(lockedEvent);
+
+        // when
+        streamProcessor.checkLockExpirationAsync();
+        mockController.drainCommandQueue();
+
+        // then
+        assertThat(mockController.getWrittenEvents()).hasSize(1);
+        verify(mockLogStreamWriter).key(2L);
+    }
+
     @Test
     public void shoudNotExpireLockIfBeforeLockTime()
     {
@@ -265,8 +374,10 @@ public class TaskExpireLockStreamProcessorTest
         // given
         ClockUtil.setCurrentTime(AFTER_LOCK_TIME);
 
+        // the locked event is larger than the cache, so it has to be read from the log
         mockController.processEvent(2L, event -> event
-                .setState(TaskState.LOCKED));
+                .setState(TaskState.LOCKED)
+                .setPayload(new UnsafeBuffer(new byte[2 * LOCKED_EVENT_CACHE_CAPACITY])));
 
         when(mockTargetLogStreamReader.seek(INITIAL_POSITION)).thenReturn(false);
         when(mockTargetLogStreamReader.hasNext()).thenReturn(false);
@@ -125,7 +125,7 @@ public class TaskStreamProcessorIntegrationTest
             .actorScheduler(taskScheduler)
             .build();
 
-        lockTaskStreamProcessor = new LockTaskStreamProcessor(TASK_TYPE_BUFFER);
+        lockTaskStreamProcessor = new LockTaskStreamProcessor();
         taskSubscriptionStreamProcessorController = LogStreams.createStreamProcessor("task-lock", 1, lockTaskStreamProcessor)
             .sourceStream(logStream)
             .targetStream(logStream)
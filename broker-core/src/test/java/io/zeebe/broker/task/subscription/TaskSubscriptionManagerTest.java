@@ -25,8 +25,10 @@ import static org.mockito.Matchers.*;
 import static org.mockito.Mockito.*;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
-import java.util.function.Function;
+import java.util.function.Supplier;
 
 import io.zeebe.broker.task.CreditsRequest;
 import io.zeebe.broker.task.TaskSubscriptionManager;
@@ -68,7 +70,7 @@ public class TaskSubscriptionManagerTest
     private ServiceBuilder<Object> mockServiceBuilder;
 
     @Mock
-    private Function<DirectBuffer, LockTaskStreamProcessor> mockStreamProcessorBuilder;
+    private Supplier<LockTaskStreamProcessor> mockStreamProcessorBuilder;
 
     private LogStream mockLogStream;
     private LockTaskStreamProcessor mockStreamProcessor;
@@ -90,24 +92,22 @@ public class TaskSubscriptionManagerTest
         when(mockServiceContext.createService(any(), any())).thenReturn(mockServiceBuilder);
         when(mockServiceContext.removeService(any())).thenReturn(CompletableFuture.completedFuture(null));
 
-        mockStreamProcessor = createMockStreamProcessor(LOG_STREAM_TOPIC_NAME_BUFFER, LOG_STREAM_PARTITION_ID, TASK_TYPE_BUFFER);
+        mockStreamProcessor = createMockStreamProcessor(LOG_STREAM_TOPIC_NAME_BUFFER, LOG_STREAM_PARTITION_ID);
 
         manager = new TaskSubscriptionManager(mockServiceContext, mockStreamProcessorBuilder);
 
         subscription = createTaskSubscription(LOG_STREAM_TOPIC_NAME_BUFFER, LOG_STREAM_PARTITION_ID, TASK_TYPE_BUFFER);
     }
 
-    private LockTaskStreamProcessor createMockStreamProcessor(DirectBuffer logStreamTopicName, int logStreamPartitionId, DirectBuffer taskTypeBuffer)
+    private LockTaskStreamProcessor createMockStreamProcessor(DirectBuffer logStreamTopicName, int logStreamPartitionId)
     {
         final LockTaskStreamProcessor mockStreamProcessor = mock(LockTaskStreamProcessor.class);
 
-        when(mockStreamProcessorBuilder.apply(taskTypeBuffer)).thenReturn(mockStreamProcessor);
+        when(mockStreamProcessorBuilder.get()).thenReturn(mockStreamProcessor);
         when(mockStreamProcessor.getLogStreamTopicName()).thenReturn(logStreamTopicName);
         when(mockStreamProcessor.getLogStreamPartitionId()).thenReturn(logStreamPartitionId);
-        when(mockStreamProcessor.getSubscriptedTaskType()).thenReturn(taskTypeBuffer);
 
         when(mockStreamProcessor.addSubscription(any())).thenReturn(CompletableFuture.completedFuture(null));
-        when(mockStreamProcessor.increaseSubscriptionCreditsAsync(any())).thenReturn(true);
         when(mockStreamProcessor.removeSubscription(anyLong())).thenReturn(CompletableFuture.completedFuture(false));
 
         return mockStreamProcessor;
@@ -145,10 +145,10 @@ public class TaskSubscriptionManagerTest
         assertThat(future).isCompleted();
         assertThat(subscription.getSubscriberKey()).isEqualTo(0L);
 
-        verify(mockStreamProcessorBuilder).apply(TASK_TYPE_BUFFER);
+        verify(mockStreamProcessorBuilder).get();
         verify(mockStreamProcessor).addSubscription(subscription);
 
-        verify(mockServiceContext).createService(eq(taskQueueLockStreamProcessorServiceName(LOG_STREAM_LOG_NAME, TASK_TYPE)), any());
+        verify(mockServiceContext).createService(eq(taskQueueLockStreamProcessorServiceName(LOG_STREAM_LOG_NAME)), any());
         verify(mockServiceBuilder).install();
     }
 
@@ -169,12 +169,12 @@ public class TaskSubscriptionManagerTest
         assertThat(future).isCompleted();
         assertThat(anotherSubscription.getSubscriberKey()).isEqualTo(1L);
 
-        verify(mockStreamProcessorBuilder, times(1)).apply(TASK_TYPE_BUFFER);
+        verify(mockStreamProcessorBuilder, times(1)).get();
 
         verify(mockStreamProcessor).addSubscription(subscription);
         verify(mockStreamProcessor).addSubscription(anotherSubscription);
 
-        verify(mockServiceContext, times(1)).createService(eq(taskQueueLockStreamProcessorServiceName(LOG_STREAM_LOG_NAME, TASK_TYPE)), any());
+        verify(mockServiceContext, times(1)).createService(eq(taskQueueLockStreamProcessorServiceName(LOG_STREAM_LOG_NAME)), any());
         verify(mockServiceBuilder, times(1)).install();
     }
 
@@ -198,24 +198,22 @@ public class TaskSubscriptionManagerTest
         assertThat(future).isCompleted();
         assertThat(anotherSubscription.getSubscriberKey()).isEqualTo(1L);
 
-        verify(mockStreamProcessorBuilder, times(2)).apply(TASK_TYPE_BUFFER);
+        verify(mockStreamProcessorBuilder, times(2)).get();
 
         verify(mockStreamProcessor).addSubscription(subscription);
         verify(mockStreamProcessor).addSubscription(anotherSubscription);
 
-        verify(mockServiceContext, times(1)).createService(eq(taskQueueLockStreamProcessorServiceName(LOG_STREAM_LOG_NAME, TASK_TYPE)), any());
-        verify(mockServiceContext, times(1)).createService(eq(taskQueueLockStreamProcessorServiceName(ANOTHER_LOG_STREAM_LOG_NAME, TASK_TYPE)), any());
+        verify(mockServiceContext, times(1)).createService(eq(taskQueueLockStreamProcessorServiceName(LOG_STREAM_LOG_NAME)), any());
+        verify(mockServiceContext, times(1)).createService(eq(taskQueueLockStreamProcessorServiceName(ANOTHER_LOG_STREAM_LOG_NAME)), any());
         verify(mockServiceBuilder, times(2)).install();
     }
 
     @Test
-    public void shouldCreateServiceForEachTaskType() throws Exception
+    public void shouldNotRestartServiceForNewTaskType() throws Exception
     {
         // given
         final TaskSubscription anotherSubscription = createTaskSubscription(LOG_STREAM_TOPIC_NAME_BUFFER, LOG_STREAM_PARTITION_ID, ANOTHER_TASK_TYPE_BUFFER);
 
-        final LockTaskStreamProcessor anotherMockStreamProcessor = createMockStreamProcessor(LOG_STREAM_TOPIC_NAME_BUFFER, LOG_STREAM_PARTITION_ID, ANOTHER_TASK_TYPE_BUFFER);
-
         manager.addStream(mockLogStream, LOG_STREAM_SERVICE_NAME);
         manager.addSubscription(subscription);
 
@@ -227,15 +225,52 @@ public class TaskSubscriptionManagerTest
         assertThat(future).isCompleted();
         assertThat(anotherSubscription.getSubscriberKey()).isEqualTo(1L);
 
-        verify(mockStreamProcessorBuilder, times(1)).apply(TASK_TYPE_BUFFER);
-        verify(mockStreamProcessorBuilder, times(1)).apply(ANOTHER_TASK_TYPE_BUFFER);
+        verify(mockStreamProcessorBuilder, times(1)).get();
 
         verify(mockStreamProcessor).addSubscription(subscription);
-        verify(anotherMockStreamProcessor).addSubscription(anotherSubscription);
+        verify(mockStreamProcessor).addSubscription(anotherSubscription);
 
-        verify(mockServiceContext, times(1)).createService(eq(taskQueueLockStreamProcessorServiceName(LOG_STREAM_LOG_NAME, TASK_TYPE)), any());
-        verify(mockServiceContext, times(1)).createService(eq(taskQueueLockStreamProcessorServiceName(LOG_STREAM_LOG_NAME, ANOTHER_TASK_TYPE)), any());
-        verify(mockServiceBuilder, times(2)).install();
+        verify(mockServiceContext, never()).removeService(any());
+        verify(mockServiceBuilder, times(1)).install();
+    }
+
+    @Test
+    public void shouldNotRestartServiceForSubscribedTaskType() throws Exception
+    {
+        // given
+        final TaskSubscription anotherSubscription = createTaskSubscription(LOG_STREAM_TOPIC_NAME_BUFFER, LOG_STREAM_PARTITION_ID, TASK_TYPE_BUFFER);
+
+        manager.addStream(mockLogStream, LOG_STREAM_SERVICE_NAME);
+        manager.addSubscription(subscription);
+
+        // when
+        manager.addSubscription(anotherSubscription);
+        manager.doWork();
+
+        // then
+        verify(mockServiceContext, never()).removeService(any());
+        verify(mockServiceBuilder, times(1)).install();
+    }
+
+    @Test
+    public void shouldNotRestartServiceForSubscriptionWithNewTaskType() throws Exception
+    {
+        // given
+        final TaskSubscription anotherSubscription = new TaskSubscription(LOG_STREAM_TOPIC_NAME_BUFFER, LOG_STREAM_PARTITION_ID,
+                new DirectBuffer[] { TASK_TYPE_BUFFER, ANOTHER_TASK_TYPE_BUFFER }, Duration.ofMinutes(5).toMillis(), wrapString("owner"), 11);
+
+        manager.addStream(mockLogStream, LOG_STREAM_SERVICE_NAME);
+        manager.addSubscription(subscription);
+
+        // when
+        manager.addSubscription(anotherSubscription);
+        manager.doWork();
+
+        // then
+        verify(mockStreamProcessor).addSubscription(anotherSubscription);
+
+        verify(mockServiceContext, never()).removeService(any());
+        verify(mockServiceBuilder, times(1)).install();
     }
 
     @Test
@@ -247,13 +282,37 @@ public class TaskSubscriptionManagerTest
         manager.addStream(mockLogStream, LOG_STREAM_SERVICE_NAME);
         manager.addSubscription(subscription);
 
+        manager.doWork();
+
         // when
-        manager.increaseSubscriptionCreditsAsync(new CreditsRequest(0L, 5));
+        final boolean success = manager.increaseSubscriptionCreditsAsync(new CreditsRequest(0L, 5));
+
+        // then
+        assertThat(success).isTrue();
+        assertThat(subscription.getCredits()).isEqualTo(7);
+    }
+
+    @Test
+    public void shouldNotifyListenerIfSubscriptionGetsCreditsAgain() throws Exception
+    {
+        // given
+        subscription.setCredits(0);
+
+        final List<TaskSubscription> availableSubscriptions = new ArrayList<>();
+        subscription.setCreditsListener(availableSubscriptions::add);
+
+        manager.addStream(mockLogStream, LOG_STREAM_SERVICE_NAME);
+        manager.addSubscription(subscription);
 
         manager.doWork();
 
+        // when
+        manager.increaseSubscriptionCreditsAsync(new CreditsRequest(0L, 5));
+        manager.increaseSubscriptionCreditsAsync(new CreditsRequest(0L, 5));
+
         // then
-        verify(mockStreamProcessor).increaseSubscriptionCreditsAsync(new CreditsRequest(0L, 5));
+        assertThat(availableSubscriptions).containsExactly(subscription);
+        assertThat(subscription.getCredits()).isEqualTo(10);
     }
 
     @Test
@@ -275,15 +334,18 @@ public class TaskSubscriptionManagerTest
 
         verify(mockStreamProcessor).removeSubscription(0L);
 
-        verify(mockServiceContext).removeService(taskQueueLockStreamProcessorServiceName(LOG_STREAM_LOG_NAME, TASK_TYPE));
+        verify(mockServiceContext).removeService(taskQueueLockStreamProcessorServiceName(LOG_STREAM_LOG_NAME));
     }
 
     @Test
     public void shouldRemoveSubscription() throws Exception
     {
         // given
+        final TaskSubscription anotherSubscription = createTaskSubscription(LOG_STREAM_TOPIC_NAME_BUFFER, LOG_STREAM_PARTITION_ID, TASK_TYPE_BUFFER);
+
         manager.addStream(mockLogStream, LOG_STREAM_SERVICE_NAME);
         manager.addSubscription(subscription);
+        manager.addSubscription(anotherSubscription);
 
         when(mockStreamProcessor.removeSubscription(anyLong())).thenReturn(CompletableFuture.completedFuture(true));
 
@@ -297,7 +359,7 @@ public class TaskSubscriptionManagerTest
 
         verify(mockStreamProcessor).removeSubscription(0L);
 
-        verify(mockServiceContext, never()).removeService(taskQueueLockStreamProcessorServiceName(LOG_STREAM_LOG_NAME, TASK_TYPE));
+        verify(mockServiceContext, never()).removeService(taskQueueLockStreamProcessorServiceName(LOG_STREAM_LOG_NAME));
     }
 
     @Test
@@ -396,68 +458,58 @@ public class TaskSubscriptionManagerTest
     public void shouldNotIncreaseSubscriptionCreditsIfNotExist() throws Exception
     {
         // given
+        subscription.setCredits(2);
+
+        manager.addStream(mockLogStream, LOG_STREAM_SERVICE_NAME);
         manager.addSubscription(subscription);
 
-        // when
-        manager.increaseSubscriptionCreditsAsync(new CreditsRequest(3L, 2));
         manager.doWork();
 
+        // when
+        final boolean success = manager.increaseSubscriptionCreditsAsync(new CreditsRequest(3L, 2));
+
         // then
-        verify(mockStreamProcessor, never()).increaseSubscriptionCreditsAsync(any());
+        assertThat(success).isTrue();
+        assertThat(subscription.getCredits()).isEqualTo(2);
     }
 
     @Test
-    public void shouldFailToIncreaseSubscriptionCreditsIfLogStreamIsRemoved() throws Exception
+    public void shouldNotIncreaseSubscriptionCreditsIfRemoved() throws Exception
     {
         // given
+        subscription.setCredits(2);
+
         manager.addStream(mockLogStream, LOG_STREAM_SERVICE_NAME);
         manager.addSubscription(subscription);
+        manager.removeSubscription(0L);
 
-        manager.removeStream(mockLogStream);
+        manager.doWork();
 
         // when
         manager.increaseSubscriptionCreditsAsync(new CreditsRequest(0L, 5));
-        manager.doWork();
 
         // then
-        verify(mockStreamProcessor, never()).increaseSubscriptionCreditsAsync(any());
+        assertThat(subscription.getCredits()).isEqualTo(2);
     }
 
     @Test
-    public void shouldSignalBackpressure() throws Exception
+    public void shouldFailToIncreaseSubscriptionCreditsIfLogStreamIsRemoved() throws Exception
     {
         // given
-        for (int i = 0; i < manager.getCreditRequestCapacityUpperBound() - 1; i++)
-        {
-            manager.increaseSubscriptionCreditsAsync(new CreditsRequest(0L, 5));
-        }
-
-        // when exhausting the capacity
-        final boolean success = manager.increaseSubscriptionCreditsAsync(new CreditsRequest(0L, 5));
-
-        // then
-        assertThat(success).isFalse();
-    }
+        subscription.setCredits(2);
 
-    @Test
-    public void shouldRetrySchedulingCreditsWhenStreamProcessorIsBusy() throws Exception
-    {
-        // given
         manager.addStream(mockLogStream, LOG_STREAM_SERVICE_NAME);
         manager.addSubscription(subscription);
 
-        when(mockStreamProcessor.increaseSubscriptionCreditsAsync(any())).thenReturn(false, false, true);
-
-        manager.increaseSubscriptionCreditsAsync(new CreditsRequest(0L, 5));
+        manager.removeStream(mockLogStream);
 
-        // when four work loops are made
-        manager.doWork();
-        manager.doWork();
-        manager.doWork();
         manager.doWork();
 
-        // then the submission was successful the third time
-        verify(mockStreamProcessor, times(3)).increaseSubscriptionCreditsAsync(any());
+        // when
+        manager.increaseSubscriptionCreditsAsync(new CreditsRequest(0L, 5));
+
+        // then
+        assertThat(subscription.getCredits()).isEqualTo(2);
     }
 
     @Test
@@ -283,6 +283,10 @@ public class MockStreamProcessorController<T extends UnpackedObject> extends Ext
             return null;
         }).when(mockLoggedEvent).readValue(any());
 
+        when(mockLoggedEvent.getValueBuffer()).thenReturn(buf);
+        when(mockLoggedEvent.getValueOffset()).thenReturn(0);
+        when(mockLoggedEvent.getValueLength()).thenReturn(buf.capacity());
+
         final BrokerEventMetadata metaData = new BrokerEventMetadata();
         final DirectBuffer metaDataBuf = populateAndWrite(metaData, defaultMetadataSetter.andThen(metadataSetter));
         doAnswer(invocation ->
@@ -26,9 +26,14 @@ import static org.mockito.Matchers.anyInt;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
 
+import io.zeebe.broker.event.processor.TopicSubscriptionEvent;
+import io.zeebe.broker.event.processor.TopicSubscriptionState;
+import io.zeebe.broker.logstreams.processor.ProcessingPositions;
+import io.zeebe.broker.logstreams.processor.ProcessingPositions.ProcessingPosition;
 import io.zeebe.broker.task.data.TaskEvent;
 import io.zeebe.broker.task.data.TaskState;
 import io.zeebe.broker.transport.controlmessage.ControlMessageRequestHeaderDescriptor;
@@ -325,6 +330,68 @@ public class ClientApiMessageHandlerTest
             .contains("Could not read property 'state'");
     }
 
+    @Test
+    public void shouldRejectCommandIfTooManyCommandsInFlight() throws InterruptedException, ExecutionException
+    {
+        // given
+        final ProcessingPositions processingPositions = new ProcessingPositions();
+        processingPositions.register(logStream);
+
+        messageHandler = new ClientApiMessageHandler(mockControlMessageDispatcher)
+            .setInFlightCommandLimit(processingPositions, 2);
+        messageHandler.addStream(logStream);
+
+        final int writtenLength = writeCommandRequestToBuffer(buffer, LOG_STREAM_TOPIC_NAME, LOG_STREAM_PARTITION_ID, null, EventType.TASK_EVENT);
+
+        messageHandler.onRequest(serverOutput, DEFAULT_ADDRESS, buffer, 0, writtenLength, REQUEST_ID);
+        messageHandler.onRequest(serverOutput, DEFAULT_ADDRESS, buffer, 0, writtenLength, REQUEST_ID);
+
+        // when
+        final boolean isHandled = messageHandler.onRequest(serverOutput, DEFAULT_ADDRESS, buffer, 0, writtenLength, REQUEST_ID);
+
+        // then
+        assertThat(isHandled).isTrue();
+
+        assertThat(serverOutput.getSentResponses()).hasSize(1);
+
+        final ErrorResponseDecoder errorDecoder = serverOutput.getAsErrorResponse(0);
+
+        assertThat(errorDecoder.errorCode()).isEqualTo(ErrorCode.REQUEST_WRITE_FAILURE);
+        assertThat(errorDecoder.errorData())
+            .startsWith(ClientApiMessageHandler.BACKPRESSURE_ERROR_MESSAGE)
+            .endsWith("Topic with name 'test-topic' and partition id '1' has 2 commands which are not processed yet.");
+    }
+
+    @Test
+    public void shouldAcceptCommandIfInFlightCommandIsProcessed() throws InterruptedException, ExecutionException
+    {
+        // given
+        final ProcessingPositions processingPositions = new ProcessingPositions();
+        final ProcessingPosition processingPosition = processingPositions.register(logStream);
+
+        messageHandler = new ClientApiMessageHandler(mockControlMessageDispatcher)
+            .setInFlightCommandLimit(processingPositions, 1);
+        messageHandler.addStream(logStream);
+
+        final int writtenLength = writeCommandRequestToBuffer(buffer, LOG_STREAM_TOPIC_NAME, LOG_STREAM_PARTITION_ID, null, EventType.TASK_EVENT);
+
+        messageHandler.onRequest(serverOutput, DEFAULT_ADDRESS, buffer, 0, writtenLength, REQUEST_ID);
+
+        final BufferedLogStreamReader logStreamReader = new BufferedLogStreamReader(logStream, true);
+        waitForAvailableEvent(logStreamReader);
+
+        processingPosition.set(logStreamReader.next().getPosition());
+
+        // when
+        messageHandler.onRequest(serverOutput, DEFAULT_ADDRESS, buffer, 0, writtenLength, REQUEST_ID);
+
+        // then
+        assertThat(serverOutput.getSentResponses()).isEmpty();
+
+        waitForAvailableEvent(logStreamReader);
+        assertThat(logStreamReader.hasNext()).isTrue();
+    }
+
     @Test
     public void shouldSendErrorMessageOnUnsupportedRequest() throws InterruptedException, ExecutionException
     {
@@ -345,7 +412,78 @@ public class ClientApiMessageHandlerTest
         assertThat(errorDecoder.errorData()).isEqualTo("Cannot execute command. Invalid event type 'NULL_VAL'.");
     }
 
+    @Test
+    public void shouldPassAcknowledgementToHandler()
+    {
+        // given
+        final List<Long> acknowledgedPositions = new ArrayList<>();
+
+        messageHandler.addAcknowledgementHandler(logStream, (event, key, requestStreamId, requestId) ->
+        {
+            acknowledgedPositions.add(event.getAckPosition());
+            return true;
+        });
+
+        final int writtenLength = writeCommandRequestToBuffer(buffer, LOG_STREAM_TOPIC_NAME, LOG_STREAM_PARTITION_ID, null, EventType.SUBSCRIPTION_EVENT, acknowledgeCommand(7L));
+
+        // when
+        final boolean isHandled = messageHandler.onRequest(serverOutput, DEFAULT_ADDRESS, buffer, 0, writtenLength, REQUEST_ID);
+
+        // then
+        assertThat(isHandled).isTrue();
+        assertThat(acknowledgedPositions).containsExactly(7L);
+
+        agentRunnerService.waitUntilDone();
+
+        final BufferedLogStreamReader logStreamReader = new BufferedLogStreamReader(logStream, true);
+        assertThat(logStreamReader.hasNext()).isFalse();
+    }
+
+    @Test
+    public void shouldWriteAcknowledgementIfNotTakenByHandler()
+    {
+        // given
+        messageHandler.addAcknowledgementHandler(logStream, (event, key, requestStreamId, requestId) -> false);
+
+        final int writtenLength = writeCommandRequestToBuffer(buffer, LOG_STREAM_TOPIC_NAME, LOG_STREAM_PARTITION_ID, null, EventType.SUBSCRIPTION_EVENT, acknowledgeCommand(7L));
+
+        // when
+        final boolean isHandled = messageHandler.onRequest(serverOutput, DEFAULT_ADDRESS, buffer, 0, writtenLength, REQUEST_ID);
+
+        // then
+        assertThat(isHandled).isTrue();
+
+        final BufferedLogStreamReader logStreamReader = new BufferedLogStreamReader(logStream, true);
+        waitForAvailableEvent(logStreamReader);
+
+        final TopicSubscriptionEvent subscriptionEvent = new TopicSubscriptionEvent();
+        logStreamReader.next().readValue(subscriptionEvent);
+
+        assertThat(subscriptionEvent.getState()).isEqualTo(TopicSubscriptionState.ACKNOWLEDGE);
+        assertThat(subscriptionEvent.getAckPosition()).isEqualTo(7L);
+    }
+
+    protected static byte[] acknowledgeCommand(long ackPosition)
+    {
+        final DirectBuffer subscriptionName = wrapString("foo");
+
+        final TopicSubscriptionEvent subscriptionEvent = new TopicSubscriptionEvent()
+            .setState(TopicSubscriptionState.ACKNOWLEDGE)
+            .setName(subscriptionName, 0, subscriptionName.capacity())
+            .setAckPosition(ackPosition);
+
+        final UnsafeBuffer buffer = new UnsafeBuffer(new byte[subscriptionEvent.getLength()]);
+        subscriptionEvent.write(buffer, 0);
+
+        return buffer.byteArray();
+    }
+
     protected int writeCommandRequestToBuffer(UnsafeBuffer buffer, DirectBuffer topicName, int partitionId, Short protocolVersion, EventType eventType)
+    {
+        return writeCommandRequestToBuffer(buffer, topicName, partitionId, protocolVersion, eventType, TASK_EVENT);
+    }
+
+    protected int writeCommandRequestToBuffer(UnsafeBuffer buffer, DirectBuffer topicName, int partitionId, Short protocolVersion, EventType eventType, byte[] command)
     {
         int offset = 0;
 
@@ -366,7 +504,7 @@ public class ClientApiMessageHandlerTest
             .partitionId(partitionId)
             .eventType(eventTypeToWrite)
             .putTopicName(topicName, 0, topicName.capacity())
-            .putCommand(TASK_EVENT, 0, TASK_EVENT.length);
+            .putCommand(command, 0, command.length);
 
         return headerEncoder.encodedLength() +
                 commandRequestEncoder.encodedLength();
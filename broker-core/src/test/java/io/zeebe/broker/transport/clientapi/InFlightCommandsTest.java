@@ -0,0 +1,79 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.transport.clientapi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+public class InFlightCommandsTest
+{
+
+    @Test
+    public void shouldReachLimit()
+    {
+        // given
+        final InFlightCommands inFlightCommands = new InFlightCommands(3);
+
+        // when
+        inFlightCommands.add(10);
+        inFlightCommands.add(20);
+        inFlightCommands.add(30);
+
+        // then
+        assertThat(inFlightCommands.isLimitReached(-1)).isTrue();
+        assertThat(inFlightCommands.size()).isEqualTo(3);
+    }
+
+    @Test
+    public void shouldRemoveProcessedCommands()
+    {
+        // given
+        final InFlightCommands inFlightCommands = new InFlightCommands(3);
+
+        inFlightCommands.add(10);
+        inFlightCommands.add(20);
+        inFlightCommands.add(30);
+
+        // when
+        final boolean isLimitReached = inFlightCommands.isLimitReached(20);
+
+        // then
+        assertThat(isLimitReached).isFalse();
+        assertThat(inFlightCommands.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldWrapAround()
+    {
+        // given
+        final InFlightCommands inFlightCommands = new InFlightCommands(2);
+
+        // when
+        for (int i = 0; i < 10; i++)
+        {
+            assertThat(inFlightCommands.isLimitReached(i - 2)).isFalse();
+            inFlightCommands.add(i);
+        }
+
+        // then
+        assertThat(inFlightCommands.size()).isEqualTo(2);
+        assertThat(inFlightCommands.isLimitReached(8)).isFalse();
+        assertThat(inFlightCommands.size()).isEqualTo(1);
+    }
+}
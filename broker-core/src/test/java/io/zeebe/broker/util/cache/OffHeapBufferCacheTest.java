@@ -0,0 +1,219 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.util.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class OffHeapBufferCacheTest
+{
+    // header + value
+    private static final int ENTRY_LENGTH = 16 + 48;
+
+    private final List<Long> evictedKeys = new ArrayList<>();
+
+    private OffHeapBufferCache cache;
+
+    @Before
+    public void setUp()
+    {
+        cache = new OffHeapBufferCache(4 * ENTRY_LENGTH, evictedKeys::add);
+    }
+
+    @After
+    public void close()
+    {
+        cache.close();
+    }
+
+    @Test
+    public void shouldGetCachedBuffer()
+    {
+        // when
+        cache.put(1L, value(1));
+        cache.put(2L, value(2));
+
+        // then
+        assertThat(cache.get(1L)).isEqualTo(value(1));
+        assertThat(cache.get(2L)).isEqualTo(value(2));
+        assertThat(cache.get(3L)).isNull();
+
+        assertThat(cache.getSize()).isEqualTo(2);
+        assertThat(cache.getUsedBytes()).isEqualTo(2 * ENTRY_LENGTH);
+    }
+
+    @Test
+    public void shouldReplaceCachedBuffer()
+    {
+        // given
+        cache.put(1L, value(1));
+
+        // when
+        cache.put(1L, value(2));
+
+        // then
+        assertThat(cache.get(1L)).isEqualTo(value(2));
+        assertThat(cache.getSize()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldEvictOldestEntryIfFull()
+    {
+        // given
+        for (int i = 1; i <= 4; i++)
+        {
+            cache.put(i, value(i));
+        }
+
+        // when
+        cache.put(5L, value(5));
+
+        // then
+        assertThat(evictedKeys).containsExactly(1L);
+
+        assertThat(cache.get(1L)).isNull();
+        assertThat(cache.get(5L)).isEqualTo(value(5));
+        assertThat(cache.getUsedBytes()).isEqualTo(4 * ENTRY_LENGTH);
+    }
+
+    @Test
+    public void shouldGiveReferencedEntrySecondChance()
+    {
+        // given
+        for (int i = 1; i <= 4; i++)
+        {
+            cache.put(i, value(i));
+        }
+
+        cache.get(1L);
+
+        // when
+        cache.put(5L, value(5));
+
+        // then
+        assertThat(evictedKeys).containsExactly(2L);
+
+        assertThat(cache.get(1L)).isEqualTo(value(1));
+        assertThat(cache.get(2L)).isNull();
+        assertThat(cache.get(5L)).isEqualTo(value(5));
+    }
+
+    @Test
+    public void shouldEvictMultipleEntriesForLargeBuffer()
+    {
+        // given
+        for (int i = 1; i <= 4; i++)
+        {
+            cache.put(i, value(i));
+        }
+
+        // when
+        final boolean cached = cache.put(5L, new UnsafeBuffer(new byte[ENTRY_LENGTH + 8]));
+
+        // then
+        assertThat(cached).isTrue();
+        assertThat(evictedKeys).containsExactly(1L, 2L);
+        assertThat(cache.getSize()).isEqualTo(3);
+    }
+
+    @Test
+    public void shouldReuseSpaceOfRemovedEntry()
+    {
+        // given
+        for (int i = 1; i <= 4; i++)
+        {
+            cache.put(i, value(i));
+        }
+
+        cache.remove(1L);
+
+        // when
+        cache.put(5L, value(5));
+
+        // then
+        assertThat(evictedKeys).isEmpty();
+        assertThat(cache.get(1L)).isNull();
+        assertThat(cache.getSize()).isEqualTo(4);
+    }
+
+    @Test
+    public void shouldWrapAroundEnd()
+    {
+        // when
+        for (int i = 1; i <= 100; i++)
+        {
+            cache.put(i, value(i));
+        }
+
+        // then
+        assertThat(cache.getSize()).isEqualTo(4);
+        assertThat(evictedKeys).hasSize(96);
+
+        for (int i = 97; i <= 100; i++)
+        {
+            assertThat(cache.get(i)).isEqualTo(value(i));
+        }
+    }
+
+    @Test
+    public void shouldNotCacheBufferLargerThanCapacity()
+    {
+        // given
+        cache.put(1L, value(1));
+
+        // when
+        final boolean cached = cache.put(2L, new UnsafeBuffer(new byte[4 * ENTRY_LENGTH]));
+
+        // then
+        assertThat(cached).isFalse();
+        assertThat(cache.get(2L)).isNull();
+        assertThat(cache.get(1L)).isEqualTo(value(1));
+    }
+
+    @Test
+    public void shouldClear()
+    {
+        // given
+        cache.put(1L, value(1));
+        cache.put(2L, value(2));
+
+        // when
+        cache.clear();
+
+        // then
+        assertThat(cache.get(1L)).isNull();
+        assertThat(cache.getSize()).isEqualTo(0);
+        assertThat(cache.getUsedBytes()).isEqualTo(0);
+    }
+
+    private static DirectBuffer value(int value)
+    {
+        final UnsafeBuffer buffer = new UnsafeBuffer(new byte[ENTRY_LENGTH - 16]);
+        buffer.setMemory(0, buffer.capacity(), (byte) value);
+        return buffer;
+    }
+
+}
@@ -0,0 +1,137 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.workflow;
+
+import static io.zeebe.broker.workflow.data.WorkflowInstanceEvent.PROP_STATE;
+import static io.zeebe.broker.workflow.graph.transformer.ZeebeExtensions.wrap;
+import static io.zeebe.test.broker.protocol.clientapi.TestTopicClient.taskEvents;
+import static io.zeebe.test.broker.protocol.clientapi.TestTopicClient.workflowInstanceEvents;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.camunda.bpm.model.bpmn.Bpmn;
+import org.camunda.bpm.model.bpmn.BpmnModelInstance;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.RuleChain;
+
+import io.zeebe.broker.test.EmbeddedBrokerRule;
+import io.zeebe.test.broker.protocol.clientapi.ClientApiRule;
+import io.zeebe.test.broker.protocol.clientapi.SubscribedEvent;
+import io.zeebe.test.broker.protocol.clientapi.TestTopicClient;
+
+public class ChainedWorkflowTransitionsTest
+{
+    public EmbeddedBrokerRule brokerRule = new EmbeddedBrokerRule("zeebe.test.chain-transitions.cfg.toml");
+    public ClientApiRule apiRule = new ClientApiRule();
+
+    @Rule
+    public RuleChain ruleChain = RuleChain.outerRule(brokerRule).around(apiRule);
+
+    private TestTopicClient testClient;
+
+    @Before
+    public void init()
+    {
+        testClient = apiRule.topic();
+    }
+
+    @Test
+    public void shouldWriteSameEventsAsWithoutChaining()
+    {
+        // given
+        final BpmnModelInstance modelInstance = wrap(
+                Bpmn.createExecutableProcess("process")
+                    .startEvent("a")
+                    .serviceTask("b")
+                    .serviceTask("c")
+                    .endEvent("d")
+                    .done())
+                        .taskDefinition("b", "foo", 5)
+                        .taskDefinition("c", "bar", 5);
+
+        testClient.deploy(modelInstance);
+
+        testClient.createWorkflowInstance("process");
+
+        // when
+        testClient.completeTaskOfType("foo");
+        testClient.completeTaskOfType("bar");
+
+        // then
+        final List<SubscribedEvent> workflowEvents = testClient
+                .receiveEvents(workflowInstanceEvents())
+                .limit(16)
+                .collect(Collectors.toList());
+
+        assertThat(workflowEvents).extracting(e -> e.event().get(PROP_STATE)).containsExactly(
+                "CREATE_WORKFLOW_INSTANCE",
+                "WORKFLOW_INSTANCE_CREATED",
+                "START_EVENT_OCCURRED",
+                "SEQUENCE_FLOW_TAKEN",
+                "ACTIVITY_READY",
+                "ACTIVITY_ACTIVATED",
+                "ACTIVITY_COMPLETING",
+                "ACTIVITY_COMPLETED",
+                "SEQUENCE_FLOW_TAKEN",
+                "ACTIVITY_READY",
+                "ACTIVITY_ACTIVATED",
+                "ACTIVITY_COMPLETING",
+                "ACTIVITY_COMPLETED",
+                "SEQUENCE_FLOW_TAKEN",
+                "END_EVENT_OCCURRED",
+                "WORKFLOW_INSTANCE_COMPLETED");
+    }
+
+    @Test
+    public void shouldUsePositionAsKeyOfChainedEvents()
+    {
+        // given
+        final BpmnModelInstance modelInstance = wrap(
+                Bpmn.createExecutableProcess("process")
+                    .startEvent()
+                    .serviceTask("task")
+                    .endEvent()
+                    .done())
+                        .taskDefinition("task", "foo", 5);
+
+        testClient.deploy(modelInstance);
+
+        // when
+        testClient.createWorkflowInstance("process");
+
+        // then
+        final SubscribedEvent startEvent = testClient.receiveSingleEvent(workflowInstanceEvents("START_EVENT_OCCURRED"));
+        final SubscribedEvent sequenceFlowEvent = testClient.receiveSingleEvent(workflowInstanceEvents("SEQUENCE_FLOW_TAKEN"));
+        final SubscribedEvent activityReadyEvent = testClient.receiveSingleEvent(workflowInstanceEvents("ACTIVITY_READY"));
+        final SubscribedEvent taskCreateEvent = testClient.receiveSingleEvent(taskEvents("CREATE"));
+
+        assertThat(startEvent.key()).isEqualTo(startEvent.position());
+        assertThat(sequenceFlowEvent.key()).isEqualTo(sequenceFlowEvent.position());
+        assertThat(activityReadyEvent.key()).isEqualTo(activityReadyEvent.position());
+
+        @SuppressWarnings("unchecked")
+        final Map<String, Object> headers = (Map<String, Object>) taskCreateEvent.event().get("headers");
+        assertThat(headers).containsEntry("activityInstanceKey", activityReadyEvent.key());
+    }
+
+}
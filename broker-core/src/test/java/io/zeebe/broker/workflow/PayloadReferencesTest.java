@@ -0,0 +1,116 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.workflow;
+
+import static io.zeebe.broker.test.MsgPackUtil.JSON_DOCUMENT;
+import static io.zeebe.broker.test.MsgPackUtil.JSON_MAPPER;
+import static io.zeebe.broker.test.MsgPackUtil.MSGPACK_MAPPER;
+import static io.zeebe.broker.test.MsgPackUtil.MSGPACK_PAYLOAD;
+import static io.zeebe.broker.workflow.data.WorkflowInstanceEvent.PROP_STATE;
+import static io.zeebe.broker.workflow.data.WorkflowInstanceEvent.PROP_WORKFLOW_PAYLOAD;
+import static io.zeebe.broker.workflow.graph.transformer.ZeebeExtensions.wrap;
+import static io.zeebe.test.broker.protocol.clientapi.TestTopicClient.taskEvents;
+import static io.zeebe.test.broker.protocol.clientapi.TestTopicClient.workflowInstanceEvents;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.camunda.bpm.model.bpmn.Bpmn;
+import org.camunda.bpm.model.bpmn.BpmnModelInstance;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.RuleChain;
+
+import io.zeebe.broker.test.EmbeddedBrokerRule;
+import io.zeebe.test.broker.protocol.clientapi.ClientApiRule;
+import io.zeebe.test.broker.protocol.clientapi.SubscribedEvent;
+import io.zeebe.test.broker.protocol.clientapi.TestTopicClient;
+
+public class PayloadReferencesTest
+{
+    private static final BpmnModelInstance WORKFLOW = wrap(
+            Bpmn.createExecutableProcess("process")
+            .startEvent()
+            .serviceTask("task")
+            .endEvent()
+            .done())
+                .taskDefinition("task", "foo", 5);
+
+    public EmbeddedBrokerRule brokerRule = new EmbeddedBrokerRule("zeebe.test.payload-references.cfg.toml");
+    public ClientApiRule apiRule = new ClientApiRule();
+
+    @Rule
+    public RuleChain ruleChain = RuleChain.outerRule(brokerRule).around(apiRule);
+
+    private TestTopicClient testClient;
+
+    @Before
+    public void init()
+    {
+        testClient = apiRule.topic();
+    }
+
+    @Test
+    public void shouldResolvePayloadOfSubscribedEvents() throws IOException
+    {
+        // given
+        testClient.deploy(WORKFLOW);
+
+        testClient.createWorkflowInstance("process", MSGPACK_PAYLOAD);
+
+        // when
+        testClient.completeTaskOfType("foo", MSGPACK_PAYLOAD);
+
+        // then
+        final List<SubscribedEvent> workflowEvents = testClient
+                .receiveEvents(workflowInstanceEvents())
+                .limit(11)
+                .collect(Collectors.toList());
+
+        assertThat(workflowEvents).extracting(e -> e.event().get(PROP_STATE)).contains("WORKFLOW_INSTANCE_COMPLETED");
+
+        for (SubscribedEvent event : workflowEvents)
+        {
+            assertPayload((byte[]) event.event().get(PROP_WORKFLOW_PAYLOAD));
+        }
+    }
+
+    @Test
+    public void shouldCreateTaskWithReferencedPayload() throws IOException
+    {
+        // given
+        testClient.deploy(WORKFLOW);
+
+        // when
+        testClient.createWorkflowInstance("process", MSGPACK_PAYLOAD);
+
+        // then
+        final SubscribedEvent taskEvent = testClient.receiveSingleEvent(taskEvents("CREATE"));
+
+        assertPayload((byte[]) taskEvent.event().get(PROP_WORKFLOW_PAYLOAD));
+    }
+
+    protected void assertPayload(byte[] payload) throws IOException
+    {
+        assertThat(MSGPACK_MAPPER.readTree(payload)).isEqualTo(JSON_MAPPER.readTree(JSON_DOCUMENT));
+    }
+
+}
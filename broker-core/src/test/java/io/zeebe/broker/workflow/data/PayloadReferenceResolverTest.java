@@ -0,0 +1,135 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.workflow.data;
+
+import static io.zeebe.test.util.BufferAssert.assertThatBuffer;
+import static io.zeebe.util.buffer.BufferUtil.wrapString;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import io.zeebe.broker.test.MockStreamProcessorController;
+import io.zeebe.logstreams.log.LogStreamReader;
+import io.zeebe.logstreams.log.LoggedEvent;
+
+public class PayloadReferenceResolverTest
+{
+    // {"a": 1}
+    private static final DirectBuffer PAYLOAD = new UnsafeBuffer(new byte[] {(byte) 0x81, (byte) 0xa1, 'a', 0x01});
+
+    @Rule
+    public MockStreamProcessorController<WorkflowInstanceEvent> mockController = new MockStreamProcessorController<>(WorkflowInstanceEvent.class);
+
+    private LogStreamReader logStreamReader;
+    private PayloadReferenceResolver resolver;
+
+    @Before
+    public void setUp()
+    {
+        logStreamReader = mock(LogStreamReader.class);
+        resolver = new PayloadReferenceResolver(logStreamReader);
+    }
+
+    @Test
+    public void shouldResolvePayloadReference()
+    {
+        // given
+        final LoggedEvent referencedEvent = mockController.buildLoggedEvent(1L, e -> e
+                .setState(WorkflowInstanceState.WORKFLOW_INSTANCE_CREATED)
+                .setPayload(PAYLOAD));
+
+        when(logStreamReader.seek(1L)).thenReturn(true);
+        when(logStreamReader.hasNext()).thenReturn(true);
+        when(logStreamReader.next()).thenReturn(referencedEvent);
+
+        final LoggedEvent event = mockController.buildLoggedEvent(2L, e -> e
+                .setState(WorkflowInstanceState.START_EVENT_OCCURRED)
+                .setPayloadReference(1L));
+
+        // when
+        final DirectBuffer resolvedValue = resolver.resolve(event.getValueBuffer(), event.getValueOffset(), event.getValueLength());
+
+        // then
+        final WorkflowInstanceEvent resolvedEvent = new WorkflowInstanceEvent();
+        resolvedEvent.wrap(resolvedValue, 0, resolvedValue.capacity());
+
+        assertThat(resolvedEvent.hasPayloadReference()).isFalse();
+        assertThat(resolvedEvent.getState()).isEqualTo(WorkflowInstanceState.START_EVENT_OCCURRED);
+        assertThatBuffer(resolvedEvent.getPayload()).hasBytes(PAYLOAD);
+    }
+
+    @Test
+    public void shouldNotChangeEventWithoutPayloadReference()
+    {
+        // given
+        final LoggedEvent event = mockController.buildLoggedEvent(2L, e -> e
+                .setState(WorkflowInstanceState.START_EVENT_OCCURRED)
+                .setPayload(PAYLOAD));
+
+        // when
+        final DirectBuffer resolvedValue = resolver.resolve(event.getValueBuffer(), event.getValueOffset(), event.getValueLength());
+
+        // then
+        assertThatBuffer(resolvedValue).hasBytes(event.getValueBuffer());
+    }
+
+    @Test
+    public void shouldFailIfReferencedEventIsNotAvailable()
+    {
+        // given
+        when(logStreamReader.seek(anyLong())).thenReturn(false);
+
+        final LoggedEvent event = mockController.buildLoggedEvent(2L, e -> e
+                .setState(WorkflowInstanceState.START_EVENT_OCCURRED)
+                .setPayloadReference(1L));
+
+        // when/then
+        assertThatThrownBy(() -> resolver.resolve(event.getValueBuffer(), event.getValueOffset(), event.getValueLength()))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessage("Cannot resolve payload reference. The referenced event at position 1 is not available.");
+    }
+
+    @Test
+    public void shouldNotWritePayloadPositionWithoutPayloadReference()
+    {
+        // given
+        final WorkflowInstanceEvent event = new WorkflowInstanceEvent()
+                .setBpmnProcessId(wrapString("process"))
+                .setPayload(PAYLOAD);
+
+        final WorkflowInstanceEvent referencingEvent = new WorkflowInstanceEvent()
+                .setBpmnProcessId(wrapString("process"))
+                .setPayloadReference(1L);
+
+        // then
+        assertThat(event.getPayloadPosition()).isEqualTo(-1L);
+        assertThat(referencingEvent.getPayloadPosition()).isEqualTo(1L);
+        assertThat(referencingEvent.getPayload()).isEqualTo(WorkflowInstanceEvent.NO_PAYLOAD);
+
+        // the reference replaces the payload instead of adding a property
+        assertThat(referencingEvent.getLength()).isEqualTo(event.getLength() - PAYLOAD.capacity() + 10);
+    }
+}
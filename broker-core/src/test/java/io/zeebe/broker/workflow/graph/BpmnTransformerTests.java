@@ -28,6 +28,7 @@ import java.util.List;
 import java.util.Map;
 
 import io.zeebe.broker.workflow.graph.model.*;
+import io.zeebe.broker.workflow.graph.model.metadata.MappingPlan;
 import io.zeebe.broker.workflow.graph.transformer.BpmnTransformer;
 import io.zeebe.msgpack.mapping.Mapping;
 import io.zeebe.msgpack.spec.MsgPackWriter;
@@ -94,6 +95,31 @@ public class BpmnTransformerTests
         assertThat(sequenceFlow.getTargetNode().getIncomingSequenceFlows()).hasSize(1).contains(sequenceFlow);
     }
 
+    @Test
+    public void shouldAssignIndexToFlowElements()
+    {
+        // given
+        final BpmnModelInstance bpmnModelInstance = Bpmn.createExecutableProcess()
+                .startEvent("a")
+                .sequenceFlowId("to")
+                .endEvent("b")
+                .done();
+
+        // when
+        final ExecutableWorkflow process = transformSingleProcess(bpmnModelInstance);
+
+        // then
+        for (String id : new String[] {"a", "to", "b"})
+        {
+            final ExecutableFlowElement element = process.findFlowElementById(wrapString(id));
+
+            assertThat(element.getIndex()).isGreaterThanOrEqualTo(0);
+            assertThat((ExecutableFlowElement) process.getFlowElementByIndex(element.getIndex())).isSameAs(element);
+            assertThat((ExecutableFlowElement) process.getFlowElement(element.getIndex(), wrapString(id))).isSameAs(element);
+            assertThat((ExecutableFlowElement) process.getFlowElement(-1, wrapString(id))).isSameAs(element);
+        }
+    }
+
     @Test
     public void shouldTransformEndEvent()
     {
@@ -252,6 +278,37 @@ public class BpmnTransformerTests
 
     }
 
+    @Test
+    public void shouldCompileTaskMappingPlan()
+    {
+        // given
+        final BpmnModelInstance bpmnModelInstance = wrap(Bpmn.createExecutableProcess()
+                                                             .startEvent()
+                                                             .serviceTask("foo")
+                                                             .name("bar")
+                                                             .done())
+            .taskDefinition("foo", "test", 4)
+            .ioMapping("foo")
+            .input("$.foo", "$.bar")
+            .output("$.bar.baz", "$.foo")
+            .done();
+
+        // when
+        final ExecutableWorkflow process = transformSingleProcess(bpmnModelInstance);
+
+        // then
+        final ExecutableServiceTask serviceTask = (ExecutableServiceTask) process.findFlowElementById(wrapString("foo"));
+
+        final MappingPlan inputMappingPlan = serviceTask.getIoMapping().getInputMappingPlan();
+        assertThat(inputMappingPlan.isTopLevelCopy()).isTrue();
+        assertThat(inputMappingPlan.getSourceProperties()).containsExactly(wrapString("foo"));
+        assertThat(inputMappingPlan.getTargetProperties()).containsExactly(wrapString("bar"));
+
+        final MappingPlan outputMappingPlan = serviceTask.getIoMapping().getOutputMappingPlan();
+        assertThat(outputMappingPlan.isTopLevelCopy()).isFalse();
+        assertThat(outputMappingPlan.getMappings()).hasSize(1);
+    }
+
     protected ExecutableWorkflow transformSingleProcess(BpmnModelInstance bpmnModelInstance)
     {
         final List<ExecutableWorkflow> processes = bpmnTransformer.transform(bpmnModelInstance);
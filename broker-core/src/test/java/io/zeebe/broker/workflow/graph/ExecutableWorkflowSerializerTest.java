@@ -0,0 +1,302 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.workflow.graph;
+
+import static io.zeebe.broker.workflow.graph.transformer.ZeebeExtensions.wrap;
+import static io.zeebe.util.buffer.BufferUtil.bufferAsString;
+import static io.zeebe.util.buffer.BufferUtil.wrapString;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import io.zeebe.broker.workflow.data.WorkflowEvent;
+import io.zeebe.broker.workflow.data.WorkflowState;
+import io.zeebe.broker.workflow.graph.model.BpmnAspect;
+import io.zeebe.broker.workflow.graph.model.ExecutableEndEvent;
+import io.zeebe.broker.workflow.graph.model.ExecutableFlowElement;
+import io.zeebe.broker.workflow.graph.model.ExecutableSequenceFlow;
+import io.zeebe.broker.workflow.graph.model.ExecutableServiceTask;
+import io.zeebe.broker.workflow.graph.model.ExecutableStartEvent;
+import io.zeebe.broker.workflow.graph.model.ExecutableWorkflow;
+import io.zeebe.broker.workflow.graph.serialization.ExecutableWorkflowSerializer;
+import io.zeebe.broker.workflow.graph.transformer.BpmnTransformer;
+import io.zeebe.msgpack.mapping.Mapping;
+import io.zeebe.util.buffer.BufferUtil;
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.camunda.bpm.model.bpmn.Bpmn;
+import org.camunda.bpm.model.bpmn.BpmnModelInstance;
+import org.junit.Test;
+
+public class ExecutableWorkflowSerializerTest
+{
+    private final BpmnTransformer bpmnTransformer = new BpmnTransformer();
+    private final ExecutableWorkflowSerializer serializer = new ExecutableWorkflowSerializer();
+
+    @Test
+    public void shouldRestoreWorkflowGraph()
+    {
+        // given
+        final BpmnModelInstance bpmnModelInstance = Bpmn.createExecutableProcess("process")
+            .name("a process")
+            .startEvent("start")
+            .sequenceFlowId("to-task")
+            .serviceTask("task")
+                .name("a task")
+            .sequenceFlowId("to-end")
+            .endEvent("end")
+            .done();
+
+        final ExecutableWorkflow workflow = serializeAndDeserialize(wrap(bpmnModelInstance).taskDefinition("task", "foo", 5));
+
+        // then
+        assertThat(workflow.getId()).isEqualTo(wrapString("process"));
+        assertThat(workflow.getName()).isEqualTo("a process");
+        assertThat(workflow.getFlowElements()).hasSize(5);
+
+        final ExecutableStartEvent startEvent = workflow.getScopeStartEvent();
+        assertThat(startEvent.getId()).isEqualTo(wrapString("start"));
+        assertThat(startEvent.getBpmnAspect()).isEqualTo(BpmnAspect.TAKE_SEQUENCE_FLOW);
+        assertThat(startEvent.getIncomingSequenceFlows()).isEmpty();
+        assertThat(startEvent.getOutgoingSequenceFlows()).hasSize(1);
+
+        final ExecutableSequenceFlow toTask = startEvent.getOutgoingSequenceFlows()[0];
+        assertThat(toTask.getId()).isEqualTo(wrapString("to-task"));
+        assertThat(toTask.getSourceNode()).isSameAs(startEvent);
+        assertThat(toTask.getTargetNode()).isInstanceOf(ExecutableServiceTask.class);
+
+        final ExecutableServiceTask serviceTask = (ExecutableServiceTask) toTask.getTargetNode();
+        assertThat(serviceTask.getName()).isEqualTo("a task");
+        assertThat(serviceTask.getIncomingSequenceFlows()).containsExactly(toTask);
+        assertThat(serviceTask.getTaskMetadata().getTaskType()).isEqualTo(wrapString("foo"));
+        assertThat(serviceTask.getTaskMetadata().getRetries()).isEqualTo(5);
+
+        final ExecutableSequenceFlow toEnd = serviceTask.getOutgoingSequenceFlows()[0];
+        assertThat(toEnd.getTargetNode()).isInstanceOf(ExecutableEndEvent.class);
+
+        final ExecutableEndEvent endEvent = (ExecutableEndEvent) toEnd.getTargetNode();
+        assertThat(endEvent.getBpmnAspect()).isEqualTo(BpmnAspect.CONSUME_TOKEN);
+        assertThat(endEvent.getOutgoingSequenceFlows()).isEmpty();
+
+        for (ExecutableFlowElement element : workflow.getFlowElements())
+        {
+            assertThat(element.getWorkflow()).isSameAs(workflow);
+            assertThat(element.getFlowScope()).isSameAs(workflow);
+            assertThat(workflow.findFlowElementById(element.getId())).isSameAs(element);
+        }
+    }
+
+    @Test
+    public void shouldKeepIndexOfFlowElements()
+    {
+        // given
+        final BpmnModelInstance bpmnModelInstance = wrap(Bpmn.createExecutableProcess("process")
+            .startEvent("start")
+            .serviceTask("task")
+            .endEvent("end")
+            .done())
+                .taskDefinition("task", "foo", 3);
+
+        final ExecutableWorkflow transformedWorkflow = bpmnTransformer.transform(bpmnModelInstance).get(0);
+
+        // when
+        final ExecutableWorkflow workflow = serializeAndDeserialize(bpmnModelInstance);
+
+        // then
+        for (ExecutableFlowElement transformedElement : transformedWorkflow.getFlowElements())
+        {
+            final ExecutableFlowElement element = workflow.getFlowElementByIndex(transformedElement.getIndex());
+
+            assertThat(element.getId()).isEqualTo(transformedElement.getId());
+            assertThat(element.getClass()).isEqualTo(transformedElement.getClass());
+        }
+    }
+
+    @Test
+    public void shouldRestoreTaskHeadersAndMapping()
+    {
+        // given
+        final Map<String, String> taskHeaders = new HashMap<>();
+        taskHeaders.put("a", "b");
+
+        final BpmnModelInstance bpmnModelInstance = wrap(Bpmn.createExecutableProcess("process")
+            .startEvent()
+            .serviceTask("task")
+            .done())
+                .taskDefinition("task", "foo", 3)
+                .taskHeaders("task", taskHeaders)
+                .ioMapping("task")
+                    .input("$.foo", "$.bar")
+                    .input("$.a", "$.b")
+                    .output("$.bar", "$.foo")
+                .done();
+
+        final ExecutableServiceTask transformedTask = (ExecutableServiceTask) bpmnTransformer.transform(bpmnModelInstance).get(0)
+                .findFlowElementById(wrapString("task"));
+
+        // when
+        final ExecutableWorkflow workflow = serializeAndDeserialize(bpmnModelInstance);
+
+        // then
+        final ExecutableServiceTask serviceTask = (ExecutableServiceTask) workflow.findFlowElementById(wrapString("task"));
+
+        assertThat(serviceTask.getTaskMetadata().getHeaders()).isEqualTo(transformedTask.getTaskMetadata().getHeaders());
+
+        final Mapping[] inputMappings = serviceTask.getIoMapping().getInputMappings();
+        assertThat(inputMappings).hasSize(2);
+        assertThat(bufferAsString(inputMappings[0].getSource().getExpression())).isEqualTo("$.foo");
+        assertThat(inputMappings[0].getSource().isValid()).isTrue();
+        assertThat(bufferAsString(inputMappings[0].getTargetQueryBuffer())).isEqualTo("$.bar");
+        assertThat(bufferAsString(inputMappings[1].getSource().getExpression())).isEqualTo("$.a");
+        assertThat(bufferAsString(inputMappings[1].getTargetQueryBuffer())).isEqualTo("$.b");
+
+        final Mapping[] outputMappings = serviceTask.getIoMapping().getOutputMappings();
+        assertThat(outputMappings).hasSize(1);
+        assertThat(bufferAsString(outputMappings[0].getSource().getExpression())).isEqualTo("$.bar");
+        assertThat(bufferAsString(outputMappings[0].getTargetQueryBuffer())).isEqualTo("$.foo");
+    }
+
+    @Test
+    public void shouldNotDeserializeOtherFormatVersion()
+    {
+        // given
+        final BpmnModelInstance bpmnModelInstance = Bpmn.createExecutableProcess("process")
+            .startEvent()
+            .done();
+
+        final ExecutableWorkflow transformedWorkflow = bpmnTransformer.transform(bpmnModelInstance).get(0);
+
+        final byte[] bytes = BufferUtil.bufferAsArray(serializer.serialize(transformedWorkflow));
+        bytes[0] = ExecutableWorkflowSerializer.FORMAT_VERSION + 1;
+
+        // when
+        final ExecutableWorkflow workflow = serializer.deserialize(BufferUtil.wrapArray(bytes), 0, bytes.length);
+
+        // then
+        assertThat(workflow).isNull();
+    }
+
+    @Test
+    public void shouldReadSerializedWorkflowFromEvent()
+    {
+        // given a workflow which is serialized with more than 127 bytes
+        final BpmnModelInstance bpmnModelInstance = wrap(Bpmn.createExecutableProcess("process")
+            .startEvent("start")
+            .serviceTask("task")
+            .endEvent("end")
+            .done())
+                .taskDefinition("task", "foo", 3)
+                .ioMapping("task")
+                    .input("$.foo", "$.bar")
+                .done();
+
+        final ExecutableWorkflow transformedWorkflow = bpmnTransformer.transform(bpmnModelInstance).get(0);
+
+        final WorkflowEvent workflowEvent = new WorkflowEvent()
+            .setState(WorkflowState.CREATED)
+            .setBpmnProcessId(wrapString("process"))
+            .setVersion(1)
+            .setBpmnXml(wrapString("xml"))
+            .setDeploymentKey(2L)
+            .setExecutableWorkflow(serializer.serialize(transformedWorkflow));
+
+        final UnsafeBuffer buffer = new UnsafeBuffer(new byte[workflowEvent.getLength()]);
+        workflowEvent.write(buffer, 0);
+
+        // when
+        workflowEvent.reset();
+        workflowEvent.wrap(buffer, 0, buffer.capacity());
+
+        // then
+        final DirectBuffer executableWorkflow = workflowEvent.getExecutableWorkflow();
+        assertThat(executableWorkflow.capacity()).isGreaterThan(Byte.MAX_VALUE);
+
+        final ExecutableWorkflow workflow = serializer.deserialize(executableWorkflow, 0, executableWorkflow.capacity());
+
+        assertThat(workflow.getFlowElements()).hasSize(5);
+    }
+
+    @Test
+    public void shouldReadExecutableWorkflowOfAnyLengthFromEvent()
+    {
+        // lengths around the limits of the msgpack bin8, bin16 and bin32 formats
+        final int[] lengths = { 127, 128, 255, 256, 32767, 32768, 65535, 65536 };
+
+        for (int length : lengths)
+        {
+            // given
+            final byte[] bytes = new byte[length];
+            for (int i = 0; i < length; i++)
+            {
+                bytes[i] = (byte) i;
+            }
+
+            final WorkflowEvent workflowEvent = new WorkflowEvent()
+                .setState(WorkflowState.CREATED)
+                .setBpmnProcessId(wrapString("process"))
+                .setVersion(1)
+                .setBpmnXml(wrapString("xml"))
+                .setDeploymentKey(2L)
+                .setExecutableWorkflow(new UnsafeBuffer(bytes));
+
+            final UnsafeBuffer buffer = new UnsafeBuffer(new byte[workflowEvent.getLength()]);
+            workflowEvent.write(buffer, 0);
+
+            // when
+            workflowEvent.reset();
+            workflowEvent.wrap(buffer, 0, buffer.capacity());
+
+            // then
+            assertThat(BufferUtil.bufferAsArray(workflowEvent.getExecutableWorkflow()))
+                .describedAs("executable workflow of length %d", length)
+                .isEqualTo(bytes);
+        }
+    }
+
+    @Test
+    public void shouldKeepIdsOfBpmnAspects()
+    {
+        // the ids are persisted with the serialized workflow
+        assertThat(BpmnAspect.NONE.getId()).isEqualTo((byte) 0);
+        assertThat(BpmnAspect.TAKE_SEQUENCE_FLOW.getId()).isEqualTo((byte) 1);
+        assertThat(BpmnAspect.CONSUME_TOKEN.getId()).isEqualTo((byte) 2);
+
+        for (BpmnAspect aspect : BpmnAspect.values())
+        {
+            assertThat(BpmnAspect.fromId(aspect.getId())).isEqualTo(aspect);
+        }
+    }
+
+    protected ExecutableWorkflow serializeAndDeserialize(BpmnModelInstance bpmnModelInstance)
+    {
+        final ExecutableWorkflow transformedWorkflow = bpmnTransformer.transform(bpmnModelInstance).get(0);
+
+        // copy the serialized workflow to verify that the result doesn't refer to the buffer
+        final byte[] bytes = BufferUtil.bufferAsArray(serializer.serialize(transformedWorkflow));
+        final DirectBuffer buffer = BufferUtil.wrapArray(bytes);
+
+        final ExecutableWorkflow workflow = serializer.deserialize(buffer, 0, bytes.length);
+
+        Arrays.fill(bytes, (byte) 0);
+
+        return workflow;
+    }
+
+}
@@ -0,0 +1,185 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.workflow.processor;
+
+import static io.zeebe.broker.test.MsgPackUtil.JSON_MAPPER;
+import static io.zeebe.broker.test.MsgPackUtil.MSGPACK_MAPPER;
+import static io.zeebe.util.buffer.BufferUtil.wrapString;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import io.zeebe.broker.workflow.graph.model.metadata.MappingPlan;
+import io.zeebe.msgpack.jsonpath.JsonPathQueryCompiler;
+import io.zeebe.msgpack.mapping.Mapping;
+import io.zeebe.msgpack.mapping.MappingException;
+import io.zeebe.msgpack.mapping.MappingProcessor;
+
+public class MappingPlanProcessorTest
+{
+    private static final String SOURCE_DOCUMENT = "{'foo':'bar', 'obj':{'a':[1,2,3]}, 'num':42}";
+    private static final String TARGET_DOCUMENT = "{'x':1, 'num':'old', 'y':{'z':true}}";
+
+    // use a small buffer to check that the result buffer grows
+    private final MappingPlanProcessor processor = new MappingPlanProcessor(16);
+    private final MappingProcessor referenceProcessor = new MappingProcessor(4096);
+
+    @Test
+    public void shouldCompileTopLevelCopy()
+    {
+        // when
+        final MappingPlan plan = plan("$.foo", "$.bar", "$.obj", "$.obj");
+
+        // then
+        assertThat(plan.isTopLevelCopy()).isTrue();
+        assertThat(plan.getSourceProperties()).containsExactly(wrapString("foo"), wrapString("obj"));
+        assertThat(plan.getTargetProperties()).containsExactly(wrapString("bar"), wrapString("obj"));
+    }
+
+    @Test
+    public void shouldNotCompileNestedPathsAsTopLevelCopy()
+    {
+        assertThat(plan("$.obj.a", "$.a").isTopLevelCopy()).isFalse();
+        assertThat(plan("$.obj", "$.a.b").isTopLevelCopy()).isFalse();
+        assertThat(plan("$.obj.a[0]", "$.a").isTopLevelCopy()).isFalse();
+        assertThat(plan("$.obj", "$").isTopLevelCopy()).isFalse();
+    }
+
+    @Test
+    public void shouldNotCompileDuplicateTargetsAsTopLevelCopy()
+    {
+        assertThat(plan("$.foo", "$.a", "$.num", "$.a").isTopLevelCopy()).isFalse();
+    }
+
+    @Test
+    public void shouldExtractLikeMappingProcessor() throws Exception
+    {
+        // given
+        final MappingPlan plan = plan("$.foo", "$.bar", "$.obj", "$.obj", "$.num", "$.n");
+
+        // when
+        final DirectBuffer result = extract(SOURCE_DOCUMENT, plan);
+
+        // then
+        assertThat(toJson(result)).isEqualTo(JSON_MAPPER.readTree("{'bar':'bar', 'obj':{'a':[1,2,3]}, 'n':42}"));
+        assertThat(toJson(result)).isEqualTo(referenceExtract(SOURCE_DOCUMENT, plan));
+    }
+
+    @Test
+    public void shouldExtractSamePropertyTwice() throws Exception
+    {
+        // given
+        final MappingPlan plan = plan("$.foo", "$.a", "$.foo", "$.b");
+
+        // when
+        final DirectBuffer result = extract(SOURCE_DOCUMENT, plan);
+
+        // then
+        assertThat(toJson(result)).isEqualTo(JSON_MAPPER.readTree("{'a':'bar', 'b':'bar'}"));
+    }
+
+    @Test
+    public void shouldMergeLikeMappingProcessor() throws Exception
+    {
+        // given
+        final MappingPlan plan = plan("$.foo", "$.bar", "$.num", "$.num");
+
+        // when
+        final DirectBuffer result = merge(SOURCE_DOCUMENT, TARGET_DOCUMENT, plan);
+
+        // then
+        assertThat(toJson(result)).isEqualTo(JSON_MAPPER.readTree("{'x':1, 'num':42, 'y':{'z':true}, 'bar':'bar'}"));
+        assertThat(toJson(result)).isEqualTo(referenceMerge(SOURCE_DOCUMENT, TARGET_DOCUMENT, plan));
+    }
+
+    @Test
+    public void shouldMergeNestedPathsWithMappingProcessor() throws Exception
+    {
+        // given
+        final MappingPlan plan = plan("$.obj.a", "$.y.a");
+
+        // when
+        final DirectBuffer result = merge(SOURCE_DOCUMENT, TARGET_DOCUMENT, plan);
+
+        // then
+        assertThat(toJson(result)).isEqualTo(referenceMerge(SOURCE_DOCUMENT, TARGET_DOCUMENT, plan));
+    }
+
+    @Test
+    public void shouldFailOnMissingPropertyLikeMappingProcessor() throws Exception
+    {
+        // given
+        final MappingPlan plan = plan("$.foo", "$.a", "$.missing", "$.b");
+        final DirectBuffer document = msgPack(SOURCE_DOCUMENT);
+
+        // then
+        assertThatThrownBy(() -> processor.extract(document, plan)).isInstanceOf(MappingException.class);
+    }
+
+    protected MappingPlan plan(String... sourceAndTargetPaths)
+    {
+        final Mapping[] mappings = new Mapping[sourceAndTargetPaths.length / 2];
+        for (int i = 0; i < mappings.length; i++)
+        {
+            mappings[i] = new Mapping(new JsonPathQueryCompiler().compile(sourceAndTargetPaths[2 * i]),
+                                      wrapString(sourceAndTargetPaths[2 * i + 1]));
+        }
+        return MappingPlan.compile(mappings);
+    }
+
+    protected DirectBuffer extract(String document, MappingPlan plan) throws Exception
+    {
+        final int length = processor.extract(msgPack(document), plan);
+        return new UnsafeBuffer(processor.getResultBuffer(), 0, length);
+    }
+
+    protected DirectBuffer merge(String sourceDocument, String targetDocument, MappingPlan plan) throws Exception
+    {
+        final int length = processor.merge(msgPack(sourceDocument), msgPack(targetDocument), plan);
+        return new UnsafeBuffer(processor.getResultBuffer(), 0, length);
+    }
+
+    protected JsonNode referenceExtract(String document, MappingPlan plan) throws Exception
+    {
+        final int length = referenceProcessor.extract(msgPack(document), plan.getMappings());
+        return toJson(new UnsafeBuffer(referenceProcessor.getResultBuffer(), 0, length));
+    }
+
+    protected JsonNode referenceMerge(String sourceDocument, String targetDocument, MappingPlan plan) throws Exception
+    {
+        final int length = referenceProcessor.merge(msgPack(sourceDocument), msgPack(targetDocument), plan.getMappings());
+        return toJson(new UnsafeBuffer(referenceProcessor.getResultBuffer(), 0, length));
+    }
+
+    protected static DirectBuffer msgPack(String json) throws Exception
+    {
+        return new UnsafeBuffer(MSGPACK_MAPPER.writeValueAsBytes(JSON_MAPPER.readTree(json)));
+    }
+
+    protected static JsonNode toJson(DirectBuffer buffer) throws Exception
+    {
+        final byte[] bytes = new byte[buffer.capacity()];
+        buffer.getBytes(0, bytes);
+        return MSGPACK_MAPPER.readTree(bytes);
+    }
+}
@@ -32,6 +32,13 @@ public class ClientProperties
      */
     public static final String CLIENT_MAXREQUESTS = "zeebe.client.maxRequests";
 
+    /**
+     * The maximum count of requests which are queued by non-blocking commands (e.g.
+     * {@link io.zeebe.client.task.cmd.CompleteTaskCommand#completeAsync()}) while
+     * {@link #CLIENT_MAXREQUESTS} requests are in flight.
+     */
+    public static final String CLIENT_MAXPENDINGREQUESTS = "zeebe.client.maxPendingRequests";
+
     /**
      * the size of the client's send buffer in MB
      */
@@ -69,6 +76,7 @@ public class ClientProperties
     {
         properties.putIfAbsent(BROKER_CONTACTPOINT, "127.0.0.1:51015");
         properties.putIfAbsent(CLIENT_MAXREQUESTS, "128");
+        properties.putIfAbsent(CLIENT_MAXPENDINGREQUESTS, "4096");
         properties.putIfAbsent(CLIENT_SENDBUFFER_SIZE, "16");
         properties.putIfAbsent(CLIENT_THREADINGMODE, "SHARED");
         properties.putIfAbsent(CLIENT_TASK_EXECUTION_THREADS, "2");
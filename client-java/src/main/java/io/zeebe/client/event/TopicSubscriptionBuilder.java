@@ -151,6 +151,36 @@ public interface TopicSubscriptionBuilder
     TopicSubscriptionBuilder name(String name);
 
 
+    /**
+     * Limits the subscription to events of the given types. The events are filtered
+     * by the broker, i.e. other events are not sent to the client.
+     *
+     * @param eventTypes the types of the events to receive
+     * @return this builder
+     */
+    TopicSubscriptionBuilder eventTypes(TopicEventType... eventTypes);
+
+    /**
+     * Limits the subscription to events in one of the given states, e.g. <code>CREATED</code>.
+     * The events are filtered by the broker.
+     *
+     * @param eventStates the states of the events to receive
+     * @return this builder
+     */
+    TopicSubscriptionBuilder eventStates(String... eventStates);
+
+    /**
+     * Limits the subscription to events which have the given value at the given JSON path,
+     * e.g. <code>valueFilter("$.bpmnProcessId", "order-process")</code>. The path must
+     * reference a (nested) property of the event, array elements and wildcards are not supported.
+     * The value is compared to string and integer properties. The events are filtered by the broker.
+     *
+     * @param jsonPath the path of the property to compare
+     * @param value the expected value of the property
+     * @return this builder
+     */
+    TopicSubscriptionBuilder valueFilter(String jsonPath, Object value);
+
     /**
      * Opens a new topic subscription with the defined parameters.
      *
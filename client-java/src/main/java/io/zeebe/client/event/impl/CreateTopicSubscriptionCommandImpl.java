@@ -53,6 +53,15 @@ public class CreateTopicSubscriptionCommandImpl extends CommandImpl<TopicSubscri
         return this;
     }
 
+    public CreateTopicSubscriptionCommandImpl filter(TopicSubscriptionFilter filter)
+    {
+        this.subscription.setEventTypes(filter.getEventTypes());
+        this.subscription.setEventStates(filter.getEventStates());
+        this.subscription.setValueFilterPath(filter.getValueFilterPath());
+        this.subscription.setValueFilterValue(filter.getValueFilterValue());
+        return this;
+    }
+
     @Override
     public EventImpl getEvent()
     {
@@ -17,6 +17,7 @@ package io.zeebe.client.event.impl;
 
 import io.zeebe.client.event.PollableTopicSubscription;
 import io.zeebe.client.event.PollableTopicSubscriptionBuilder;
+import io.zeebe.client.event.TopicEventType;
 import io.zeebe.client.task.impl.subscription.EventAcquisition;
 import io.zeebe.util.EnsureUtil;
 
@@ -79,4 +80,24 @@ public class PollableTopicSubscriptionBuilderImpl implements PollableTopicSubscr
         return this;
     }
 
+    @Override
+    public PollableTopicSubscriptionBuilder eventTypes(TopicEventType... eventTypes)
+    {
+        implBuilder.eventTypes(eventTypes);
+        return this;
+    }
+
+    @Override
+    public PollableTopicSubscriptionBuilder eventStates(String... eventStates)
+    {
+        implBuilder.eventStates(eventStates);
+        return this;
+    }
+
+    @Override
+    public PollableTopicSubscriptionBuilder valueFilter(String jsonPath, Object value)
+    {
+        implBuilder.valueFilter(jsonPath, value);
+        return this;
+    }
 }
@@ -15,6 +15,8 @@
  */
 package io.zeebe.client.event.impl;
 
+import java.util.List;
+
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -32,6 +34,11 @@ public class TopicSubscriberEvent extends EventImpl implements EventSubscription
     protected int prefetchCapacity = -1;
     protected boolean forceStart;
 
+    protected List<String> eventTypes;
+    protected List<String> eventStates;
+    protected String valueFilterPath;
+    protected String valueFilterValue;
+
     protected RemoteAddress remote;
 
     @JsonCreator
@@ -80,6 +87,46 @@ public class TopicSubscriberEvent extends EventImpl implements EventSubscription
         this.forceStart = forceStart;
     }
 
+    public List<String> getEventTypes()
+    {
+        return eventTypes;
+    }
+
+    public void setEventTypes(List<String> eventTypes)
+    {
+        this.eventTypes = eventTypes;
+    }
+
+    public List<String> getEventStates()
+    {
+        return eventStates;
+    }
+
+    public void setEventStates(List<String> eventStates)
+    {
+        this.eventStates = eventStates;
+    }
+
+    public String getValueFilterPath()
+    {
+        return valueFilterPath;
+    }
+
+    public void setValueFilterPath(String valueFilterPath)
+    {
+        this.valueFilterPath = valueFilterPath;
+    }
+
+    public String getValueFilterValue()
+    {
+        return valueFilterValue;
+    }
+
+    public void setValueFilterValue(String valueFilterValue)
+    {
+        this.valueFilterValue = valueFilterValue;
+    }
+
     @Override
     public void setReceiver(RemoteAddress receiver)
     {
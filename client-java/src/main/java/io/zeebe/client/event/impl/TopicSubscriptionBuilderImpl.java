@@ -178,4 +178,25 @@ public class TopicSubscriptionBuilderImpl implements TopicSubscriptionBuilder
         builder.forceStart();
         return this;
     }
+
+    @Override
+    public TopicSubscriptionBuilder eventTypes(TopicEventType... eventTypes)
+    {
+        builder.eventTypes(eventTypes);
+        return this;
+    }
+
+    @Override
+    public TopicSubscriptionBuilder eventStates(String... eventStates)
+    {
+        builder.eventStates(eventStates);
+        return this;
+    }
+
+    @Override
+    public TopicSubscriptionBuilder valueFilter(String jsonPath, Object value)
+    {
+        builder.valueFilter(jsonPath, value);
+        return this;
+    }
 }
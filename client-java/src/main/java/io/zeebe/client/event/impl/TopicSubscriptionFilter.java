@@ -0,0 +1,70 @@
+/*
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.client.event.impl;
+
+import java.util.List;
+
+/**
+ * The filter of a topic subscription which is evaluated by the broker.
+ * Properties which are not set are not sent.
+ */
+public class TopicSubscriptionFilter
+{
+    protected List<String> eventTypes;
+    protected List<String> eventStates;
+    protected String valueFilterPath;
+    protected String valueFilterValue;
+
+    public List<String> getEventTypes()
+    {
+        return eventTypes;
+    }
+
+    public void setEventTypes(List<String> eventTypes)
+    {
+        this.eventTypes = eventTypes;
+    }
+
+    public List<String> getEventStates()
+    {
+        return eventStates;
+    }
+
+    public void setEventStates(List<String> eventStates)
+    {
+        this.eventStates = eventStates;
+    }
+
+    public String getValueFilterPath()
+    {
+        return valueFilterPath;
+    }
+
+    public void setValueFilterPath(String valueFilterPath)
+    {
+        this.valueFilterPath = valueFilterPath;
+    }
+
+    public String getValueFilterValue()
+    {
+        return valueFilterValue;
+    }
+
+    public void setValueFilterValue(String valueFilterValue)
+    {
+        this.valueFilterValue = valueFilterValue;
+    }
+}
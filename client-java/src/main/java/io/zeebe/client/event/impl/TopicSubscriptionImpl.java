@@ -15,6 +15,8 @@
  */
 package io.zeebe.client.event.impl;
 
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import io.zeebe.client.event.PollableTopicSubscription;
@@ -39,10 +41,16 @@ public class TopicSubscriptionImpl
     protected volatile long lastProcessedEventPosition;
     protected long lastAcknowledgedPosition;
 
+    // at most one acknowledgement is in flight, further ones are coalesced
+    protected Future<TopicSubscriptionEvent> pendingAcknowledgement;
+    protected long positionBeforePendingAcknowledgement;
+    protected boolean hasDeferredAcknowledgement;
+
     protected final long startPosition;
     protected final boolean forceStart;
     protected final String name;
     protected final int prefetchCapacity;
+    protected final TopicSubscriptionFilter filter;
 
     public TopicSubscriptionImpl(
             TopicClientImpl client,
@@ -53,6 +61,7 @@ public class TopicSubscriptionImpl
             long startPosition,
             boolean forceStart,
             String name,
+            TopicSubscriptionFilter filter,
             EventAcquisition<TopicSubscriptionImpl> acquisition)
     {
         super(topic, partitionId, prefetchCapacity, acquisition);
@@ -69,6 +78,7 @@ public class TopicSubscriptionImpl
         this.startPosition = startPosition;
         this.forceStart = forceStart;
         this.name = name;
+        this.filter = filter;
         this.lastProcessedEventPosition = startPosition;
         this.lastAcknowledgedPosition = startPosition;
     }
@@ -147,21 +157,107 @@ public class TopicSubscriptionImpl
                 .prefetchCapacity(prefetchCapacity)
                 .name(name)
                 .forceStart(forceStart)
+                .filter(filter)
                 .execute();
     }
 
     @Override
     protected void requestSubscriptionClose()
     {
+        awaitPendingAcknowledgement();
         acknowledgeLastProcessedEvent();
 
         client.closeTopicSubscription(topic, partitionId, subscriberKey).execute();
     }
 
+    @Override
+    public boolean replenishEventSource()
+    {
+        final boolean replenished = super.replenishEventSource();
+
+        final boolean acknowledged = hasDeferredAcknowledgement && acknowledgeLastProcessedEventAsync();
+
+        return replenished || acknowledged;
+    }
+
     @Override
     protected void requestEventSourceReplenishment(int eventsProcessed)
     {
-        acknowledgeLastProcessedEvent();
+        acknowledgeLastProcessedEventAsync();
+    }
+
+    /**
+     * Sends the position of the last processed event without waiting for the response.
+     * If the previous acknowledgement is still in flight, then the acknowledgement is
+     * deferred and sent with the latest position once the previous one is done.
+     *
+     * @return true if an acknowledgement was sent
+     */
+    protected boolean acknowledgeLastProcessedEventAsync()
+    {
+        if (pendingAcknowledgement != null)
+        {
+            if (!pendingAcknowledgement.isDone())
+            {
+                hasDeferredAcknowledgement = true;
+                return false;
+            }
+
+            checkPendingAcknowledgement();
+        }
+
+        hasDeferredAcknowledgement = false;
+
+        // note: it is important we read lastProcessedEventPosition only once
+        //   as it be changed concurrently by an executor thread
+        final long positionToAck = lastProcessedEventPosition;
+
+        if (positionToAck > lastAcknowledgedPosition)
+        {
+            pendingAcknowledgement = client.acknowledgeEvent(topic, partitionId)
+                .subscriptionName(name)
+                .ackPosition(positionToAck)
+                .executeAsync();
+
+            positionBeforePendingAcknowledgement = lastAcknowledgedPosition;
+            lastAcknowledgedPosition = positionToAck;
+
+            return true;
+        }
+        else
+        {
+            return false;
+        }
+    }
+
+    protected void awaitPendingAcknowledgement()
+    {
+        if (pendingAcknowledgement != null)
+        {
+            checkPendingAcknowledgement();
+        }
+    }
+
+    /**
+     * Waits for the acknowledgement in flight. If it failed, then its position is acknowledged again.
+     */
+    protected void checkPendingAcknowledgement()
+    {
+        try
+        {
+            pendingAcknowledgement.get();
+        }
+        catch (InterruptedException | ExecutionException e)
+        {
+            LOGGER.warn("Topic subscription " + name + ": Could not acknowledge position " + lastAcknowledgedPosition + ". Retrying with the next acknowledgement.", e);
+
+            // the position is sent again with the next acknowledgement
+            lastAcknowledgedPosition = positionBeforePendingAcknowledgement;
+        }
+        finally
+        {
+            pendingAcknowledgement = null;
+        }
     }
 
     protected void acknowledgeLastProcessedEvent()
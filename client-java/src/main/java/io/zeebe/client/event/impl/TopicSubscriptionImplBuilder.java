@@ -15,7 +15,13 @@
  */
 package io.zeebe.client.event.impl;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import io.zeebe.client.event.TopicEventType;
 import io.zeebe.client.task.impl.subscription.EventAcquisition;
+import io.zeebe.protocol.clientapi.EventType;
 import io.zeebe.util.CheckedConsumer;
 import io.zeebe.util.EnsureUtil;
 
@@ -30,6 +36,7 @@ public class TopicSubscriptionImplBuilder
     protected String name;
     protected final int prefetchCapacity;
     protected boolean forceStart;
+    protected final TopicSubscriptionFilter filter = new TopicSubscriptionFilter();
 
     public TopicSubscriptionImplBuilder(
             TopicClientImpl client,
@@ -83,6 +90,41 @@ public class TopicSubscriptionImplBuilder
         return this;
     }
 
+    public TopicSubscriptionImplBuilder eventTypes(TopicEventType... eventTypes)
+    {
+        EnsureUtil.ensureNotNull("eventTypes", eventTypes);
+
+        final List<String> eventTypeNames = new ArrayList<>();
+        for (TopicEventType eventType : eventTypes)
+        {
+            final EventType protocolType = EventTypeMapping.mapEventType(eventType);
+            EnsureUtil.ensureNotNull("protocol event type of " + eventType, protocolType);
+
+            eventTypeNames.add(protocolType.name());
+        }
+
+        filter.setEventTypes(eventTypeNames);
+        return this;
+    }
+
+    public TopicSubscriptionImplBuilder eventStates(String... eventStates)
+    {
+        EnsureUtil.ensureNotNull("eventStates", eventStates);
+
+        filter.setEventStates(Arrays.asList(eventStates));
+        return this;
+    }
+
+    public TopicSubscriptionImplBuilder valueFilter(String jsonPath, Object value)
+    {
+        EnsureUtil.ensureNotNullOrEmpty("jsonPath", jsonPath);
+        EnsureUtil.ensureNotNull("value", value);
+
+        filter.setValueFilterPath(jsonPath);
+        filter.setValueFilterValue(String.valueOf(value));
+        return this;
+    }
+
     public CheckedConsumer<TopicEventImpl> getHandler()
     {
         return handler;
@@ -104,6 +146,7 @@ public class TopicSubscriptionImplBuilder
                 startPosition,
                 forceStart,
                 name,
+                filter,
                 acquisition);
 
         this.acquisition.registerSubscriptionAsync(subscription);
@@ -18,6 +18,7 @@ package io.zeebe.client.impl;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
@@ -52,9 +53,16 @@ public class RequestController implements BufferReader
 {
     private static final long CMD_TIMEOUT = TimeUnit.SECONDS.toMillis(5);
 
+    // backoff if the broker rejects a request because of backpressure
+    // (must match the error message of the broker's client api handler)
+    private static final String BACKPRESSURE_ERROR_MESSAGE = "Cannot execute command. Too many commands in flight.";
+    private static final long MIN_BACKOFF = 10;
+    private static final long MAX_BACKOFF = TimeUnit.SECONDS.toMillis(1);
+
     protected static final int TRANSITION_DEFAULT = 0;
     protected static final int TRANSITION_FAILED = 1;
     protected static final int TRANSITION_REFRESH_TOPOLOGY = 2;
+    protected static final int TRANSITION_BACKOFF = 3;
 
     protected final MessageHeaderDecoder messageHeaderDecoder = new MessageHeaderDecoder();
     protected final ErrorResponseDecoder errorResponseDecoder = new ErrorResponseDecoder();
@@ -65,6 +73,7 @@ public class RequestController implements BufferReader
     protected final AwaitTopologyRefreshState awaitTopologyRefreshState = new AwaitTopologyRefreshState();
     protected final ExecuteRequestState executeRequestState = new ExecuteRequestState();
     protected final HandleResponseState handleResponseState = new HandleResponseState();
+    protected final BackoffState backoffState = new BackoffState();
     protected final FinishedState finishedState = new FinishedState();
     protected final FailedState failedState = new FailedState();
     protected final ClosedState closedState = new ClosedState();
@@ -110,6 +119,8 @@ public class RequestController implements BufferReader
             .from(handleResponseState).take(TRANSITION_DEFAULT).to(finishedState)
             .from(handleResponseState).take(TRANSITION_FAILED).to(failedState)
             .from(handleResponseState).take(TRANSITION_REFRESH_TOPOLOGY).to(refreshTopologyState)
+            .from(handleResponseState).take(TRANSITION_BACKOFF).to(backoffState)
+            .from(backoffState).take(TRANSITION_DEFAULT).to(determineRemoteState)
             .from(finishedState).take(TRANSITION_DEFAULT).to(closedState)
             .from(failedState).take(TRANSITION_DEFAULT).to(closedState)
             .build();
@@ -141,6 +152,18 @@ public class RequestController implements BufferReader
         return stateMachine.doWork();
     }
 
+    /**
+     * Completes the future of the current request exceptionally. The request
+     * itself is not aborted, its result is ignored.
+     */
+    public void failRequest(Throwable cause)
+    {
+        if (future != null)
+        {
+            future.completeExceptionally(cause);
+        }
+    }
+
     public boolean isClosed()
     {
         return stateMachine.getCurrentState() == closedState && !isConfigured;
@@ -335,6 +358,16 @@ public class RequestController implements BufferReader
                 // topic not found -> refresh topology -> retry request
                 context.take(TRANSITION_REFRESH_TOPOLOGY);
             }
+            else if (isBackpressure(errorCode, context.errorBuffer))
+            {
+                // broker is overloaded -> retry request after backoff;
+                // keep the error as cause in case the request times out
+                context.exception = new BrokerErrorException(errorCode, BufferUtil.bufferAsString(context.errorBuffer));
+                context.errorCode = ErrorCode.NULL_VAL;
+                context.errorBuffer = null;
+
+                context.take(TRANSITION_BACKOFF);
+            }
             else
             {
                 context.take(TRANSITION_FAILED);
@@ -343,6 +376,51 @@ public class RequestController implements BufferReader
             return 1;
         }
 
+        /**
+         * The broker uses {@link ErrorCode#REQUEST_WRITE_FAILURE} also if it
+         * fails to write a response, so only a rejection with the backpressure
+         * message is retried.
+         */
+        protected boolean isBackpressure(ErrorCode errorCode, DirectBuffer errorBuffer)
+        {
+            return errorCode == ErrorCode.REQUEST_WRITE_FAILURE
+                    && errorBuffer != null
+                    && BufferUtil.bufferAsString(errorBuffer).startsWith(BACKPRESSURE_ERROR_MESSAGE);
+        }
+
+    }
+
+    /**
+     * Waits before the request is retried. The backoff grows exponentially with
+     * the number of attempts and is randomized (full jitter), so that clients
+     * which are rejected at the same time don't retry at the same time.
+     */
+    private static class BackoffState implements State<Context>
+    {
+        @Override
+        public int doWork(final Context context) throws Exception
+        {
+            final long now = ClockUtil.getCurrentTimeInMillis();
+
+            if (context.backoffUntil < 0)
+            {
+                final int exponent = Math.min(context.attempts, 30);
+                final long maxBackoff = Math.min(MAX_BACKOFF, MIN_BACKOFF << exponent);
+
+                context.backoffUntil = now + ThreadLocalRandom.current().nextLong(MIN_BACKOFF, maxBackoff + 1);
+            }
+
+            if (now >= context.backoffUntil)
+            {
+                context.backoffUntil = -1;
+                context.take(TRANSITION_DEFAULT);
+                return 1;
+            }
+            else
+            {
+                return 0;
+            }
+        }
     }
 
     private class FinishedState implements State<Context>
@@ -432,6 +510,7 @@ public class RequestController implements BufferReader
         MutableDirectBuffer errorBuffer;
         Exception exception;
         long timeout;
+        long backoffUntil = -1;
         RemoteAddress receiver;
 
         Context(final StateMachine<?> stateMachine)
@@ -448,6 +527,7 @@ public class RequestController implements BufferReader
             errorCode = ErrorCode.NULL_VAL;
             errorBuffer = null;
             exception = null;
+            backoffUntil = -1;
             contactedBrokers.clear();
         }
 
@@ -20,10 +20,12 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 import org.agrona.LangUtil;
+import org.agrona.concurrent.ManyToOneConcurrentArrayQueue;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import io.zeebe.client.clustering.impl.ClientTopologyManager;
+import io.zeebe.client.cmd.ClientException;
 import io.zeebe.client.event.Event;
 import io.zeebe.client.event.EventMetadata;
 import io.zeebe.client.event.impl.EventImpl;
@@ -31,6 +33,7 @@ import io.zeebe.client.impl.cmd.CommandImpl;
 import io.zeebe.client.task.impl.ControlMessageRequest;
 import io.zeebe.protocol.Protocol;
 import io.zeebe.transport.ClientTransport;
+import io.zeebe.util.DeferredCommandContext;
 import io.zeebe.util.actor.Actor;
 
 public class RequestManager implements Actor
@@ -39,30 +42,37 @@ public class RequestManager implements Actor
 
     protected final RequestController[] commandControllers;
     protected final ArrayBlockingQueue<RequestController> pooledCmds;
+    protected final ManyToOneConcurrentArrayQueue<PendingRequest> pendingRequests;
 
     protected final ClientTransport transport;
     protected final ClientTopologyManager topologyManager;
 
     protected final RequestDispatchStrategy dispatchStrategy;
 
+    protected final DeferredCommandContext commandContext = new DeferredCommandContext();
+
+    protected volatile boolean isClosed = false;
+
     public RequestManager(
             final ClientTransport transport,
             final ClientTopologyManager topologyManager,
             RequestDispatchStrategy dispatchStrategy,
             ObjectMapper objectMapper,
-            int capacity)
+            int capacity,
+            int pendingCapacity)
     {
         this.transport = transport;
         this.topologyManager = topologyManager;
         this.capacity = capacity;
 
         this.pooledCmds = new ArrayBlockingQueue<>(capacity);
+        this.pendingRequests = new ManyToOneConcurrentArrayQueue<>(pendingCapacity);
         this.commandControllers = new RequestController[capacity];
         this.dispatchStrategy = dispatchStrategy;
 
         for (int i = 0; i < capacity; i++)
         {
-            final RequestController controller = new RequestController(transport, topologyManager, objectMapper, ctrl -> pooledCmds.add(ctrl));
+            final RequestController controller = new RequestController(transport, topologyManager, objectMapper, this::releaseController);
             this.commandControllers[i] = controller;
             this.pooledCmds.add(controller);
         }
@@ -71,7 +81,12 @@ public class RequestManager implements Actor
     @Override
     public int doWork() throws Exception
     {
-        int wc = 0;
+        int wc = commandContext.doWork();
+
+        if (!isClosed)
+        {
+            wc += dispatchPendingRequests();
+        }
 
         for (int i = 0; i < capacity; i++)
         {
@@ -82,16 +97,111 @@ public class RequestManager implements Actor
         return wc;
     }
 
+    protected int dispatchPendingRequests()
+    {
+        int dispatched = 0;
+
+        // this actor is the only consumer of the pending requests
+        while (!pendingRequests.isEmpty())
+        {
+            final RequestController ctrl = pooledCmds.poll();
+            if (ctrl == null)
+            {
+                break;
+            }
+
+            final PendingRequest request = pendingRequests.poll();
+            ctrl.configureCommandRequest(request.command, request.future);
+            dispatched++;
+        }
+
+        return dispatched;
+    }
+
+    /**
+     * Invoked by a controller on this actor's thread when its request is done.
+     * A pending request takes the controller before it is returned to the pool,
+     * so that pending requests are not starved by callers which block on the pool.
+     */
+    protected void releaseController(RequestController ctrl)
+    {
+        final PendingRequest request = isClosed ? null : pendingRequests.poll();
+        if (request != null)
+        {
+            ctrl.configureCommandRequest(request.command, request.future);
+        }
+        else
+        {
+            pooledCmds.add(ctrl);
+        }
+    }
+
+    /**
+     * Rejects new requests and fails the pending and in-flight requests. The
+     * requests are failed by this actor, so it must be running until the
+     * returned future is completed.
+     */
+    public CompletableFuture<Void> closeAsync()
+    {
+        isClosed = true;
+
+        return commandContext.runAsync(future ->
+        {
+            failRequests();
+            future.complete(null);
+        });
+    }
+
+    protected void failRequests()
+    {
+        // this actor is the only consumer of the pending requests
+        PendingRequest request;
+        while ((request = pendingRequests.poll()) != null)
+        {
+            request.future.completeExceptionally(newClosedException());
+        }
+
+        for (int i = 0; i < capacity; i++)
+        {
+            commandControllers[i].failRequest(newClosedException());
+        }
+    }
+
+    /**
+     * A request which is configured or queued while the manager is closed may
+     * not be failed by {@link #closeAsync()}.
+     */
+    protected void failIfClosed(CompletableFuture<?> future)
+    {
+        if (isClosed)
+        {
+            future.completeExceptionally(newClosedException());
+        }
+    }
+
+    protected static ClientException newClosedException()
+    {
+        return new ClientException("Cannot execute request. Client is closed.");
+    }
+
     public <E extends Event> CompletableFuture<E> executeAsync(final CommandImpl<E> command)
     {
         ensureValidTarget(command);
 
         final CompletableFuture<E> future = new CompletableFuture<>();
 
+        if (isClosed)
+        {
+            future.completeExceptionally(newClosedException());
+            return future;
+        }
+
         try
         {
             final RequestController ctrl = pooledCmds.take();
             ctrl.configureCommandRequest(command, future);
+
+            failIfClosed(future);
         }
         catch (InterruptedException e)
         {
@@ -101,6 +211,39 @@ public class RequestManager implements Actor
         return future;
     }
 
+    /**
+     * Like {@link #executeAsync(CommandImpl)}, but does not block if all requests are in flight.
+     * The command is queued instead and sent by this actor once a request is available.
+     */
+    public <E extends Event> CompletableFuture<E> executeNonBlocking(final CommandImpl<E> command)
+    {
+        ensureValidTarget(command);
+
+        final CompletableFuture<E> future = new CompletableFuture<>();
+
+        if (isClosed)
+        {
+            future.completeExceptionally(newClosedException());
+            return future;
+        }
+
+        // do not overtake queued commands, so that they are sent in submission order
+        final RequestController ctrl = pendingRequests.isEmpty() ? pooledCmds.poll() : null;
+
+        if (ctrl != null)
+        {
+            ctrl.configureCommandRequest(command, future);
+        }
+        else if (!pendingRequests.offer(new PendingRequest(command, future)))
+        {
+            future.completeExceptionally(new ClientException("Cannot execute command. Too many pending requests (" + pendingRequests.capacity() + ")."));
+        }
+
+        failIfClosed(future);
+
+        return future;
+    }
+
     private <E extends Event> void ensureValidTarget(final CommandImpl<E> command)
     {
         final EventImpl event = command.getEvent();
@@ -132,10 +275,18 @@ public class RequestManager implements Actor
     {
         final CompletableFuture<E> future = new CompletableFuture<>();
 
+        if (isClosed)
+        {
+            future.completeExceptionally(newClosedException());
+            return future;
+        }
+
         try
         {
             final RequestController ctrl = pooledCmds.take();
             ctrl.configureControlMessageRequest(controlMessage, future);
+
+            failIfClosed(future);
         }
         catch (InterruptedException e)
         {
@@ -165,4 +316,16 @@ public class RequestManager implements Actor
     {
         return waitAndResolve(executeAsync(controlMessage));
     }
+
+    protected static class PendingRequest
+    {
+        protected final CommandImpl<?> command;
+        protected final CompletableFuture<?> future;
+
+        PendingRequest(CommandImpl<?> command, CompletableFuture<?> future)
+        {
+            this.command = command;
+            this.future = future;
+        }
+    }
 }
@@ -15,6 +15,7 @@
  */
 package io.zeebe.client.impl;
 
+import static io.zeebe.client.ClientProperties.CLIENT_MAXPENDINGREQUESTS;
 import static io.zeebe.client.ClientProperties.CLIENT_MAXREQUESTS;
 import static io.zeebe.client.ClientProperties.CLIENT_SENDBUFFER_SIZE;
 
@@ -80,6 +81,7 @@ public class ZeebeClientImpl implements ZeebeClient
         contactPoint = SocketAddress.from(properties.getProperty(ClientProperties.BROKER_CONTACTPOINT));
 
         final int maxRequests = Integer.parseInt(properties.getProperty(CLIENT_MAXREQUESTS));
+        final int maxPendingRequests = Integer.parseInt(properties.getProperty(CLIENT_MAXPENDINGREQUESTS));
         final int sendBufferSize = Integer.parseInt(properties.getProperty(CLIENT_SENDBUFFER_SIZE));
 
         this.transportActorScheduler = ActorSchedulerBuilder.createDefaultScheduler("transport");
@@ -137,7 +139,7 @@ public class ZeebeClientImpl implements ZeebeClient
         transport.registerChannelListener(subscriptionManager);
 
         topologyManager = new ClientTopologyManager(transport, objectMapper, contactPoint);
-        apiCommandManager = new RequestManager(transport, topologyManager, new DefaultPartitionStrategy(), objectMapper, maxRequests);
+        apiCommandManager = new RequestManager(transport, topologyManager, new DefaultPartitionStrategy(), objectMapper, maxRequests, maxPendingRequests);
     }
 
     @Override
@@ -156,12 +158,23 @@ public class ZeebeClientImpl implements ZeebeClient
 
     @Override
     public void disconnect()
+    {
+        disconnect(false);
+    }
+
+    protected void disconnect(boolean closeRequestManager)
     {
         if (connected)
         {
             subscriptionManager.closeAllSubscriptions();
             subscriptionManager.stop();
 
+            if (closeRequestManager)
+            {
+                // the requests are failed by the actor of the request manager
+                apiCommandManager.closeAsync().join();
+            }
+
             topologyManagerActorReference.close();
             topologyManagerActorReference = null;
 
@@ -177,7 +190,17 @@ public class ZeebeClientImpl implements ZeebeClient
     @Override
     public void close()
     {
-        disconnect();
+        if (connected)
+        {
+            disconnect(true);
+        }
+        else
+        {
+            // the requests are failed by the actor of the request manager
+            final ActorReference actorReference = transportActorScheduler.schedule(apiCommandManager);
+            apiCommandManager.closeAsync().join();
+            actorReference.close();
+        }
 
         subscriptionManager.close();
 
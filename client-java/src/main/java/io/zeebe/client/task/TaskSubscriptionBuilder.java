@@ -28,6 +28,13 @@ public interface TaskSubscriptionBuilder
      */
     TaskSubscriptionBuilder taskType(String taskType);
 
+    /**
+     * Sets the task types to subscribe to. The subscription receives the tasks
+     * of all of these types, the task fetch size is shared between them.
+     * Must not be empty.
+     */
+    TaskSubscriptionBuilder taskTypes(String... taskTypes);
+
     /**
      * Sets the lock duration for which subscribed tasks will be
      * exclusively locked for this task client.
@@ -16,7 +16,10 @@
 package io.zeebe.client.task.cmd;
 
 import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
 
+import io.zeebe.client.ClientProperties;
+import io.zeebe.client.cmd.ClientException;
 import io.zeebe.client.cmd.Request;
 import io.zeebe.client.event.TaskEvent;
 
@@ -44,4 +47,17 @@ public interface CompleteTaskCommand extends Request<TaskEvent>
      * alter the payload as it appears on the log. No follow-up processing depends on the payload.
      */
     CompleteTaskCommand withoutPayload();
+
+    /**
+     * <p>Completes the task without blocking the calling thread.
+     *
+     * <p>In contrast to {@link #executeAsync()}, this does not wait for a free request
+     * if {@link ClientProperties#CLIENT_MAXREQUESTS} requests are already in flight. Instead, the command
+     * is queued and sent as soon as one of the in-flight requests is answered. This allows a
+     * {@link io.zeebe.client.task.TaskHandler} to return immediately after the task is handled.
+     *
+     * @return a future of the completed task. It is completed exceptionally with a {@link ClientException}
+     *         if more than {@link ClientProperties#CLIENT_MAXPENDINGREQUESTS} commands are queued.
+     */
+    CompletableFuture<TaskEvent> completeAsync();
 }
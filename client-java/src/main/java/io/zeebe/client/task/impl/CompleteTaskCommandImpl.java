@@ -16,6 +16,7 @@
 package io.zeebe.client.task.impl;
 
 import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
 
 import io.zeebe.client.event.TaskEvent;
 import io.zeebe.client.event.impl.EventImpl;
@@ -69,4 +70,10 @@ public class CompleteTaskCommandImpl extends CommandImpl<TaskEvent> implements C
         return this;
     }
 
+    @Override
+    public CompletableFuture<TaskEvent> completeAsync()
+    {
+        return client.executeNonBlocking(this);
+    }
+
 }
@@ -15,6 +15,8 @@
  */
 package io.zeebe.client.task.impl;
 
+import java.util.Arrays;
+
 import io.zeebe.client.impl.RequestManager;
 import io.zeebe.client.impl.Partition;
 import io.zeebe.protocol.clientapi.ControlMessageType;
@@ -53,6 +55,12 @@ public class CreateTaskSubscriptionCommandImpl extends ControlMessageRequest<Tas
         return this;
     }
 
+    public CreateTaskSubscriptionCommandImpl additionalTaskTypes(final String... taskTypes)
+    {
+        this.subscription.setAdditionalTaskTypes(Arrays.asList(taskTypes));
+        return this;
+    }
+
     @Override
     public Object getRequest()
     {
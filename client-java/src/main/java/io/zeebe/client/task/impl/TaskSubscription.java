@@ -15,6 +15,9 @@
  */
 package io.zeebe.client.task.impl;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
@@ -30,6 +33,7 @@ public class TaskSubscription implements EventSubscriptionCreationResult, Receiv
     private long subscriberKey;
 
     private String taskType;
+    private List<String> additionalTaskTypes = new ArrayList<>();
 
     private long lockDuration;
     private String lockOwner;
@@ -50,6 +54,7 @@ public class TaskSubscription implements EventSubscriptionCreationResult, Receiv
         this.topicName = other.topicName;
         this.partitionId = other.partitionId;
         this.taskType = other.taskType;
+        this.additionalTaskTypes = new ArrayList<>(other.additionalTaskTypes);
         this.lockDuration = other.lockDuration;
         this.lockOwner = other.lockOwner;
         this.credits = other.credits;
@@ -86,6 +91,16 @@ public class TaskSubscription implements EventSubscriptionCreationResult, Receiv
         this.taskType = taskType;
     }
 
+    public List<String> getAdditionalTaskTypes()
+    {
+        return additionalTaskTypes;
+    }
+
+    public void setAdditionalTaskTypes(final List<String> additionalTaskTypes)
+    {
+        this.additionalTaskTypes = additionalTaskTypes;
+    }
+
     public long getLockDuration()
     {
         return lockDuration;
@@ -16,6 +16,7 @@
 package io.zeebe.client.task.impl.subscription;
 
 import java.time.Duration;
+import java.util.Arrays;
 
 import io.zeebe.client.impl.TasksClientImpl;
 import io.zeebe.client.impl.data.MsgPackMapper;
@@ -28,6 +29,7 @@ public class PollableTaskSubscriptionBuilderImpl implements PollableTaskSubscrip
 
     protected int taskFetchSize = TaskSubscriptionBuilderImpl.DEFAULT_TASK_FETCH_SIZE;
     protected String taskType;
+    protected String[] additionalTaskTypes = new String[0];
     protected long lockTime = Duration.ofMinutes(1).toMillis();
     protected String lockOwner;
 
@@ -55,6 +57,17 @@ public class PollableTaskSubscriptionBuilderImpl implements PollableTaskSubscrip
     public PollableTaskSubscriptionBuilder taskType(String taskType)
     {
         this.taskType = taskType;
+        this.additionalTaskTypes = new String[0];
+        return this;
+    }
+
+    @Override
+    public PollableTaskSubscriptionBuilder taskTypes(String... taskTypes)
+    {
+        EnsureUtil.ensureGreaterThan("number of task types", taskTypes.length, 0);
+
+        this.taskType = taskTypes[0];
+        this.additionalTaskTypes = Arrays.copyOfRange(taskTypes, 1, taskTypes.length);
         return this;
     }
 
@@ -89,6 +102,10 @@ public class PollableTaskSubscriptionBuilderImpl implements PollableTaskSubscrip
     public PollableTaskSubscription open()
     {
         EnsureUtil.ensureNotNullOrEmpty("taskType", taskType);
+        for (String additionalTaskType : additionalTaskTypes)
+        {
+            EnsureUtil.ensureNotNullOrEmpty("taskType", additionalTaskType);
+        }
         EnsureUtil.ensureGreaterThan("lockTime", lockTime, 0L);
         EnsureUtil.ensureNotNullOrEmpty("lockOwner", lockOwner);
         EnsureUtil.ensureGreaterThan("taskFetchSize", taskFetchSize, 0);
@@ -99,6 +116,7 @@ public class PollableTaskSubscriptionBuilderImpl implements PollableTaskSubscrip
                 partition,
                 null,
                 taskType,
+                additionalTaskTypes,
                 lockTime,
                 lockOwner,
                 taskFetchSize,
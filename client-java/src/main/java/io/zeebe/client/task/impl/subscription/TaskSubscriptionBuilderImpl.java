@@ -16,6 +16,7 @@
 package io.zeebe.client.task.impl.subscription;
 
 import java.time.Duration;
+import java.util.Arrays;
 
 import io.zeebe.client.impl.TasksClientImpl;
 import io.zeebe.client.impl.data.MsgPackMapper;
@@ -28,6 +29,7 @@ public class TaskSubscriptionBuilderImpl implements TaskSubscriptionBuilder
     public static final int DEFAULT_TASK_FETCH_SIZE = 32;
 
     protected String taskType;
+    protected String[] additionalTaskTypes = new String[0];
     protected long lockTime = -1L;
     protected String lockOwner;
     protected TaskHandler taskHandler;
@@ -57,6 +59,17 @@ public class TaskSubscriptionBuilderImpl implements TaskSubscriptionBuilder
     public TaskSubscriptionBuilder taskType(String taskType)
     {
         this.taskType = taskType;
+        this.additionalTaskTypes = new String[0];
+        return this;
+    }
+
+    @Override
+    public TaskSubscriptionBuilder taskTypes(String... taskTypes)
+    {
+        EnsureUtil.ensureGreaterThan("number of task types", taskTypes.length, 0);
+
+        this.taskType = taskTypes[0];
+        this.additionalTaskTypes = Arrays.copyOfRange(taskTypes, 1, taskTypes.length);
         return this;
     }
 
@@ -100,6 +113,10 @@ public class TaskSubscriptionBuilderImpl implements TaskSubscriptionBuilder
         EnsureUtil.ensureNotNull("taskHandler", taskHandler);
         EnsureUtil.ensureNotNullOrEmpty("lockOwner", lockOwner);
         EnsureUtil.ensureNotNullOrEmpty("taskType", taskType);
+        for (String additionalTaskType : additionalTaskTypes)
+        {
+            EnsureUtil.ensureNotNullOrEmpty("taskType", additionalTaskType);
+        }
         EnsureUtil.ensureGreaterThan("lockTime", lockTime, 0L);
         EnsureUtil.ensureGreaterThan("taskFetchSize", taskFetchSize, 0);
 
@@ -109,6 +126,7 @@ public class TaskSubscriptionBuilderImpl implements TaskSubscriptionBuilder
                 partition,
                 taskHandler,
                 taskType,
+                additionalTaskTypes,
                 lockTime,
                 lockOwner,
                 taskFetchSize,
@@ -15,6 +15,8 @@
  */
 package io.zeebe.client.task.impl.subscription;
 
+import java.util.Arrays;
+
 import org.slf4j.Logger;
 
 import io.zeebe.client.event.impl.TaskEventImpl;
@@ -35,6 +37,7 @@ public class TaskSubscriptionImpl
     protected final TasksClientImpl taskClient;
 
     protected final String taskType;
+    protected final String[] additionalTaskTypes;
     protected final long lockTime;
     protected final String lockOwner;
 
@@ -46,6 +49,7 @@ public class TaskSubscriptionImpl
             int partition,
             TaskHandler taskHandler,
             String taskType,
+            String[] additionalTaskTypes,
             long lockTime,
             String lockOwner,
             int capacity,
@@ -56,6 +60,7 @@ public class TaskSubscriptionImpl
         this.taskClient = client;
         this.taskHandler = taskHandler;
         this.taskType = taskType;
+        this.additionalTaskTypes = additionalTaskTypes;
         this.lockTime = lockTime;
         this.lockOwner = lockOwner;
         this.msgPackMapper = msgPackMapper;
@@ -136,6 +141,7 @@ public class TaskSubscriptionImpl
     {
         return taskClient.createTaskSubscription(topic, partitionId)
                 .taskType(taskType)
+                .additionalTaskTypes(additionalTaskTypes)
                 .lockDuration(lockTime)
                 .lockOwner(lockOwner)
                 .initialCredits(capacity)
@@ -151,6 +157,7 @@ public class TaskSubscriptionImpl
     @Override
     public String toString()
     {
-        return "TaskSubscriptionImpl [taskType=" + taskType + ", subscriberKey=" + subscriberKey + "]";
+        return "TaskSubscriptionImpl [taskType=" + taskType + ", additionalTaskTypes=" + Arrays.toString(additionalTaskTypes) +
+                ", subscriberKey=" + subscriberKey + "]";
     }
 }
@@ -148,6 +148,51 @@ public class ClientCommandManagerTest
         createTaskCmd().execute();
     }
 
+    @Test
+    public void shouldRetryRequestOnBackpressure()
+    {
+        // given
+        stubBackpressureResponse(1);
+        stubTaskResponse();
+
+        // when
+        final TaskEvent taskEvent = createTaskCmd().execute();
+
+        // then
+        assertThat(taskEvent).isNotNull();
+        assertCreateTaskRequests(2);
+    }
+
+    @Test
+    public void shouldFailRequestIfBackpressureDoesNotResolve()
+    {
+        // given
+        stubBackpressureResponse(Integer.MAX_VALUE);
+
+        // when
+        assertThatThrownBy(() -> createTaskCmd().execute())
+            .isInstanceOf(ClientException.class)
+            .hasMessageContaining("Cannot execute request (timeout)")
+            .hasCauseInstanceOf(BrokerErrorException.class);
+
+        // then the request is retried with backoff
+        assertThat(broker.getReceivedCommandRequests().size()).isGreaterThan(1).isLessThan(100);
+    }
+
+    @Test
+    public void shouldNotRetryRequestOnOtherWriteFailure()
+    {
+        // given
+        stubRequestWriteFailureResponse();
+
+        // when
+        assertThatThrownBy(() -> createTaskCmd().execute())
+            .isInstanceOf(RuntimeException.class)
+            .hasMessageContaining("Request exception (REQUEST_WRITE_FAILURE): Cannot write response.");
+
+        // then
+        assertCreateTaskRequests(1);
+    }
 
     protected CreateTaskCommand createTaskCmd()
     {
@@ -185,6 +230,24 @@ public class ClientCommandManagerTest
               .register();
     }
 
+    protected void stubBackpressureResponse(int times)
+    {
+        broker.onExecuteCommandRequest(ecr -> broker.getReceivedCommandRequests().size() <= times)
+              .respondWithError()
+                  .errorCode(ErrorCode.REQUEST_WRITE_FAILURE)
+                  .errorData("Cannot execute command. Too many commands in flight. Topic with name 'default-topic' and partition id '0' has 10 commands which are not processed yet.")
+              .register();
+    }
+
+    protected void stubRequestWriteFailureResponse()
+    {
+        broker.onExecuteCommandRequest(EventType.TASK_EVENT, "CREATE")
+              .respondWithError()
+                  .errorCode(ErrorCode.REQUEST_WRITE_FAILURE)
+                  .errorData("Cannot write response.")
+              .register();
+    }
+
     protected void stubTopicNotFoundResponse()
     {
         broker.onExecuteCommandRequest(EventType.TASK_EVENT, "CREATE")
@@ -18,6 +18,7 @@ package io.zeebe.client.event;
 import static io.zeebe.test.util.TestUtil.waitUntil;
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
@@ -124,6 +125,36 @@ public class TopicSubscriptionTest
         assertThat(subscribeRequest.getCommand()).containsEntry("forceStart", true);
     }
 
+    @Test
+    public void shouldOpenSubscriptionWithFilter()
+    {
+        // given
+        broker.stubTopicSubscriptionApi(123L);
+
+        // when
+        clientRule.topics().newSubscription(clientRule.getDefaultTopicName())
+            .startAtHeadOfTopic()
+            .eventTypes(TopicEventType.WORKFLOW_INSTANCE, TopicEventType.INCIDENT)
+            .eventStates("CREATED")
+            .valueFilter("$.bpmnProcessId", "foo")
+            .handler(DO_NOTHING)
+            .name(SUBSCRIPTION_NAME)
+            .open();
+
+        // then
+        final ExecuteCommandRequest subscribeRequest = broker.getReceivedCommandRequests()
+            .stream()
+            .filter((e) -> e.eventType() == EventType.SUBSCRIBER_EVENT)
+            .findFirst()
+            .get();
+
+        assertThat(subscribeRequest.getCommand())
+            .containsEntry("eventTypes", Arrays.asList("WORKFLOW_INSTANCE_EVENT", "INCIDENT_EVENT"))
+            .containsEntry("eventStates", Arrays.asList("CREATED"))
+            .containsEntry("valueFilterPath", "$.bpmnProcessId")
+            .containsEntry("valueFilterValue", "foo");
+    }
+
     @Test
     public void shouldOpenSubscriptionAtTailOfTopic()
     {
@@ -0,0 +1,155 @@
+/*
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.client.task;
+
+import static io.zeebe.test.broker.protocol.clientapi.ClientApiRule.DEFAULT_PARTITION_ID;
+import static io.zeebe.test.broker.protocol.clientapi.ClientApiRule.DEFAULT_TOPIC_NAME;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.RuleChain;
+
+import io.zeebe.client.ClientProperties;
+import io.zeebe.client.ZeebeClient;
+import io.zeebe.client.cmd.ClientException;
+import io.zeebe.client.event.TaskEvent;
+import io.zeebe.client.event.impl.TaskEventImpl;
+import io.zeebe.client.util.ClientRule;
+import io.zeebe.client.util.Events;
+import io.zeebe.protocol.clientapi.EventType;
+import io.zeebe.test.broker.protocol.brokerapi.ExecuteCommandRequest;
+import io.zeebe.test.broker.protocol.brokerapi.StubBrokerRule;
+
+public class CompleteTaskAsyncTest
+{
+    public ClientRule clientRule = new ClientRule(() ->
+    {
+        final Properties properties = new Properties();
+        properties.setProperty(ClientProperties.CLIENT_MAXREQUESTS, "1");
+        return properties;
+    });
+
+    public StubBrokerRule brokerRule = new StubBrokerRule();
+
+    @Rule
+    public RuleChain ruleChain = RuleChain.outerRule(brokerRule).around(clientRule);
+
+    @Test
+    public void shouldCompleteTaskAsync()
+    {
+        // given
+        final TaskEventImpl baseEvent = Events.exampleTask();
+
+        stubCompleteRequest();
+
+        // when
+        final TaskEvent taskEvent = clientRule.tasks()
+            .complete(baseEvent)
+            .completeAsync()
+            .join();
+
+        // then
+        final ExecuteCommandRequest request = brokerRule.getReceivedCommandRequests().get(0);
+        assertThat(request.eventType()).isEqualTo(EventType.TASK_EVENT);
+        assertThat(request.getCommand()).containsEntry("state", "COMPLETE");
+
+        assertThat(taskEvent.getMetadata().getKey()).isEqualTo(123L);
+        assertThat(taskEvent.getState()).isEqualTo("COMPLETED");
+    }
+
+    @Test
+    public void shouldQueueCompletionsIfAllRequestsAreInFlight()
+    {
+        // given
+        final int completions = 10;
+        final TaskEventImpl baseEvent = Events.exampleTask();
+
+        stubCompleteRequest();
+
+        // when
+        final List<CompletableFuture<TaskEvent>> futures = new ArrayList<>();
+        for (int i = 0; i < completions; i++)
+        {
+            futures.add(clientRule.tasks()
+                .complete(baseEvent)
+                .completeAsync());
+        }
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[completions])).join();
+
+        // then
+        assertThat(futures).allMatch(f -> "COMPLETED".equals(f.join().getState()));
+        assertThat(brokerRule.getReceivedCommandRequests()).hasSize(completions);
+    }
+
+    @Test
+    public void shouldFailInFlightAndQueuedCompletionsOnClose()
+    {
+        // given
+        final TaskEventImpl baseEvent = Events.exampleTask();
+
+        final ZeebeClient client = ZeebeClient.create(clientRule.getProperties());
+        client.connect();
+
+        // no response stubbed, so the first completion stays in flight
+        final CompletableFuture<TaskEvent> inFlightCompletion = client.tasks()
+            .complete(baseEvent)
+            .completeAsync();
+
+        final CompletableFuture<TaskEvent> queuedCompletion = client.tasks()
+            .complete(baseEvent)
+            .completeAsync();
+
+        // when
+        client.close();
+
+        // then
+        assertThatThrownBy(() -> inFlightCompletion.join())
+            .isInstanceOf(CompletionException.class)
+            .hasCauseInstanceOf(ClientException.class);
+
+        assertThatThrownBy(() -> queuedCompletion.join())
+            .isInstanceOf(CompletionException.class)
+            .hasCauseInstanceOf(ClientException.class);
+
+        assertThat(client.tasks()
+            .complete(baseEvent)
+            .completeAsync())
+            .isCompletedExceptionally();
+    }
+
+    protected void stubCompleteRequest()
+    {
+        brokerRule.onExecuteCommandRequest(EventType.TASK_EVENT, "COMPLETE")
+            .respondWith()
+            .topicName(DEFAULT_TOPIC_NAME)
+            .partitionId(DEFAULT_PARTITION_ID)
+            .key(123)
+            .event()
+              .allOf((r) -> r.getCommand())
+              .put("state", "COMPLETED")
+              .done()
+            .register();
+    }
+}
@@ -23,6 +23,7 @@ import static org.assertj.core.api.Assertions.entry;
 import java.io.IOException;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -132,6 +133,28 @@ public class TaskSubscriptionTest
         assertThat(((TaskSubscriptionImpl) subscription).getSubscriberKey()).isEqualTo(123L);
     }
 
+    @Test
+    public void shouldOpenSubscriptionForMultipleTaskTypes()
+    {
+        // given
+        broker.stubTaskSubscriptionApi(123L);
+
+        // when
+        clientRule.tasks().newTaskSubscription(clientRule.getDefaultTopicName())
+            .handler(DO_NOTHING)
+            .lockOwner("foo")
+            .lockTime(10000L)
+            .taskTypes("bar", "baz", "qux")
+            .open();
+
+        // then
+        final ControlMessageRequest subscriptionRequest = getSubscribeRequests().findFirst().get();
+
+        assertThat(subscriptionRequest.getData()).contains(
+                entry("taskType", "bar"),
+                entry("additionalTaskTypes", Arrays.asList("baz", "qux")));
+    }
+
     @Test
     public void shouldCloseSubscription()
     {
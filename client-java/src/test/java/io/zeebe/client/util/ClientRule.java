@@ -63,6 +63,11 @@ public class ClientRule extends ExternalResource
         return client;
     }
 
+    public Properties getProperties()
+    {
+        return properties;
+    }
+
     public TopicsClient topics()
     {
         return client.topics();
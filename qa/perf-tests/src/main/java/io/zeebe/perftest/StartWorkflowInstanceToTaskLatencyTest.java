@@ -0,0 +1,156 @@
+/*
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.perftest;
+
+import static io.zeebe.broker.workflow.graph.transformer.ZeebeExtensions.wrap;
+import static io.zeebe.perftest.CommonProperties.DEFAULT_TOPIC_NAME;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.camunda.bpm.model.bpmn.Bpmn;
+import org.camunda.bpm.model.bpmn.BpmnModelInstance;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.zeebe.client.WorkflowsClient;
+import io.zeebe.client.ZeebeClient;
+import io.zeebe.client.event.TaskEvent;
+import io.zeebe.perftest.helper.FixedRateLatencyTest;
+
+/**
+ * Measures the latency from sending the create workflow instance request until
+ * the task of the first service task is received by a task subscription. Compare
+ * the results of a broker with and without <code>workflow.chainTransitions</code>.
+ */
+public class StartWorkflowInstanceToTaskLatencyTest extends FixedRateLatencyTest
+{
+    private static final String TASK_TYPE = "foo";
+    private static final String REQUEST_ID = "requestId";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final AtomicLong requestIds = new AtomicLong();
+    private final Map<Long, CompletableFuture<TaskEvent>> pendingRequests = new ConcurrentHashMap<>();
+
+    @Override
+    protected void setDefaultProperties(Properties properties)
+    {
+        properties.putIfAbsent(TEST_REQUESTRATE, "1000");
+
+        super.setDefaultProperties(properties);
+    }
+
+    @Override
+    protected void executeSetup(Properties properties, ZeebeClient client)
+    {
+        final WorkflowsClient workflowsClient = client.workflows();
+
+        final BpmnModelInstance processModel = Bpmn.createExecutableProcess("process")
+                .startEvent()
+                .serviceTask("serviceTask")
+                .endEvent()
+                .done();
+
+        wrap(processModel).taskDefinition("serviceTask", TASK_TYPE, 3);
+
+        // create deployment
+        workflowsClient
+            .deploy(DEFAULT_TOPIC_NAME)
+            .bpmnModelInstance(processModel)
+            .execute();
+
+        client.tasks().newTaskSubscription(DEFAULT_TOPIC_NAME)
+            .lockTime(10000)
+            .lockOwner("test")
+            .taskFetchSize(1000)
+            .taskType(TASK_TYPE)
+            .handler((c, task) ->
+            {
+                final CompletableFuture<TaskEvent> request = pendingRequests.remove(readRequestId(task));
+                if (request != null)
+                {
+                    request.complete(task);
+                }
+
+                c.complete(task).withoutPayload().execute();
+            })
+            .open();
+
+        try
+        {
+            Thread.sleep(1000);
+        }
+        catch (InterruptedException e)
+        {
+            e.printStackTrace();
+        }
+    }
+
+    private long readRequestId(TaskEvent task)
+    {
+        try
+        {
+            return objectMapper.readTree(task.getPayload()).get(REQUEST_ID).asLong();
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException("Failed to read the request id of the task", e);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    protected Supplier<Future> requestFn(ZeebeClient client)
+    {
+        final WorkflowsClient workflowsClient = client.workflows();
+
+        return () ->
+        {
+            final long requestId = requestIds.incrementAndGet();
+
+            // the request is done when the task is received, not when the instance is created
+            final CompletableFuture<TaskEvent> request = new CompletableFuture<>();
+            pendingRequests.put(requestId, request);
+
+            try
+            {
+                workflowsClient.create(DEFAULT_TOPIC_NAME)
+                    .bpmnProcessId("process")
+                    .payload("{\"" + REQUEST_ID + "\":" + requestId + "}")
+                    .executeAsync();
+            }
+            catch (RuntimeException e)
+            {
+                pendingRequests.remove(requestId);
+                throw e;
+            }
+
+            return request;
+        };
+    }
+
+    public static void main(String[] args)
+    {
+        new StartWorkflowInstanceToTaskLatencyTest().run();
+    }
+}